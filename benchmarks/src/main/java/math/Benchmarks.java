@@ -0,0 +1,29 @@
+package math;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks whose names match the (optional) regular expression
+ * arguments with the gc profiler attached, so that the allocation rate gets
+ * reported next to the timings. Equivalent to
+ * {@code java -jar target/benchmarks.jar -prof gc <regexp>}.
+ */
+public final class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        for (String regexp : args) {
+            builder.include(regexp);
+        }
+        Options opts = builder.addProfiler(GCProfiler.class).build();
+        new Runner(opts).run();
+    }
+
+    private Benchmarks() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,59 @@
+package math.base;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LinSpace#eval(DFunction)} with a single function and with composed
+ * {@link OneDFun} chains of increasing depth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LinSpaceBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int points;
+
+    private LinSpace space;
+    private DFunction sin;
+    private DFunction sinOfExp;
+    private DFunction gaussOfSinOfMul;
+
+    @Setup
+    public void setup() {
+        space = LinSpace.linspace(-2.0, 2.0, points);
+        sin = Sin.op.fun();
+        sinOfExp = Sin.op.compose(Exp.op).fun();
+        gaussOfSinOfMul = new Gauss(0.5).compose(Sin.op.compose(new MulConst(3.0))).fun();
+    }
+
+    @Benchmark
+    public LinSpace single() {
+        return space.eval(sin);
+    }
+
+    @Benchmark
+    public LinSpace composed2() {
+        return space.eval(sinOfExp);
+    }
+
+    @Benchmark
+    public LinSpace composed3() {
+        return space.eval(gaussOfSinOfMul);
+    }
+}
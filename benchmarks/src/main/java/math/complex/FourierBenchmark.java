@@ -0,0 +1,66 @@
+package math.complex;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The forward DFT of real input and the inverse DFT of complex input for the
+ * different paths of {@link Fourier}:
+ * <ul>
+ * <li>{@link Fourier#inverseDFT(ComplexArray)} runs the radix 2/4 FFT for
+ * power of two lengths, {@link MixedRadix} for the other 7-smooth lengths and
+ * {@link Bluestein} for lengths with larger prime factors.</li>
+ * <li>{@link Fourier#forwardDFT(double[])} sends every even length to
+ * {@link RealFft} (one complex FFT of half the length), odd lengths take the
+ * same path as the inverse.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FourierBenchmark {
+
+    // power of two: 256, 1024, 65536 (real-input for forwardDFT)
+    // 7-smooth: 1000 (real-input for forwardDFT), 3675 = 3 * 5^2 * 7^2
+    // prime / Bluestein: 4093, 65537
+    @Param({ "256", "1024", "65536", "1000", "3675", "4093", "65537" })
+    public int n;
+
+    private double[] data;
+    private ComplexArray spectrum;
+
+    @Setup
+    public void setup() {
+        Random rng = new Random(1L);
+        data = new double[n];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (rng.nextDouble() * 2.0) - 1.0;
+        }
+        spectrum = Fourier.forwardDFT(data);
+    }
+
+    @Benchmark
+    public ComplexArray forwardDFT() {
+        return Fourier.forwardDFT(data);
+    }
+
+    @Benchmark
+    public ComplexArray inverseDFT() {
+        return Fourier.inverseDFT(spectrum);
+    }
+}
@@ -0,0 +1,74 @@
+package math.fit;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link SplineInterpolator#value(double)} and
+ * {@link KrugerInterpolator#value(double)} evaluated at {@code POINTS}
+ * random points, for a varying number of knots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpolatorBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({ "16", "256", "4096" })
+    public int knots;
+
+    private SplineInterpolator spline;
+    private KrugerInterpolator kruger;
+    private double[] points;
+
+    @Setup
+    public void setup() {
+        Random rng = new Random(1L);
+        double[] x = new double[knots];
+        double[] y = new double[knots];
+        for (int i = 0; i < knots; ++i) {
+            x[i] = i;
+            y[i] = Math.sin(0.1 * i) + 0.1 * rng.nextDouble();
+        }
+        spline = new SplineInterpolator(x, y);
+        kruger = new KrugerInterpolator(x, y);
+        points = new double[POINTS];
+        for (int i = 0; i < POINTS; ++i) {
+            points[i] = rng.nextDouble() * (knots - 1);
+        }
+    }
+
+    @Benchmark
+    public double spline() {
+        double sum = 0.0;
+        for (int i = 0; i < points.length; ++i) {
+            sum += spline.value(points[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double kruger() {
+        double sum = 0.0;
+        for (int i = 0; i < points.length; ++i) {
+            sum += kruger.value(points[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,27 @@
+package math.matrix;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Floating point operation counter. In throughput mode with an output time
+ * unit of seconds JMH reports the {@code gflop} counter as GFLOP/s.
+ */
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class Flops {
+
+    public double gflop;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        gflop = 0.0;
+    }
+
+    void add(double flops) {
+        gflop += flops * 1.0e-9;
+    }
+}
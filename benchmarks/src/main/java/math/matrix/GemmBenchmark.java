@@ -0,0 +1,89 @@
+package math.matrix;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Square {@code (size x size)} GEMM and TRMM for all operand layouts.
+ * Reports ops/s, GFLOP/s (the {@code gflop} counter) and, with
+ * {@code -prof gc}, the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GemmBenchmark {
+
+    @Param({ "64", "256", "1024" })
+    public int size;
+
+    @Param({ "COL_MAJOR", "ROW_MAJOR" })
+    public Layout layout;
+
+    private double[] A;
+    private double[] B;
+    private double[] C;
+    private int inc_row;
+    private int inc_col;
+    private double gemmFlops;
+    private double trmmFlops;
+
+    @Setup
+    public void setup() {
+        Random rng = new Random(1L);
+        A = randomData(rng, size * size);
+        B = randomData(rng, size * size);
+        C = new double[size * size];
+        inc_row = (layout == Layout.COL_MAJOR) ? 1 : size;
+        inc_col = (layout == Layout.COL_MAJOR) ? size : 1;
+        gemmFlops = 2.0 * size * size * size;
+        trmmFlops = (double) size * size * size;
+    }
+
+    @Benchmark
+    public double[] dgemm4x4(Flops flops) {
+        Dgemm4x4.dgemm(size, size, size, 1.0, A, inc_row, inc_col, B, inc_row, inc_col, 0.0, C, inc_row, inc_col);
+        flops.add(gemmFlops);
+        return C;
+    }
+
+    @Benchmark
+    public double[] gemm(Flops flops) {
+        Gemm.gemm(size, size, size, 1.0, 0, A, inc_row, inc_col, 0, B, inc_row, inc_col, 0.0, 0, C, inc_row,
+                inc_col);
+        flops.add(gemmFlops);
+        return C;
+    }
+
+    @Benchmark
+    public double[] trmm(Flops flops) {
+        // Trmm expects column major storage, a row major A is the transposed
+        // column major one
+        System.arraycopy(B, 0, C, 0, C.length);
+        Trmm.trmm(true, false, layout == Layout.ROW_MAJOR, false, size, size, 1.0, A, 0, size, C, 0, size);
+        flops.add(trmmFlops);
+        return C;
+    }
+
+    private static double[] randomData(Random rng, int length) {
+        double[] a = new double[length];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = (rng.nextDouble() * 2.0) - 1.0;
+        }
+        return a;
+    }
+}
@@ -28,31 +28,19 @@ package math.complex;
 final class Bluestein {
 
     static ComplexArray forwardDFT(double[] data, double[] imag) {
-        // find a power of 2 convolution length m such that m >= n * 2 + 1
-        int n = data.length;
-        if (n >= 0x20000000) {
-            throw new IllegalArgumentException("array too large: " + n);
-        }
-
-        double[] cos = new double[n];
-        double[] sin = new double[n];
-        for (int i = 0; i < n; ++i) {
-            int j = (int) ((long) i * i % (n * 2));
-            double angle = Math.PI * j / n;
-            cos[i] = Math.cos(angle);
-            sin[i] = Math.sin(angle);
-        }
+        return forwardDFT(data, imag, true);
+    }
 
-        int m = Integer.highestOneBit(n) * 4;
+    static ComplexArray forwardDFT(double[] data, double[] imag, boolean threshold) {
+        int n = data.length;
+        Chirp chirp = Chirp.of(n);
+        double[] cos = chirp.cos;
+        double[] sin = chirp.sin;
+        int m = chirp.m;
 
         // temporary arrays
         double[] a_re = new double[m];
         double[] a_im = new double[m];
-        double[] b_re = new double[m];
-        double[] b_im = new double[m];
-
-        b_re[0] = cos[0];
-        b_im[0] = sin[0];
 
         for (int i = 0; i < n; ++i) {
             double sin_i = sin[i];
@@ -61,16 +49,21 @@ final class Bluestein {
             double im_i = (imag != null) ? imag[i] : 0.0;
             a_re[i] = re_i * cos_i + im_i * sin_i;
             a_im[i] = -re_i * sin_i + im_i * cos_i;
-            if (i != 0) {
-                b_re[i] = b_re[m - i] = cos_i;
-                b_im[i] = b_im[m - i] = sin_i;
-            }
         }
 
-        // convolution
-        ComplexArray conv = convolve(new ComplexArray(a_re, a_im, false), new ComplexArray(b_re, b_im, false));
-        double[] c_re = conv.re();
-        double[] c_im = conv.im();
+        // convolution with the chirp (whose spectrum is cached)
+        Fourier.forwardInPlace(a_re, a_im, 0, m);
+        double[] b_re = chirp.spectrumRe;
+        double[] b_im = chirp.spectrumIm;
+        for (int i = 0; i < m; ++i) {
+            double x_re_i = a_re[i];
+            double y_re_i = b_re[i];
+            double x_im_i = a_im[i];
+            double y_im_i = b_im[i];
+            a_re[i] = x_re_i * y_re_i - x_im_i * y_im_i;
+            a_im[i] = x_im_i * y_re_i + x_re_i * y_im_i;
+        }
+        Fourier.inverseInPlace(a_re, a_im, 0, m);
 
         // result
         double[] re = new double[n];
@@ -80,12 +73,17 @@ final class Bluestein {
         for (int i = 0; i < n; ++i) {
             double sin_i = sin[i];
             double cos_i = cos[i];
-            double c_re_i = c_re[i];
-            double c_im_i = c_im[i];
+            double c_re_i = a_re[i];
+            double c_im_i = a_im[i];
             double re_i = c_re_i * cos_i + c_im_i * sin_i;
             double im_i = -c_re_i * sin_i + c_im_i * cos_i;
-            re[i] = (Math.abs(re_i) <= ComplexArray.TOL) ? 0.0 : re_i;
-            im[i] = (Math.abs(im_i) <= ComplexArray.TOL) ? 0.0 : im_i;
+            if (threshold) {
+                re[i] = (Math.abs(re_i) <= ComplexArray.TOL) ? 0.0 : re_i;
+                im[i] = (Math.abs(im_i) <= ComplexArray.TOL) ? 0.0 : im_i;
+            } else {
+                re[i] = re_i;
+                im[i] = im_i;
+            }
         }
 
         return new ComplexArray(re, im, false);
@@ -113,26 +111,66 @@ final class Bluestein {
         return inv;
     }
 
-    private static ComplexArray convolve(ComplexArray x, ComplexArray y) {
-
-        x = Fourier.forwardDFT(x.re(), x.im());
-        y = Fourier.forwardDFT(y.re(), y.im());
+    //
+    // The chirp exp(pi*i*k^2/n) for a transform length n and the spectrum of
+    // the convolution kernel built from it. Both depend only on n, so they
+    // get computed once per length and cached like the FftPlans.
+    //
+    private static final class Chirp {
+
+        // at most 16 cached chirps holding at most 64 MiB, larger ones get
+        // recomputed on each transform
+        private static final long MAX_CACHED_DOUBLES = 1L << 23;
+
+        private static final PlanCache<Chirp> chirps = new PlanCache<Chirp>(16, MAX_CACHED_DOUBLES) {
+            @Override
+            Chirp create(int n) {
+                return new Chirp(n);
+            }
 
-        double[] x_re = x.re();
-        double[] x_im = x.im();
-        double[] y_re = y.re();
-        double[] y_im = y.im();
+            @Override
+            long weight(Chirp chirp) {
+                return 2L * chirp.cos.length + 2L * chirp.m;
+            }
+        };
+
+        // power of 2 convolution length m >= n * 2 + 1
+        final int m;
+        final double[] cos;
+        final double[] sin;
+        final double[] spectrumRe;
+        final double[] spectrumIm;
+
+        private Chirp(int n) {
+            cos = new double[n];
+            sin = new double[n];
+            for (int i = 0; i < n; ++i) {
+                int j = (int) ((long) i * i % (n * 2));
+                double angle = Math.PI * j / n;
+                cos[i] = Math.cos(angle);
+                sin[i] = Math.sin(angle);
+            }
 
-        for (int i = 0; i < x_re.length; ++i) {
-            double x_re_i = x_re[i];
-            double y_re_i = y_re[i];
-            double x_im_i = x_im[i];
-            double y_im_i = y_im[i];
-            x_re[i] = x_re_i * y_re_i - x_im_i * y_im_i;
-            x_im[i] = x_im_i * y_re_i + x_re_i * y_im_i;
+            m = Integer.highestOneBit(n) * 4;
+            double[] b_re = new double[m];
+            double[] b_im = new double[m];
+            b_re[0] = cos[0];
+            b_im[0] = sin[0];
+            for (int i = 1; i < n; ++i) {
+                b_re[i] = b_re[m - i] = cos[i];
+                b_im[i] = b_im[m - i] = sin[i];
+            }
+            Fourier.forwardInPlace(b_re, b_im, 0, m);
+            spectrumRe = b_re;
+            spectrumIm = b_im;
         }
 
-        return Fourier.inverseDFT(new ComplexArray(x_re, x_im, false));
+        static Chirp of(int n) {
+            if (n >= 0x20000000) {
+                throw new IllegalArgumentException("array too large: " + n);
+            }
+            return chirps.get(n);
+        }
     }
 
     private Bluestein() {
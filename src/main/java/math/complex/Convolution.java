@@ -0,0 +1,414 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * Linear and circular convolution and cross-correlation of real and complex
+ * sequences. Depending on the sizes the results are computed directly (in
+ * {@code O(n*m)}) or by way of FFTs of a fast (2, 3, 5-smooth) length. The
+ * FFT based results are not thresholded, i.e. values that are exactly zero
+ * mathematically may come out as round-off sized numbers.
+ * <p>
+ * For streams see {@link OverlapAdd} and {@link OverlapSave}.
+ */
+public final class Convolution {
+
+    // the direct method is used if the number of multiply-adds n * m is at
+    // most DIRECT_COST * L * log2(L) (L the FFT length), about where the
+    // real FFT path starts to win
+    static final int DIRECT_COST = 4;
+
+    /**
+     * Linear convolution {@code z[k] = sum_i x[i] * h[k - i]},
+     * {@code k = 0, ..., n + m - 2}.
+     *
+     * @param x
+     *            the first sequence (of length {@code n})
+     * @param h
+     *            the second sequence (of length {@code m})
+     * @return the convolution (of length {@code n + m - 1}, empty if
+     *         {@code n} or {@code m} is zero)
+     */
+    public static double[] convolve(double[] x, double[] h) {
+        final int n = x.length;
+        final int m = h.length;
+        if (n == 0 || m == 0) {
+            return new double[0];
+        }
+        int len = n + m - 1;
+        int L = 2 * fastLength((len + 1) / 2);
+        if (useDirect(n, m, L)) {
+            return directReal(x, h);
+        }
+        return realFftProduct(x, h, false, L, len);
+    }
+
+    /**
+     * Linear convolution {@code z[k] = sum_i x[i] * h[k - i]},
+     * {@code k = 0, ..., n + m - 2}, of complex sequences.
+     *
+     * @param x
+     *            the first sequence (of length {@code n})
+     * @param h
+     *            the second sequence (of length {@code m})
+     * @return the convolution (of length {@code n + m - 1}, empty if
+     *         {@code n} or {@code m} is zero)
+     */
+    public static ComplexArray convolve(ComplexArray x, ComplexArray h) {
+        return convolve(x.re(), x.im(), h.re(), h.im());
+    }
+
+    /**
+     * Circular convolution {@code z[k] = sum_i x[i] * h[(k - i) mod n]} of
+     * two sequences of the same length {@code n}.
+     *
+     * @param x
+     *            the first sequence
+     * @param h
+     *            the second sequence
+     * @return the circular convolution (of length {@code n})
+     */
+    public static double[] circularConvolve(double[] x, double[] h) {
+        checkSameLength(x.length, h.length);
+        return circular(x, h, false);
+    }
+
+    /**
+     * Circular convolution {@code z[k] = sum_i x[i] * h[(k - i) mod n]} of
+     * two complex sequences of the same length {@code n}.
+     *
+     * @param x
+     *            the first sequence
+     * @param h
+     *            the second sequence
+     * @return the circular convolution (of length {@code n})
+     */
+    public static ComplexArray circularConvolve(ComplexArray x, ComplexArray h) {
+        checkSameLength(x.length(), h.length());
+        return circular(x.re(), x.im(), h.re(), h.im(), false);
+    }
+
+    /**
+     * Cross-correlation {@code r[k] = sum_i x[i + k - (m - 1)] * y[i]},
+     * {@code k = 0, ..., n + m - 2}, i.e. {@code r[k]} is the correlation at
+     * the lag {@code k - (m - 1)}.
+     *
+     * @param x
+     *            the first sequence (of length {@code n})
+     * @param y
+     *            the second sequence (of length {@code m})
+     * @return the cross-correlation (of length {@code n + m - 1}, empty if
+     *         {@code n} or {@code m} is zero)
+     */
+    public static double[] correlate(double[] x, double[] y) {
+        final int m = y.length;
+        double[] rev = new double[m];
+        for (int i = 0; i < m; ++i) {
+            rev[i] = y[m - 1 - i];
+        }
+        return convolve(x, rev);
+    }
+
+    /**
+     * Cross-correlation {@code r[k] = sum_i x[i + k - (m - 1)] * conj(y[i])},
+     * {@code k = 0, ..., n + m - 2}, of complex sequences, i.e. {@code r[k]}
+     * is the correlation at the lag {@code k - (m - 1)}.
+     *
+     * @param x
+     *            the first sequence (of length {@code n})
+     * @param y
+     *            the second sequence (of length {@code m})
+     * @return the cross-correlation (of length {@code n + m - 1}, empty if
+     *         {@code n} or {@code m} is zero)
+     */
+    public static ComplexArray correlate(ComplexArray x, ComplexArray y) {
+        final int m = y.length();
+        final double[] yR = y.re();
+        final double[] yI = y.im();
+        double[] revR = new double[m];
+        double[] revI = new double[m];
+        for (int i = 0; i < m; ++i) {
+            revR[i] = yR[m - 1 - i];
+            revI[i] = -yI[m - 1 - i];
+        }
+        return convolve(x.re(), x.im(), revR, revI);
+    }
+
+    /**
+     * Circular cross-correlation {@code r[k] = sum_i x[(i + k) mod n] * y[i]}
+     * of two sequences of the same length {@code n}.
+     *
+     * @param x
+     *            the first sequence
+     * @param y
+     *            the second sequence
+     * @return the circular cross-correlation (of length {@code n})
+     */
+    public static double[] circularCorrelate(double[] x, double[] y) {
+        checkSameLength(x.length, y.length);
+        return circular(x, y, true);
+    }
+
+    /**
+     * Circular cross-correlation
+     * {@code r[k] = sum_i x[(i + k) mod n] * conj(y[i])} of two complex
+     * sequences of the same length {@code n}.
+     *
+     * @param x
+     *            the first sequence
+     * @param y
+     *            the second sequence
+     * @return the circular cross-correlation (of length {@code n})
+     */
+    public static ComplexArray circularCorrelate(ComplexArray x, ComplexArray y) {
+        checkSameLength(x.length(), y.length());
+        return circular(x.re(), x.im(), y.re(), y.im(), true);
+    }
+
+    /**
+     * Returns the smallest {@code L >= n} that has no prime factors other
+     * than 2, 3 and 5 (for which the FFT is fast).
+     *
+     * @param n
+     *            the minimum length
+     * @return the fast FFT length {@code L >= n}
+     */
+    public static int fastLength(int n) {
+        if (n <= 1) {
+            return 1;
+        }
+        long best = Long.highestOneBit(2L * n - 1);
+        for (long p5 = 1; p5 < best; p5 *= 5) {
+            for (long p35 = p5; p35 < best; p35 *= 3) {
+                // the smallest p35 * 2^k >= n
+                long l = p35;
+                while (l < n) {
+                    l <<= 1;
+                }
+                best = Math.min(best, l);
+            }
+        }
+        if (best > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("length too large: " + n);
+        }
+        return (int) best;
+    }
+
+    private static ComplexArray convolve(double[] xR, double[] xI, double[] hR, double[] hI) {
+        final int n = xR.length;
+        final int m = hR.length;
+        if (n == 0 || m == 0) {
+            return new ComplexArray(0);
+        }
+        int len = n + m - 1;
+        int L = fastLength(len);
+        if (useDirect(n, m, L)) {
+            return directComplex(xR, xI, hR, hI);
+        }
+        return complexFftProduct(xR, xI, hR, hI, false, L, len);
+    }
+
+    private static double[] circular(double[] x, double[] h, boolean correlate) {
+        final int n = x.length;
+        if (n == 0) {
+            return new double[0];
+        }
+        if (useDirect(n, n, n)) {
+            return directCircularReal(x, h, correlate);
+        }
+        if (n % 2 == 0) {
+            return realFftProduct(x, h, correlate, n, n);
+        }
+        return complexFftProduct(x, null, h, null, correlate, n, n).re();
+    }
+
+    private static ComplexArray circular(double[] xR, double[] xI, double[] hR, double[] hI, boolean correlate) {
+        final int n = xR.length;
+        if (n == 0) {
+            return new ComplexArray(0);
+        }
+        if (useDirect(n, n, n)) {
+            return directCircularComplex(xR, xI, hR, hI, correlate);
+        }
+        return complexFftProduct(xR, xI, hR, hI, correlate, n, n);
+    }
+
+    private static boolean useDirect(int n, int m, int L) {
+        long log2L = 32 - Integer.numberOfLeadingZeros(L);
+        return (long) n * m <= DIRECT_COST * log2L * L;
+    }
+
+    //
+    // The first len values of the circular convolution (or, if conjH is
+    // true, correlation) of length L (even) of the real x and h, both
+    // zero-padded to L
+    //
+    private static double[] realFftProduct(double[] x, double[] h, boolean conjH, int L, int len) {
+        final int half = L >> 1;
+        double[] xR = new double[half + 1];
+        double[] xI = new double[half + 1];
+        double[] hR = new double[half + 1];
+        double[] hI = new double[half + 1];
+        pack(x, xR, xI);
+        pack(h, hR, hI);
+        RealFft.forwardPacked(xR, xI, L);
+        RealFft.forwardPacked(hR, hI, L);
+        multiply(xR, xI, hR, hI, half + 1, conjH);
+        RealFft.inversePacked(xR, xI, L);
+        double[] z = new double[len];
+        for (int k = 0; k < len; ++k) {
+            z[k] = ((k & 1) == 0) ? xR[k >> 1] : xI[k >> 1];
+        }
+        return z;
+    }
+
+    // re[k] = x[2k], im[k] = x[2k+1] (x zero-padded)
+    private static void pack(double[] x, double[] re, double[] im) {
+        for (int i = 0; i < x.length; ++i) {
+            if ((i & 1) == 0) {
+                re[i >> 1] = x[i];
+            } else {
+                im[i >> 1] = x[i];
+            }
+        }
+    }
+
+    //
+    // The first len values of the circular convolution (or correlation) of
+    // length L of x and h, both zero-padded to L (xI and hI may be null)
+    //
+    private static ComplexArray complexFftProduct(double[] xR, double[] xI, double[] hR, double[] hI,
+            boolean conjH, int L, int len) {
+        double[] aR = new double[L];
+        double[] aI = new double[L];
+        double[] bR = new double[L];
+        double[] bI = new double[L];
+        System.arraycopy(xR, 0, aR, 0, xR.length);
+        System.arraycopy(hR, 0, bR, 0, hR.length);
+        if (xI != null) {
+            System.arraycopy(xI, 0, aI, 0, xI.length);
+        }
+        if (hI != null) {
+            System.arraycopy(hI, 0, bI, 0, hI.length);
+        }
+        Fourier.forwardInPlace(aR, aI, 0, L);
+        Fourier.forwardInPlace(bR, bI, 0, L);
+        multiply(aR, aI, bR, bI, L, conjH);
+        Fourier.inverseInPlace(aR, aI, 0, L);
+        if (len < L) {
+            double[] zR = new double[len];
+            double[] zI = new double[len];
+            System.arraycopy(aR, 0, zR, 0, len);
+            System.arraycopy(aI, 0, zI, 0, len);
+            return new ComplexArray(zR, zI, false);
+        }
+        return new ComplexArray(aR, aI, false);
+    }
+
+    // a <- a * b (or a * conj(b)) for the first n values
+    static void multiply(double[] aR, double[] aI, double[] bR, double[] bI, int n, boolean conjB) {
+        final double sign = conjB ? -1.0 : 1.0;
+        for (int k = 0; k < n; ++k) {
+            double a_re = aR[k];
+            double a_im = aI[k];
+            double b_re = bR[k];
+            double b_im = sign * bI[k];
+            aR[k] = a_re * b_re - a_im * b_im;
+            aI[k] = a_re * b_im + a_im * b_re;
+        }
+    }
+
+    private static double[] directReal(double[] x, double[] h) {
+        final int n = x.length;
+        double[] z = new double[n + h.length - 1];
+        for (int j = 0; j < h.length; ++j) {
+            double h_j = h[j];
+            for (int i = 0; i < n; ++i) {
+                z[i + j] += h_j * x[i];
+            }
+        }
+        return z;
+    }
+
+    private static ComplexArray directComplex(double[] xR, double[] xI, double[] hR, double[] hI) {
+        final int n = xR.length;
+        final int len = n + hR.length - 1;
+        double[] zR = new double[len];
+        double[] zI = new double[len];
+        for (int j = 0; j < hR.length; ++j) {
+            double h_re = hR[j];
+            double h_im = hI[j];
+            for (int i = 0; i < n; ++i) {
+                zR[i + j] += h_re * xR[i] - h_im * xI[i];
+                zI[i + j] += h_re * xI[i] + h_im * xR[i];
+            }
+        }
+        return new ComplexArray(zR, zI, false);
+    }
+
+    private static double[] directCircularReal(double[] x, double[] h, boolean correlate) {
+        final int n = x.length;
+        double[] z = new double[n];
+        for (int k = 0; k < n; ++k) {
+            double sum = 0.0;
+            for (int i = 0; i < n; ++i) {
+                // convolution: x[i] * h[k - i], correlation: x[i + k] * h[i]
+                int j = correlate ? (i + k) : (k - i);
+                j = (j >= n) ? (j - n) : ((j < 0) ? (j + n) : j);
+                sum += correlate ? (x[j] * h[i]) : (x[i] * h[j]);
+            }
+            z[k] = sum;
+        }
+        return z;
+    }
+
+    private static ComplexArray directCircularComplex(double[] xR, double[] xI, double[] hR, double[] hI,
+            boolean correlate) {
+        final int n = xR.length;
+        double[] zR = new double[n];
+        double[] zI = new double[n];
+        for (int k = 0; k < n; ++k) {
+            double sumR = 0.0;
+            double sumI = 0.0;
+            for (int i = 0; i < n; ++i) {
+                int j = correlate ? (i + k) : (k - i);
+                j = (j >= n) ? (j - n) : ((j < 0) ? (j + n) : j);
+                if (correlate) {
+                    // x[i + k] * conj(h[i])
+                    sumR += xR[j] * hR[i] + xI[j] * hI[i];
+                    sumI += xI[j] * hR[i] - xR[j] * hI[i];
+                } else {
+                    // x[i] * h[k - i]
+                    sumR += xR[i] * hR[j] - xI[i] * hI[j];
+                    sumI += xR[i] * hI[j] + xI[i] * hR[j];
+                }
+            }
+            zR[k] = sumR;
+            zI[k] = sumI;
+        }
+        return new ComplexArray(zR, zI, false);
+    }
+
+    private static void checkSameLength(int n, int m) {
+        if (n != m) {
+            throw new IllegalArgumentException("Unequal dimensions: " + n + " != " + m);
+        }
+    }
+
+    private Convolution() {
+        throw new AssertionError();
+    }
+}
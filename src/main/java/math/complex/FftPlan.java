@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * Precomputed tables for the radix 2 FFT of a fixed power of two length:
+ * the twiddle factors {@code exp(-2*pi*i*k/n)} (each computed directly,
+ * i.e. without the error accumulation of a recurrence) and the index pairs
+ * that get swapped by the bit reversal permutation. Plans are immutable and
+ * cached per length.
+ */
+final class FftPlan {
+
+    // at most 32 cached plans
+    private static final PlanCache<FftPlan> plans = new PlanCache<FftPlan>(32) {
+        @Override
+        FftPlan create(int n) {
+            return new FftPlan(n);
+        }
+    };
+
+    /** the transform length */
+    final int n;
+
+    /** {@code cos(2*pi*k/n)} for {@code k = 0, ..., 3n/4 - 1} */
+    final double[] wr;
+
+    /** {@code -sin(2*pi*k/n)} for {@code k = 0, ..., 3n/4 - 1} */
+    final double[] wi;
+
+    /** index pairs {@code (i, j)}, {@code i < j} swapped by the bit reversal */
+    final int[] swaps;
+
+    private FftPlan(int n) {
+        this.n = n;
+        // the radix 4 stages need the twiddles up to 3 * (n/4 - 1)
+        int len = Math.max(3 * (n >> 2), n >> 1);
+        wr = new double[len];
+        wi = new double[len];
+        for (int k = 0; k < len; ++k) {
+            double angle = 2.0 * Math.PI * k / n;
+            wr[k] = Math.cos(angle);
+            wi[k] = -Math.sin(angle);
+        }
+        swaps = bitReversalSwaps(n);
+    }
+
+    /**
+     * Returns the (possibly cached) plan for the power of two length
+     * {@code n}.
+     *
+     * @param n
+     *            the transform length, a power of two
+     * @return the plan for {@code n}
+     */
+    static FftPlan of(int n) {
+        if (n <= 0 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("n must be a power of two : " + n);
+        }
+        return plans.get(n);
+    }
+
+    private static int[] bitReversalSwaps(int n) {
+        int bits = Integer.numberOfTrailingZeros(n);
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            if (i < reverse(i, bits)) {
+                ++count;
+            }
+        }
+        int[] swaps = new int[2 * count];
+        int pos = 0;
+        for (int i = 0; i < n; ++i) {
+            int j = reverse(i, bits);
+            if (i < j) {
+                swaps[pos++] = i;
+                swaps[pos++] = j;
+            }
+        }
+        return swaps;
+    }
+
+    private static int reverse(int i, int bits) {
+        return (bits == 0) ? 0 : (Integer.reverse(i) >>> (32 - bits));
+    }
+}
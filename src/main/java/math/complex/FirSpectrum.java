@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * The spectrum of a real FIR filter {@code h} for the block convolutions of
+ * {@link OverlapAdd} and {@link OverlapSave}: the FFT length {@code L} is the
+ * smallest power of two {@code >= blockSize + h.length - 1} (and at least
+ * 2), the {@code L/2 + 1} bins of {@code h} are computed once.
+ */
+final class FirSpectrum {
+
+    final int blockSize;
+    final int taps;
+    final int fftLength;
+    private final double[] hR;
+    private final double[] hI;
+
+    FirSpectrum(double[] h, int blockSize) {
+        if (h == null || h.length == 0) {
+            throw new IllegalArgumentException("filter must not be empty");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize < 1 : " + blockSize);
+        }
+        long len = (long) blockSize + h.length - 1;
+        if (len > (1 << 29)) {
+            throw new IllegalArgumentException("blockSize + filter length too large: " + len);
+        }
+        this.blockSize = blockSize;
+        this.taps = h.length;
+        this.fftLength = Math.max(2, Integer.highestOneBit((int) (2 * len - 1)));
+        int half = fftLength >> 1;
+        hR = new double[half + 1];
+        hI = new double[half + 1];
+        for (int i = 0; i < h.length; ++i) {
+            if ((i & 1) == 0) {
+                hR[i >> 1] = h[i];
+            } else {
+                hI[i >> 1] = h[i];
+            }
+        }
+        RealFft.forwardPacked(hR, hI, fftLength);
+    }
+
+    /**
+     * Allocates a workspace array (of length {@code L/2 + 1}).
+     */
+    double[] workspace() {
+        return new double[(fftLength >> 1) + 1];
+    }
+
+    /**
+     * Circular convolution of length {@code L} with {@code h} of the real
+     * signal packed into {@code re} and {@code im} (as in
+     * {@link RealFft#forwardPacked}), which are overwritten with the packed
+     * result.
+     */
+    void filter(double[] re, double[] im) {
+        RealFft.forwardPacked(re, im, fftLength);
+        Convolution.multiply(re, im, hR, hI, (fftLength >> 1) + 1, false);
+        RealFft.inversePacked(re, im, fftLength);
+    }
+
+    // the sample t of the packed signal in re and im
+    static double sample(double[] re, double[] im, int t) {
+        return ((t & 1) == 0) ? re[t >> 1] : im[t >> 1];
+    }
+
+    // the n samples of a starting at off must exist
+    static void checkRange(double[] a, int off, int n) {
+        if (off < 0 || off + n > a.length || off + n < 0) {
+            throw new IllegalArgumentException("illegal range: off=" + off + ", n=" + n + ", length=" + a.length);
+        }
+    }
+}
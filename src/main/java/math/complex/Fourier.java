@@ -16,11 +16,29 @@
  */
 package math.complex;
 
+import math.matrix.DMatrix;
+import math.matrix.Layout;
+import math.matrix.Transpose;
+
 /**
  * Derived from org.apache.commons.math3.transform.FastFourierTransformer
  */
 public final class Fourier {
 
+    /**
+     * Power of two lengths from this size on are transformed with the six-step
+     * algorithm, whose passes all work on cache sized rows.
+     */
+    static final int SIX_STEP_THRESHOLD = 1 << 20;
+
+    // at most 8 cached six-step plans
+    private static final PlanCache<SixStepPlan> sixStepPlans = new PlanCache<SixStepPlan>(8) {
+        @Override
+        SixStepPlan create(int n) {
+            return new SixStepPlan(n);
+        }
+    };
+
     public static ComplexArray forwardDFT(double[] data) {
         final int N = data.length;
         if (N == 0) {
@@ -38,44 +56,98 @@ public final class Fourier {
             dataR[1] = srcR0 - dataR[1];
             return new ComplexArray(dataR, new double[2], false);
         }
-        if (!isPowerOfTwo(N)) {
+        if (N % 2 == 0) {
+            // the upper half follows from Hermitian symmetry
+            ComplexArray half = RealFft.forward(data);
+            double[] dataR = new double[N];
+            double[] dataI = new double[N];
+            System.arraycopy(half.re(), 0, dataR, 0, N / 2 + 1);
+            System.arraycopy(half.im(), 0, dataI, 0, N / 2 + 1);
+            for (int k = N / 2 + 1; k < N; ++k) {
+                dataR[k] = dataR[N - k];
+                dataI[k] = -dataI[N - k];
+            }
+            postProcess(dataR, dataI, 0, N, 1.0, true);
+            return new ComplexArray(dataR, dataI, false);
+        }
+        if (!MixedRadix.isSupported(N)) {
             return Bluestein.forwardDFT(data, null);
         }
         double[] dataR = data.clone();
-        bitReversalShuffle(dataR, null);
         double[] dataI = new double[N];
-        fourTermForward(dataR, dataI, N);
-        combineEvenOdd(dataR, dataI, N, false);
-        postProcess(dataR, dataI, N, false);
+        fft(dataR, dataI, 0, N, false);
+        postProcess(dataR, dataI, 0, N, 1.0, true);
         return new ComplexArray(dataR, dataI, false);
     }
 
-    static ComplexArray forwardDFT(double[] real, double[] imag) {
-        final int N = real.length;
+    /**
+     * Computes the forward DFT of real data and returns only the
+     * {@code N/2 + 1} non-redundant bins {@code X[0], ..., X[N/2]} (the
+     * others follow from {@code X[N - k] = conj(X[k])}). For even {@code N}
+     * the work is done by a complex FFT of length {@code N/2}.
+     *
+     * @param data
+     *            the real signal of length {@code N}
+     * @return the bins {@code 0, ..., N/2} of the DFT of {@code data}
+     */
+    public static ComplexArray forwardRealDFT(double[] data) {
+        final int N = data.length;
         if (N == 0) {
             return new ComplexArray(new double[] {}, new double[] {}, false);
         }
-        if (N == 1) {
-            return new ComplexArray(real, imag, true);
-        }
-        if (N == 2) {
-            double[] dataR = real.clone();
-            double[] dataI = imag.clone();
-            double srcR0 = dataR[0];
-            double srcI0 = dataI[0];
-            dataR[0] = srcR0 + dataR[1];
-            dataR[1] = srcR0 - dataR[1];
-            dataI[0] = srcI0 + dataI[1];
-            dataI[1] = srcI0 - dataI[1];
+        if (N % 2 != 0) {
+            ComplexArray full = forwardDFT(data);
+            double[] dataR = new double[N / 2 + 1];
+            double[] dataI = new double[N / 2 + 1];
+            System.arraycopy(full.re(), 0, dataR, 0, dataR.length);
+            System.arraycopy(full.im(), 0, dataI, 0, dataI.length);
             return new ComplexArray(dataR, dataI, false);
         }
-        double[] dataR = real.clone();
-        double[] dataI = imag.clone();
-        bitReversalShuffle(dataR, dataI);
-        fourTermForward(dataR, dataI, N);
-        combineEvenOdd(dataR, dataI, N, false);
-        postProcess(dataR, dataI, N, false);
-        return new ComplexArray(dataR, dataI, false);
+        ComplexArray half = RealFft.forward(data);
+        postProcess(half.re(), half.im(), 0, N / 2 + 1, 1.0, true);
+        return half;
+    }
+
+    /**
+     * Computes the real signal of length {@code n} from the {@code n/2 + 1}
+     * non-redundant bins of its DFT (as returned by
+     * {@link #forwardRealDFT(double[])}). The imaginary parts of the bin
+     * {@code 0} (and the bin {@code n/2} for even {@code n}) are ignored.
+     *
+     * @param freqs
+     *            the bins {@code 0, ..., n/2} of the DFT
+     * @param n
+     *            the length of the signal
+     * @return the real signal
+     */
+    public static double[] inverseRealDFT(ComplexArray freqs, int n) {
+        if (n < 0 || freqs.length() != n / 2 + 1) {
+            throw new IllegalArgumentException(
+                    "expected " + (n / 2 + 1) + " bins for n = " + n + " : " + freqs.length());
+        }
+        if (n <= 1) {
+            return (n == 0) ? new double[] {} : new double[] { freqs.re()[0] };
+        }
+        double[] data;
+        if (n % 2 == 0) {
+            data = RealFft.inverse(freqs, n);
+        } else {
+            double[] dataR = new double[n];
+            double[] dataI = new double[n];
+            System.arraycopy(freqs.re(), 0, dataR, 0, n / 2 + 1);
+            System.arraycopy(freqs.im(), 0, dataI, 0, n / 2 + 1);
+            dataI[0] = 0.0;
+            for (int k = n / 2 + 1; k < n; ++k) {
+                dataR[k] = dataR[n - k];
+                dataI[k] = -dataI[n - k];
+            }
+            transformInPlace(dataR, dataI, 0, n, true, false);
+            data = dataR;
+        }
+        for (int i = 0; i < n; ++i) {
+            data[i] = (Math.abs(data[i]) <= ComplexArray.TOL) ? 0.0 : data[i];
+        }
+        return data;
     }
 
     public static ComplexArray inverseDFT(ComplexArray freqs) {
@@ -86,37 +158,300 @@ public final class Fourier {
         if (N == 2) {
             double[] dataR = freqs.re().clone();
             double[] dataI = freqs.im().clone();
-            double srcR0 = dataR[0];
-            double srcI0 = dataI[0];
-            double srcR1 = dataR[1];
-            double srcI1 = dataI[1];
-            double scaleFactor = (1.0 / N);
-            // X_0 = x_0 + x_1
-            dataR[0] = srcR0 + srcR1;
-            dataR[0] *= scaleFactor;
-            dataI[0] = srcI0 + srcI1;
-            dataI[0] *= scaleFactor;
-            // X_1 = x_0 - x_1
-            dataR[1] = srcR0 - srcR1;
-            dataR[1] *= scaleFactor;
-            dataI[1] = srcI0 - srcI1;
-            dataI[1] *= scaleFactor;
+            radix2(dataR, dataI, 0, N, true);
+            postProcess(dataR, dataI, 0, N, 1.0 / N, false);
             return new ComplexArray(dataR, dataI, false);
         }
-        if (!isPowerOfTwo(N)) {
+        if (!isPowerOfTwo(N) && !MixedRadix.isSupported(N)) {
             return Bluestein.inverseDFT(freqs);
         }
         double[] dataR = freqs.re().clone();
         double[] dataI = freqs.im().clone();
-        bitReversalShuffle(dataR, dataI);
-        fourTermInverse(dataR, dataI, N);
-        combineEvenOdd(dataR, dataI, N, true);
-        postProcess(dataR, dataI, N, true);
+        fft(dataR, dataI, 0, N, true);
+        postProcess(dataR, dataI, 0, N, 1.0 / N, true);
         return new ComplexArray(dataR, dataI, false);
     }
 
-    private static void fourTermForward(double[] dataR, double[] dataI, int n) {
-        for (int i0 = 0; i0 < n; i0 += 4) {
+    /**
+     * Computes the forward DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place.
+     * For power of two lengths below {@code 2^20} no memory is allocated
+     * (larger ones use the six-step algorithm, which needs a copy of the
+     * data). Lengths without prime factors greater than 7 use a mixed radix
+     * FFT with a per-thread scratch buffer, all other lengths are transformed
+     * on a copy with the Bluestein algorithm and copied back.
+     * Tiny values are not thresholded to zero.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     */
+    public static void forwardInPlace(double[] re, double[] im, int off, int n) {
+        forwardInPlace(re, im, off, n, false);
+    }
+
+    /**
+     * Computes the forward DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place.
+     * If {@code threshold} is {@code true} results whose absolute value is
+     * less than a small multiple of the machine epsilon are set to zero (as
+     * {@link #forwardDFT(double[])} does), which costs an additional pass over
+     * the data.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     * @param threshold
+     *            whether tiny values should be set to zero
+     */
+    public static void forwardInPlace(double[] re, double[] im, int off, int n, boolean threshold) {
+        transformInPlace(re, im, off, n, false, threshold);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place.
+     * Tiny values are not thresholded to zero.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     */
+    public static void inverseInPlace(double[] re, double[] im, int off, int n) {
+        inverseInPlace(re, im, off, n, false);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place,
+     * optionally setting tiny values to zero.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     * @param threshold
+     *            whether tiny values should be set to zero
+     */
+    public static void inverseInPlace(double[] re, double[] im, int off, int n, boolean threshold) {
+        transformInPlace(re, im, off, n, true, threshold);
+    }
+
+    /**
+     * Computes the forward DFTs of the equally long frames
+     * {@code (re[k], im[k])} in place. The frames share one plan and are
+     * distributed across the workers of {@link ParallelFourier#getDefault()}.
+     *
+     * @param re
+     *            the real parts of the frames
+     * @param im
+     *            the imaginary parts of the frames
+     */
+    public static void forwardBatch(double[][] re, double[][] im) {
+        ParallelFourier.getDefault().forwardBatch(re, im);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFTs of the equally long frames
+     * {@code (re[k], im[k])} in place. The frames share one plan and are
+     * distributed across the workers of {@link ParallelFourier#getDefault()}.
+     *
+     * @param re
+     *            the real parts of the frames
+     * @param im
+     *            the imaginary parts of the frames
+     */
+    public static void inverseBatch(double[][] re, double[][] im) {
+        ParallelFourier.getDefault().inverseBatch(re, im);
+    }
+
+    /**
+     * Computes the 2-D forward DFT of the complex matrix {@code re + i*im}
+     * in place (see {@link ParallelFourier#forward2D(DMatrix, DMatrix)}).
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     */
+    public static void forward2D(DMatrix re, DMatrix im) {
+        ParallelFourier.getDefault().forward2D(re, im);
+    }
+
+    /**
+     * Computes the (normalized) 2-D inverse DFT of the complex matrix
+     * {@code re + i*im} in place (see
+     * {@link ParallelFourier#inverse2D(DMatrix, DMatrix)}).
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     */
+    public static void inverse2D(DMatrix re, DMatrix im) {
+        ParallelFourier.getDefault().inverse2D(re, im);
+    }
+
+    /**
+     * Computes the 2-D forward DFT of the {@code rows x cols} complex matrix
+     * stored in {@code re} and {@code im} in place (see
+     * {@link ParallelFourier#forward2D(double[], double[], int, int, Layout)}).
+     */
+    public static void forward2D(double[] re, double[] im, int rows, int cols, Layout layout) {
+        ParallelFourier.getDefault().forward2D(re, im, rows, cols, layout);
+    }
+
+    /**
+     * Computes the (normalized) 2-D inverse DFT of the {@code rows x cols}
+     * complex matrix stored in {@code re} and {@code im} in place (see
+     * {@link ParallelFourier#inverse2D(double[], double[], int, int, Layout)}).
+     */
+    public static void inverse2D(double[] re, double[] im, int rows, int cols, Layout layout) {
+        ParallelFourier.getDefault().inverse2D(re, im, rows, cols, layout);
+    }
+
+    /**
+     * Computes the 3-D forward DFT of the row major {@code n1 x n2 x n3}
+     * complex array stored in {@code re} and {@code im} in place (see
+     * {@link ParallelFourier#forward3D}).
+     */
+    public static void forward3D(double[] re, double[] im, int n1, int n2, int n3) {
+        ParallelFourier.getDefault().forward3D(re, im, n1, n2, n3);
+    }
+
+    /**
+     * Computes the (normalized) 3-D inverse DFT of the row major
+     * {@code n1 x n2 x n3} complex array stored in {@code re} and {@code im}
+     * in place (see {@link ParallelFourier#inverse3D}).
+     */
+    public static void inverse3D(double[] re, double[] im, int n1, int n2, int n3) {
+        ParallelFourier.getDefault().inverse3D(re, im, n1, n2, n3);
+    }
+
+    private static void transformInPlace(double[] re, double[] im, int off, int n, boolean doInverse,
+            boolean threshold) {
+        checkRange(re, im, off, n);
+        if (n <= 1) {
+            if (threshold && n == 1) {
+                postProcess(re, im, off, n, 1.0, true);
+            }
+            return;
+        }
+        if (isPowerOfTwo(n) || MixedRadix.isSupported(n)) {
+            fft(re, im, off, n, doInverse);
+            if (doInverse || threshold) {
+                postProcess(re, im, off, n, doInverse ? (1.0 / n) : 1.0, threshold);
+            }
+        } else {
+            bluestein(re, im, off, n, doInverse, threshold);
+        }
+    }
+
+    // lengths with prime factors > 7: transform a copy and copy back
+    private static void bluestein(double[] re, double[] im, int off, int n, boolean doInverse, boolean threshold) {
+        double[] dataR = new double[n];
+        double[] dataI = new double[n];
+        System.arraycopy(re, off, dataR, 0, n);
+        System.arraycopy(im, off, dataI, 0, n);
+        ComplexArray result = Bluestein.forwardDFT(dataR, dataI, false);
+        double[] resR = result.re();
+        double[] resI = result.im();
+        if (!doInverse) {
+            System.arraycopy(resR, 0, re, off, n);
+            System.arraycopy(resI, 0, im, off, n);
+        } else {
+            // the inverse is the forward transform with the indices
+            // 1, ..., n - 1 reversed
+            re[off] = resR[0];
+            im[off] = resI[0];
+            for (int i = 1; i < n; ++i) {
+                re[off + i] = resR[n - i];
+                im[off + i] = resI[n - i];
+            }
+        }
+        if (doInverse || threshold) {
+            postProcess(re, im, off, n, doInverse ? (1.0 / n) : 1.0, threshold);
+        }
+    }
+
+    static void checkRange(double[] re, double[] im, int off, int n) {
+        if (re == null || im == null) {
+            throw new IllegalArgumentException("re and im must not be null");
+        }
+        if (off < 0 || n < 0 || off + n > re.length || off + n > im.length || off + n < 0) {
+            throw new IllegalArgumentException("illegal range: off=" + off + ", n=" + n + ", re.length=" + re.length
+                    + ", im.length=" + im.length);
+        }
+    }
+
+    // FFT (without scaling) for lengths n that are a power of two or have no
+    // prime factors > 7
+    private static void fft(double[] dataR, double[] dataI, int off, int n, boolean doInverse) {
+        if (isPowerOfTwo(n)) {
+            radix2(dataR, dataI, off, n, doInverse);
+        } else if (doInverse) {
+            MixedRadix.inverse(dataR, dataI, off, n);
+        } else {
+            MixedRadix.forward(dataR, dataI, off, n);
+        }
+    }
+
+    // radix 2 FFT of the power of two length n (without scaling)
+    static void radix2(double[] dataR, double[] dataI, int off, int n, boolean doInverse) {
+        if (n >= SIX_STEP_THRESHOLD) {
+            sixStep(dataR, dataI, off, n, doInverse);
+            return;
+        }
+        if (n == 2) {
+            double srcR0 = dataR[off];
+            double srcI0 = dataI[off];
+            double srcR1 = dataR[off + 1];
+            double srcI1 = dataI[off + 1];
+            // X_0 = x_0 + x_1
+            dataR[off] = srcR0 + srcR1;
+            dataI[off] = srcI0 + srcI1;
+            // X_1 = x_0 - x_1
+            dataR[off + 1] = srcR0 - srcR1;
+            dataI[off + 1] = srcI0 - srcI1;
+            return;
+        }
+        FftPlan plan = FftPlan.of(n);
+        bitReversalShuffle(dataR, dataI, off, plan.swaps);
+        if (doInverse) {
+            fourTermInverse(dataR, dataI, off, n);
+        } else {
+            fourTermForward(dataR, dataI, off, n);
+        }
+        combineEvenOdd(dataR, dataI, off, n, doInverse, plan);
+    }
+
+    static void fourTermForward(double[] dataR, double[] dataI, int off, int n) {
+        for (int i0 = off; i0 < off + n; i0 += 4) {
             int i1 = i0 + 1;
             int i2 = i0 + 2;
             int i3 = i0 + 3;
@@ -146,8 +481,8 @@ public final class Fourier {
         }
     }
 
-    private static void fourTermInverse(double[] dataR, double[] dataI, int n) {
-        for (int i0 = 0; i0 < n; i0 += 4) {
+    static void fourTermInverse(double[] dataR, double[] dataI, int off, int n) {
+        for (int i0 = off; i0 < off + n; i0 += 4) {
             int i1 = i0 + 1;
             int i2 = i0 + 2;
             int i3 = i0 + 3;
@@ -177,58 +512,220 @@ public final class Fourier {
         }
     }
 
-    private static void combineEvenOdd(double[] dataR, double[] dataI, int n, boolean doInverse) {
-        int lastN0 = 4;
-        int lastLogN0 = 2;
-        while (lastN0 < n) {
-            int n0 = lastN0 << 1;
-            int logN0 = lastLogN0 + 1;
-            double wSubN0R = W_SUB_N_R[logN0];
-            double wSubN0I = doInverse ? -W_SUB_N_I[logN0] : W_SUB_N_I[logN0];
-
-            // Combine even/odd transforms of size lastN0 into a transform of
-            // size N0 (lastN0 * 2).
-            for (int destEvenStartIndex = 0; destEvenStartIndex < n; destEvenStartIndex += n0) {
-                int destOddStartIndex = destEvenStartIndex + lastN0;
-
-                double wSubN0ToRR = 1;
-                double wSubN0ToRI = 0;
-
-                for (int r = 0; r < lastN0; r++) {
-                    double grR = dataR[destEvenStartIndex + r];
-                    double grI = dataI[destEvenStartIndex + r];
-                    double hrR = dataR[destOddStartIndex + r];
-                    double hrI = dataI[destOddStartIndex + r];
-
-                    // dest[destEvenStartIndex + r] = Gr + WsubN0ToR * Hr
-                    dataR[destEvenStartIndex + r] = grR + wSubN0ToRR * hrR - wSubN0ToRI * hrI;
-                    dataI[destEvenStartIndex + r] = grI + wSubN0ToRR * hrI + wSubN0ToRI * hrR;
-                    // dest[destOddStartIndex + r] = Gr - WsubN0ToR * Hr
-                    dataR[destOddStartIndex + r] = grR - (wSubN0ToRR * hrR - wSubN0ToRI * hrI);
-                    dataI[destOddStartIndex + r] = grI - (wSubN0ToRR * hrI + wSubN0ToRI * hrR);
-
-                    // WsubN0ToR *= WsubN0R
-                    double nextWsubN0ToRR = wSubN0ToRR * wSubN0R - wSubN0ToRI * wSubN0I;
-                    double nextWsubN0ToRI = wSubN0ToRR * wSubN0I + wSubN0ToRI * wSubN0R;
-                    wSubN0ToRR = nextWsubN0ToRR;
-                    wSubN0ToRI = nextWsubN0ToRI;
+    //
+    // Six-step FFT (Bailey) for n = n1 * n2: with x[j1 + n1 * j2] viewed as an
+    // (n2 x n1) row major matrix,
+    // 1. transpose into the (n1 x n2) scratch matrix
+    // 2. n1 FFTs of length n2 along its rows
+    // 3. multiply element (j1, k2) by w_n^(j1 * k2)
+    // 4. transpose back into the (n2 x n1) data matrix
+    // 5. n2 FFTs of length n1 along its rows
+    // 6. transpose, which gives X[k2 + n2 * k1] at k1 * n2 + k2
+    //
+    private static void sixStep(double[] dataR, double[] dataI, int off, int n, boolean doInverse) {
+        final SixStepPlan plan = sixStepPlan(n);
+        final int n1 = plan.n1;
+        final int n2 = plan.n2;
+        double[] tmpR = new double[n];
+        double[] tmpI = new double[n];
+
+        Transpose.transpose(n2, n1, off, dataR, n1, 0, tmpR, n2);
+        Transpose.transpose(n2, n1, off, dataI, n1, 0, tmpI, n2);
+        for (int j1 = 0; j1 < n1; ++j1) {
+            radix2(tmpR, tmpI, j1 * n2, n2, doInverse);
+        }
+        sixStepTwiddle(tmpR, tmpI, 1, n1, doInverse, plan);
+
+        Transpose.transpose(n1, n2, 0, tmpR, n2, off, dataR, n1);
+        Transpose.transpose(n1, n2, 0, tmpI, n2, off, dataI, n1);
+        for (int k2 = 0; k2 < n2; ++k2) {
+            radix2(dataR, dataI, off + k2 * n1, n1, doInverse);
+        }
+
+        Transpose.transpose(n2, n1, off, dataR, n1, 0, tmpR, n2);
+        Transpose.transpose(n2, n1, off, dataI, n1, 0, tmpI, n2);
+        System.arraycopy(tmpR, 0, dataR, off, n);
+        System.arraycopy(tmpI, 0, dataI, off, n);
+    }
+
+    static SixStepPlan sixStepPlan(int n) {
+        return sixStepPlans.get(n);
+    }
+
+    // step 3 of the six-step FFT for the rows j1 in [from, to) of the
+    // (n1 x n2) matrix tmp
+    static void sixStepTwiddle(double[] tmpR, double[] tmpI, int from, int to, boolean doInverse,
+            SixStepPlan plan) {
+        // w_n^(j1 * k2) = w_n^(hi * n2) * w_n^lo where j1 * k2 = hi * n2 + lo
+        final int n2 = plan.n2;
+        final double[] loR = plan.loR;
+        final double[] loI = plan.loI;
+        final double[] hiR = plan.hiR;
+        final double[] hiI = plan.hiI;
+        for (int j1 = Math.max(from, 1); j1 < to; ++j1) {
+            int row = j1 * n2;
+            for (int k2 = 1; k2 < n2; ++k2) {
+                int e = j1 * k2;
+                int hi = e / n2;
+                int lo = e - hi * n2;
+                double wR = hiR[hi] * loR[lo] - hiI[hi] * loI[lo];
+                double wI = hiR[hi] * loI[lo] + hiI[hi] * loR[lo];
+                if (doInverse) {
+                    wI = -wI;
                 }
+                double xR = tmpR[row + k2];
+                double xI = tmpI[row + k2];
+                tmpR[row + k2] = wR * xR - wI * xI;
+                tmpI[row + k2] = wR * xI + wI * xR;
             }
+        }
+    }
 
-            lastN0 = n0;
-            lastLogN0 = logN0;
+    // Combine the 4-term DFTs in [off, off + len) into a transform of size
+    // len. With len < plan.n this computes the independent sub-transform of
+    // one aligned block (the stages up to size len of the full transform
+    // provided len has as many trailing zeros, modulo 2, as plan.n).
+    static void combineEvenOdd(double[] dataR, double[] dataI, int off, int len, boolean doInverse,
+            FftPlan plan) {
+        int lastN0 = 4;
+        // an odd number of doublings needs one radix 2 stage
+        if ((Integer.numberOfTrailingZeros(len) & 1) != 0 && lastN0 < len) {
+            radix2Stage(dataR, dataI, off, off + len, lastN0, 0, lastN0, doInverse, plan);
+            lastN0 <<= 1;
+        }
+        while (lastN0 < len) {
+            radix4Stage(dataR, dataI, off, off + len, lastN0, 0, lastN0, doInverse, plan);
+            lastN0 <<= 2;
         }
     }
 
-    private static void postProcess(double[] dataR, double[] dataI, int n, boolean normalize) {
-        double scaleFactor = normalize ? (1.0 / n) : 1.0;
-        for (int i = 0; i < n; ++i) {
-            double re_i = dataR[i] * scaleFactor;
-            dataR[i] = (Math.abs(re_i) <= ComplexArray.TOL) ? 0.0 : re_i;
+    // Combine even/odd transforms of size lastN0 into a transform of size
+    // N0 (lastN0 * 2). Only the groups starting in [from, to) and, within
+    // each group, the butterflies r in [rFrom, rTo) are computed.
+    static void radix2Stage(double[] dataR, double[] dataI, int from, int to, int lastN0, int rFrom, int rTo,
+            boolean doInverse, FftPlan plan) {
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        int n0 = lastN0 << 1;
+        // WsubN0^r = WsubN^(r * step)
+        int step = plan.n / n0;
+
+        for (int destEvenStartIndex = from; destEvenStartIndex < to; destEvenStartIndex += n0) {
+            int destOddStartIndex = destEvenStartIndex + lastN0;
+
+            for (int r = rFrom, k = rFrom * step; r < rTo; r++, k += step) {
+                double wSubN0ToRR = wR[k];
+                double wSubN0ToRI = doInverse ? -wI[k] : wI[k];
+
+                double grR = dataR[destEvenStartIndex + r];
+                double grI = dataI[destEvenStartIndex + r];
+                double hrR = dataR[destOddStartIndex + r];
+                double hrI = dataI[destOddStartIndex + r];
+
+                // WsubN0ToR * Hr
+                double whR = wSubN0ToRR * hrR - wSubN0ToRI * hrI;
+                double whI = wSubN0ToRR * hrI + wSubN0ToRI * hrR;
+
+                // dest[destEvenStartIndex + r] = Gr + WsubN0ToR * Hr
+                dataR[destEvenStartIndex + r] = grR + whR;
+                dataI[destEvenStartIndex + r] = grI + whI;
+                // dest[destOddStartIndex + r] = Gr - WsubN0ToR * Hr
+                dataR[destOddStartIndex + r] = grR - whR;
+                dataI[destOddStartIndex + r] = grI - whI;
+            }
         }
-        for (int i = 0; i < n; ++i) {
-            double im_i = dataI[i] * scaleFactor;
-            dataI[i] = (Math.abs(im_i) <= ComplexArray.TOL) ? 0.0 : im_i;
+    }
+
+    // Combine four transforms of size lastN0 into a transform of size N0
+    // (lastN0 * 4). In bit reversed order the four blocks of a group hold
+    // the transforms of the samples with index residues 0, 2, 1, 3 (mod 4).
+    // Only the groups starting in [from, to) and, within each group, the
+    // butterflies r in [rFrom, rTo) are computed.
+    static void radix4Stage(double[] dataR, double[] dataI, int from, int to, int lastN0, int rFrom, int rTo,
+            boolean doInverse, FftPlan plan) {
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        int n0 = lastN0 << 2;
+        // WsubN0^r = WsubN^(r * step)
+        int step = plan.n / n0;
+
+        for (int start = from; start < to; start += n0) {
+            int i0 = start;
+            int i1 = start + lastN0;
+            int i2 = i1 + lastN0;
+            int i3 = i2 + lastN0;
+
+            for (int r = rFrom, k = rFrom * step; r < rTo; r++, k += step) {
+                double w1R = wR[k];
+                double w1I = doInverse ? -wI[k] : wI[k];
+                double w2R = wR[2 * k];
+                double w2I = doInverse ? -wI[2 * k] : wI[2 * k];
+                double w3R = wR[3 * k];
+                double w3I = doInverse ? -wI[3 * k] : wI[3 * k];
+
+                // residue 0
+                double aR = dataR[i0 + r];
+                double aI = dataI[i0 + r];
+                // residue 2 times WsubN0^(2r)
+                double xR = dataR[i1 + r];
+                double xI = dataI[i1 + r];
+                double bR = w2R * xR - w2I * xI;
+                double bI = w2R * xI + w2I * xR;
+                // residue 1 times WsubN0^r
+                xR = dataR[i2 + r];
+                xI = dataI[i2 + r];
+                double cR = w1R * xR - w1I * xI;
+                double cI = w1R * xI + w1I * xR;
+                // residue 3 times WsubN0^(3r)
+                xR = dataR[i3 + r];
+                xI = dataI[i3 + r];
+                double dR = w3R * xR - w3I * xI;
+                double dI = w3R * xI + w3I * xR;
+
+                double sumAbR = aR + bR;
+                double sumAbI = aI + bI;
+                double difAbR = aR - bR;
+                double difAbI = aI - bI;
+                double sumCdR = cR + dR;
+                double sumCdI = cI + dI;
+                // -j * (c - d) (forward) or j * (c - d) (inverse)
+                double jCdR = doInverse ? (dI - cI) : (cI - dI);
+                double jCdI = doInverse ? (cR - dR) : (dR - cR);
+
+                // X_r = a + b + c + d
+                dataR[i0 + r] = sumAbR + sumCdR;
+                dataI[i0 + r] = sumAbI + sumCdI;
+                // X_(r + lastN0) = a - b - j * (c - d)
+                dataR[i1 + r] = difAbR + jCdR;
+                dataI[i1 + r] = difAbI + jCdI;
+                // X_(r + 2 * lastN0) = a + b - c - d
+                dataR[i2 + r] = sumAbR - sumCdR;
+                dataI[i2 + r] = sumAbI - sumCdI;
+                // X_(r + 3 * lastN0) = a - b + j * (c - d)
+                dataR[i3 + r] = difAbR - jCdR;
+                dataI[i3 + r] = difAbI - jCdI;
+            }
+        }
+    }
+
+    static void postProcess(double[] dataR, double[] dataI, int off, int n, double scaleFactor,
+            boolean threshold) {
+        if (threshold) {
+            for (int i = off; i < off + n; ++i) {
+                double re_i = dataR[i] * scaleFactor;
+                dataR[i] = (Math.abs(re_i) <= ComplexArray.TOL) ? 0.0 : re_i;
+            }
+            for (int i = off; i < off + n; ++i) {
+                double im_i = dataI[i] * scaleFactor;
+                dataI[i] = (Math.abs(im_i) <= ComplexArray.TOL) ? 0.0 : im_i;
+            }
+        } else if (scaleFactor != 1.0) {
+            for (int i = off; i < off + n; ++i) {
+                dataR[i] *= scaleFactor;
+            }
+            for (int i = off; i < off + n; ++i) {
+                dataI[i] *= scaleFactor;
+            }
         }
     }
 
@@ -237,91 +734,75 @@ public final class Fourier {
      * size. Each element in the array is swapped with another element based on
      * the bit-reversal of the index. For example, in an array with length 16,
      * item at binary index 0011 (decimal 3) would be swapped with the item at
-     * binary index 1100 (decimal 12).
+     * binary index 1100 (decimal 12). The index pairs come precomputed from
+     * the {@link FftPlan}.
      *
      * @param a
      *            the first array to be shuffled
      * @param b
      *            the second array to be shuffled
+     * @param off
+     *            index of the first element to be shuffled
+     * @param swaps
+     *            the index pairs to be swapped
      */
-    private static void bitReversalShuffle(double[] a, double[] b) {
-        final int n = a.length;
-        final int halfOfN = n >> 1;
-
-        int j = 0;
-        for (int i = 0; i < n; i++) {
-            if (i < j) {
-                // swap indices i & j
-                double temp = a[i];
-                a[i] = a[j];
-                a[j] = temp;
-
-                if (b != null) {
-                    temp = b[i];
-                    b[i] = b[j];
-                    b[j] = temp;
-                }
+    private static void bitReversalShuffle(double[] a, double[] b, int off, int[] swaps) {
+        bitReversalShuffle(a, b, off, swaps, 0, swaps.length);
+    }
+
+    // swap the pairs swaps[from], ..., swaps[to - 1] (from and to even)
+    static void bitReversalShuffle(double[] a, double[] b, int off, int[] swaps, int from, int to) {
+        for (int p = from; p < to; p += 2) {
+            int i = off + swaps[p];
+            int j = off + swaps[p + 1];
+            double temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
+
+            if (b != null) {
+                temp = b[i];
+                b[i] = b[j];
+                b[j] = temp;
             }
+        }
+    }
+
+    //
+    // Split n = n1 * n2 (n1 <= n2, both powers of two) for the six-step FFT
+    // and the twiddles w_n^lo (lo < n2) and w_n^(hi * n2) (hi < n1) from
+    // which w_n^(j1 * k2) gets assembled with a single complex product
+    //
+    static final class SixStepPlan {
+
+        final int n1;
+        final int n2;
+        final double[] loR;
+        final double[] loI;
+        final double[] hiR;
+        final double[] hiI;
 
-            int k = halfOfN;
-            while (k <= j && k > 0) {
-                j -= k;
-                k >>= 1;
+        SixStepPlan(int n) {
+            int logN = Integer.numberOfTrailingZeros(n);
+            n1 = 1 << (logN / 2);
+            n2 = n / n1;
+            loR = new double[n2];
+            loI = new double[n2];
+            for (int lo = 0; lo < n2; ++lo) {
+                double angle = 2.0 * Math.PI * lo / n;
+                loR[lo] = Math.cos(angle);
+                loI[lo] = -Math.sin(angle);
+            }
+            hiR = new double[n1];
+            hiI = new double[n1];
+            for (int hi = 0; hi < n1; ++hi) {
+                double angle = 2.0 * Math.PI * hi / n1;
+                hiR[hi] = Math.cos(angle);
+                hiI[hi] = -Math.sin(angle);
             }
-            j += k;
         }
     }
 
-    private static boolean isPowerOfTwo(int n) {
+    static boolean isPowerOfTwo(int n) {
         return (n > 0) && ((n & (n - 1)) == 0);
     }
-
-    /**
-     * {@code W_SUB_N_R[i]} is the real part of {@code exp(- 2 * i * pi / n)}:
-     * {@code W_SUB_N_R[i] = cos(2 * pi/ n)}, where {@code n = 2^i}.
-     */
-    //@formatter:off
-    private static final double[] W_SUB_N_R =
-        {  0x1.0p0, -0x1.0p0, 0x1.1a62633145c07p-54, 0x1.6a09e667f3bcdp-1
-        , 0x1.d906bcf328d46p-1, 0x1.f6297cff75cbp-1, 0x1.fd88da3d12526p-1, 0x1.ff621e3796d7ep-1
-        , 0x1.ffd886084cd0dp-1, 0x1.fff62169b92dbp-1, 0x1.fffd8858e8a92p-1, 0x1.ffff621621d02p-1
-        , 0x1.ffffd88586ee6p-1, 0x1.fffff62161a34p-1, 0x1.fffffd8858675p-1, 0x1.ffffff621619cp-1
-        , 0x1.ffffffd885867p-1, 0x1.fffffff62161ap-1, 0x1.fffffffd88586p-1, 0x1.ffffffff62162p-1
-        , 0x1.ffffffffd8858p-1, 0x1.fffffffff6216p-1, 0x1.fffffffffd886p-1, 0x1.ffffffffff621p-1
-        , 0x1.ffffffffffd88p-1, 0x1.fffffffffff62p-1, 0x1.fffffffffffd9p-1, 0x1.ffffffffffff6p-1
-        , 0x1.ffffffffffffep-1, 0x1.fffffffffffffp-1, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0, 0x1.0p0
-        , 0x1.0p0, 0x1.0p0, 0x1.0p0 };
-    //@formatter:on
-
-    /**
-     * {@code W_SUB_N_I[i]} is the imaginary part of
-     * {@code exp(- 2 * i * pi / n)}: {@code W_SUB_N_I[i] = -sin(2 * pi/ n)},
-     * where {@code n = 2^i}.
-     */
-    //@formatter:off
-    private static final double[] W_SUB_N_I =
-        {  0x1.1a62633145c07p-52, -0x1.1a62633145c07p-53, -0x1.0p0, -0x1.6a09e667f3bccp-1
-        , -0x1.87de2a6aea963p-2, -0x1.8f8b83c69a60ap-3, -0x1.917a6bc29b42cp-4, -0x1.91f65f10dd814p-5
-        , -0x1.92155f7a3667ep-6, -0x1.921d1fcdec784p-7, -0x1.921f0fe670071p-8, -0x1.921f8becca4bap-9
-        , -0x1.921faaee6472dp-10, -0x1.921fb2aecb36p-11, -0x1.921fb49ee4ea6p-12, -0x1.921fb51aeb57bp-13
-        , -0x1.921fb539ecf31p-14, -0x1.921fb541ad59ep-15, -0x1.921fb5439d73ap-16, -0x1.921fb544197ap-17
-        , -0x1.921fb544387bap-18, -0x1.921fb544403c1p-19, -0x1.921fb544422c2p-20, -0x1.921fb54442a83p-21
-        , -0x1.921fb54442c73p-22, -0x1.921fb54442cefp-23, -0x1.921fb54442d0ep-24, -0x1.921fb54442d15p-25
-        , -0x1.921fb54442d17p-26, -0x1.921fb54442d18p-27, -0x1.921fb54442d18p-28, -0x1.921fb54442d18p-29
-        , -0x1.921fb54442d18p-30, -0x1.921fb54442d18p-31, -0x1.921fb54442d18p-32, -0x1.921fb54442d18p-33
-        , -0x1.921fb54442d18p-34, -0x1.921fb54442d18p-35, -0x1.921fb54442d18p-36, -0x1.921fb54442d18p-37
-        , -0x1.921fb54442d18p-38, -0x1.921fb54442d18p-39, -0x1.921fb54442d18p-40, -0x1.921fb54442d18p-41
-        , -0x1.921fb54442d18p-42, -0x1.921fb54442d18p-43, -0x1.921fb54442d18p-44, -0x1.921fb54442d18p-45
-        , -0x1.921fb54442d18p-46, -0x1.921fb54442d18p-47, -0x1.921fb54442d18p-48, -0x1.921fb54442d18p-49
-        , -0x1.921fb54442d18p-50, -0x1.921fb54442d18p-51, -0x1.921fb54442d18p-52, -0x1.921fb54442d18p-53
-        , -0x1.921fb54442d18p-54, -0x1.921fb54442d18p-55, -0x1.921fb54442d18p-56, -0x1.921fb54442d18p-57
-        , -0x1.921fb54442d18p-58, -0x1.921fb54442d18p-59, -0x1.921fb54442d18p-60 };
-    //@formatter:on
 }
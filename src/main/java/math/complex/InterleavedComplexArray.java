@@ -0,0 +1,287 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * An array of complex numbers stored interleaved, i.e. as
+ * {@code re_1, im_1, re_2, im_2, ...} in a single {@code double[]} (the
+ * layout of most capture devices and native FFT libraries). An instance can
+ * be a zero-copy view of a range of a larger buffer or of another
+ * {@code InterleavedComplexArray}: writes go through to the shared storage.
+ * <p>
+ * Unlike {@link ComplexArray} the operations work in place (and return
+ * {@code this}) and tiny values are not thresholded to zero.
+ * <p>
+ * Note that indexes are 1-based!
+ */
+public final class InterleavedComplexArray {
+
+    private final double[] data;
+    private final int offset;
+    private final int length;
+
+    public InterleavedComplexArray(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0 : " + size);
+        }
+        data = new double[2 * size];
+        offset = 0;
+        length = size;
+    }
+
+    /**
+     * Wraps (without copying) the interleaved values {@code data}, whose
+     * length must be even.
+     *
+     * @param data
+     *            the interleaved real and imaginary parts
+     */
+    public InterleavedComplexArray(double[] data) {
+        this(data, 0, data.length / 2);
+        if (data.length % 2 != 0) {
+            throw new IllegalArgumentException("odd length : " + data.length);
+        }
+    }
+
+    /**
+     * Wraps (without copying) the {@code length} complex values
+     * {@code (data[offset + 2*i], data[offset + 2*i + 1])},
+     * {@code i = 0, ..., length - 1}.
+     *
+     * @param data
+     *            the buffer holding the interleaved real and imaginary parts
+     * @param offset
+     *            array index of the real part of the first value
+     * @param length
+     *            the number of complex values
+     */
+    public InterleavedComplexArray(double[] data, int offset, int length) {
+        if (data == null) {
+            throw new IllegalArgumentException("data must not be null");
+        }
+        if (offset < 0 || length < 0 || offset + 2L * length > data.length) {
+            throw new IllegalArgumentException("illegal range: offset=" + offset + ", length=" + length
+                    + ", data.length=" + data.length);
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates an interleaved copy of {@code a}.
+     *
+     * @param a
+     *            the values to copy
+     */
+    public InterleavedComplexArray(ComplexArray a) {
+        this(a.length());
+        copyFrom(a.re(), a.im(), 0);
+    }
+
+    /**
+     * Returns a zero-copy view of the {@code length} values starting at the
+     * (1-based) index {@code from}.
+     *
+     * @param from
+     *            index of the first value of the view
+     * @param length
+     *            the number of values in the view
+     * @return a view sharing the storage of this array
+     */
+    public InterleavedComplexArray view(int from, int length) {
+        if (from < 1 || length < 0 || from - 1 + length > this.length) {
+            throw new IllegalArgumentException("Invalid view [" + from + ".." + (from - 1 + length) + "] of [1.."
+                    + this.length + "] array");
+        }
+        return new InterleavedComplexArray(data, offset + 2 * (from - 1), length);
+    }
+
+    public void set(int index, double re, double im) {
+        int i = pos(index);
+        data[i] = re;
+        data[i + 1] = im;
+    }
+
+    public double re(int index) {
+        return data[pos(index)];
+    }
+
+    public double im(int index) {
+        return data[pos(index) + 1];
+    }
+
+    public IComplex get(int index) {
+        int i = pos(index);
+        return new Complex(data[i], data[i + 1]);
+    }
+
+    public InterleavedComplexArray fftshift() {
+        // x_1 moves to index 1 + floor(n/2)
+        return rotate(length / 2);
+    }
+
+    public InterleavedComplexArray ifftshift() {
+        // x_1 moves to index 1 + ceil(n/2)
+        return rotate((length + 1) / 2);
+    }
+
+    // rotate right by k places: reverse all, then the first k and the rest
+    private InterleavedComplexArray rotate(int k) {
+        if (k > 0 && k < length) {
+            reverse(0, length);
+            reverse(0, k);
+            reverse(k, length);
+        }
+        return this;
+    }
+
+    // reverse the order of the values [from, to) (0-based)
+    private void reverse(int from, int to) {
+        final double[] d = data;
+        int i = offset + 2 * from;
+        int j = offset + 2 * (to - 1);
+        for (; i < j; i += 2, j -= 2) {
+            double re = d[i];
+            double im = d[i + 1];
+            d[i] = d[j];
+            d[i + 1] = d[j + 1];
+            d[j] = re;
+            d[j + 1] = im;
+        }
+    }
+
+    /**
+     * Multiplies this array elementwise with {@code b} (in place).
+     *
+     * @param b
+     *            the factors
+     * @return this array
+     */
+    public InterleavedComplexArray elementwiseProduct(InterleavedComplexArray b) {
+        if (length != b.length) {
+            throw new IllegalArgumentException("Unequal dimensions: " + length + " != " + b.length);
+        }
+        final double[] a_ = data;
+        final double[] b_ = b.data;
+        int end = offset + 2 * length;
+        for (int i = offset, j = b.offset; i < end; i += 2, j += 2) {
+            double a_re = a_[i];
+            double a_im = a_[i + 1];
+            double b_re = b_[j];
+            double b_im = b_[j + 1];
+            a_[i] = a_re * b_re - a_im * b_im;
+            a_[i + 1] = a_re * b_im + a_im * b_re;
+        }
+        return this;
+    }
+
+    public InterleavedComplexArray conj() {
+        final double[] d = data;
+        int end = offset + 2 * length;
+        for (int i = offset + 1; i < end; i += 2) {
+            d[i] = -d[i];
+        }
+        return this;
+    }
+
+    public InterleavedComplexArray scale(double alpha) {
+        final double[] d = data;
+        int end = offset + 2 * length;
+        for (int i = offset; i < end; ++i) {
+            d[i] *= alpha;
+        }
+        return this;
+    }
+
+    /**
+     * Copies the values of this array into {@code re[off + i]} and
+     * {@code im[off + i]}, {@code i = 0, ..., length() - 1} (e.g. for
+     * {@link Fourier#forwardInPlace(double[], double[], int, int)}).
+     */
+    public void copyTo(double[] re, double[] im, int off) {
+        final double[] d = data;
+        for (int i = 0, j = offset; i < length; ++i, j += 2) {
+            re[off + i] = d[j];
+            im[off + i] = d[j + 1];
+        }
+    }
+
+    /**
+     * Overwrites the values of this array with {@code re[off + i]} and
+     * {@code im[off + i]}, {@code i = 0, ..., length() - 1}.
+     */
+    public void copyFrom(double[] re, double[] im, int off) {
+        final double[] d = data;
+        for (int i = 0, j = offset; i < length; ++i, j += 2) {
+            d[j] = re[off + i];
+            d[j + 1] = im[off + i];
+        }
+    }
+
+    public ComplexArray toComplexArray() {
+        double[] re = new double[length];
+        double[] im = new double[length];
+        copyTo(re, im, 0);
+        return new ComplexArray(re, im, false);
+    }
+
+    /**
+     * Returns the (shared) backing array.
+     *
+     * @return the backing array
+     */
+    public double[] array() {
+        return data;
+    }
+
+    /**
+     * Returns the index of the real part of the first value in
+     * {@link #array()}.
+     *
+     * @return the offset of this array in the backing array
+     */
+    public int offset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String toString() {
+        int max = length - 1;
+        if (max == -1) {
+            return "[]";
+        }
+        StringBuilder b = new StringBuilder(40 * (max + 1));
+        b.append('[');
+        for (int i = 0; ; i++) {
+            b.append(data[offset + 2 * i]).append("  ").append(data[offset + 2 * i + 1]).append('i');
+            if (i == max) {
+                return b.append(']').toString();
+            }
+            b.append(",\n ");
+        }
+    }
+
+    private int pos(int index) {
+        if (index < 1 || index > length) {
+            throw new IllegalArgumentException("Invalid index " + index + " for [1.." + length + "] array");
+        }
+        return offset + 2 * (index - 1);
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * Mixed radix FFT for lengths whose only prime factors are 2, 3, 5 and 7
+ * (Stockham autosort formulation, i.e. no bit reversal is needed). Each pass
+ * combines {@code p} interleaved transforms of length {@code L} into
+ * transforms of length {@code L * p} with a radix {@code p} butterfly, where
+ * {@code p} is one of 4, 2, 3, 5 or 7. The passes ping-pong between the
+ * caller's arrays and a per-thread scratch buffer.
+ * <p>
+ * The inverse transform uses the forward one on the swapped real and
+ * imaginary parts: {@code ifft(x) = swap(fft(swap(x))) / n}.
+ */
+final class MixedRadix {
+
+    private static final double C3 = -0.5; // cos(2*pi/3)
+    private static final double S3 = 0.8660254037844386; // sin(2*pi/3)
+
+    private static final double C5_1 = Math.cos(2.0 * Math.PI / 5.0);
+    private static final double C5_2 = Math.cos(4.0 * Math.PI / 5.0);
+    private static final double S5_1 = Math.sin(2.0 * Math.PI / 5.0);
+    private static final double S5_2 = Math.sin(4.0 * Math.PI / 5.0);
+
+    private static final double C7_1 = Math.cos(2.0 * Math.PI / 7.0);
+    private static final double C7_2 = Math.cos(4.0 * Math.PI / 7.0);
+    private static final double C7_3 = Math.cos(6.0 * Math.PI / 7.0);
+    private static final double S7_1 = Math.sin(2.0 * Math.PI / 7.0);
+    private static final double S7_2 = Math.sin(4.0 * Math.PI / 7.0);
+    private static final double S7_3 = Math.sin(6.0 * Math.PI / 7.0);
+
+    // scratch buffers for longer transforms are not kept per thread (8 MiB
+    // per array)
+    private static final int MAX_SCRATCH_LENGTH = 1 << 20;
+
+    private static final ThreadLocal<double[][]> scratch = new ThreadLocal<double[][]>();
+
+    /**
+     * Returns {@code true} if {@code n > 0} has no prime factors other than
+     * 2, 3, 5 and 7.
+     */
+    static boolean isSupported(int n) {
+        if (n <= 0) {
+            return false;
+        }
+        for (int p = 2; p <= 7; ++p) {
+            while (n % p == 0) {
+                n /= p;
+            }
+        }
+        return n == 1;
+    }
+
+    /**
+     * Forward transform of {@code (re[off + i], im[off + i])},
+     * {@code i = 0, ..., n - 1} in place.
+     */
+    static void forward(double[] re, double[] im, int off, int n) {
+        if (n <= 1) {
+            return;
+        }
+        Plan plan = Plan.of(n);
+        double[][] buf = scratch(n);
+        double[] bufR = buf[0];
+        double[] bufI = buf[1];
+
+        double[] srcR = re;
+        double[] srcI = im;
+        int srcOff = off;
+        double[] dstR = bufR;
+        double[] dstI = bufI;
+        int dstOff = 0;
+
+        int L = 1;
+        for (int p : plan.factors) {
+            switch (p) {
+            case 2:
+                pass2(L, n, srcR, srcI, srcOff, dstR, dstI, dstOff, plan);
+                break;
+            case 3:
+                pass3(L, n, srcR, srcI, srcOff, dstR, dstI, dstOff, plan);
+                break;
+            case 4:
+                pass4(L, n, srcR, srcI, srcOff, dstR, dstI, dstOff, plan);
+                break;
+            case 5:
+                pass5(L, n, srcR, srcI, srcOff, dstR, dstI, dstOff, plan);
+                break;
+            default:
+                pass7(L, n, srcR, srcI, srcOff, dstR, dstI, dstOff, plan);
+                break;
+            }
+            L *= p;
+            // swap source and destination
+            double[] tmpR = srcR;
+            double[] tmpI = srcI;
+            int tmpOff = srcOff;
+            srcR = dstR;
+            srcI = dstI;
+            srcOff = dstOff;
+            dstR = tmpR;
+            dstI = tmpI;
+            dstOff = tmpOff;
+        }
+        if (srcR != re) {
+            System.arraycopy(srcR, srcOff, re, off, n);
+            System.arraycopy(srcI, srcOff, im, off, n);
+        }
+    }
+
+    /**
+     * Inverse transform (without the {@code 1/n} scaling) of
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place.
+     */
+    static void inverse(double[] re, double[] im, int off, int n) {
+        forward(im, re, off, n);
+    }
+
+    //
+    // The passes combine p transforms X[j, k] of length L (j: frequency,
+    // k: which of the r = n / L interleaved subsequences, stored at
+    // j * r + k) into transforms of length L * p stored at
+    // (j + L * s) * (r / p) + k, s = 0, ..., p - 1. Input q of the butterfly
+    // for (j, k) is X[j, k + q * (r / p)] times the twiddle w_n^(q * j * r / p).
+    //
+
+    private static void pass2(int L, int n, double[] xR, double[] xI, int xOff, double[] yR, double[] yI, int yOff,
+            Plan plan) {
+        final int m = n / (2 * L);
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        for (int j = 0; j < L; ++j) {
+            int w1 = j * m;
+            double w1R = wR[w1];
+            double w1I = wI[w1];
+            int in = xOff + j * 2 * m;
+            int out = yOff + j * m;
+            for (int k = 0; k < m; ++k) {
+                double z0R = xR[in + k];
+                double z0I = xI[in + k];
+                double aR = xR[in + k + m];
+                double aI = xI[in + k + m];
+                double z1R = w1R * aR - w1I * aI;
+                double z1I = w1R * aI + w1I * aR;
+
+                yR[out + k] = z0R + z1R;
+                yI[out + k] = z0I + z1I;
+                yR[out + k + L * m] = z0R - z1R;
+                yI[out + k + L * m] = z0I - z1I;
+            }
+        }
+    }
+
+    private static void pass3(int L, int n, double[] xR, double[] xI, int xOff, double[] yR, double[] yI, int yOff,
+            Plan plan) {
+        final int m = n / (3 * L);
+        final int lm = L * m;
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        for (int j = 0; j < L; ++j) {
+            int w1 = j * m;
+            int w2 = 2 * w1;
+            double w1R = wR[w1];
+            double w1I = wI[w1];
+            double w2R = wR[w2];
+            double w2I = wI[w2];
+            int in = xOff + j * 3 * m;
+            int out = yOff + j * m;
+            for (int k = 0; k < m; ++k) {
+                double z0R = xR[in + k];
+                double z0I = xI[in + k];
+                double aR = xR[in + k + m];
+                double aI = xI[in + k + m];
+                double z1R = w1R * aR - w1I * aI;
+                double z1I = w1R * aI + w1I * aR;
+                aR = xR[in + k + 2 * m];
+                aI = xI[in + k + 2 * m];
+                double z2R = w2R * aR - w2I * aI;
+                double z2I = w2R * aI + w2I * aR;
+
+                double tR = z1R + z2R;
+                double tI = z1I + z2I;
+                double mR = z0R + C3 * tR;
+                double mI = z0I + C3 * tI;
+                // -i * S3 * (z1 - z2)
+                double nR = S3 * (z1I - z2I);
+                double nI = -S3 * (z1R - z2R);
+
+                yR[out + k] = z0R + tR;
+                yI[out + k] = z0I + tI;
+                yR[out + k + lm] = mR + nR;
+                yI[out + k + lm] = mI + nI;
+                yR[out + k + 2 * lm] = mR - nR;
+                yI[out + k + 2 * lm] = mI - nI;
+            }
+        }
+    }
+
+    private static void pass4(int L, int n, double[] xR, double[] xI, int xOff, double[] yR, double[] yI, int yOff,
+            Plan plan) {
+        final int m = n / (4 * L);
+        final int lm = L * m;
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        for (int j = 0; j < L; ++j) {
+            int w1 = j * m;
+            int w2 = 2 * w1;
+            int w3 = 3 * w1;
+            double w1R = wR[w1];
+            double w1I = wI[w1];
+            double w2R = wR[w2];
+            double w2I = wI[w2];
+            double w3R = wR[w3];
+            double w3I = wI[w3];
+            int in = xOff + j * 4 * m;
+            int out = yOff + j * m;
+            for (int k = 0; k < m; ++k) {
+                double z0R = xR[in + k];
+                double z0I = xI[in + k];
+                double aR = xR[in + k + m];
+                double aI = xI[in + k + m];
+                double z1R = w1R * aR - w1I * aI;
+                double z1I = w1R * aI + w1I * aR;
+                aR = xR[in + k + 2 * m];
+                aI = xI[in + k + 2 * m];
+                double z2R = w2R * aR - w2I * aI;
+                double z2I = w2R * aI + w2I * aR;
+                aR = xR[in + k + 3 * m];
+                aI = xI[in + k + 3 * m];
+                double z3R = w3R * aR - w3I * aI;
+                double z3I = w3R * aI + w3I * aR;
+
+                double s02R = z0R + z2R;
+                double s02I = z0I + z2I;
+                double d02R = z0R - z2R;
+                double d02I = z0I - z2I;
+                double s13R = z1R + z3R;
+                double s13I = z1I + z3I;
+                // -i * (z1 - z3)
+                double d13R = z1I - z3I;
+                double d13I = z3R - z1R;
+
+                yR[out + k] = s02R + s13R;
+                yI[out + k] = s02I + s13I;
+                yR[out + k + lm] = d02R + d13R;
+                yI[out + k + lm] = d02I + d13I;
+                yR[out + k + 2 * lm] = s02R - s13R;
+                yI[out + k + 2 * lm] = s02I - s13I;
+                yR[out + k + 3 * lm] = d02R - d13R;
+                yI[out + k + 3 * lm] = d02I - d13I;
+            }
+        }
+    }
+
+    private static void pass5(int L, int n, double[] xR, double[] xI, int xOff, double[] yR, double[] yI, int yOff,
+            Plan plan) {
+        final int m = n / (5 * L);
+        final int lm = L * m;
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        for (int j = 0; j < L; ++j) {
+            int w1 = j * m;
+            double w1R = wR[w1];
+            double w1I = wI[w1];
+            double w2R = wR[2 * w1];
+            double w2I = wI[2 * w1];
+            double w3R = wR[3 * w1];
+            double w3I = wI[3 * w1];
+            double w4R = wR[4 * w1];
+            double w4I = wI[4 * w1];
+            int in = xOff + j * 5 * m;
+            int out = yOff + j * m;
+            for (int k = 0; k < m; ++k) {
+                double z0R = xR[in + k];
+                double z0I = xI[in + k];
+                double aR = xR[in + k + m];
+                double aI = xI[in + k + m];
+                double z1R = w1R * aR - w1I * aI;
+                double z1I = w1R * aI + w1I * aR;
+                aR = xR[in + k + 2 * m];
+                aI = xI[in + k + 2 * m];
+                double z2R = w2R * aR - w2I * aI;
+                double z2I = w2R * aI + w2I * aR;
+                aR = xR[in + k + 3 * m];
+                aI = xI[in + k + 3 * m];
+                double z3R = w3R * aR - w3I * aI;
+                double z3I = w3R * aI + w3I * aR;
+                aR = xR[in + k + 4 * m];
+                aI = xI[in + k + 4 * m];
+                double z4R = w4R * aR - w4I * aI;
+                double z4I = w4R * aI + w4I * aR;
+
+                double a1R = z1R + z4R;
+                double a1I = z1I + z4I;
+                double b1R = z1R - z4R;
+                double b1I = z1I - z4I;
+                double a2R = z2R + z3R;
+                double a2I = z2I + z3I;
+                double b2R = z2R - z3R;
+                double b2I = z2I - z3I;
+
+                double m1R = z0R + C5_1 * a1R + C5_2 * a2R;
+                double m1I = z0I + C5_1 * a1I + C5_2 * a2I;
+                double m2R = z0R + C5_2 * a1R + C5_1 * a2R;
+                double m2I = z0I + C5_2 * a1I + C5_1 * a2I;
+                // -i * (S5_1 * b1 + S5_2 * b2) and -i * (S5_2 * b1 - S5_1 * b2)
+                double n1R = S5_1 * b1I + S5_2 * b2I;
+                double n1I = -(S5_1 * b1R + S5_2 * b2R);
+                double n2R = S5_2 * b1I - S5_1 * b2I;
+                double n2I = -(S5_2 * b1R - S5_1 * b2R);
+
+                yR[out + k] = z0R + a1R + a2R;
+                yI[out + k] = z0I + a1I + a2I;
+                yR[out + k + lm] = m1R + n1R;
+                yI[out + k + lm] = m1I + n1I;
+                yR[out + k + 2 * lm] = m2R + n2R;
+                yI[out + k + 2 * lm] = m2I + n2I;
+                yR[out + k + 3 * lm] = m2R - n2R;
+                yI[out + k + 3 * lm] = m2I - n2I;
+                yR[out + k + 4 * lm] = m1R - n1R;
+                yI[out + k + 4 * lm] = m1I - n1I;
+            }
+        }
+    }
+
+    private static void pass7(int L, int n, double[] xR, double[] xI, int xOff, double[] yR, double[] yI, int yOff,
+            Plan plan) {
+        final int m = n / (7 * L);
+        final int lm = L * m;
+        final double[] wR = plan.wr;
+        final double[] wI = plan.wi;
+        for (int j = 0; j < L; ++j) {
+            int w1 = j * m;
+            double w1R = wR[w1];
+            double w1I = wI[w1];
+            double w2R = wR[2 * w1];
+            double w2I = wI[2 * w1];
+            double w3R = wR[3 * w1];
+            double w3I = wI[3 * w1];
+            double w4R = wR[4 * w1];
+            double w4I = wI[4 * w1];
+            double w5R = wR[5 * w1];
+            double w5I = wI[5 * w1];
+            double w6R = wR[6 * w1];
+            double w6I = wI[6 * w1];
+            int in = xOff + j * 7 * m;
+            int out = yOff + j * m;
+            for (int k = 0; k < m; ++k) {
+                double z0R = xR[in + k];
+                double z0I = xI[in + k];
+                double aR = xR[in + k + m];
+                double aI = xI[in + k + m];
+                double z1R = w1R * aR - w1I * aI;
+                double z1I = w1R * aI + w1I * aR;
+                aR = xR[in + k + 2 * m];
+                aI = xI[in + k + 2 * m];
+                double z2R = w2R * aR - w2I * aI;
+                double z2I = w2R * aI + w2I * aR;
+                aR = xR[in + k + 3 * m];
+                aI = xI[in + k + 3 * m];
+                double z3R = w3R * aR - w3I * aI;
+                double z3I = w3R * aI + w3I * aR;
+                aR = xR[in + k + 4 * m];
+                aI = xI[in + k + 4 * m];
+                double z4R = w4R * aR - w4I * aI;
+                double z4I = w4R * aI + w4I * aR;
+                aR = xR[in + k + 5 * m];
+                aI = xI[in + k + 5 * m];
+                double z5R = w5R * aR - w5I * aI;
+                double z5I = w5R * aI + w5I * aR;
+                aR = xR[in + k + 6 * m];
+                aI = xI[in + k + 6 * m];
+                double z6R = w6R * aR - w6I * aI;
+                double z6I = w6R * aI + w6I * aR;
+
+                double a1R = z1R + z6R;
+                double a1I = z1I + z6I;
+                double b1R = z1R - z6R;
+                double b1I = z1I - z6I;
+                double a2R = z2R + z5R;
+                double a2I = z2I + z5I;
+                double b2R = z2R - z5R;
+                double b2I = z2I - z5I;
+                double a3R = z3R + z4R;
+                double a3I = z3I + z4I;
+                double b3R = z3R - z4R;
+                double b3I = z3I - z4I;
+
+                double m1R = z0R + C7_1 * a1R + C7_2 * a2R + C7_3 * a3R;
+                double m1I = z0I + C7_1 * a1I + C7_2 * a2I + C7_3 * a3I;
+                double m2R = z0R + C7_2 * a1R + C7_3 * a2R + C7_1 * a3R;
+                double m2I = z0I + C7_2 * a1I + C7_3 * a2I + C7_1 * a3I;
+                double m3R = z0R + C7_3 * a1R + C7_1 * a2R + C7_2 * a3R;
+                double m3I = z0I + C7_3 * a1I + C7_1 * a2I + C7_2 * a3I;
+                // -i * (sum of sines times b)
+                double n1R = S7_1 * b1I + S7_2 * b2I + S7_3 * b3I;
+                double n1I = -(S7_1 * b1R + S7_2 * b2R + S7_3 * b3R);
+                double n2R = S7_2 * b1I - S7_3 * b2I - S7_1 * b3I;
+                double n2I = -(S7_2 * b1R - S7_3 * b2R - S7_1 * b3R);
+                double n3R = S7_3 * b1I - S7_1 * b2I + S7_2 * b3I;
+                double n3I = -(S7_3 * b1R - S7_1 * b2R + S7_2 * b3R);
+
+                yR[out + k] = z0R + a1R + a2R + a3R;
+                yI[out + k] = z0I + a1I + a2I + a3I;
+                yR[out + k + lm] = m1R + n1R;
+                yI[out + k + lm] = m1I + n1I;
+                yR[out + k + 2 * lm] = m2R + n2R;
+                yI[out + k + 2 * lm] = m2I + n2I;
+                yR[out + k + 3 * lm] = m3R + n3R;
+                yI[out + k + 3 * lm] = m3I + n3I;
+                yR[out + k + 4 * lm] = m3R - n3R;
+                yI[out + k + 4 * lm] = m3I - n3I;
+                yR[out + k + 5 * lm] = m2R - n2R;
+                yI[out + k + 5 * lm] = m2I - n2I;
+                yR[out + k + 6 * lm] = m1R - n1R;
+                yI[out + k + 6 * lm] = m1I - n1I;
+            }
+        }
+    }
+
+    private static double[][] scratch(int n) {
+        if (n > MAX_SCRATCH_LENGTH) {
+            return new double[][] { new double[n], new double[n] };
+        }
+        double[][] buf = scratch.get();
+        if (buf == null || buf[0].length < n) {
+            buf = new double[][] { new double[n], new double[n] };
+            scratch.set(buf);
+        }
+        return buf;
+    }
+
+    //
+    // Factorization and twiddle factors w_n^k = exp(-2*pi*i*k/n),
+    // k = 0, ..., n - 1 for one length, cached like the FftPlans
+    //
+    private static final class Plan {
+
+        // at most 32 cached plans holding at most 64 MiB, larger ones get
+        // recomputed on each transform
+        private static final long MAX_CACHED_DOUBLES = 1L << 23;
+
+        private static final PlanCache<Plan> plans = new PlanCache<Plan>(32, MAX_CACHED_DOUBLES) {
+            @Override
+            Plan create(int n) {
+                return new Plan(n);
+            }
+
+            @Override
+            long weight(Plan plan) {
+                return plan.weight();
+            }
+        };
+
+        final int[] factors;
+        final double[] wr;
+        final double[] wi;
+
+        private Plan(int n) {
+            factors = factorize(n);
+            wr = new double[n];
+            wi = new double[n];
+            for (int k = 0; k < n; ++k) {
+                double angle = 2.0 * Math.PI * k / n;
+                wr[k] = Math.cos(angle);
+                wi[k] = -Math.sin(angle);
+            }
+        }
+
+        // the number of doubles held
+        long weight() {
+            return (long) wr.length + wi.length;
+        }
+
+        static Plan of(int n) {
+            if (!isSupported(n)) {
+                throw new IllegalArgumentException("n must only have the prime factors 2, 3, 5 and 7 : " + n);
+            }
+            return plans.get(n);
+        }
+
+        // radix 4 first (fewest passes), then 2, 3, 5 and 7
+        private static int[] factorize(int n) {
+            int[] tmp = new int[32];
+            int count = 0;
+            while (n % 4 == 0) {
+                tmp[count++] = 4;
+                n /= 4;
+            }
+            for (int p = 2; p <= 7; ++p) {
+                while (n % p == 0) {
+                    tmp[count++] = p;
+                    n /= p;
+                }
+            }
+            int[] factors = new int[count];
+            System.arraycopy(tmp, 0, factors, 0, count);
+            return factors;
+        }
+    }
+
+    private MixedRadix() {
+        throw new AssertionError();
+    }
+}
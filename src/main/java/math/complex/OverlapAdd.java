@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import java.util.Arrays;
+
+/**
+ * Streaming FIR filter {@code y[t] = sum_j h[j] * x[t - j]} by the
+ * overlap-add method.
+ * <p>
+ * The input stream is cut into non-overlapping blocks of {@code blockSize}
+ * samples. Each block is zero-padded to the FFT length {@code L} (the
+ * smallest power of two {@code >= blockSize + h.length - 1}), transformed,
+ * multiplied with the spectrum of {@code h} and transformed back. As
+ * {@code L} is long enough the result is the complete linear convolution of
+ * the block with {@code h}, {@code blockSize + h.length - 1} samples long:
+ * its first {@code blockSize} samples, plus the overlap carried over from
+ * the previous blocks, are the output for the block, and its last
+ * {@code h.length - 1} samples are the tail that gets added to the output
+ * of the following block(s).
+ * <p>
+ * The output for a block is available as soon as the block has been
+ * processed (there is no delay), and the workspace is allocated once, in the
+ * constructor. An instance keeps the state of one stream (the tail) and must
+ * not be used by multiple threads concurrently.
+ */
+public final class OverlapAdd {
+
+    private final FirSpectrum spectrum;
+    private final double[] re;
+    private final double[] im;
+    // the overlap (the tail of the previous block convolutions)
+    private final double[] tail;
+
+    /**
+     * Creates a filter for the real FIR filter coefficients {@code h}.
+     *
+     * @param h
+     *            the filter coefficients (not empty)
+     * @param blockSize
+     *            the number of samples per call to {@link #process}
+     */
+    public OverlapAdd(double[] h, int blockSize) {
+        spectrum = new FirSpectrum(h, blockSize);
+        re = spectrum.workspace();
+        im = spectrum.workspace();
+        tail = new double[h.length - 1];
+    }
+
+    /**
+     * Filters the next {@code blockSize} samples of the stream.
+     *
+     * @param in
+     *            the array holding the input samples
+     * @param inOff
+     *            index of the first input sample in {@code in}
+     * @param out
+     *            the array receiving the filtered samples (may be the same
+     *            array as {@code in})
+     * @param outOff
+     *            index of the first output sample in {@code out}
+     */
+    public void process(double[] in, int inOff, double[] out, int outOff) {
+        final int B = spectrum.blockSize;
+        final int M1 = tail.length;
+        FirSpectrum.checkRange(in, inOff, B);
+        FirSpectrum.checkRange(out, outOff, B);
+        final double[] re = this.re;
+        final double[] im = this.im;
+        Arrays.fill(re, 0.0);
+        Arrays.fill(im, 0.0);
+        for (int i = 0; i < B; ++i) {
+            if ((i & 1) == 0) {
+                re[i >> 1] = in[inOff + i];
+            } else {
+                im[i >> 1] = in[inOff + i];
+            }
+        }
+
+        spectrum.filter(re, im);
+
+        final double[] tail = this.tail;
+        for (int t = 0; t < B; ++t) {
+            double y = FirSpectrum.sample(re, im, t);
+            out[outOff + t] = (t < M1) ? y + tail[t] : y;
+        }
+        // reads of tail[B + t] stay ahead of the writes
+        for (int t = 0; t < M1; ++t) {
+            double y = FirSpectrum.sample(re, im, B + t);
+            tail[t] = (B + t < M1) ? y + tail[B + t] : y;
+        }
+    }
+
+    /**
+     * Forgets the history of the stream, i.e. the next block is filtered as
+     * if it were preceded by zeros.
+     */
+    public void reset() {
+        Arrays.fill(tail, 0.0);
+    }
+
+    public int getBlockSize() {
+        return spectrum.blockSize;
+    }
+
+    public int getFftLength() {
+        return spectrum.fftLength;
+    }
+}
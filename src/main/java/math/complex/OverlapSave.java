@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import java.util.Arrays;
+
+/**
+ * Streaming FIR filter {@code y[t] = sum_j h[j] * x[t - j]} by the
+ * overlap-save method.
+ * <p>
+ * Instead of the output, here the input windows overlap: every block of
+ * {@code blockSize} samples is preceded by the last {@code h.length - 1}
+ * input samples of the stream (the history, zeros at the start), the window
+ * is zero-padded to the FFT length {@code L} (the smallest power of two
+ * {@code >= blockSize + h.length - 1}), transformed, multiplied with the
+ * spectrum of {@code h} and transformed back. That is the circular
+ * convolution of the window with {@code h}: its first {@code h.length - 1}
+ * samples are corrupted by the wrap-around and get discarded, the following
+ * {@code blockSize} samples equal the linear convolution and are the output
+ * for the block. Nothing needs to be added up afterwards, the only state
+ * carried over is the input history.
+ * <p>
+ * The output for a block is available as soon as the block has been
+ * processed (there is no delay), and the workspace is allocated once, in the
+ * constructor. An instance keeps the state of one stream (the history) and
+ * must not be used by multiple threads concurrently.
+ */
+public final class OverlapSave {
+
+    private final FirSpectrum spectrum;
+    private final double[] re;
+    private final double[] im;
+    // the last h.length - 1 input samples
+    private final double[] history;
+
+    /**
+     * Creates a filter for the real FIR filter coefficients {@code h}.
+     *
+     * @param h
+     *            the filter coefficients (not empty)
+     * @param blockSize
+     *            the number of samples per call to {@link #process}
+     */
+    public OverlapSave(double[] h, int blockSize) {
+        spectrum = new FirSpectrum(h, blockSize);
+        re = spectrum.workspace();
+        im = spectrum.workspace();
+        history = new double[h.length - 1];
+    }
+
+    /**
+     * Filters the next {@code blockSize} samples of the stream.
+     *
+     * @param in
+     *            the array holding the input samples
+     * @param inOff
+     *            index of the first input sample in {@code in}
+     * @param out
+     *            the array receiving the filtered samples (may be the same
+     *            array as {@code in})
+     * @param outOff
+     *            index of the first output sample in {@code out}
+     */
+    public void process(double[] in, int inOff, double[] out, int outOff) {
+        final int B = spectrum.blockSize;
+        final double[] history = this.history;
+        final int M1 = history.length;
+        FirSpectrum.checkRange(in, inOff, B);
+        FirSpectrum.checkRange(out, outOff, B);
+        final double[] re = this.re;
+        final double[] im = this.im;
+        Arrays.fill(re, 0.0);
+        Arrays.fill(im, 0.0);
+        // the window is the history followed by the block
+        for (int i = 0; i < M1 + B; ++i) {
+            double x = (i < M1) ? history[i] : in[inOff + i - M1];
+            if ((i & 1) == 0) {
+                re[i >> 1] = x;
+            } else {
+                im[i >> 1] = x;
+            }
+        }
+        // the new history are the last M1 samples of the window (before out
+        // gets written, as it may alias in)
+        if (B >= M1) {
+            System.arraycopy(in, inOff + B - M1, history, 0, M1);
+        } else {
+            System.arraycopy(history, B, history, 0, M1 - B);
+            System.arraycopy(in, inOff, history, M1 - B, B);
+        }
+
+        spectrum.filter(re, im);
+
+        for (int t = 0; t < B; ++t) {
+            out[outOff + t] = FirSpectrum.sample(re, im, M1 + t);
+        }
+    }
+
+    /**
+     * Forgets the history of the stream, i.e. the next block is filtered as
+     * if it were preceded by zeros.
+     */
+    public void reset() {
+        Arrays.fill(history, 0.0);
+    }
+
+    public int getBlockSize() {
+        return spectrum.blockSize;
+    }
+
+    public int getFftLength() {
+        return spectrum.fftLength;
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import math.matrix.DMatrix;
+import math.matrix.Layout;
+import math.matrix.Transpose;
+
+/**
+ * Multi-threaded variants of the in-place {@link Fourier} transforms and
+ * batched transforms of many equally sized frames that run on a
+ * {@link ForkJoinPool}.
+ * <p>
+ * A single power of two transform of at least {@code threshold} points is
+ * split as follows: the bit reversal swaps and the independent
+ * sub-transforms of cache sized aligned blocks are distributed across the
+ * workers, the remaining radix 4 stages are split into groups of butterflies
+ * (slices of the butterfly index within a group once there are fewer groups
+ * than workers). Above the six-step threshold the row FFTs (with their
+ * twiddle multiplies) and the transposes of the six-step algorithm are run
+ * in parallel instead. Lengths that are not a power of two are transformed
+ * sequentially.
+ * <p>
+ * Batches are distributed frame by frame. The first frame is transformed on
+ * the calling thread, so that all workers find the plan for the common
+ * length already cached.
+ * <p>
+ * The 2-D and 3-D transforms consist of batched 1-D passes along the
+ * contiguous dimension; for every other dimension the data is transposed
+ * (blocked, in stripes across the workers) into a scratch array so that
+ * that dimension becomes contiguous, transformed in a batch and transposed
+ * back.
+ */
+public final class ParallelFourier {
+
+    /** Default for the sequential threshold (measured in points) */
+    public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+    // upper bound for the aligned blocks whose sub-transforms are computed by
+    // a single worker
+    private static final int BLOCK = 1 << 12;
+
+    // a batch task transforms at least that many points
+    private static final int GRAIN = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelFourier(int parallelism) {
+        this(new ForkJoinPool(parallelism), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelFourier(int parallelism, int threshold) {
+        this(new ForkJoinPool(parallelism), threshold);
+    }
+
+    public ParallelFourier(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative : " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns a shared instance whose parallelism equals the number of
+     * available processors.
+     *
+     * @return the shared default instance
+     */
+    public static ParallelFourier getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Computes the forward DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place
+     * (see {@link Fourier#forwardInPlace(double[], double[], int, int)}).
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     */
+    public void forwardInPlace(double[] re, double[] im, int off, int n) {
+        transformInPlace(re, im, off, n, false);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFT of the {@code n} complex values
+     * {@code (re[off + i], im[off + i])}, {@code i = 0, ..., n - 1} in place
+     * (see {@link Fourier#inverseInPlace(double[], double[], int, int)}).
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param off
+     *            index of the first value in {@code re} and {@code im}
+     * @param n
+     *            the transform length
+     */
+    public void inverseInPlace(double[] re, double[] im, int off, int n) {
+        transformInPlace(re, im, off, n, true);
+    }
+
+    /**
+     * Computes the forward DFTs of the frames {@code (re[k], im[k])} in
+     * place. All frames must have the same length.
+     *
+     * @param re
+     *            the real parts of the frames
+     * @param im
+     *            the imaginary parts of the frames
+     */
+    public void forwardBatch(double[][] re, double[][] im) {
+        batch(re, im, false);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFTs of the frames
+     * {@code (re[k], im[k])} in place. All frames must have the same length.
+     *
+     * @param re
+     *            the real parts of the frames
+     * @param im
+     *            the imaginary parts of the frames
+     */
+    public void inverseBatch(double[][] re, double[][] im) {
+        batch(re, im, true);
+    }
+
+    /**
+     * Computes the forward DFTs of {@code count} frames of length {@code n}
+     * stored in flat arrays in place. Frame {@code k} starts at index
+     * {@code off + k * stride} of {@code re} and {@code im}.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transforms
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transforms
+     * @param off
+     *            index of the first value of the first frame
+     * @param n
+     *            the transform length
+     * @param count
+     *            the number of frames
+     * @param stride
+     *            the distance between the starts of two consecutive frames
+     *            ({@code >= n})
+     */
+    public void forwardBatch(double[] re, double[] im, int off, int n, int count, int stride) {
+        batch(re, im, off, n, count, stride, false);
+    }
+
+    /**
+     * Computes the (normalized) inverse DFTs of {@code count} frames of
+     * length {@code n} stored in flat arrays in place. Frame {@code k} starts
+     * at index {@code off + k * stride} of {@code re} and {@code im}.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transforms
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transforms
+     * @param off
+     *            index of the first value of the first frame
+     * @param n
+     *            the transform length
+     * @param count
+     *            the number of frames
+     * @param stride
+     *            the distance between the starts of two consecutive frames
+     *            ({@code >= n})
+     */
+    public void inverseBatch(double[] re, double[] im, int off, int n, int count, int stride) {
+        batch(re, im, off, n, count, stride, true);
+    }
+
+    /**
+     * Computes the 2-D forward DFT of the {@code rows x cols} complex matrix
+     * stored in {@code re} and {@code im} in place.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param rows
+     *            the number of rows
+     * @param cols
+     *            the number of columns
+     * @param layout
+     *            the storage layout of {@code re} and {@code im}
+     */
+    public void forward2D(double[] re, double[] im, int rows, int cols, Layout layout) {
+        transform2D(re, im, rows, cols, layout, false);
+    }
+
+    /**
+     * Computes the (normalized) 2-D inverse DFT of the {@code rows x cols}
+     * complex matrix stored in {@code re} and {@code im} in place.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param rows
+     *            the number of rows
+     * @param cols
+     *            the number of columns
+     * @param layout
+     *            the storage layout of {@code re} and {@code im}
+     */
+    public void inverse2D(double[] re, double[] im, int rows, int cols, Layout layout) {
+        transform2D(re, im, rows, cols, layout, true);
+    }
+
+    /**
+     * Computes the 2-D forward DFT of the complex matrix {@code re + i*im}
+     * in place. Both matrices must have the same dimensions and layout.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts (e.g. all zero for real input), overwritten
+     *            with the imaginary parts of the transform
+     */
+    public void forward2D(DMatrix re, DMatrix im) {
+        transform2D(re, im, false);
+    }
+
+    /**
+     * Computes the (normalized) 2-D inverse DFT of the complex matrix
+     * {@code re + i*im} in place. Both matrices must have the same dimensions
+     * and layout.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     */
+    public void inverse2D(DMatrix re, DMatrix im) {
+        transform2D(re, im, true);
+    }
+
+    /**
+     * Computes the 3-D forward DFT of the {@code n1 x n2 x n3} complex array
+     * stored in {@code re} and {@code im} in place. Element
+     * {@code (i1, i2, i3)} is stored at index {@code (i1 * n2 + i2) * n3 + i3}.
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param n1
+     *            the slowest varying dimension
+     * @param n2
+     *            the middle dimension
+     * @param n3
+     *            the contiguous dimension
+     */
+    public void forward3D(double[] re, double[] im, int n1, int n2, int n3) {
+        transform3D(re, im, n1, n2, n3, false);
+    }
+
+    /**
+     * Computes the (normalized) 3-D inverse DFT of the {@code n1 x n2 x n3}
+     * complex array stored in {@code re} and {@code im} in place (see
+     * {@link #forward3D}).
+     *
+     * @param re
+     *            real parts, overwritten with the real parts of the transform
+     * @param im
+     *            imaginary parts, overwritten with the imaginary parts of the
+     *            transform
+     * @param n1
+     *            the slowest varying dimension
+     * @param n2
+     *            the middle dimension
+     * @param n3
+     *            the contiguous dimension
+     */
+    public void inverse3D(double[] re, double[] im, int n1, int n2, int n3) {
+        transform3D(re, im, n1, n2, n3, true);
+    }
+
+    private void transform2D(DMatrix re, DMatrix im, boolean doInverse) {
+        if (re.getRowDim() != im.getRowDim() || re.getColDim() != im.getColDim()) {
+            throw new IllegalArgumentException("Unequal dimensions: (" + re.getRowDim() + " x " + re.getColDim()
+                    + ") != (" + im.getRowDim() + " x " + im.getColDim() + ")");
+        }
+        if (re.getLayout() != im.getLayout()) {
+            throw new IllegalArgumentException("Unequal layouts: " + re.getLayout() + " != " + im.getLayout());
+        }
+        transform2D(re.getArrayUnsafe().array, im.getArrayUnsafe().array, re.getRowDim(), re.getColDim(),
+                re.getLayout(), doInverse);
+    }
+
+    private void transform2D(double[] re, double[] im, int rows, int cols, Layout layout, boolean doInverse) {
+        if (layout == null) {
+            throw new IllegalArgumentException("layout must not be null");
+        }
+        checkShape(re, im, rows, cols, 1);
+        if (rows == 0 || cols == 0) {
+            return;
+        }
+        // the 2-D DFT commutes with transposition, so a column major matrix
+        // is transformed as its row major transpose
+        int m = (layout == Layout.ROW_MAJOR) ? rows : cols;
+        int n = (layout == Layout.ROW_MAJOR) ? cols : rows;
+        double[] tmpR = new double[m * n];
+        double[] tmpI = new double[m * n];
+        // rows
+        batch(re, im, 0, n, m, n, doInverse);
+        // columns
+        columns(re, im, 0, m, n, tmpR, tmpI, doInverse);
+    }
+
+    private void transform3D(final double[] re, final double[] im, int n1, final int n2, final int n3,
+            final boolean doInverse) {
+        checkShape(re, im, n1, n2, n3);
+        if (n1 == 0 || n2 == 0 || n3 == 0) {
+            return;
+        }
+        final int slab = n2 * n3;
+        final double[] tmpR = new double[n1 * slab];
+        final double[] tmpI = new double[n1 * slab];
+        // along n3
+        batch(re, im, 0, n3, n1 * n2, n3, doInverse);
+        // along n2: each (n2 x n3) slab separately
+        if (n1 >= pool.getParallelism() && (long) n1 * slab >= threshold) {
+            run(new Job() {
+                @Override
+                void compute(int i1) {
+                    int off = i1 * slab;
+                    Transpose.transpose(n2, n3, off, re, n3, off, tmpR, n2);
+                    Transpose.transpose(n2, n3, off, im, n3, off, tmpI, n2);
+                    for (int i3 = 0; i3 < n3; ++i3) {
+                        transformFrame(tmpR, tmpI, off + i3 * n2, n2, doInverse);
+                    }
+                    Transpose.transpose(n3, n2, off, tmpR, n2, off, re, n3);
+                    Transpose.transpose(n3, n2, off, tmpI, n2, off, im, n3);
+                }
+            }, n1);
+        } else {
+            for (int i1 = 0; i1 < n1; ++i1) {
+                columns(re, im, i1 * slab, n2, n3, tmpR, tmpI, doInverse);
+            }
+        }
+        // along n1: the columns of the (n1 x n2*n3) matrix
+        columns(re, im, 0, n1, slab, tmpR, tmpI, doInverse);
+    }
+
+    //
+    // Transform the n columns of the dense row major (m x n) matrix at off by
+    // way of its transpose in tmp (at the same offset)
+    //
+    private void columns(double[] re, double[] im, int off, int m, int n, double[] tmpR, double[] tmpI,
+            boolean doInverse) {
+        transpose(m, n, off, re, im, off, tmpR, tmpI);
+        batch(tmpR, tmpI, off, m, n, m, doInverse);
+        transpose(n, m, off, tmpR, tmpI, off, re, im);
+    }
+
+    private static void checkShape(double[] re, double[] im, int n1, int n2, int n3) {
+        if (re == null || im == null) {
+            throw new IllegalArgumentException("re and im must not be null");
+        }
+        if (n1 < 0 || n2 < 0 || n3 < 0) {
+            throw new IllegalArgumentException("illegal shape: " + n1 + " x " + n2 + " x " + n3);
+        }
+        long size = (long) n1 * n2 * n3;
+        if (size > re.length || size > im.length) {
+            throw new IllegalArgumentException("illegal shape: " + n1 + " x " + n2 + " x " + n3 + ", re.length="
+                    + re.length + ", im.length=" + im.length);
+        }
+    }
+
+    private void transformInPlace(double[] re, double[] im, int off, int n, boolean doInverse) {
+        Fourier.checkRange(re, im, off, n);
+        if (n < Math.max(threshold, 8) || !Fourier.isPowerOfTwo(n) || pool.getParallelism() == 1) {
+            transformFrame(re, im, off, n, doInverse);
+            return;
+        }
+        if (n >= Fourier.SIX_STEP_THRESHOLD) {
+            sixStep(re, im, off, n, doInverse);
+        } else {
+            radix2(re, im, off, n, doInverse);
+        }
+        if (doInverse) {
+            Fourier.postProcess(re, im, off, n, 1.0 / n, false);
+        }
+    }
+
+    private void batch(final double[][] re, final double[][] im, final boolean doInverse) {
+        if (re == null || im == null) {
+            throw new IllegalArgumentException("re and im must not be null");
+        }
+        if (re.length != im.length) {
+            throw new IllegalArgumentException("re and im must have the same number of frames: " + re.length
+                    + " != " + im.length);
+        }
+        if (re.length == 0) {
+            return;
+        }
+        final int n = (re[0] == null) ? 0 : re[0].length;
+        for (int k = 0; k < re.length; ++k) {
+            if (re[k] == null || im[k] == null || re[k].length != n || im[k].length != n) {
+                throw new IllegalArgumentException("all frames must have length " + n + " (frame " + k + ")");
+            }
+        }
+        transformFrame(re[0], im[0], 0, n, doInverse);
+        final int perTask = Math.max(1, GRAIN / Math.max(n, 1));
+        final int frames = re.length - 1;
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int end = 1 + Math.min(frames, (task + 1) * perTask);
+                for (int k = 1 + task * perTask; k < end; ++k) {
+                    transformFrame(re[k], im[k], 0, n, doInverse);
+                }
+            }
+        }, (frames + perTask - 1) / perTask, (long) frames * n);
+    }
+
+    private void batch(final double[] re, final double[] im, final int off, final int n, int count,
+            final int stride, final boolean doInverse) {
+        if (re == null || im == null) {
+            throw new IllegalArgumentException("re and im must not be null");
+        }
+        if (off < 0 || n < 0 || count < 0 || stride < n) {
+            throw new IllegalArgumentException("illegal batch: off=" + off + ", n=" + n + ", count=" + count
+                    + ", stride=" + stride);
+        }
+        if (count == 0) {
+            return;
+        }
+        long end = off + (long) (count - 1) * stride + n;
+        if (end > re.length || end > im.length) {
+            throw new IllegalArgumentException("illegal batch: off=" + off + ", n=" + n + ", count=" + count
+                    + ", stride=" + stride + ", re.length=" + re.length + ", im.length=" + im.length);
+        }
+        transformFrame(re, im, off, n, doInverse);
+        final int perTask = Math.max(1, GRAIN / Math.max(n, 1));
+        final int frames = count - 1;
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int end = 1 + Math.min(frames, (task + 1) * perTask);
+                for (int k = 1 + task * perTask; k < end; ++k) {
+                    transformFrame(re, im, off + k * stride, n, doInverse);
+                }
+            }
+        }, (frames + perTask - 1) / perTask, (long) frames * n);
+    }
+
+    private static void transformFrame(double[] re, double[] im, int off, int n, boolean doInverse) {
+        if (doInverse) {
+            Fourier.inverseInPlace(re, im, off, n);
+        } else {
+            Fourier.forwardInPlace(re, im, off, n);
+        }
+    }
+
+    //
+    // radix 2 FFT (without scaling): bit reversal, the sub-transforms of the
+    // aligned blocks, then the radix 4 stages that combine the blocks
+    //
+    private void radix2(final double[] re, final double[] im, final int off, final int n, final boolean doInverse) {
+        final FftPlan plan = FftPlan.of(n);
+        final int[] swaps = plan.swaps;
+        final int chunks = 4 * pool.getParallelism();
+
+        // the swapped pairs are disjoint
+        final int pairs = swaps.length / 2;
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int from = 2 * (int) ((long) task * pairs / chunks);
+                int to = 2 * (int) ((long) (task + 1) * pairs / chunks);
+                Fourier.bitReversalShuffle(re, im, off, swaps, from, to);
+            }
+        }, chunks);
+
+        final int block = blockSize(n);
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int start = off + task * block;
+                if (doInverse) {
+                    Fourier.fourTermInverse(re, im, start, block);
+                } else {
+                    Fourier.fourTermForward(re, im, start, block);
+                }
+                Fourier.combineEvenOdd(re, im, start, block, doInverse, plan);
+            }
+        }, n / block);
+
+        for (int lastN0 = block; lastN0 < n; lastN0 <<= 2) {
+            final int L = lastN0;
+            final int groups = n / (L << 2);
+            final int slices = Math.min(L, Math.max(1, chunks / groups));
+            run(new Job() {
+                @Override
+                void compute(int task) {
+                    int start = off + (task / slices) * (L << 2);
+                    int s = task % slices;
+                    int rFrom = (int) ((long) s * L / slices);
+                    int rTo = (int) ((long) (s + 1) * L / slices);
+                    Fourier.radix4Stage(re, im, start, start + (L << 2), L, rFrom, rTo, doInverse, plan);
+                }
+            }, groups * slices);
+        }
+    }
+
+    // the largest power of two <= BLOCK (and <= n) whose number of trailing
+    // zeros has the parity of n's, so that the block stages are a prefix of
+    // the sequential stage sequence and only radix 4 stages remain
+    private static int blockSize(int n) {
+        int block = Math.min(n, BLOCK);
+        if (((Integer.numberOfTrailingZeros(block) ^ Integer.numberOfTrailingZeros(n)) & 1) != 0) {
+            block >>>= 1;
+        }
+        return block;
+    }
+
+    //
+    // The six-step FFT of Fourier with the row FFTs (fused with the twiddle
+    // multiply) and the transposes distributed across the workers
+    //
+    private void sixStep(final double[] re, final double[] im, final int off, final int n, final boolean doInverse) {
+        final Fourier.SixStepPlan plan = Fourier.sixStepPlan(n);
+        final int n1 = plan.n1;
+        final int n2 = plan.n2;
+        final double[] tmpR = new double[n];
+        final double[] tmpI = new double[n];
+
+        transpose(n2, n1, off, re, im, 0, tmpR, tmpI);
+        run(new Job() {
+            @Override
+            void compute(int j1) {
+                Fourier.radix2(tmpR, tmpI, j1 * n2, n2, doInverse);
+                Fourier.sixStepTwiddle(tmpR, tmpI, j1, j1 + 1, doInverse, plan);
+            }
+        }, n1);
+
+        transpose(n1, n2, 0, tmpR, tmpI, off, re, im);
+        run(new Job() {
+            @Override
+            void compute(int k2) {
+                Fourier.radix2(re, im, off + k2 * n1, n1, doInverse);
+            }
+        }, n2);
+
+        transpose(n2, n1, off, re, im, 0, tmpR, tmpI);
+        final int chunks = 4 * pool.getParallelism();
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int from = (int) ((long) task * n / chunks);
+                int to = (int) ((long) (task + 1) * n / chunks);
+                System.arraycopy(tmpR, from, re, off + from, to - from);
+                System.arraycopy(tmpI, from, im, off + from, to - from);
+            }
+        }, chunks);
+    }
+
+    // (B_R, B_I) <- (A_R, A_I)^T for the dense row major (m x n) matrices A
+    // split into stripes of rows
+    private void transpose(final int m, final int n, final int A_start, final double[] A_R, final double[] A_I,
+            final int B_start, final double[] B_R, final double[] B_I) {
+        int chunks = ((long) m * n < threshold) ? 1 : 4 * pool.getParallelism();
+        // whole tiles of the sequential transpose per stripe
+        final int rows = Math.max(1, ((m + chunks - 1) / chunks + 31) & ~31);
+        run(new Job() {
+            @Override
+            void compute(int task) {
+                int r0 = task * rows;
+                int r1 = Math.min(m, r0 + rows);
+                Transpose.transpose(r1 - r0, n, A_start + r0 * n, A_R, n, B_start + r0, B_R, m);
+                Transpose.transpose(r1 - r0, n, A_start + r0 * n, A_I, n, B_start + r0, B_I, m);
+            }
+        }, (m + rows - 1) / rows, (long) m * n);
+    }
+
+    private void run(Job job, int tasks) {
+        if (tasks > 0) {
+            pool.invoke(new JobTask(job, 0, tasks));
+        }
+    }
+
+    // run sequentially if the work (in points) is below the threshold
+    private void run(Job job, int tasks, long work) {
+        if (work < threshold || pool.getParallelism() == 1) {
+            for (int task = 0; task < tasks; ++task) {
+                job.compute(task);
+            }
+        } else {
+            run(job, tasks);
+        }
+    }
+
+    //
+    // A unit of work that consists of independent tasks 0, 1, ...
+    //
+    private abstract static class Job {
+        abstract void compute(int task);
+    }
+
+    private static final class JobTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        JobTask(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                job.compute(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new JobTask(job, from, mid), new JobTask(job, mid, to));
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final ParallelFourier INSTANCE = new ParallelFourier(Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * Bounded cache for per-length transform plans (twiddle tables and the
+ * like). The cache is bounded by the number of plans and, optionally, by
+ * their total {@linkplain #weight(Object) weight} (e.g. the number of doubles
+ * they hold). If a bound would be exceeded the oldest plans get evicted, a
+ * plan that alone is heavier than the weight bound doesn't get cached at
+ * all. The plans are held in a small copy-on-write array that is searched
+ * linearly, so a lookup never boxes the key and a hit never allocates. The
+ * most recently used entry is remembered separately and only gets replaced
+ * when the length changes.
+ *
+ * @param <P>
+ *            the plan type
+ */
+abstract class PlanCache<P> {
+
+    private final int maxSize;
+    private final long maxWeight;
+    // oldest first, replaced (never modified) on insertion
+    private volatile Entry<P>[] entries;
+    private volatile Entry<P> last;
+
+    PlanCache(int maxSize) {
+        this(maxSize, Long.MAX_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    PlanCache(int maxSize, long maxWeight) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.entries = (Entry<P>[]) new Entry<?>[0];
+    }
+
+    /**
+     * Creates the plan for length {@code n} (called on a cache miss).
+     */
+    abstract P create(int n);
+
+    /**
+     * Returns the weight of {@code plan} that counts against the weight bound
+     * of this cache (zero unless overridden).
+     */
+    long weight(P plan) {
+        return 0L;
+    }
+
+    final P get(int n) {
+        Entry<P> l = last;
+        if (l != null && l.n == n) {
+            return l.plan;
+        }
+        Entry<P> e = find(entries, n);
+        if (e == null) {
+            P plan = create(n);
+            long w = weight(plan);
+            if (w > maxWeight) {
+                // too heavy to be cached (or remembered as the last one)
+                return plan;
+            }
+            e = insert(new Entry<P>(n, plan, w));
+        }
+        last = e;
+        return e.plan;
+    }
+
+    private static <P> Entry<P> find(Entry<P>[] entries, int n) {
+        for (Entry<P> e : entries) {
+            if (e.n == n) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Entry<P> insert(Entry<P> e) {
+        Entry<P>[] current = entries;
+        // another thread may have created the same plan meanwhile
+        Entry<P> existing = find(current, e.n);
+        if (existing != null) {
+            return existing;
+        }
+        long total = e.weight;
+        for (Entry<P> c : current) {
+            total += c.weight;
+        }
+        // evict the oldest entries until both bounds are met
+        int first = 0;
+        while (current.length - first >= maxSize || total > maxWeight) {
+            total -= current[first++].weight;
+        }
+        int keep = current.length - first;
+        @SuppressWarnings("unchecked")
+        Entry<P>[] next = (Entry<P>[]) new Entry<?>[keep + 1];
+        System.arraycopy(current, first, next, 0, keep);
+        next[keep] = e;
+        entries = next;
+        return e;
+    }
+
+    private static final class Entry<P> {
+        final int n;
+        final P plan;
+        final long weight;
+
+        Entry(int n, P plan, long weight) {
+            this.n = n;
+            this.plan = plan;
+            this.weight = weight;
+        }
+    }
+}
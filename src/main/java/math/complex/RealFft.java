@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * FFT of real data of even length {@code n} by way of a complex FFT of
+ * length {@code n/2}: the even and odd samples are packed as the real and
+ * imaginary parts of {@code z[k] = x[2k] + i*x[2k+1]}, and the spectra
+ * {@code E} and {@code O} of the even and odd samples are recovered from
+ * {@code Z = fft(z)} by Hermitian symmetry, giving
+ * {@code X[k] = E[k] + w^k * O[k]} for {@code k = 0, ..., n/2}.
+ */
+final class RealFft {
+
+    // at most 32 cached twiddle tables holding at most 64 MiB, larger ones
+    // get recomputed on each transform
+    private static final long MAX_CACHED_DOUBLES = 1L << 23;
+
+    private static final PlanCache<Twiddles> twiddles = new PlanCache<Twiddles>(32, MAX_CACHED_DOUBLES) {
+        @Override
+        Twiddles create(int n) {
+            return new Twiddles(n);
+        }
+
+        @Override
+        long weight(Twiddles w) {
+            return w.weight();
+        }
+    };
+
+    /**
+     * Returns the {@code n/2 + 1} non-redundant bins of the forward DFT of
+     * the real {@code data} of even length {@code n}.
+     */
+    static ComplexArray forward(double[] data) {
+        final int n = data.length;
+        final int m = n >> 1;
+        double[] re = new double[m + 1];
+        double[] im = new double[m + 1];
+        for (int k = 0; k < m; ++k) {
+            re[k] = data[2 * k];
+            im[k] = data[2 * k + 1];
+        }
+        forwardPacked(re, im, n);
+        return new ComplexArray(re, im, false);
+    }
+
+    /**
+     * Returns the real signal of even length {@code n} whose forward DFT has
+     * the {@code n/2 + 1} non-redundant bins {@code freqs} (the imaginary
+     * parts of the bins {@code 0} and {@code n/2} are ignored).
+     */
+    static double[] inverse(ComplexArray freqs, int n) {
+        final int m = n >> 1;
+        double[] re = new double[m + 1];
+        double[] im = new double[m + 1];
+        System.arraycopy(freqs.re(), 0, re, 0, m + 1);
+        System.arraycopy(freqs.im(), 0, im, 0, m + 1);
+        inversePacked(re, im, n);
+
+        double[] data = new double[n];
+        for (int k = 0; k < m; ++k) {
+            data[2 * k] = re[k];
+            data[2 * k + 1] = im[k];
+        }
+        return data;
+    }
+
+    /**
+     * Computes the forward DFT of the real signal {@code x} of even length
+     * {@code n} that has been packed as {@code re[k] = x[2k]},
+     * {@code im[k] = x[2k+1]} ({@code k < n/2}). {@code re} and {@code im}
+     * (of length {@code >= n/2 + 1}) get overwritten with the {@code n/2 + 1}
+     * non-redundant bins. No memory is allocated for power of two lengths
+     * whose plans are cached.
+     */
+    static void forwardPacked(double[] re, double[] im, int n) {
+        final int m = n >> 1;
+        Fourier.forwardInPlace(re, im, 0, m);
+
+        // k = 0 and k = n/2 are real
+        double z0R = re[0];
+        double z0I = im[0];
+        re[0] = z0R + z0I;
+        im[0] = 0.0;
+        re[m] = z0R - z0I;
+        im[m] = 0.0;
+
+        final Twiddles w = twiddles.get(n);
+        final double[] wR = w.wr;
+        final double[] wI = w.wi;
+        // X[k] = E + w^k * O and X[m - k] = conj(E - w^k * O)
+        for (int k = 1, j = m - 1; k <= j; ++k, --j) {
+            double zkR = re[k];
+            double zkI = im[k];
+            double zjR = re[j];
+            double zjI = im[j];
+            // E = (Z[k] + conj(Z[m - k])) / 2
+            double eR = 0.5 * (zkR + zjR);
+            double eI = 0.5 * (zkI - zjI);
+            // O = -i * (Z[k] - conj(Z[m - k])) / 2
+            double oR = 0.5 * (zkI + zjI);
+            double oI = -0.5 * (zkR - zjR);
+            // w^k * O
+            double woR = wR[k] * oR - wI[k] * oI;
+            double woI = wR[k] * oI + wI[k] * oR;
+            re[k] = eR + woR;
+            im[k] = eI + woI;
+            if (j != k) {
+                re[j] = eR - woR;
+                im[j] = -(eI - woI);
+            }
+        }
+    }
+
+    /**
+     * The inverse of {@link #forwardPacked}: overwrites the {@code n/2 + 1}
+     * bins in {@code re} and {@code im} with the real signal {@code x} of
+     * even length {@code n}, packed as {@code re[k] = x[2k]},
+     * {@code im[k] = x[2k+1]} ({@code k < n/2}).
+     */
+    static void inversePacked(double[] re, double[] im, int n) {
+        final int m = n >> 1;
+
+        double x0R = re[0];
+        double xmR = re[m];
+        re[0] = 0.5 * (x0R + xmR);
+        im[0] = 0.5 * (x0R - xmR);
+
+        final Twiddles w = twiddles.get(n);
+        final double[] wR = w.wr;
+        final double[] wI = w.wi;
+        // Z[k] = E + i * O and Z[m - k] = conj(E) + i * conj(O)
+        for (int k = 1, j = m - 1; k <= j; ++k, --j) {
+            double xkR = re[k];
+            double xkI = im[k];
+            double xjR = re[j];
+            double xjI = im[j];
+            // E = (X[k] + conj(X[m - k])) / 2
+            double eR = 0.5 * (xkR + xjR);
+            double eI = 0.5 * (xkI - xjI);
+            // O = conj(w^k) * (X[k] - conj(X[m - k])) / 2
+            double dR = 0.5 * (xkR - xjR);
+            double dI = 0.5 * (xkI + xjI);
+            double oR = wR[k] * dR + wI[k] * dI;
+            double oI = wR[k] * dI - wI[k] * dR;
+            re[k] = eR - oI;
+            im[k] = eI + oR;
+            if (j != k) {
+                re[j] = eR + oI;
+                im[j] = -eI + oR;
+            }
+        }
+        Fourier.inverseInPlace(re, im, 0, m);
+    }
+
+    //
+    // w^k = exp(-2*pi*i*k/n) for k = 0, ..., n/4
+    //
+    private static final class Twiddles {
+
+        final double[] wr;
+        final double[] wi;
+
+        Twiddles(int n) {
+            int len = (n >> 2) + 1;
+            wr = new double[len];
+            wi = new double[len];
+            for (int k = 0; k < len; ++k) {
+                double angle = 2.0 * Math.PI * k / n;
+                wr[k] = Math.cos(angle);
+                wi[k] = -Math.sin(angle);
+            }
+        }
+
+        // the number of doubles held
+        long weight() {
+            return (long) wr.length + wi.length;
+        }
+    }
+
+    private RealFft() {
+        throw new AssertionError();
+    }
+}
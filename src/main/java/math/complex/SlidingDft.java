@@ -0,0 +1,251 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import java.util.Arrays;
+
+/**
+ * Sliding DFT of a real signal: tracks a few bins {@code k} of the DFT
+ * {@code X_k = sum_n x[n] * exp(-2*pi*i*k*n/N)} of the last {@code N}
+ * samples ({@code x[0]} the oldest, {@code x[N - 1]} the newest) at a cost
+ * of {@code O(1)} per bin and incoming sample by way of the recursion
+ * {@code X_k <- exp(2*pi*i*k/N) * (X_k - x[0] + x_new)}.
+ * <p>
+ * Round-off accumulates in the recursion, so every
+ * {@code reanchorInterval} samples the tracked bins are recomputed from a
+ * full (in-place) {@link Fourier} transform of the window. Before
+ * {@code N} samples have arrived the window is padded with zeros at the
+ * front.
+ * <p>
+ * An instance keeps the state of one stream and must not be used by
+ * multiple threads concurrently.
+ */
+public final class SlidingDft {
+
+    /** Default re-anchoring interval, in multiples of the window length */
+    public static final int DEFAULT_REANCHOR_WINDOWS = 16;
+
+    private final int windowLength;
+    private final int[] bins;
+    // exp(2*pi*i*k/N) for the tracked bins
+    private final double[] rotR;
+    private final double[] rotI;
+    private final double[] re;
+    private final double[] im;
+
+    // the window, the oldest sample at pos
+    private final double[] samples;
+    private int pos;
+
+    private final long reanchorInterval;
+    private long sinceAnchor;
+
+    // workspace for the re-anchoring transform
+    private final double[] workR;
+    private final double[] workI;
+
+    /**
+     * Creates a sliding DFT that re-anchors every
+     * {@link #DEFAULT_REANCHOR_WINDOWS} window lengths.
+     *
+     * @param windowLength
+     *            the window (and DFT) length {@code N}
+     * @param bins
+     *            the bins to track, each in {@code [0, N)}
+     */
+    public SlidingDft(int windowLength, int[] bins) {
+        this(windowLength, bins, (long) DEFAULT_REANCHOR_WINDOWS * windowLength);
+    }
+
+    /**
+     * Creates a sliding DFT.
+     *
+     * @param windowLength
+     *            the window (and DFT) length {@code N}
+     * @param bins
+     *            the bins to track, each in {@code [0, N)}
+     * @param reanchorInterval
+     *            the number of samples after which the tracked bins get
+     *            recomputed exactly ({@code 0} to never re-anchor)
+     */
+    public SlidingDft(int windowLength, int[] bins, long reanchorInterval) {
+        if (windowLength < 1) {
+            throw new IllegalArgumentException("windowLength < 1 : " + windowLength);
+        }
+        if (reanchorInterval < 0L) {
+            throw new IllegalArgumentException("reanchorInterval < 0 : " + reanchorInterval);
+        }
+        this.windowLength = windowLength;
+        this.bins = bins.clone();
+        rotR = new double[bins.length];
+        rotI = new double[bins.length];
+        for (int j = 0; j < bins.length; ++j) {
+            int k = bins[j];
+            if (k < 0 || k >= windowLength) {
+                throw new IllegalArgumentException("Invalid bin " + k + " for window length " + windowLength);
+            }
+            double angle = 2.0 * Math.PI * k / windowLength;
+            rotR[j] = Math.cos(angle);
+            rotI[j] = Math.sin(angle);
+        }
+        re = new double[bins.length];
+        im = new double[bins.length];
+        samples = new double[windowLength];
+        this.reanchorInterval = reanchorInterval;
+        workR = new double[windowLength];
+        workI = new double[windowLength];
+    }
+
+    /**
+     * Slides the window by one sample.
+     *
+     * @param x
+     *            the new sample
+     */
+    public void update(double x) {
+        final double delta = x - samples[pos];
+        samples[pos] = x;
+        if (++pos == windowLength) {
+            pos = 0;
+        }
+        final double[] re = this.re;
+        final double[] im = this.im;
+        final double[] rotR = this.rotR;
+        final double[] rotI = this.rotI;
+        for (int j = 0; j < re.length; ++j) {
+            double r = re[j] + delta;
+            double i = im[j];
+            re[j] = rotR[j] * r - rotI[j] * i;
+            im[j] = rotR[j] * i + rotI[j] * r;
+        }
+        if (reanchorInterval > 0L && ++sinceAnchor >= reanchorInterval) {
+            reanchor();
+        }
+    }
+
+    /**
+     * Slides the window by the samples {@code x[off], ..., x[off + len - 1]}.
+     *
+     * @param x
+     *            the array holding the new samples
+     * @param off
+     *            index of the first new sample
+     * @param len
+     *            the number of new samples
+     */
+    public void update(double[] x, int off, int len) {
+        if (off < 0 || len < 0 || off + len > x.length || off + len < 0) {
+            throw new IllegalArgumentException("illegal range: off=" + off + ", len=" + len + ", length=" + x.length);
+        }
+        for (int i = off; i < off + len; ++i) {
+            update(x[i]);
+        }
+    }
+
+    /**
+     * Recomputes the tracked bins from a full transform of the window.
+     */
+    public void reanchor() {
+        final int N = windowLength;
+        int tail = N - pos;
+        System.arraycopy(samples, pos, workR, 0, tail);
+        System.arraycopy(samples, 0, workR, tail, pos);
+        Arrays.fill(workI, 0.0);
+        Fourier.forwardInPlace(workR, workI, 0, N);
+        for (int j = 0; j < bins.length; ++j) {
+            re[j] = workR[bins[j]];
+            im[j] = workI[bins[j]];
+        }
+        sinceAnchor = 0L;
+    }
+
+    /**
+     * Clears the window (to all zeros) and the tracked bins.
+     */
+    public void reset() {
+        Arrays.fill(samples, 0.0);
+        Arrays.fill(re, 0.0);
+        Arrays.fill(im, 0.0);
+        pos = 0;
+        sinceAnchor = 0L;
+    }
+
+    /**
+     * Returns the real part of the {@code j}-th tracked bin (the bin
+     * {@code getBins()[j]}).
+     */
+    public double re(int j) {
+        return re[j];
+    }
+
+    /**
+     * Returns the imaginary part of the {@code j}-th tracked bin.
+     */
+    public double im(int j) {
+        return im[j];
+    }
+
+    /**
+     * Returns the absolute value of the {@code j}-th tracked bin.
+     */
+    public double magnitude(int j) {
+        return Math.sqrt(re[j] * re[j] + im[j] * im[j]);
+    }
+
+    public int[] getBins() {
+        return bins.clone();
+    }
+
+    public int getWindowLength() {
+        return windowLength;
+    }
+
+    /**
+     * Computes the single DFT bin
+     * {@code X_k = sum_n x[n] * exp(-2*pi*i*k*n/N)} ({@code N = x.length})
+     * with the Goertzel algorithm, i.e. in {@code O(N)} with one real
+     * multiplication per sample.
+     *
+     * @param x
+     *            the real signal
+     * @param k
+     *            the bin, in {@code [0, N)}
+     * @return the bin {@code X_k}
+     */
+    public static IComplex goertzel(double[] x, int k) {
+        final int N = x.length;
+        if (k < 0 || k >= Math.max(N, 1)) {
+            throw new IllegalArgumentException("Invalid bin " + k + " for length " + N);
+        }
+        if (N == 0) {
+            return new Complex(0.0, 0.0);
+        }
+        double angle = 2.0 * Math.PI * k / N;
+        double cos = Math.cos(angle);
+        double coeff = 2.0 * cos;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        for (int n = 0; n < N; ++n) {
+            double s = x[n] + coeff * s1 - s2;
+            s2 = s1;
+            s1 = s;
+        }
+        // one more step with x[N] = 0, then
+        // X_k = s[N] - exp(-i*angle) * s[N - 1]
+        double sN = coeff * s1 - s2;
+        return new Complex(sN - cos * s1, Math.sin(angle) * s1);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import java.util.Arrays;
+
+/**
+ * Streaming short-time Fourier transform. Samples are pushed incrementally
+ * (in chunks of any size); every {@code hopSize} samples (once the first
+ * {@code windowLength} samples have arrived) the last {@code windowLength}
+ * samples are multiplied with the window and transformed. The
+ * {@code windowLength/2 + 1} non-redundant bins (unnormalized) of each frame
+ * are stored, as complex values or as magnitudes, in a ring buffer of
+ * {@code capacity} frames from which they can be read in order. If the ring
+ * buffer is full the oldest frame gets overwritten.
+ * <p>
+ * All buffers are allocated in the constructor, the transforms reuse one
+ * plan (for even power of two window lengths no memory is allocated per
+ * frame). An instance keeps the state of one stream and must not be used by
+ * multiple threads concurrently.
+ */
+public final class Stft {
+
+    /** What gets stored for each frame */
+    public static enum Output {
+        /** the complex bins */
+        COMPLEX,
+        /** the absolute values of the bins */
+        MAGNITUDE
+    }
+
+    private final int windowLength;
+    private final int hopSize;
+    private final int bins;
+    private final int capacity;
+    private final Output output;
+    private final double[] window;
+
+    // the last windowLength samples, the oldest one at samplePos once full
+    private final double[] samples;
+    private int samplePos;
+    // the number of samples still missing until the next frame
+    private int untilNext;
+
+    // the windowed frame and the transform workspace
+    private final double[] frame;
+    private final double[] re;
+    private final double[] im;
+
+    // the ring buffer of frames (frame k at k * bins), im only for COMPLEX
+    private final double[] ringRe;
+    private final double[] ringIm;
+    private int head;
+    private int size;
+    private long framesEmitted;
+
+    /**
+     * Creates an STFT engine.
+     *
+     * @param windowLength
+     *            the window (and transform) length
+     * @param hopSize
+     *            the number of samples between the starts of two frames
+     * @param window
+     *            the window function
+     * @param output
+     *            whether complex frames or magnitudes get stored
+     * @param capacity
+     *            the number of frames the ring buffer holds
+     */
+    public Stft(int windowLength, int hopSize, Window window, Output output, int capacity) {
+        if (windowLength < 1) {
+            throw new IllegalArgumentException("windowLength < 1 : " + windowLength);
+        }
+        if (hopSize < 1) {
+            throw new IllegalArgumentException("hopSize < 1 : " + hopSize);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity < 1 : " + capacity);
+        }
+        if (window == null || output == null) {
+            throw new IllegalArgumentException("window and output must not be null");
+        }
+        this.windowLength = windowLength;
+        this.hopSize = hopSize;
+        this.bins = windowLength / 2 + 1;
+        if ((long) capacity * bins > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        this.capacity = capacity;
+        this.output = output;
+        this.window = window.coefficients(windowLength);
+        samples = new double[windowLength];
+        untilNext = windowLength;
+        frame = new double[windowLength];
+        // even lengths use the real FFT (packed), odd ones a complex FFT
+        int work = (windowLength % 2 == 0) ? bins : windowLength;
+        re = new double[work];
+        im = new double[work];
+        ringRe = new double[capacity * bins];
+        ringIm = (output == Output.COMPLEX) ? new double[capacity * bins] : null;
+    }
+
+    /**
+     * Appends the samples {@code x[off], ..., x[off + len - 1]} to the stream
+     * and computes the frames that become complete.
+     *
+     * @param x
+     *            the array holding the samples
+     * @param off
+     *            index of the first sample
+     * @param len
+     *            the number of samples
+     * @return the number of frames computed
+     */
+    public int push(double[] x, int off, int len) {
+        if (off < 0 || len < 0 || off + len > x.length || off + len < 0) {
+            throw new IllegalArgumentException("illegal range: off=" + off + ", len=" + len + ", length=" + x.length);
+        }
+        final int N = windowLength;
+        int frames = 0;
+        while (len > 0) {
+            // copy up to the next frame boundary (only the last N samples
+            // before a boundary matter if the hop size exceeds N)
+            int chunk = Math.min(len, untilNext);
+            int skip = Math.max(0, chunk - N);
+            append(x, off + skip, chunk - skip);
+            off += chunk;
+            len -= chunk;
+            untilNext -= chunk;
+            if (untilNext == 0) {
+                computeFrame();
+                ++frames;
+                untilNext = hopSize;
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Appends all samples of {@code x} to the stream.
+     *
+     * @param x
+     *            the samples
+     * @return the number of frames computed
+     */
+    public int push(double[] x) {
+        return push(x, 0, x.length);
+    }
+
+    // append len <= N samples to the circular sample buffer
+    private void append(double[] x, int off, int len) {
+        final int N = windowLength;
+        int first = Math.min(len, N - samplePos);
+        System.arraycopy(x, off, samples, samplePos, first);
+        System.arraycopy(x, off + first, samples, 0, len - first);
+        samplePos += len;
+        if (samplePos >= N) {
+            samplePos -= N;
+        }
+    }
+
+    private void computeFrame() {
+        final int N = windowLength;
+        final double[] w = window;
+        final double[] f = frame;
+        // the oldest sample is at samplePos
+        int tail = N - samplePos;
+        for (int i = 0; i < tail; ++i) {
+            f[i] = w[i] * samples[samplePos + i];
+        }
+        for (int i = tail; i < N; ++i) {
+            f[i] = w[i] * samples[i - tail];
+        }
+
+        final double[] re = this.re;
+        final double[] im = this.im;
+        if (N % 2 == 0) {
+            for (int k = 0; k < N / 2; ++k) {
+                re[k] = f[2 * k];
+                im[k] = f[2 * k + 1];
+            }
+            RealFft.forwardPacked(re, im, N);
+        } else {
+            System.arraycopy(f, 0, re, 0, N);
+            Arrays.fill(im, 0.0);
+            Fourier.forwardInPlace(re, im, 0, N);
+        }
+
+        int slot = (head + size) % capacity;
+        if (size == capacity) {
+            // overwrite the oldest frame
+            head = (head + 1) % capacity;
+        } else {
+            ++size;
+        }
+        int dst = slot * bins;
+        if (output == Output.COMPLEX) {
+            System.arraycopy(re, 0, ringRe, dst, bins);
+            System.arraycopy(im, 0, ringIm, dst, bins);
+        } else {
+            for (int k = 0; k < bins; ++k) {
+                ringRe[dst + k] = Math.sqrt(re[k] * re[k] + im[k] * im[k]);
+            }
+        }
+        ++framesEmitted;
+    }
+
+    /**
+     * Returns the number of frames in the ring buffer.
+     *
+     * @return the number of frames that can be read
+     */
+    public int available() {
+        return size;
+    }
+
+    /**
+     * Copies the oldest frame from the ring buffer into {@code re} and
+     * {@code im} (of length {@code >= getBins()}) and removes it (only for
+     * {@link Output#COMPLEX}).
+     *
+     * @param re
+     *            receives the real parts of the bins
+     * @param im
+     *            receives the imaginary parts of the bins
+     * @return {@code false} if the ring buffer was empty
+     */
+    public boolean read(double[] re, double[] im) {
+        if (output != Output.COMPLEX) {
+            throw new IllegalStateException("output is " + output);
+        }
+        if (size == 0) {
+            return false;
+        }
+        System.arraycopy(ringRe, head * bins, re, 0, bins);
+        System.arraycopy(ringIm, head * bins, im, 0, bins);
+        remove();
+        return true;
+    }
+
+    /**
+     * Copies the oldest frame from the ring buffer into {@code magnitudes}
+     * (of length {@code >= getBins()}) and removes it. For
+     * {@link Output#COMPLEX} the magnitudes get computed from the complex
+     * bins.
+     *
+     * @param magnitudes
+     *            receives the absolute values of the bins
+     * @return {@code false} if the ring buffer was empty
+     */
+    public boolean read(double[] magnitudes) {
+        if (size == 0) {
+            return false;
+        }
+        int src = head * bins;
+        if (output == Output.COMPLEX) {
+            for (int k = 0; k < bins; ++k) {
+                double r = ringRe[src + k];
+                double i = ringIm[src + k];
+                magnitudes[k] = Math.sqrt(r * r + i * i);
+            }
+        } else {
+            System.arraycopy(ringRe, src, magnitudes, 0, bins);
+        }
+        remove();
+        return true;
+    }
+
+    private void remove() {
+        head = (head + 1) % capacity;
+        --size;
+    }
+
+    /**
+     * Discards all samples and frames.
+     */
+    public void reset() {
+        samplePos = 0;
+        untilNext = windowLength;
+        head = 0;
+        size = 0;
+        framesEmitted = 0L;
+    }
+
+    /**
+     * Returns the number of frames computed since construction (or the last
+     * {@link #reset()}), including the ones that have been overwritten.
+     *
+     * @return the total number of frames
+     */
+    public long getFramesEmitted() {
+        return framesEmitted;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public int getWindowLength() {
+        return windowLength;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+/**
+ * Window functions for spectral analysis in their periodic (DFT-even) form,
+ * i.e. {@code w[i] = f(2*pi*i/n)}, {@code i = 0, ..., n - 1}, which is the
+ * form that gives perfect overlap-add for the usual hop sizes of an
+ * {@link Stft}.
+ */
+public enum Window {
+
+    /** {@code 1} */
+    RECTANGULAR(1.0, 0.0, 0.0),
+
+    /** {@code 0.5 - 0.5 * cos(2*pi*i/n)} */
+    HANN(0.5, 0.5, 0.0),
+
+    /** {@code 0.54 - 0.46 * cos(2*pi*i/n)} */
+    HAMMING(0.54, 0.46, 0.0),
+
+    /** {@code 0.42 - 0.5 * cos(2*pi*i/n) + 0.08 * cos(4*pi*i/n)} */
+    BLACKMAN(0.42, 0.5, 0.08);
+
+    private final double a0;
+    private final double a1;
+    private final double a2;
+
+    private Window(double a0, double a1, double a2) {
+        this.a0 = a0;
+        this.a1 = a1;
+        this.a2 = a2;
+    }
+
+    /**
+     * Returns the {@code n} coefficients of this window.
+     *
+     * @param n
+     *            the window length
+     * @return the window coefficients
+     */
+    public double[] coefficients(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n < 0 : " + n);
+        }
+        double[] w = new double[n];
+        for (int i = 0; i < n; ++i) {
+            double angle = 2.0 * Math.PI * i / n;
+            w[i] = a0 - a1 * Math.cos(angle) + a2 * Math.cos(2.0 * angle);
+        }
+        return w;
+    }
+}
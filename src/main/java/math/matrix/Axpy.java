@@ -13,6 +13,11 @@ public final class Axpy {
         if (incX == 1 && incY == 1) {
             // code for both increments equal to 1
 
+            SimdKernels simd = Simd.KERNELS;
+            if (simd != null && n >= Simd.MIN_LENGTH) {
+                simd.axpy(n, alpha, x, xOff, y, yOff);
+                return;
+            }
             for (int i = 0; i < n; ++i) {
                 y[i + yOff] += alpha * x[i + xOff];
             }
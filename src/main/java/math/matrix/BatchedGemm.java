@@ -0,0 +1,463 @@
+package math.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes {@code C[i] <- alpha*A[i]*B[i] + beta*C[i]} for a batch of small
+ * matrices that all have the same shape ({@code A[i]} is {@code (m x k)},
+ * {@code B[i]} is {@code (k x n)} and {@code C[i]} is {@code (m x n)}, all of
+ * them in {@linkplain Layout#COL_MAJOR} order without padding).
+ * <p>
+ * The matrices can be given either as arrays of arrays or as one flat array
+ * per operand that holds the matrices at a fixed stride (a stride of
+ * {@code 0} for {@code A} or {@code B} uses the same matrix for every
+ * product). Products up to {@code MAX_DIRECT} in each dimension are computed
+ * directly from the operands, without packing or workspace buffers, with
+ * fully unrolled kernels for the {@code 2x2}, {@code 3x3} and {@code 4x4}
+ * cases and {@code 4x4} register blocks otherwise. Larger products are
+ * delegated to {@link Gemm}. Batches with less than {@code threshold}
+ * multiply-adds in total ({@code count * m * n * k}) are computed by the
+ * calling thread, larger ones are split across the workers of a
+ * {@link ForkJoinPool}. As usual, {@code C} is not read if
+ * {@code beta == 0.0}.
+ */
+public final class BatchedGemm {
+
+    /** Default for the sequential threshold (measured in {@code count * m * n * k}) */
+    public static final long DEFAULT_THRESHOLD = 1L << 16;
+
+    /** Largest dimension for which the direct (packing free) kernels are used */
+    public static final int MAX_DIRECT = 32;
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    public BatchedGemm(int parallelism) {
+        this(new ForkJoinPool(parallelism), DEFAULT_THRESHOLD);
+    }
+
+    public BatchedGemm(int parallelism, long threshold) {
+        this(new ForkJoinPool(parallelism), threshold);
+    }
+
+    public BatchedGemm(ForkJoinPool pool, long threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (threshold < 0L) {
+            throw new IllegalArgumentException("threshold must not be negative : " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns a shared instance whose parallelism equals the number of
+     * available processors.
+     *
+     * @return the shared default instance
+     */
+    public static BatchedGemm getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Computes {@code C[i] <- alpha*A[i]*B[i] + beta*C[i]} for
+     * {@code i = 0, ..., C.length - 1}.
+     *
+     * @param m
+     *            the number of rows of {@code A[i]} and {@code C[i]}
+     * @param n
+     *            the number of columns of {@code B[i]} and {@code C[i]}
+     * @param k
+     *            the number of columns of {@code A[i]} and rows of
+     *            {@code B[i]}
+     * @param alpha
+     *            scalar multiplier for the products
+     * @param A
+     *            the left hand side factors
+     * @param B
+     *            the right hand side factors
+     * @param beta
+     *            scalar multiplier for {@code C[i]}
+     * @param C
+     *            the matrices that get updated
+     */
+    public void gemm(final int m, final int n, final int k, final double alpha, final double[][] A,
+            final double[][] B, final double beta, final double[][] C) {
+
+        checkDims(m, n, k);
+        if (A.length != C.length || B.length != C.length) {
+            throw new IllegalArgumentException("batch sizes differ : A = " + A.length + ", B = " + B.length
+                    + ", C = " + C.length);
+        }
+        for (int i = 0; i < C.length; ++i) {
+            checkLength("A", i, A[i], m * k);
+            checkLength("B", i, B[i], k * n);
+            checkLength("C", i, C[i], m * n);
+        }
+        run(new Batch(m, n, k) {
+            @Override
+            void compute(int i) {
+                multiply(m, n, k, alpha, A[i], 0, B[i], 0, beta, C[i], 0);
+            }
+        }, C.length);
+    }
+
+    /**
+     * Computes {@code C[i] <- alpha*A[i]*B[i] + beta*C[i]} for
+     * {@code i = 0, ..., count - 1} where the matrices {@code A[i]},
+     * {@code B[i]} and {@code C[i]} start at
+     * {@code A_start + i * strideA}, {@code B_start + i * strideB} and
+     * {@code C_start + i * strideC} in the flat arrays {@code A}, {@code B}
+     * and {@code C}.
+     *
+     * @param m
+     *            the number of rows of {@code A[i]} and {@code C[i]}
+     * @param n
+     *            the number of columns of {@code B[i]} and {@code C[i]}
+     * @param k
+     *            the number of columns of {@code A[i]} and rows of
+     *            {@code B[i]}
+     * @param alpha
+     *            scalar multiplier for the products
+     * @param A_start
+     *            offset of {@code A[0]}
+     * @param A
+     *            the left hand side factors
+     * @param strideA
+     *            distance between {@code A[i]} and {@code A[i+1]} (may be
+     *            {@code 0})
+     * @param B_start
+     *            offset of {@code B[0]}
+     * @param B
+     *            the right hand side factors
+     * @param strideB
+     *            distance between {@code B[i]} and {@code B[i+1]} (may be
+     *            {@code 0})
+     * @param beta
+     *            scalar multiplier for {@code C[i]}
+     * @param C_start
+     *            offset of {@code C[0]}
+     * @param C
+     *            the matrices that get updated (must not overlap with
+     *            {@code A} or {@code B})
+     * @param strideC
+     *            distance between {@code C[i]} and {@code C[i+1]} (at least
+     *            {@code m * n})
+     * @param count
+     *            the number of products
+     */
+    public void gemm(final int m, final int n, final int k, final double alpha, final int A_start,
+            final double[] A, final int strideA, final int B_start, final double[] B, final int strideB,
+            final double beta, final int C_start, final double[] C, final int strideC, int count) {
+
+        checkDims(m, n, k);
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative : " + count);
+        }
+        if (count == 0) {
+            return;
+        }
+        if (strideA < 0 || strideB < 0) {
+            throw new IllegalArgumentException("strides must not be negative : " + strideA + ", " + strideB);
+        }
+        if (count > 1 && strideC < m * n) {
+            throw new IllegalArgumentException("strideC must be at least m * n = " + (m * n) + " : " + strideC);
+        }
+        checkRange("A", A, A_start, strideA, count, m * k);
+        checkRange("B", B, B_start, strideB, count, k * n);
+        checkRange("C", C, C_start, strideC, count, m * n);
+        run(new Batch(m, n, k) {
+            @Override
+            void compute(int i) {
+                multiply(m, n, k, alpha, A, A_start + i * strideA, B, B_start + i * strideB, beta, C,
+                        C_start + i * strideC);
+            }
+        }, count);
+    }
+
+    //
+    // Compute C <- alpha*A*B + beta*C for one product of the batch
+    //
+    static void multiply(int m, int n, int k, double alpha, double[] A, int aOff, double[] B, int bOff,
+            double beta, double[] C, int cOff) {
+
+        if (alpha == 0.0 || k == 0) {
+            if (beta == 0.0) {
+                Arrays.fill(C, cOff, cOff + m * n, 0.0);
+            } else {
+                Gescal.gescal(m, n, beta, cOff, C, 1, m);
+            }
+            return;
+        }
+        if (m == k && n == k) {
+            switch (k) {
+            case 1:
+                C[cOff] = update(alpha * A[aOff] * B[bOff], beta, C[cOff]);
+                return;
+            case 2:
+                gemm2x2(alpha, A, aOff, B, bOff, beta, C, cOff);
+                return;
+            case 3:
+                gemm3x3(alpha, A, aOff, B, bOff, beta, C, cOff);
+                return;
+            case 4:
+                gemm4x4(alpha, A, aOff, B, bOff, beta, C, cOff);
+                return;
+            default:
+                break;
+            }
+        }
+        if (m <= MAX_DIRECT && n <= MAX_DIRECT && k <= MAX_DIRECT) {
+            gemmDirect(m, n, k, alpha, A, aOff, B, bOff, beta, C, cOff);
+        } else {
+            Gemm.gemm(m, n, k, alpha, aOff, A, 1, m, bOff, B, 1, k, beta, cOff, C, 1, m);
+        }
+    }
+
+    //
+    // C <- beta*C + ab (C is not read if beta == 0.0)
+    //
+    private static double update(double ab, double beta, double c) {
+        if (beta == 0.0) {
+            return ab;
+        }
+        return beta * c + ab;
+    }
+
+    private static void gemm2x2(double alpha, double[] A, int a, double[] B, int b, double beta, double[] C,
+            int c) {
+        double a00 = A[a], a10 = A[a + 1], a01 = A[a + 2], a11 = A[a + 3];
+        double b00 = B[b], b10 = B[b + 1], b01 = B[b + 2], b11 = B[b + 3];
+
+        C[c] = update(alpha * (a00 * b00 + a01 * b10), beta, C[c]);
+        C[c + 1] = update(alpha * (a10 * b00 + a11 * b10), beta, C[c + 1]);
+        C[c + 2] = update(alpha * (a00 * b01 + a01 * b11), beta, C[c + 2]);
+        C[c + 3] = update(alpha * (a10 * b01 + a11 * b11), beta, C[c + 3]);
+    }
+
+    private static void gemm3x3(double alpha, double[] A, int a, double[] B, int b, double beta, double[] C,
+            int c) {
+        double a00 = A[a], a10 = A[a + 1], a20 = A[a + 2];
+        double a01 = A[a + 3], a11 = A[a + 4], a21 = A[a + 5];
+        double a02 = A[a + 6], a12 = A[a + 7], a22 = A[a + 8];
+
+        for (int j = 0; j < 3; ++j) {
+            int bj = b + 3 * j;
+            int cj = c + 3 * j;
+            double b0j = B[bj], b1j = B[bj + 1], b2j = B[bj + 2];
+            C[cj] = update(alpha * (a00 * b0j + a01 * b1j + a02 * b2j), beta, C[cj]);
+            C[cj + 1] = update(alpha * (a10 * b0j + a11 * b1j + a12 * b2j), beta, C[cj + 1]);
+            C[cj + 2] = update(alpha * (a20 * b0j + a21 * b1j + a22 * b2j), beta, C[cj + 2]);
+        }
+    }
+
+    private static void gemm4x4(double alpha, double[] A, int a, double[] B, int b, double beta, double[] C,
+            int c) {
+        double a00 = A[a], a10 = A[a + 1], a20 = A[a + 2], a30 = A[a + 3];
+        double a01 = A[a + 4], a11 = A[a + 5], a21 = A[a + 6], a31 = A[a + 7];
+        double a02 = A[a + 8], a12 = A[a + 9], a22 = A[a + 10], a32 = A[a + 11];
+        double a03 = A[a + 12], a13 = A[a + 13], a23 = A[a + 14], a33 = A[a + 15];
+
+        for (int j = 0; j < 4; ++j) {
+            int bj = b + 4 * j;
+            int cj = c + 4 * j;
+            double b0j = B[bj], b1j = B[bj + 1], b2j = B[bj + 2], b3j = B[bj + 3];
+            C[cj] = update(alpha * (a00 * b0j + a01 * b1j + a02 * b2j + a03 * b3j), beta, C[cj]);
+            C[cj + 1] = update(alpha * (a10 * b0j + a11 * b1j + a12 * b2j + a13 * b3j), beta, C[cj + 1]);
+            C[cj + 2] = update(alpha * (a20 * b0j + a21 * b1j + a22 * b2j + a23 * b3j), beta, C[cj + 2]);
+            C[cj + 3] = update(alpha * (a30 * b0j + a31 * b1j + a32 * b2j + a33 * b3j), beta, C[cj + 3]);
+        }
+    }
+
+    //
+    // Unpacked product for small column-major operands: 4x4 blocks of C are
+    // accumulated in local variables, the remaining rows and columns one
+    // element at a time
+    //
+    private static void gemmDirect(int m, int n, int k, double alpha, double[] A, int aOff, double[] B, int bOff,
+            double beta, double[] C, int cOff) {
+
+        final int m4 = m & ~3;
+        final int n4 = n & ~3;
+
+        for (int j = 0; j < n4; j += 4) {
+            int b0 = bOff + j * k;
+            int b1 = b0 + k;
+            int b2 = b1 + k;
+            int b3 = b2 + k;
+
+            for (int i = 0; i < m4; i += 4) {
+                double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0;
+                double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0;
+                double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0;
+                double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0;
+
+                int a = aOff + i;
+                for (int p = 0; p < k; ++p) {
+                    double a0 = A[a], a1 = A[a + 1], a2 = A[a + 2], a3 = A[a + 3];
+                    double bp0 = B[b0 + p], bp1 = B[b1 + p], bp2 = B[b2 + p], bp3 = B[b3 + p];
+                    c00 += a0 * bp0;
+                    c10 += a1 * bp0;
+                    c20 += a2 * bp0;
+                    c30 += a3 * bp0;
+                    c01 += a0 * bp1;
+                    c11 += a1 * bp1;
+                    c21 += a2 * bp1;
+                    c31 += a3 * bp1;
+                    c02 += a0 * bp2;
+                    c12 += a1 * bp2;
+                    c22 += a2 * bp2;
+                    c32 += a3 * bp2;
+                    c03 += a0 * bp3;
+                    c13 += a1 * bp3;
+                    c23 += a2 * bp3;
+                    c33 += a3 * bp3;
+                    a += m;
+                }
+
+                int c0 = cOff + i + j * m;
+                int c1 = c0 + m;
+                int c2 = c1 + m;
+                int c3 = c2 + m;
+                C[c0] = update(alpha * c00, beta, C[c0]);
+                C[c0 + 1] = update(alpha * c10, beta, C[c0 + 1]);
+                C[c0 + 2] = update(alpha * c20, beta, C[c0 + 2]);
+                C[c0 + 3] = update(alpha * c30, beta, C[c0 + 3]);
+                C[c1] = update(alpha * c01, beta, C[c1]);
+                C[c1 + 1] = update(alpha * c11, beta, C[c1 + 1]);
+                C[c1 + 2] = update(alpha * c21, beta, C[c1 + 2]);
+                C[c1 + 3] = update(alpha * c31, beta, C[c1 + 3]);
+                C[c2] = update(alpha * c02, beta, C[c2]);
+                C[c2 + 1] = update(alpha * c12, beta, C[c2 + 1]);
+                C[c2 + 2] = update(alpha * c22, beta, C[c2 + 2]);
+                C[c2 + 3] = update(alpha * c32, beta, C[c2 + 3]);
+                C[c3] = update(alpha * c03, beta, C[c3]);
+                C[c3 + 1] = update(alpha * c13, beta, C[c3 + 1]);
+                C[c3 + 2] = update(alpha * c23, beta, C[c3 + 2]);
+                C[c3 + 3] = update(alpha * c33, beta, C[c3 + 3]);
+            }
+            // remaining rows of these 4 columns
+            for (int i = m4; i < m; ++i) {
+                for (int jj = j; jj < j + 4; ++jj) {
+                    dot(i, jj, m, k, alpha, A, aOff, B, bOff, beta, C, cOff);
+                }
+            }
+        }
+        // remaining columns
+        for (int j = n4; j < n; ++j) {
+            for (int i = 0; i < m; ++i) {
+                dot(i, j, m, k, alpha, A, aOff, B, bOff, beta, C, cOff);
+            }
+        }
+    }
+
+    //
+    // C(i, j) <- alpha * A(i, :) * B(:, j) + beta * C(i, j)
+    //
+    private static void dot(int i, int j, int m, int k, double alpha, double[] A, int aOff, double[] B, int bOff,
+            double beta, double[] C, int cOff) {
+        double s = 0.0;
+        int a = aOff + i;
+        int b = bOff + j * k;
+        for (int p = 0; p < k; ++p) {
+            s += A[a] * B[b + p];
+            a += m;
+        }
+        int c = cOff + i + j * m;
+        C[c] = update(alpha * s, beta, C[c]);
+    }
+
+    private void run(Batch batch, int count) {
+        if (count == 0) {
+            return;
+        }
+        long work = (long) count * batch.mnk;
+        if (work < threshold || pool.getParallelism() == 1) {
+            for (int i = 0; i < count; ++i) {
+                batch.compute(i);
+            }
+            return;
+        }
+        // at least 'threshold' multiply-adds per task
+        int grain = (int) Math.max(1L, Math.min(count, threshold / Math.max(1L, batch.mnk)));
+        pool.invoke(new BatchTask(batch, 0, count, grain));
+    }
+
+    //
+    // One product of the batch per index
+    //
+    private abstract static class Batch {
+        final long mnk;
+
+        Batch(int m, int n, int k) {
+            mnk = (long) m * n * k;
+        }
+
+        abstract void compute(int i);
+    }
+
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Batch batch;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        BatchTask(Batch batch, int from, int to, int grain) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; ++i) {
+                    batch.compute(i);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(batch, from, mid, grain), new BatchTask(batch, mid, to, grain));
+            }
+        }
+    }
+
+    private static void checkDims(int m, int n, int k) {
+        if (m <= 0 || n <= 0 || k < 0) {
+            throw new IllegalArgumentException("illegal dimensions : m = " + m + ", n = " + n + ", k = " + k);
+        }
+    }
+
+    private static void checkLength(String name, int i, double[] a, int length) {
+        if (a.length < length) {
+            throw new IllegalArgumentException(
+                    name + "[" + i + "] too short. Needed : " + length + " , Is : " + a.length);
+        }
+    }
+
+    private static void checkRange(String name, double[] a, int start, int stride, int count, int length) {
+        long end = start + (long) (count - 1) * stride + length;
+        if (start < 0 || end > a.length) {
+            throw new IllegalArgumentException(name + " too short. Needed : " + end + " , Is : " + a.length);
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final BatchedGemm INSTANCE = new BatchedGemm(Runtime.getRuntime().availableProcessors());
+    }
+}
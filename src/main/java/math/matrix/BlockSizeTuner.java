@@ -0,0 +1,152 @@
+package math.matrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Finds the {@link BlockSizes} that give the best {@link Gemm} throughput on
+ * the current host by timing a fixed size product for a set of candidate
+ * block sizes.
+ * <p>
+ * The candidates are searched one dimension at a time (the micro kernel shape
+ * {@code MR x NR} first, then {@code KC}, {@code MC} and {@code NC}), each time
+ * keeping the best values found so far for the others. Run {@link #main(String[])} once per host to store the
+ * winner in {@link BlockSizes#getFile()}, from where it gets loaded on later
+ * runs.
+ */
+public final class BlockSizeTuner {
+
+    private static final int[][] SHAPE_CANDIDATES = { { 4, 4 }, { 8, 4 }, { 4, 8 } };
+    private static final int[] KC_CANDIDATES = { 128, 192, 256, 384, 512 };
+    private static final int[] MC_CANDIDATES = { 64, 128, 192, 256, 384, 512 };
+    private static final int[] NC_CANDIDATES = { 1024, 2048, 4096, 8192 };
+
+    /** Default edge length of the {@code (size x size) * (size x 4*size)} test product */
+    public static final int DEFAULT_SIZE = 512;
+
+    private static final int TIMED_RUNS = 3;
+
+    private final int m;
+    private final int n;
+    private final int k;
+    private final double[] A;
+    private final double[] B;
+    private final double[] C;
+    private final GemmWorkspace ws = new GemmWorkspace();
+
+    private BlockSizeTuner(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be strictly positive : " + size);
+        }
+        m = size;
+        k = size;
+        // make the product wide enough for the NC candidates to make a difference
+        n = 4 * size;
+        A = randomData(m * k);
+        B = randomData(k * n);
+        C = new double[m * n];
+    }
+
+    /**
+     * Benchmarks the candidate block sizes with a product of the
+     * {@link #DEFAULT_SIZE default size} and returns the fastest.
+     *
+     * @return the best block sizes found
+     */
+    public static BlockSizes tune() {
+        return tune(DEFAULT_SIZE);
+    }
+
+    /**
+     * Benchmarks the candidate block sizes with a
+     * {@code (size x size) * (size x 4*size)} product and returns the fastest.
+     *
+     * @param size
+     *            edge length of the test product
+     * @return the best block sizes found
+     */
+    public static BlockSizes tune(int size) {
+        return new BlockSizeTuner(size).search();
+    }
+
+    /**
+     * Tunes the block sizes, stores the winner in {@link BlockSizes#getFile()}
+     * and makes it the current setting. An optional first argument overrides
+     * the edge length of the test product.
+     *
+     * @param args
+     *            optional edge length of the test product
+     * @throws IOException
+     *             if the properties file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        BlockSizes best = tune(size);
+        File file = BlockSizes.getFile();
+        best.store(file);
+        BlockSizes.set(best);
+        System.out.println("Stored " + best + " in " + file);
+    }
+
+    private BlockSizes search() {
+        BlockSizes best = BlockSizes.defaults();
+        // warm up the JIT
+        time(best);
+        double bestTime = time(best);
+
+        for (int[] shape : SHAPE_CANDIDATES) {
+            BlockSizes candidate = new BlockSizes(shape[0], shape[1], best.MC, best.KC, best.NC);
+            double t = time(candidate);
+            if (t < bestTime) {
+                bestTime = t;
+                best = candidate;
+            }
+        }
+        for (int kc : KC_CANDIDATES) {
+            BlockSizes candidate = new BlockSizes(best.MR, best.NR, best.MC, kc, best.NC);
+            double t = time(candidate);
+            if (t < bestTime) {
+                bestTime = t;
+                best = candidate;
+            }
+        }
+        for (int mc : MC_CANDIDATES) {
+            BlockSizes candidate = new BlockSizes(best.MR, best.NR, mc, best.KC, best.NC);
+            double t = time(candidate);
+            if (t < bestTime) {
+                bestTime = t;
+                best = candidate;
+            }
+        }
+        for (int nc : NC_CANDIDATES) {
+            BlockSizes candidate = new BlockSizes(best.MR, best.NR, best.MC, best.KC, nc);
+            double t = time(candidate);
+            if (t < bestTime) {
+                bestTime = t;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // best of TIMED_RUNS in nanoseconds
+    private double time(BlockSizes bs) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < TIMED_RUNS; ++run) {
+            long start = System.nanoTime();
+            Gemm.gemm(m, n, k, 1.0, 0, A, 1, m, 0, B, 1, k, 0.0, 0, C, 1, m, bs, ws);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static double[] randomData(int length) {
+        Random rng = new Random(1L);
+        double[] a = new double[length];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = (rng.nextDouble() * 2.0) - 1.0;
+        }
+        return a;
+    }
+}
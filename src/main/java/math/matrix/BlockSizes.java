@@ -1,15 +1,258 @@
 package math.matrix;
 
-final class BlockSizes {
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
 
-    static final int MR = 4; // 4
-    static final int NR = 4; // 4
+/**
+ * The cache block sizes {@code MC}, {@code KC} and {@code NC} and the register
+ * block size {@code MR x NR} used by the blocked level 3 routines.
+ * {@code MC x KC} is the size of a packed block of {@code A} (which should fit
+ * into the L2 cache), {@code KC x NC} is the size of a packed block of
+ * {@code B} (which should fit into the L3 cache). {@code MR x NR} is the shape
+ * of the micro kernel (see {@link Ugemm}) and the panel width the packing
+ * routines use. Supported shapes are {@code 4x4}, {@code 8x4} and {@code 4x8}.
+ * <p>
+ * The block sizes that are currently in effect are returned by {@link #get()}.
+ * On first use they are loaded from the properties file given by the system
+ * property {@code math.matrix.blocksizes} (default:
+ * {@code ${user.home}/.noether/blocksizes.properties}) if that file exists,
+ * otherwise the defaults are used. A file that exists but can't be read or
+ * holds invalid block sizes is reported with an
+ * {@link IllegalArgumentException}. {@link BlockSizeTuner} can be used to find
+ * and store the best block sizes for the current host.
+ */
+public final class BlockSizes {
 
-    static final int MC = 384; // 384
-    static final int KC = 384; // 384
-    static final int NC = 4096; // 4096 .. 16384
+    public static final int DEFAULT_MR = 4; // 4
+    public static final int DEFAULT_NR = 4; // 4
 
-    private BlockSizes() {
-        throw new AssertionError();
+    public static final int DEFAULT_MC = 384; // 384
+    public static final int DEFAULT_KC = 384; // 384
+    public static final int DEFAULT_NC = 4096; // 4096 .. 16384
+
+    /** System property that overrides the location of the properties file */
+    public static final String FILE_PROPERTY = "math.matrix.blocksizes";
+
+    private static final String KEY_MR = "MR";
+    private static final String KEY_NR = "NR";
+    private static final String KEY_MC = "MC";
+    private static final String KEY_KC = "KC";
+    private static final String KEY_NC = "NC";
+
+    private static volatile BlockSizes current;
+
+    final int MR;
+    final int NR;
+    final int MC;
+    final int KC;
+    final int NC;
+
+    public BlockSizes(int mc, int kc, int nc) {
+        this(DEFAULT_MR, DEFAULT_NR, mc, kc, nc);
+    }
+
+    public BlockSizes(int mr, int nr, int mc, int kc, int nc) {
+        if (!Ugemm.isSupported(mr, nr)) {
+            throw new IllegalArgumentException("unsupported micro kernel shape MR x NR : " + mr + " x " + nr);
+        }
+        if (mc <= 0 || mc % mr != 0) {
+            throw new IllegalArgumentException("MC must be a positive multiple of " + mr + " : " + mc);
+        }
+        if (kc <= 0) {
+            throw new IllegalArgumentException("KC must be strictly positive : " + kc);
+        }
+        if (nc <= 0 || nc % nr != 0) {
+            throw new IllegalArgumentException("NC must be a positive multiple of " + nr + " : " + nc);
+        }
+        MR = mr;
+        NR = nr;
+        MC = mc;
+        KC = kc;
+        NC = nc;
+    }
+
+    public static BlockSizes defaults() {
+        return new BlockSizes(DEFAULT_MC, DEFAULT_KC, DEFAULT_NC);
+    }
+
+    /**
+     * Returns the block sizes currently in effect.
+     *
+     * @return the current block sizes
+     */
+    public static BlockSizes get() {
+        BlockSizes bs = current;
+        if (bs == null) {
+            synchronized (BlockSizes.class) {
+                bs = current;
+                if (bs == null) {
+                    bs = load(getFile());
+                    current = bs;
+                }
+            }
+        }
+        return bs;
+    }
+
+    /**
+     * Sets the block sizes used by all subsequent calls of the level 3
+     * routines (calls already in progress are not affected).
+     *
+     * @param blockSizes
+     *            the new block sizes
+     */
+    public static void set(BlockSizes blockSizes) {
+        if (blockSizes == null) {
+            throw new IllegalArgumentException("blockSizes must not be null");
+        }
+        current = blockSizes;
+    }
+
+    /**
+     * Loads block sizes from a properties file. Returns the defaults if the
+     * file doesn't exist, keys missing from the file get their default value.
+     *
+     * @param file
+     *            the properties file
+     * @return the loaded block sizes
+     * @throws IllegalArgumentException
+     *             if the file can't be read or holds malformed or invalid
+     *             block sizes
+     */
+    public static BlockSizes load(File file) {
+        if (file == null || !file.isFile()) {
+            return defaults();
+        }
+        Properties props = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            props.load(in);
+            return new BlockSizes(intValue(props, KEY_MR, DEFAULT_MR), intValue(props, KEY_NR, DEFAULT_NR),
+                    intValue(props, KEY_MC, DEFAULT_MC), intValue(props, KEY_KC, DEFAULT_KC),
+                    intValue(props, KEY_NC, DEFAULT_NC));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can't read block sizes from " + file + " : " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException
+            throw new IllegalArgumentException("invalid block sizes in " + file + " : " + e.getMessage(), e);
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores these block sizes in a properties file (creating the parent
+     * directories if necessary).
+     *
+     * @param file
+     *            the properties file
+     * @throws IOException
+     *             if the file can't be written
+     */
+    public void store(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("can't create directory " + parent);
+        }
+        Properties props = new Properties();
+        props.setProperty(KEY_MR, String.valueOf(MR));
+        props.setProperty(KEY_NR, String.valueOf(NR));
+        props.setProperty(KEY_MC, String.valueOf(MC));
+        props.setProperty(KEY_KC, String.valueOf(KC));
+        props.setProperty(KEY_NC, String.valueOf(NC));
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            props.store(out, "math.matrix block sizes");
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Returns the properties file the block sizes are loaded from.
+     *
+     * @return the block sizes properties file
+     */
+    public static File getFile() {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (path != null && path.length() > 0) {
+            return new File(path);
+        }
+        return new File(new File(System.getProperty("user.home"), ".noether"), "blocksizes.properties");
+    }
+
+    //
+    // workC if it can hold an MR x NR block, otherwise a new buffer that can
+    // (callers of the old signatures sized it for the 4x4 micro kernel)
+    //
+    double[] workC(double[] workC) {
+        return (workC != null && workC.length >= MR * NR) ? workC : new double[MR * NR];
+    }
+
+    public int getMR() {
+        return MR;
+    }
+
+    public int getNR() {
+        return NR;
+    }
+
+    public int getMC() {
+        return MC;
+    }
+
+    public int getKC() {
+        return KC;
+    }
+
+    public int getNC() {
+        return NC;
+    }
+
+    @Override
+    public int hashCode() {
+        return (((31 * MR + NR) * 31 + MC) * 31 + KC) * 31 + NC;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BlockSizes)) {
+            return false;
+        }
+        BlockSizes other = (BlockSizes) obj;
+        return MR == other.MR && NR == other.NR && MC == other.MC && KC == other.KC && NC == other.NC;
+    }
+
+    @Override
+    public String toString() {
+        return "MR=" + MR + ", NR=" + NR + ", MC=" + MC + ", KC=" + KC + ", NC=" + NC;
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    private static void close(java.io.Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
     }
 }
@@ -0,0 +1,137 @@
+package math.matrix;
+
+/**
+ * Cholesky decomposition {@code A = L * L'} of a symmetric positive definite
+ * matrix {@code A} where {@code L} is lower triangular. Only the lower
+ * triangle of {@code A} is referenced.
+ * <p>
+ * The factorization is right-looking and blocked: each {@code NB x NB}
+ * diagonal block is factored unblocked, the panel below it is computed with
+ * {@link Trsm} and the lower triangle of the trailing matrix is updated with
+ * {@link Syrk}. A decomposition can be used for any number of subsequent
+ * solves.
+ */
+public final class CholeskyDecomposition {
+
+    // block size of the right-looking factorization
+    static final int NB = 64;
+
+    private final int n;
+    // L in column-major order (the strict upper triangle is zero)
+    private final double[] l;
+
+    /**
+     * Computes the Cholesky decomposition of {@code A}.
+     *
+     * @param A
+     *            a square, symmetric and positive definite matrix
+     * @throws IllegalArgumentException
+     *             if {@code A} is not square or not positive definite
+     */
+    public CholeskyDecomposition(DMatrix A) {
+        if (!A.isSquare()) {
+            throw new IllegalArgumentException(
+                    "matrix must be square : (" + A.getRowDim() + " x " + A.getColDim() + ")");
+        }
+        n = A.getRowDim();
+        l = A.getArrayColumnPackedCopy();
+        factorize(n, l, n);
+        for (int j = 1; j < n; ++j) {
+            for (int i = 0; i < j; ++i) {
+                l[i + j * n] = 0.0;
+            }
+        }
+    }
+
+    //
+    // Overwrite the lower triangle of the (n x n) column-major matrix a with L
+    //
+    static void factorize(int n, double[] a, int lda) {
+        for (int k = 0; k < n; k += NB) {
+            int b = Math.min(NB, n - k);
+            int rest = n - k - b;
+            int a11 = k + k * lda;
+            int a21 = a11 + b;
+            int a22 = a21 + b * lda;
+
+            factorizeUnblocked(b, a, a11, lda, k);
+            if (rest > 0) {
+                // L21 <- A21 * L11^-T
+                Trsm.trsm(false, true, true, false, rest, b, 1.0, a, a11, lda, a, a21, lda);
+                // A22 <- A22 - L21 * L21' (lower triangle only)
+                Syrk.syrk(true, rest, b, -1.0, a21, a, 1, lda, 1.0, a22, a, 1, lda);
+            }
+        }
+    }
+
+    //
+    // Unblocked (left-looking) factorization of the (b x b) diagonal block
+    // starting at a11 (row / column k of the whole matrix)
+    //
+    private static void factorizeUnblocked(int b, double[] a, int a11, int lda, int k) {
+        for (int j = 0; j < b; ++j) {
+            int colJ = a11 + j * lda;
+            double d = a[colJ + j];
+            for (int p = 0; p < j; ++p) {
+                double ljp = a[a11 + j + p * lda];
+                d -= ljp * ljp;
+            }
+            if (!(d > 0.0)) {
+                throw new IllegalArgumentException("matrix is not positive definite (leading minor of order "
+                        + (k + j + 1) + ")");
+            }
+            double ljj = Math.sqrt(d);
+            a[colJ + j] = ljj;
+            for (int i = j + 1; i < b; ++i) {
+                double s = a[colJ + i];
+                for (int p = 0; p < j; ++p) {
+                    s -= a[a11 + i + p * lda] * a[a11 + j + p * lda];
+                }
+                a[colJ + i] = s / ljj;
+            }
+        }
+    }
+
+    /**
+     * Returns the lower triangular factor {@code L}.
+     *
+     * @return a copy of {@code L} in {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix getL() {
+        return new DMatrix(n, n, l, Layout.COL_MAJOR, DoCopy.YES);
+    }
+
+    /**
+     * Returns the determinant of {@code A}.
+     *
+     * @return {@code det(A)}
+     */
+    public double det() {
+        double d = 1.0;
+        for (int i = 0; i < n; ++i) {
+            double lii = l[i + i * n];
+            d *= lii * lii;
+        }
+        return d;
+    }
+
+    /**
+     * Solves {@code A * X = B} (with two triangular solves against all
+     * columns of {@code B} at once).
+     *
+     * @param B
+     *            the right hand sides, must have as many rows as {@code A}
+     * @return the solution {@code X} in {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix solve(DMatrix B) {
+        if (B.getRowDim() != n) {
+            throw new IllegalArgumentException("B.rows != A.rows : " + B.getRowDim() + " != " + n);
+        }
+        int nrhs = B.getColDim();
+        double[] x = B.getArrayColumnPackedCopy();
+        // L * Y = B, L' * X = Y
+        Trsm.trsm(true, true, false, false, n, nrhs, 1.0, l, 0, n, x, 0, n);
+        Trsm.trsm(true, true, true, false, n, nrhs, 1.0, l, 0, n, x, 0, n);
+        return new DMatrix(n, nrhs, x, Layout.COL_MAJOR, DoCopy.NO);
+    }
+}
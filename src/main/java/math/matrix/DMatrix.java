@@ -299,6 +299,59 @@ public final class DMatrix {
         return new DMatrix(cols, rows, createCopy(getSwitchedLayout()), layout, DoCopy.NO);
     }
 
+    /**
+     * Computes the matrix product {@code this * B}. The result is a new
+     * matrix in {@linkplain Layout#COL_MAJOR} order. Neither {@code this} nor
+     * {@code B} gets copied or transposed, whatever their layouts are.
+     *
+     * @param B
+     *            the right hand side factor
+     * @return the product {@code this * B}
+     */
+    public DMatrix times(DMatrix B) {
+        return gemm(1.0, this, B, 0.0, new DMatrix(rows, B.cols));
+    }
+
+    /**
+     * Computes {@code C <- alpha * A * B + beta * C}. The storage layouts of
+     * {@code A}, {@code B} and {@code C} are mapped onto row and column
+     * increments, i.e. the operands can have any combination of
+     * {@linkplain Layout#COL_MAJOR} and {@linkplain Layout#ROW_MAJOR} order
+     * without being copied first. If {@code beta == 0.0} the values of
+     * {@code C} need not be initialized.
+     *
+     * @param alpha
+     *            scalar multiplier for the product {@code A * B}
+     * @param A
+     *            the {@code (m x k)} left hand side factor
+     * @param B
+     *            the {@code (k x n)} right hand side factor
+     * @param beta
+     *            scalar multiplier for {@code C}
+     * @param C
+     *            the {@code (m x n)} matrix that gets updated (must not share
+     *            its storage with {@code A} or {@code B})
+     * @return {@code C}
+     */
+    public static DMatrix gemm(double alpha, DMatrix A, DMatrix B, double beta, DMatrix C) {
+        A.checkLayout();
+        B.checkLayout();
+        C.checkLayout();
+        if (A.cols != B.rows) {
+            throw new IllegalArgumentException("A.cols != B.rows : " + A.cols + " != " + B.rows);
+        }
+        if (C.rows != A.rows || C.cols != B.cols) {
+            throw new IllegalArgumentException("C must be (" + A.rows + " x " + B.cols + ") but is (" + C.rows + " x "
+                    + C.cols + ")");
+        }
+        if (C.a == A.a || C.a == B.a) {
+            throw new IllegalArgumentException("C must not share its storage with A or B");
+        }
+        Gemm.gemm(A.rows, B.cols, A.cols, alpha, 0, A.a, A.incRow(), A.incCol(), 0, B.a, B.incRow(), B.incCol(),
+                beta, 0, C.a, C.incRow(), C.incCol());
+        return C;
+    }
+
     private int idx(int row, int col) {
         if (layout == Layout.COL_MAJOR) {
             return col * rows + row;
@@ -308,6 +361,14 @@ public final class DMatrix {
         throw new IllegalStateException();
     }
 
+    private int incRow() {
+        return (layout == Layout.COL_MAJOR) ? 1 : cols;
+    }
+
+    private int incCol() {
+        return (layout == Layout.COL_MAJOR) ? rows : 1;
+    }
+
     private int colMajorIdx(int row, int col) {
         return col * rows + row;
     }
@@ -325,27 +386,16 @@ public final class DMatrix {
             System.arraycopy(a, 0, copy, 0, copy.length);
             return copy;
         } else {
-            int _rows = rows;
-            int _cols = cols;
-            double[] _a = a;
             if (layout == Layout.COL_MAJOR) {
                 // layoutOfCopy must be ROW_MAJOR
-                for (int col = 0; col < _cols; ++col) {
-                    for (int row = 0; row < _rows; ++row) {
-                        // ROW_MAJOR <-- COL_MAJOR
-                        copy[row * _cols + col] = _a[col * _rows + row];
-                    }
-                }
+                // ROW_MAJOR <-- COL_MAJOR
+                Transpose.transpose(cols, rows, 0, a, rows, 0, copy, cols);
                 return copy;
             } else {
                 // layout is ROW_MAJOR and layoutOfCopy
                 // is COL_MAJOR
-                for (int row = 0; row < _rows; ++row) {
-                    for (int col = 0; col < _cols; ++col) {
-                        // COL_MAJOR <-- ROW_MAJOR
-                        copy[col * _rows + row] = _a[row * _cols + col];
-                    }
-                }
+                // COL_MAJOR <-- ROW_MAJOR
+                Transpose.transpose(rows, cols, 0, a, cols, 0, copy, rows);
                 return copy;
             }
         }
@@ -40,13 +40,11 @@ import java.util.Arrays;
  */
 final class Dgemm4x4 {
 
+    // the register block size of this 4x4 micro kernel (the cache block
+    // sizes MC, KC and NC are taken from BlockSizes)
     private static final int MR_Height = 4; // 4
     private static final int NR_Width = 4; // 4
 
-    private static final int MC = 384; // 384
-    private static final int KC = 384; // 384
-    private static final int NC = 4096; // 4096 .. 16384
-
     //
     // Packing complete panels from A (i.e. without padding)
     //
@@ -351,6 +349,11 @@ final class Dgemm4x4 {
             return micro_kernel_calls;
         }
 
+        final BlockSizes bs = BlockSizes.get();
+        final int MC = bs.MC;
+        final int KC = bs.KC;
+        final int NC = bs.NC;
+
         final int mb = (rowsA + MC - 1) / MC;
         final int nb = (colsB + NC - 1) / NC;
         final int kb = (colsA + KC - 1) / KC;
@@ -360,12 +363,14 @@ final class Dgemm4x4 {
         final int _kc = colsA % KC;
 
         //
-        // Local buffers for storing panels from A, B and C
+        // Buffers for storing panels from A, B and C (borrowed from the
+        // current thread's workspace)
         //
-        final double[] _A = new double[MC * KC];
-        final double[] _B = new double[KC * NC];
-        final double[] _C = new double[MR_Height * NR_Width];
-        final double[] AB = new double[MR_Height * NR_Width];
+        final GemmWorkspace ws = GemmWorkspace.get();
+        final double[] _A = ws.bufferA(MC * KC);
+        final double[] _B = ws.bufferB(KC * NC);
+        final double[] _C = ws.bufferC(MR_Height * NR_Width);
+        final double[] AB = ws.bufferAB(MR_Height * NR_Width);
 
         for (int j = 0; j < nb; ++j) {
             int nc = (j != nb - 1 || _nc == 0) ? NC : _nc;
@@ -0,0 +1,90 @@
+package math.matrix;
+
+//
+// Compute C <- beta*C + alpha*A*B
+//
+// The blocked variant of Dgemm4x4.dgemm built from the packing routines
+// (Gepack) and the macro kernel (Mgemm). All operands are addressed through
+// (start, incRow, incCol) triples, so a COL_MAJOR or ROW_MAJOR operand (or a
+// transposed view of one) can be multiplied without copying it first.
+//
+public final class Gemm {
+
+    public static void gemm(int m, int n, int k, double alpha, int A_start, double[] A, int incRowA, int incColA,
+            int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C, int incRowC,
+            int incColC) {
+
+        gemm(m, n, k, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, beta, C_start, C, incRowC,
+                incColC, BlockSizes.get(), GemmWorkspace.get());
+    }
+
+    public static void gemm(int m, int n, int k, double alpha, int A_start, double[] A, int incRowA, int incColA,
+            int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C, int incRowC,
+            int incColC, GemmWorkspace ws) {
+
+        gemm(m, n, k, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, beta, C_start, C, incRowC,
+                incColC, BlockSizes.get(), ws);
+    }
+
+    public static void gemm(int m, int n, int k, double alpha, int A_start, double[] A, int incRowA, int incColA,
+            int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C, int incRowC,
+            int incColC, BlockSizes bs, GemmWorkspace ws) {
+
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (alpha == 0.0 || k <= 0) {
+            Gescal.gescal(m, n, beta, C_start, C, incRowC, incColC);
+            return;
+        }
+
+        final int mb = (m + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+        final int kb = (k + bs.KC - 1) / bs.KC;
+
+        final int mc_ = m % bs.MC;
+        final int nc_ = n % bs.NC;
+        final int kc_ = k % bs.KC;
+
+        //
+        // Buffers for storing panels from A, B and C (don't ask for more
+        // than the operands can actually fill)
+        //
+        final double[] A_ = ws
+                .bufferA(roundUp(Math.min(m, bs.MC), bs.MR) * Math.min(k, bs.KC));
+        final double[] B_ = ws
+                .bufferB(Math.min(k, bs.KC) * roundUp(Math.min(n, bs.NC), bs.NR));
+        final double[] C_ = ws.bufferC(bs.MR * bs.NR);
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+
+            for (int l = 0; l < kb; ++l) {
+                int kc = (l != kb - 1 || kc_ == 0) ? bs.KC : kc_;
+                double beta_ = (l == 0) ? beta : 1.0;
+
+                Gepack.gepack_B(kc, nc, (B_start + l * bs.KC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, B_, bs);
+
+                for (int i = 0; i < mb; ++i) {
+                    int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                    Gepack.gepack_A(mc, kc, (A_start + i * bs.MC * incRowA + l * bs.KC * incColA), // A start
+                            A, incRowA, incColA, A_, bs);
+
+                    Mgemm.mgemm(mc, nc, kc, alpha, A_, B_, beta_,
+                            (C_start + i * bs.MC * incRowC + j * bs.NC * incColC), // C start
+                            C, incRowC, incColC, C_, bs);
+                }
+            }
+        }
+    }
+
+    static int roundUp(int x, int multiple) {
+        return ((x + multiple - 1) / multiple) * multiple;
+    }
+
+    private Gemm() {
+        throw new AssertionError();
+    }
+}
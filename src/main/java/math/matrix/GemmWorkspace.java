@@ -0,0 +1,79 @@
+package math.matrix;
+
+/**
+ * Reusable packing buffers for the blocked level 3 routines ({@link Gemm},
+ * {@link ParallelGemm}, {@link Trmm}) and the macro kernels they call
+ * ({@link Mgemm}, {@link Mtrumm}, {@link Mtrlmm}).
+ * <p>
+ * The buffers only ever grow, so once a workspace has seen the largest block
+ * sizes a routine needs, repeated calls don't allocate anything. Either pass
+ * a workspace explicitly or use the per-thread instance returned by
+ * {@link #get()}, which is what the overloads without a workspace argument
+ * do. A {@code GemmWorkspace} must not be used by more than one thread at the
+ * same time.
+ */
+public final class GemmWorkspace {
+
+    private static final ThreadLocal<GemmWorkspace> perThread = new ThreadLocal<GemmWorkspace>() {
+        @Override
+        protected GemmWorkspace initialValue() {
+            return new GemmWorkspace();
+        }
+    };
+
+    private double[] A_ = new double[0];
+    private double[] B_ = new double[0];
+    private double[] AB = new double[0];
+    private double[] C_ = new double[0];
+
+    public GemmWorkspace() {
+    }
+
+    /**
+     * Returns the workspace that belongs to the current thread.
+     *
+     * @return the current thread's workspace
+     */
+    public static GemmWorkspace get() {
+        return perThread.get();
+    }
+
+    /**
+     * Releases the buffers of the current thread's workspace.
+     */
+    public static void release() {
+        perThread.remove();
+    }
+
+    // buffer for packed panels of A
+    double[] bufferA(int minLength) {
+        if (A_.length < minLength) {
+            A_ = new double[minLength];
+        }
+        return A_;
+    }
+
+    // buffer for packed panels of B
+    double[] bufferB(int minLength) {
+        if (B_.length < minLength) {
+            B_ = new double[minLength];
+        }
+        return B_;
+    }
+
+    // micro kernel accumulator
+    double[] bufferAB(int minLength) {
+        if (AB.length < minLength) {
+            AB = new double[minLength];
+        }
+        return AB;
+    }
+
+    // micro kernel result buffer for zero padded panels
+    double[] bufferC(int minLength) {
+        if (C_.length < minLength) {
+            C_ = new double[minLength];
+        }
+        return C_;
+    }
+}
@@ -10,7 +10,15 @@ public final class Gescal {
             return;
         }
 
-        if (incRowA == 1) {
+        if (alpha == 0.0) {
+            // A is not read (NaN and Inf get overwritten as well)
+            for (int j = 0; j < n; ++j) {
+                int base_A = A_start + j * incColA;
+                for (int i = 0; i < m; ++i) {
+                    A[base_A + i * incRowA] = 0.0;
+                }
+            }
+        } else if (incRowA == 1) {
             for (int j = 0; j < n; ++j) {
                 Scal.scal(m, alpha, A, A_start + j * incColA, 1);
             }
@@ -19,19 +27,10 @@ public final class Gescal {
                 Scal.scal(n, alpha, A, A_start + i * incRowA, 1);
             }
         } else {
-            if (alpha != 0.0) {
-                for (int j = 0; j < n; ++j) {
-                    int base_A = A_start + j * incColA;
-                    for (int i = 0; i < m; ++i) {
-                        A[base_A + i * incRowA] *= alpha;
-                    }
-                }
-            } else {
-                for (int j = 0; j < n; ++j) {
-                    int base_A = A_start + j * incColA;
-                    for (int i = 0; i < m; ++i) {
-                        A[base_A + i * incRowA] = 0.0;
-                    }
+            for (int j = 0; j < n; ++j) {
+                int base_A = A_start + j * incColA;
+                for (int i = 0; i < m; ++i) {
+                    A[base_A + i * incRowA] *= alpha;
                 }
             }
         }
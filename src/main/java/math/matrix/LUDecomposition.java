@@ -0,0 +1,262 @@
+package math.matrix;
+
+/**
+ * LU decomposition with partial pivoting {@code P * A = L * U} of an
+ * {@code (m x n)} matrix {@code A} where {@code P} is a row permutation,
+ * {@code L} is unit lower trapezoidal and {@code U} is upper trapezoidal.
+ * <p>
+ * The factorization is right-looking and blocked: each {@code NB} columns
+ * wide panel is factored unblocked (with row interchanges), the block row of
+ * {@code U} right of it is computed with {@link Trsm} and the trailing matrix
+ * is updated with the packed {@link Gemm}. A decomposition can be used for any
+ * number of subsequent solves.
+ */
+public final class LUDecomposition {
+
+    // block size of the right-looking factorization
+    static final int NB = 64;
+
+    private final int m;
+    private final int n;
+    // L and U in column-major order (the unit diagonal of L is not stored)
+    private final double[] lu;
+    // row i of P * A is row piv[i] of A
+    private final int[] piv;
+    private final boolean even;
+
+    /**
+     * Computes the LU decomposition of {@code A}.
+     *
+     * @param A
+     *            the matrix to decompose
+     */
+    public LUDecomposition(DMatrix A) {
+        m = A.getRowDim();
+        n = A.getColDim();
+        lu = A.getArrayColumnPackedCopy();
+        int[] ipiv = new int[Math.min(m, n)];
+        factorize(m, n, lu, m, ipiv);
+
+        // turn the sequence of interchanges into a permutation
+        piv = new int[m];
+        for (int i = 0; i < m; ++i) {
+            piv[i] = i;
+        }
+        boolean even_ = true;
+        for (int i = 0; i < ipiv.length; ++i) {
+            int p = ipiv[i];
+            if (p != i) {
+                int tmp = piv[i];
+                piv[i] = piv[p];
+                piv[p] = tmp;
+                even_ = !even_;
+            }
+        }
+        even = even_;
+    }
+
+    //
+    // Overwrite the (m x n) column-major matrix a with L and U. Row i was
+    // interchanged with row ipiv[i] (ipiv[i] >= i) in step i.
+    //
+    static void factorize(int m, int n, double[] a, int lda, int[] ipiv) {
+        int kmax = Math.min(m, n);
+        for (int k = 0; k < kmax; k += NB) {
+            int b = Math.min(NB, kmax - k);
+            int a11 = k + k * lda;
+
+            factorizePanel(m - k, b, a, a11, lda, ipiv, k);
+
+            // apply the interchanges to the columns left and right of the panel
+            swapRows(a, lda, 0, k, k, k + b, ipiv);
+            swapRows(a, lda, k + b, n, k, k + b, ipiv);
+
+            int rest = n - k - b;
+            if (rest > 0) {
+                int a12 = a11 + b * lda;
+                // U12 <- L11^-1 * A12
+                Trsm.trsm(true, true, false, true, b, rest, 1.0, a, a11, lda, a, a12, lda);
+                if (m - k - b > 0) {
+                    // A22 <- A22 - L21 * U12
+                    Gemm.gemm(m - k - b, rest, b, -1.0, a11 + b, a, 1, lda, a12, a, 1, lda, 1.0, a12 + b, a, 1,
+                            lda);
+                }
+            }
+        }
+    }
+
+    //
+    // Unblocked factorization of the (rows x b) panel starting at a11 (row /
+    // column k of the whole matrix)
+    //
+    private static void factorizePanel(int rows, int b, double[] a, int a11, int lda, int[] ipiv, int k) {
+        for (int j = 0; j < b; ++j) {
+            int colJ = a11 + j * lda;
+            int p = j;
+            double max = Math.abs(a[colJ + j]);
+            for (int i = j + 1; i < rows; ++i) {
+                double abs = Math.abs(a[colJ + i]);
+                if (abs > max) {
+                    max = abs;
+                    p = i;
+                }
+            }
+            ipiv[k + j] = k + p;
+            if (p != j) {
+                for (int c = 0; c < b; ++c) {
+                    int col = a11 + c * lda;
+                    double tmp = a[col + j];
+                    a[col + j] = a[col + p];
+                    a[col + p] = tmp;
+                }
+            }
+            double pivot = a[colJ + j];
+            if (pivot != 0.0) {
+                double r = 1.0 / pivot;
+                for (int i = j + 1; i < rows; ++i) {
+                    a[colJ + i] *= r;
+                }
+            }
+            // rank-1 update of the rest of the panel
+            for (int c = j + 1; c < b; ++c) {
+                int colC = a11 + c * lda;
+                double u = a[colC + j];
+                if (u != 0.0) {
+                    for (int i = j + 1; i < rows; ++i) {
+                        a[colC + i] -= a[colJ + i] * u;
+                    }
+                }
+            }
+        }
+    }
+
+    //
+    // Apply the interchanges ipiv[from..to) to the columns c0..c1-1
+    //
+    private static void swapRows(double[] a, int lda, int c0, int c1, int from, int to, int[] ipiv) {
+        for (int c = c0; c < c1; ++c) {
+            int col = c * lda;
+            for (int i = from; i < to; ++i) {
+                int p = ipiv[i];
+                if (p != i) {
+                    double tmp = a[col + i];
+                    a[col + i] = a[col + p];
+                    a[col + p] = tmp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code U} (and therefore {@code A}, if it is
+     * square) is nonsingular.
+     *
+     * @return whether the diagonal of {@code U} has no zero entries
+     */
+    public boolean isNonsingular() {
+        for (int j = 0; j < Math.min(m, n); ++j) {
+            if (lu[j + j * m] == 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the unit lower trapezoidal factor {@code L}.
+     *
+     * @return {@code L} as a {@code (m x min(m, n))} matrix in
+     *         {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix getL() {
+        int k = Math.min(m, n);
+        double[] l = new double[m * k];
+        for (int j = 0; j < k; ++j) {
+            l[j + j * m] = 1.0;
+            for (int i = j + 1; i < m; ++i) {
+                l[i + j * m] = lu[i + j * m];
+            }
+        }
+        return new DMatrix(m, k, l, Layout.COL_MAJOR, DoCopy.NO);
+    }
+
+    /**
+     * Returns the upper trapezoidal factor {@code U}.
+     *
+     * @return {@code U} as a {@code (min(m, n) x n)} matrix in
+     *         {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix getU() {
+        int k = Math.min(m, n);
+        double[] u = new double[k * n];
+        for (int j = 0; j < n; ++j) {
+            for (int i = 0; i <= Math.min(j, k - 1); ++i) {
+                u[i + j * k] = lu[i + j * m];
+            }
+        }
+        return new DMatrix(k, n, u, Layout.COL_MAJOR, DoCopy.NO);
+    }
+
+    /**
+     * Returns the row permutation: row {@code i} of {@code P * A} is row
+     * {@code getPivot()[i]} of {@code A}.
+     *
+     * @return a copy of the pivot vector
+     */
+    public int[] getPivot() {
+        return piv.clone();
+    }
+
+    /**
+     * Returns the determinant of the square matrix {@code A}.
+     *
+     * @return {@code det(A)}
+     */
+    public double det() {
+        checkSquare();
+        double d = even ? 1.0 : -1.0;
+        for (int j = 0; j < n; ++j) {
+            d *= lu[j + j * m];
+        }
+        return d;
+    }
+
+    /**
+     * Solves {@code A * X = B} for a square and nonsingular {@code A} (with
+     * two triangular solves against all columns of {@code B} at once).
+     *
+     * @param B
+     *            the right hand sides, must have as many rows as {@code A}
+     * @return the solution {@code X} in {@linkplain Layout#COL_MAJOR} order
+     * @throws IllegalArgumentException
+     *             if {@code A} is not square or singular
+     */
+    public DMatrix solve(DMatrix B) {
+        checkSquare();
+        if (B.getRowDim() != m) {
+            throw new IllegalArgumentException("B.rows != A.rows : " + B.getRowDim() + " != " + m);
+        }
+        if (!isNonsingular()) {
+            throw new IllegalArgumentException("matrix is singular");
+        }
+        int nrhs = B.getColDim();
+        double[] b = B.getArrayColumnPackedCopy();
+        double[] x = new double[b.length];
+        for (int j = 0; j < nrhs; ++j) {
+            int col = j * m;
+            for (int i = 0; i < m; ++i) {
+                x[col + i] = b[col + piv[i]];
+            }
+        }
+        // L * Y = P * B, U * X = Y
+        Trsm.trsm(true, true, false, true, n, nrhs, 1.0, lu, 0, m, x, 0, m);
+        Trsm.trsm(true, false, false, false, n, nrhs, 1.0, lu, 0, m, x, 0, m);
+        return new DMatrix(m, nrhs, x, Layout.COL_MAJOR, DoCopy.NO);
+    }
+
+    private void checkSquare() {
+        if (m != n) {
+            throw new IllegalArgumentException("matrix must be square : (" + m + " x " + n + ")");
+        }
+    }
+}
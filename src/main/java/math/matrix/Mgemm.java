@@ -2,37 +2,55 @@ package math.matrix;
 
 public final class Mgemm {
 
+    //
+    // Variant for panels packed with the global BlockSizes.get(). AB is no
+    // longer used (the micro kernels accumulate in local variables).
+    //
     public static void mgemm(int mc, int nc, int kc, double alpha, double[] A_, double[] B_, double beta, int C_start,
             double[] C, int incRowC, int incColC, double[] AB, double[] workC) {
 
-        final int mp = (mc + BlockSizes.MR - 1) / BlockSizes.MR;
-        final int np = (nc + BlockSizes.NR - 1) / BlockSizes.NR;
+        BlockSizes bs = BlockSizes.get();
+        mgemm(mc, nc, kc, alpha, A_, 0, B_, beta, C_start, C, incRowC, incColC, bs.workC(workC), bs);
+    }
+
+    public static void mgemm(int mc, int nc, int kc, double alpha, double[] A_, double[] B_, double beta, int C_start,
+            double[] C, int incRowC, int incColC, double[] workC, BlockSizes bs) {
+
+        mgemm(mc, nc, kc, alpha, A_, 0, B_, beta, C_start, C, incRowC, incColC, workC, bs);
+    }
+
+    //
+    // Variant that starts at panel offset B__start in the packed buffer B_.
+    // Used to split a packed block of B column-wise between several workers.
+    //
+    public static void mgemm(int mc, int nc, int kc, double alpha, double[] A_, int B__start, double[] B_,
+            double beta, int C_start, double[] C, int incRowC, int incColC, double[] workC, BlockSizes bs) {
 
-        final int mr_ = mc % BlockSizes.MR;
-        final int nr_ = nc % BlockSizes.NR;
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+        final int np = (nc + bs.NR - 1) / bs.NR;
+
+        final int mr_ = mc % bs.MR;
+        final int nr_ = nc % bs.NR;
 
         int mr, nr;
 
         for (int j = 0; j < np; ++j) {
-            nr = (j != np - 1 || nr_ == 0) ? BlockSizes.NR : nr_;
+            nr = (j != np - 1 || nr_ == 0) ? bs.NR : nr_;
 
             for (int i = 0; i < mp; ++i) {
-                mr = (i != mp - 1 || mr_ == 0) ? BlockSizes.MR : mr_;
-
-                if (mr == BlockSizes.MR && nr == BlockSizes.NR) {
-                    Ugemm.ugemm(kc, alpha, (i * kc * BlockSizes.MR), // A_ start
-                            A_, (j * kc * BlockSizes.NR), // B_ start
-                            B_, beta, (C_start + i * BlockSizes.MR * incRowC + j * BlockSizes.NR * incColC), // C
-                                                                                                                // start
-                            C, incRowC, incColC, AB);
+                mr = (i != mp - 1 || mr_ == 0) ? bs.MR : mr_;
+
+                if (mr == bs.MR && nr == bs.NR) {
+                    Ugemm.ugemm(kc, alpha, (i * kc * bs.MR), // A_ start
+                            A_, (B__start + j * kc * bs.NR), // B_ start
+                            B_, beta, (C_start + i * bs.MR * incRowC + j * bs.NR * incColC), // C start
+                            C, incRowC, incColC, bs);
                 } else {
                     // Call the buffered micro kernel
-                    Ugemm.ugemm(mr, nr, kc, alpha, (i * kc * BlockSizes.MR), // A_
-                                                                                // start
-                            A_, (j * kc * BlockSizes.NR), // B_ start
-                            B_, beta, (C_start + i * BlockSizes.MR * incRowC + j * BlockSizes.NR * incColC), // C
-                                                                                                                // start
-                            C, incRowC, incColC, AB, workC);
+                    Ugemm.ugemm(mr, nr, kc, alpha, (i * kc * bs.MR), // A_ start
+                            A_, (B__start + j * kc * bs.NR), // B_ start
+                            B_, beta, (C_start + i * bs.MR * incRowC + j * bs.NR * incColC), // C start
+                            C, incRowC, incColC, workC, bs);
                 }
             }
         }
@@ -0,0 +1,71 @@
+package math.matrix;
+
+//
+// Variant of Mgemm that only updates the lower triangle of C. The (mc x nc)
+// block of C starts diagOff rows below the diagonal, i.e. its element (i, j)
+// belongs to the lower triangle if i + diagOff >= j. Micro tiles strictly
+// above the diagonal are skipped, tiles on the diagonal are computed into
+// the buffer workC and only their lower part is written back.
+//
+public final class Msyrk {
+
+    public static void msyrk(int mc, int nc, int kc, int diagOff, double alpha, double[] A_, double[] B_,
+            double beta, int C_start, double[] C, int incRowC, int incColC, double[] workC, BlockSizes bs) {
+
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+        final int np = (nc + bs.NR - 1) / bs.NR;
+
+        final int mr_ = mc % bs.MR;
+        final int nr_ = nc % bs.NR;
+
+        int mr, nr;
+
+        for (int j = 0; j < np; ++j) {
+            nr = (j != np - 1 || nr_ == 0) ? bs.NR : nr_;
+            int col0 = j * bs.NR;
+
+            for (int i = 0; i < mp; ++i) {
+                mr = (i != mp - 1 || mr_ == 0) ? bs.MR : mr_;
+                int row0 = i * bs.MR + diagOff;
+
+                if (row0 + mr - 1 < col0) {
+                    // strictly above the diagonal
+                    continue;
+                }
+
+                int C__start = C_start + i * bs.MR * incRowC + j * bs.NR * incColC;
+
+                if (row0 >= col0 + nr - 1) {
+                    // completely in the lower triangle
+                    if (mr == bs.MR && nr == bs.NR) {
+                        Ugemm.ugemm(kc, alpha, (i * kc * bs.MR), // A_ start
+                                A_, (j * kc * bs.NR), // B_ start
+                                B_, beta, C__start, C, incRowC, incColC, bs);
+                    } else {
+                        // Call the buffered micro kernel
+                        Ugemm.ugemm(mr, nr, kc, alpha, (i * kc * bs.MR), // A_ start
+                                A_, (j * kc * bs.NR), // B_ start
+                                B_, beta, C__start, C, incRowC, incColC, workC, bs);
+                    }
+                } else {
+                    // on the diagonal
+                    Ugemm.ugemm(kc, alpha, (i * kc * bs.MR), // A_ start
+                            A_, (j * kc * bs.NR), // B_ start
+                            B_, 0.0, 0, workC, 1, bs.MR, bs);
+                    for (int c = 0; c < nr; ++c) {
+                        int base = C__start + c * incColC;
+                        for (int r = Math.max(0, col0 + c - row0); r < mr; ++r) {
+                            int idx = base + r * incRowC;
+                            double ab = workC[r + c * bs.MR];
+                            C[idx] = (beta == 0.0) ? ab : beta * C[idx] + ab;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Msyrk() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,72 @@
+package math.matrix;
+
+//
+// Macro kernel for solving L*X = B_ where L is the (mc x mc) lower triangular
+// block packed by Trlpack and B_ the (mc x nc) block packed by
+// Gepack.gepack_B. The solution overwrites B_ (so that it can be used for
+// the subsequent Mgemm updates) and is also stored into B.
+//
+public final class Mtrlsm {
+
+    public static void mtrlsm(int mc, int nc, double[] A_, double[] B_, int B_start, double[] B, int incRowB,
+            int incColB, double[] workC, BlockSizes bs) {
+
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+        final int np = (nc + bs.NR - 1) / bs.NR;
+
+        final int mr_ = mc % bs.MR;
+        final int nr_ = nc % bs.NR;
+
+        int mr, nr;
+
+        for (int j = 0; j < np; ++j) {
+            nr = (j != np - 1 || nr_ == 0) ? bs.NR : nr_;
+            int B__start = j * mc * bs.NR;
+
+            int ia = 0;
+            for (int i = 0; i < mp; ++i) {
+                mr = (i != mp - 1 || mr_ == 0) ? bs.MR : mr_;
+                int A__start = ia * bs.MR * bs.MR;
+                int C__start = B__start + i * bs.MR * bs.NR;
+
+                if (i > 0) {
+                    // subtract the rows that have already been solved
+                    if (mr == bs.MR) {
+                        Ugemm.ugemm(i * bs.MR, -1.0, A__start, A_, B__start, B_, 1.0, // beta
+                                C__start, B_, bs.NR, 1, bs);
+                    } else {
+                        Ugemm.ugemm(mr, bs.NR, i * bs.MR, -1.0, A__start, A_, B__start, B_, 1.0, // beta
+                                C__start, B_, bs.NR, 1, workC, bs);
+                    }
+                }
+
+                // forward substitution with the (mr x mr) diagonal triangle
+                int D_start = A__start + i * bs.MR * bs.MR;
+                for (int r = 0; r < mr; ++r) {
+                    int row = C__start + r * bs.NR;
+                    for (int q = 0; q < r; ++q) {
+                        double a = A_[D_start + q * bs.MR + r];
+                        if (a != 0.0) {
+                            int rowQ = C__start + q * bs.NR;
+                            for (int c = 0; c < bs.NR; ++c) {
+                                B_[row + c] -= a * B_[rowQ + c];
+                            }
+                        }
+                    }
+                    double d = A_[D_start + r * bs.MR + r];
+                    for (int c = 0; c < bs.NR; ++c) {
+                        B_[row + c] /= d;
+                    }
+                }
+
+                Mtrusm.unpack(mr, nr, C__start, B_, (B_start + i * bs.MR * incRowB + j * bs.NR * incColB), // B start
+                        B, incRowB, incColB, bs);
+                ia += i + 1;
+            }
+        }
+    }
+
+    private Mtrlsm() {
+        throw new AssertionError();
+    }
+}
@@ -2,44 +2,60 @@ package math.matrix;
 
 public final class Mtrumm {
 
+    //
+    // Variant for panels packed with the global BlockSizes.get(). AB is no
+    // longer used (the micro kernels accumulate in local variables).
+    //
     public static void mtrumm(int mc, int nc, double alpha, double[] A_, double[] B_, int B_start, double[] B,
             int incRowB, int incColB, double[] AB, double[] workC) {
 
-        final int mp = (mc + BlockSizes.MR - 1) / BlockSizes.MR;
-        final int np = (nc + BlockSizes.NR - 1) / BlockSizes.NR;
+        BlockSizes bs = BlockSizes.get();
+        mtrumm(mc, nc, alpha, A_, 0, B_, B_start, B, incRowB, incColB, bs.workC(workC), bs);
+    }
+
+    public static void mtrumm(int mc, int nc, double alpha, double[] A_, double[] B_, int B_start, double[] B,
+            int incRowB, int incColB, double[] workC, BlockSizes bs) {
+
+        mtrumm(mc, nc, alpha, A_, 0, B_, B_start, B, incRowB, incColB, workC, bs);
+    }
+
+    //
+    // Variant that starts at panel offset B__start in the packed buffer B_.
+    // Used to split a packed block of B column-wise between several workers.
+    //
+    public static void mtrumm(int mc, int nc, double alpha, double[] A_, int B__start, double[] B_, int B_start,
+            double[] B, int incRowB, int incColB, double[] workC, BlockSizes bs) {
+
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+        final int np = (nc + bs.NR - 1) / bs.NR;
 
-        final int mr_ = mc % BlockSizes.MR;
-        final int nr_ = nc % BlockSizes.NR;
+        final int mr_ = mc % bs.MR;
+        final int nr_ = nc % bs.NR;
 
         int mr, nr;
         int kc;
 
         for (int j = 0; j < np; ++j) {
-            nr = (j != np - 1 || nr_ == 0) ? BlockSizes.NR : nr_;
+            nr = (j != np - 1 || nr_ == 0) ? bs.NR : nr_;
 
             int ia = 0;
             for (int i = 0; i < mp; ++i) {
-                mr = (i != mp - 1 || mr_ == 0) ? BlockSizes.MR : mr_;
-                kc = Math.max(mc - i * BlockSizes.MR, 0);
+                mr = (i != mp - 1 || mr_ == 0) ? bs.MR : mr_;
+                kc = Math.max(mc - i * bs.MR, 0);
 
-                if (mr == BlockSizes.MR && nr == BlockSizes.NR) {
-                    Ugemm.ugemm(kc, alpha, (ia * BlockSizes.MR), // A_ start
-                            A_, (j * mc * BlockSizes.NR + i * BlockSizes.MR * BlockSizes.NR), // B_
-                                                                                                // start
+                if (mr == bs.MR && nr == bs.NR) {
+                    Ugemm.ugemm(kc, alpha, (ia * bs.MR), // A_ start
+                            A_, (B__start + j * mc * bs.NR + i * bs.MR * bs.NR), // B_ start
                             B_, 0.0, // beta
-                            (B_start + i * BlockSizes.MR * incRowB + j * BlockSizes.NR * incColB), // B
-                            // start
-                            B, incRowB, incColB, AB);
+                            (B_start + i * bs.MR * incRowB + j * bs.NR * incColB), // B start
+                            B, incRowB, incColB, bs);
                 } else {
                     // Call the buffered micro kernel
-                    Ugemm.ugemm(mr, nr, kc, alpha, (ia * BlockSizes.MR), // A_
-                                                                            // start
-                            A_, (j * mc * BlockSizes.NR + i * BlockSizes.MR * BlockSizes.NR), // B_
-                                                                                                // start
+                    Ugemm.ugemm(mr, nr, kc, alpha, (ia * bs.MR), // A_ start
+                            A_, (B__start + j * mc * bs.NR + i * bs.MR * bs.NR), // B_ start
                             B_, 0.0, // beta
-                            (B_start + i * BlockSizes.MR * incRowB + j * BlockSizes.NR * incColB), // B
-                            // start
-                            B, incRowB, incColB, AB, workC);
+                            (B_start + i * bs.MR * incRowB + j * bs.NR * incColB), // B start
+                            B, incRowB, incColB, workC, bs);
                 }
                 ia += kc;
             }
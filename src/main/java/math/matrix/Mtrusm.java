@@ -0,0 +1,82 @@
+package math.matrix;
+
+//
+// Macro kernel for solving U*X = B_ where U is the (mc x mc) upper triangular
+// block packed by Trupack and B_ the (mc x nc) block packed by
+// Gepack.gepack_B. The solution overwrites B_ (so that it can be used for
+// the subsequent Mgemm updates) and is also stored into B.
+//
+public final class Mtrusm {
+
+    public static void mtrusm(int mc, int nc, double[] A_, double[] B_, int B_start, double[] B, int incRowB,
+            int incColB, BlockSizes bs) {
+
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+        final int np = (nc + bs.NR - 1) / bs.NR;
+
+        final int mr_ = mc % bs.MR;
+        final int nr_ = nc % bs.NR;
+
+        int mr, nr;
+
+        for (int j = 0; j < np; ++j) {
+            nr = (j != np - 1 || nr_ == 0) ? bs.NR : nr_;
+            int B__start = j * mc * bs.NR;
+
+            for (int i = mp - 1; i >= 0; --i) {
+                mr = (i != mp - 1 || mr_ == 0) ? bs.MR : mr_;
+                // the i-th panel holds the mc - i*MR columns right of i*MR
+                int A__start = bs.MR * (i * mc - bs.MR * (i * (i - 1) / 2));
+                int C__start = B__start + i * bs.MR * bs.NR;
+                int kc = mc - (i + 1) * bs.MR;
+
+                if (kc > 0) {
+                    // subtract the rows that have already been solved (only
+                    // the last panel can be a partial one)
+                    Ugemm.ugemm(kc, -1.0, (A__start + bs.MR * bs.MR), A_, (C__start + bs.MR * bs.NR), B_,
+                            1.0, // beta
+                            C__start, B_, bs.NR, 1, bs);
+                }
+
+                // back substitution with the (mr x mr) diagonal triangle
+                for (int r = mr - 1; r >= 0; --r) {
+                    int row = C__start + r * bs.NR;
+                    for (int q = r + 1; q < mr; ++q) {
+                        double a = A_[A__start + q * bs.MR + r];
+                        if (a != 0.0) {
+                            int rowQ = C__start + q * bs.NR;
+                            for (int c = 0; c < bs.NR; ++c) {
+                                B_[row + c] -= a * B_[rowQ + c];
+                            }
+                        }
+                    }
+                    double d = A_[A__start + r * bs.MR + r];
+                    for (int c = 0; c < bs.NR; ++c) {
+                        B_[row + c] /= d;
+                    }
+                }
+
+                unpack(mr, nr, C__start, B_, (B_start + i * bs.MR * incRowB + j * bs.NR * incColB), // B start
+                        B, incRowB, incColB, bs);
+            }
+        }
+    }
+
+    //
+    // Copy an (mr x nr) block of a packed (kc x NR) panel back to B
+    //
+    static void unpack(int mr, int nr, int B__start, double[] B_, int B_start, double[] B, int incRowB,
+            int incColB, BlockSizes bs) {
+        for (int r = 0; r < mr; ++r) {
+            int row = B__start + r * bs.NR;
+            int b = B_start + r * incRowB;
+            for (int c = 0; c < nr; ++c) {
+                B[b + c * incColB] = B_[row + c];
+            }
+        }
+    }
+
+    private Mtrusm() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,332 @@
+package math.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded variant of {@link Gemm#gemm} that runs on a
+ * {@link ForkJoinPool}.
+ * <p>
+ * If {@code C} has at least as many {@code NC} column blocks as there are
+ * workers, the column blocks are the tasks: they write disjoint columns of
+ * {@code C}, so each one runs the whole sequential {@code KC} / {@code MC}
+ * sweep on its own, packing its blocks of {@code A} and {@code B} into the
+ * {@link GemmWorkspace} of the worker thread.
+ * <p>
+ * Otherwise the {@code NC} blocks are processed one after the other and for
+ * every packed {@code KC x NC} block of {@code B} the {@code MC} row blocks
+ * of {@code A} (and, if there are too few of them to keep all workers busy,
+ * also {@code NR} aligned column slices of the packed {@code B} block) are
+ * distributed across the workers. The packed block of {@code B} is shared
+ * read-only between all workers, each worker thread packs {@code A} into the
+ * buffers of its own {@link GemmWorkspace}.
+ * <p>
+ * Products with less than {@code threshold} multiply-adds
+ * ({@code m * n * k}) are computed sequentially.
+ */
+public final class ParallelGemm {
+
+    /** Default for the sequential threshold (measured in {@code m * n * k}) */
+    public static final long DEFAULT_THRESHOLD = 128L * 128L * 128L;
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    public ParallelGemm(int parallelism) {
+        this(new ForkJoinPool(parallelism), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelGemm(int parallelism, long threshold) {
+        this(new ForkJoinPool(parallelism), threshold);
+    }
+
+    public ParallelGemm(ForkJoinPool pool, long threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (threshold < 0L) {
+            throw new IllegalArgumentException("threshold must not be negative : " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns a shared instance whose parallelism equals the number of
+     * available processors.
+     *
+     * @return the shared default instance
+     */
+    public static ParallelGemm getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    //
+    // Compute C <- beta*C + alpha*A*B
+    //
+    public void gemm(int m, int n, int k, double alpha, int A_start, double[] A, int incRowA, int incColA,
+            int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C, int incRowC,
+            int incColC) {
+
+        gemm(m, n, k, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, beta, C_start, C, incRowC,
+                incColC, GemmWorkspace.get());
+    }
+
+    //
+    // Compute C <- beta*C + alpha*A*B. The workspace ws (which belongs to the
+    // calling thread) provides the shared buffer for the packed blocks of B.
+    //
+    public void gemm(int m, int n, int k, double alpha, int A_start, double[] A, int incRowA, int incColA,
+            int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C, int incRowC,
+            int incColC, GemmWorkspace ws) {
+
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (alpha == 0.0 || k <= 0) {
+            Gescal.gescal(m, n, beta, C_start, C, incRowC, incColC);
+            return;
+        }
+        if ((long) m * n * k < threshold || pool.getParallelism() == 1) {
+            Gemm.gemm(m, n, k, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, beta, C_start, C,
+                    incRowC, incColC, ws);
+            return;
+        }
+
+        final BlockSizes bs = BlockSizes.get();
+
+        final int mb = (m + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+        final int kb = (k + bs.KC - 1) / bs.KC;
+
+        final int mc_ = m % bs.MC;
+        final int nc_ = n % bs.NC;
+        final int kc_ = k % bs.KC;
+
+        if (nb >= pool.getParallelism()) {
+            // enough independent column blocks to keep all workers busy
+            Columns columns = new Columns(bs, m, n, k, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB,
+                    incColB, beta, C_start, C, incRowC, incColC);
+            pool.invoke(new ColumnsTask(columns, 0, nb));
+            return;
+        }
+
+        // the packed block of B is shared by all workers
+        final double[] B_ = ws.bufferB(
+                Math.min(k, bs.KC) * Gemm.roundUp(Math.min(n, bs.NC), bs.NR));
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+
+            // split the NR panels of the packed B block into 'slices' chunks
+            // if there are not enough row blocks to keep the workers busy
+            int np = (nc + bs.NR - 1) / bs.NR;
+            int slices = Math.max(1, Math.min(np, (4 * pool.getParallelism() + mb - 1) / mb));
+
+            for (int l = 0; l < kb; ++l) {
+                int kc = (l != kb - 1 || kc_ == 0) ? bs.KC : kc_;
+                double beta_ = (l == 0) ? beta : 1.0;
+
+                Gepack.gepack_B(kc, nc, (B_start + l * bs.KC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, B_, bs);
+
+                Block block = new Block(bs, mb, mc_, nc, np, slices, kc, alpha, (A_start + l * bs.KC * incColA),
+                        A, incRowA, incColA, B_, beta_, (C_start + j * bs.NC * incColC), C, incRowC, incColC);
+
+                pool.invoke(new GemmTask(block, 0, mb * slices));
+            }
+        }
+    }
+
+    //
+    // The parameters for computing one (MC x nc) x (kc x nc) sweep
+    //
+    private static final class Block {
+        final BlockSizes bs;
+        final int mb;
+        final int mc_;
+        final int nc;
+        final int np;
+        final int slices;
+        final int kc;
+        final double alpha;
+        final int A_start;
+        final double[] A;
+        final int incRowA;
+        final int incColA;
+        final double[] B_;
+        final double beta;
+        final int C_start;
+        final double[] C;
+        final int incRowC;
+        final int incColC;
+
+        Block(BlockSizes bs, int mb, int mc_, int nc, int np, int slices, int kc, double alpha, int A_start,
+                double[] A, int incRowA, int incColA, double[] B_, double beta, int C_start, double[] C, int incRowC,
+                int incColC) {
+            this.bs = bs;
+            this.mb = mb;
+            this.mc_ = mc_;
+            this.nc = nc;
+            this.np = np;
+            this.slices = slices;
+            this.kc = kc;
+            this.alpha = alpha;
+            this.A_start = A_start;
+            this.A = A;
+            this.incRowA = incRowA;
+            this.incColA = incColA;
+            this.B_ = B_;
+            this.beta = beta;
+            this.C_start = C_start;
+            this.C = C;
+            this.incRowC = incRowC;
+            this.incColC = incColC;
+        }
+
+        //
+        // Compute the task-th (row block, column slice) pair
+        //
+        void compute(int task) {
+            int i = task / slices;
+            int s = task % slices;
+
+            int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+            int p0 = (int) ((long) s * np / slices);
+            int p1 = (int) ((long) (s + 1) * np / slices);
+            int col0 = p0 * bs.NR;
+            int cols = Math.min(nc, p1 * bs.NR) - col0;
+
+            GemmWorkspace ws = GemmWorkspace.get();
+            double[] A_ = ws.bufferA(Gemm.roundUp(mc, bs.MR) * kc);
+
+            Gepack.gepack_A(mc, kc, (A_start + i * bs.MC * incRowA), A, incRowA, incColA, A_, bs);
+
+            Mgemm.mgemm(mc, cols, kc, alpha, A_, (p0 * kc * bs.NR), B_, beta,
+                    (C_start + i * bs.MC * incRowC + col0 * incColC), C, incRowC, incColC,
+                    ws.bufferC(bs.MR * bs.NR), bs);
+        }
+    }
+
+    //
+    // The parameters of a product whose NC column blocks get computed
+    // independently
+    //
+    private static final class Columns {
+        final BlockSizes bs;
+        final int m;
+        final int n;
+        final int k;
+        final double alpha;
+        final int A_start;
+        final double[] A;
+        final int incRowA;
+        final int incColA;
+        final int B_start;
+        final double[] B;
+        final int incRowB;
+        final int incColB;
+        final double beta;
+        final int C_start;
+        final double[] C;
+        final int incRowC;
+        final int incColC;
+
+        Columns(BlockSizes bs, int m, int n, int k, double alpha, int A_start, double[] A, int incRowA,
+                int incColA, int B_start, double[] B, int incRowB, int incColB, double beta, int C_start,
+                double[] C, int incRowC, int incColC) {
+            this.bs = bs;
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.alpha = alpha;
+            this.A_start = A_start;
+            this.A = A;
+            this.incRowA = incRowA;
+            this.incColA = incColA;
+            this.B_start = B_start;
+            this.B = B;
+            this.incRowB = incRowB;
+            this.incColB = incColB;
+            this.beta = beta;
+            this.C_start = C_start;
+            this.C = C;
+            this.incRowC = incRowC;
+            this.incColC = incColC;
+        }
+
+        //
+        // Compute the j-th column block sequentially (no joins happen in
+        // here, so the packing buffers of this thread's workspace can't be
+        // taken over by another task)
+        //
+        void compute(int j) {
+            int col0 = j * bs.NC;
+            int nc = Math.min(bs.NC, n - col0);
+            Gemm.gemm(m, nc, k, alpha, A_start, A, incRowA, incColA, (B_start + col0 * incColB), B, incRowB,
+                    incColB, beta, (C_start + col0 * incColC), C, incRowC, incColC, bs, GemmWorkspace.get());
+        }
+    }
+
+    private static final class ColumnsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        ColumnsTask(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                columns.compute(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ColumnsTask(columns, from, mid), new ColumnsTask(columns, mid, to));
+            }
+        }
+    }
+
+    private static final class GemmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Block block;
+        private final int from;
+        private final int to;
+
+        GemmTask(Block block, int from, int to) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                block.compute(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GemmTask(block, from, mid), new GemmTask(block, mid, to));
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final ParallelGemm INSTANCE = new ParallelGemm(Runtime.getRuntime().availableProcessors());
+    }
+}
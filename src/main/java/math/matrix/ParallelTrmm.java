@@ -0,0 +1,430 @@
+package math.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded variant of {@link Trmm#trmm} (and of {@link Trumm#trumm} /
+ * {@link Trlmm#trlmm}) that runs on a {@link ForkJoinPool}.
+ * <p>
+ * If {@code B} has at least as many {@code NC} column blocks as there are
+ * workers, the column blocks are the tasks: they are disjoint columns of
+ * {@code B} that don't depend on each other, so each one runs the whole
+ * sequential sweep over the {@code MC} row blocks on its own, packing its
+ * blocks of {@code A} and {@code B} into the {@link GemmWorkspace} of the
+ * worker thread.
+ * <p>
+ * Otherwise the {@code NC} column blocks are processed one after the other.
+ * {@code B} is overwritten in place, row block by row block, so within a
+ * column block the {@code MC} row blocks {@code l} are still visited in the
+ * order of the sequential algorithm
+ * (upwards for an upper, downwards for a lower triangular {@code A}): row
+ * block {@code l} of {@code B} is packed before anything gets written and
+ * then the product with the diagonal block {@code A(l,l)} (which overwrites
+ * row block {@code l}) and the off-diagonal products with {@code A(i,l)}
+ * (which accumulate into the row blocks {@code i} that have already been
+ * finished) are independent of each other and get distributed across the
+ * workers, together with {@code NR} aligned column slices of the packed
+ * block if there are too few row blocks to keep all workers busy. Each worker
+ * thread packs its part of {@code A} into the buffers of its own
+ * {@link GemmWorkspace}. Products with less than {@code threshold}
+ * multiply-adds ({@code m * m * n}) are computed sequentially.
+ */
+public final class ParallelTrmm {
+
+    /** Default for the sequential threshold (measured in {@code m * m * n}) */
+    public static final long DEFAULT_THRESHOLD = 128L * 128L * 128L;
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    public ParallelTrmm(int parallelism) {
+        this(new ForkJoinPool(parallelism), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelTrmm(int parallelism, long threshold) {
+        this(new ForkJoinPool(parallelism), threshold);
+    }
+
+    public ParallelTrmm(ForkJoinPool pool, long threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        if (threshold < 0L) {
+            throw new IllegalArgumentException("threshold must not be negative : " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns a shared instance whose parallelism equals the number of
+     * available processors.
+     *
+     * @return the shared default instance
+     */
+    public static ParallelTrmm getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    //
+    // Same switches as Trmm.trmm: B <- alpha*op(A)*B (leftSide) or
+    // B <- alpha*B*op(A) (!leftSide) for column-major A and B
+    //
+    public void trmm(boolean leftSide, boolean lowerTriang, boolean transA, boolean unitDiag, int m, int n,
+            double alpha, double[] A, int _a_offset, int lda, double[] B, int _b_offset, int ldb) {
+
+        if (leftSide) {
+            if (lowerTriang) {
+                if (!transA) {
+                    trlmm(m, n, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, 1, ldb);
+                } else {
+                    trumm(m, n, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, 1, ldb);
+                }
+            } else {
+                if (!transA) {
+                    trumm(m, n, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, 1, ldb);
+                } else {
+                    trlmm(m, n, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, 1, ldb);
+                }
+            }
+        } else {
+            if (lowerTriang) {
+                if (!transA) {
+                    trumm(n, m, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, ldb, 1);
+                } else {
+                    trlmm(n, m, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, ldb, 1);
+                }
+            } else {
+                if (!transA) {
+                    trlmm(n, m, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, ldb, 1);
+                } else {
+                    trumm(n, m, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, ldb, 1);
+                }
+            }
+        }
+    }
+
+    //
+    // Compute B <- alpha*A*B for an (m x m) upper triangular A
+    //
+    public void trumm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB) {
+
+        tr_mm(false, m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB,
+                GemmWorkspace.get());
+    }
+
+    //
+    // Compute B <- alpha*A*B for an (m x m) upper triangular A. The workspace
+    // ws (which belongs to the calling thread) provides the shared buffer for
+    // the packed blocks of B.
+    //
+    public void trumm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB, GemmWorkspace ws) {
+
+        tr_mm(false, m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, ws);
+    }
+
+    //
+    // Compute B <- alpha*A*B for an (m x m) lower triangular A
+    //
+    public void trlmm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB) {
+
+        tr_mm(true, m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB,
+                GemmWorkspace.get());
+    }
+
+    //
+    // Compute B <- alpha*A*B for an (m x m) lower triangular A. The workspace
+    // ws (which belongs to the calling thread) provides the shared buffer for
+    // the packed blocks of B.
+    //
+    public void trlmm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB, GemmWorkspace ws) {
+
+        tr_mm(true, m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, ws);
+    }
+
+    private void tr_mm(boolean lower, int m, int n, double alpha, boolean unitDiag, int A_start, double[] A,
+            int incRowA, int incColA, int B_start, double[] B, int incRowB, int incColB, GemmWorkspace ws) {
+
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (alpha == 0.0) {
+            Gescal.gescal(m, n, 0.0, B_start, B, incRowB, incColB);
+            return;
+        }
+        if ((long) m * m * n < threshold || pool.getParallelism() == 1) {
+            if (lower) {
+                Trlmm.trlmm(m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, ws);
+            } else {
+                Trumm.trumm(m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, ws);
+            }
+            return;
+        }
+
+        final BlockSizes bs = BlockSizes.get();
+
+        final int mb = (m + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+
+        final int mc_ = m % bs.MC;
+        final int nc_ = n % bs.NC;
+
+        if (nb >= pool.getParallelism()) {
+            // enough independent column blocks to keep all workers busy
+            Columns columns = new Columns(bs, lower, m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B,
+                    incRowB, incColB);
+            pool.invoke(new ColumnsTask(columns, 0, nb));
+            return;
+        }
+
+        // the packed block of B is shared by all workers
+        final double[] B_ = ws.bufferB(
+                Math.min(m, bs.MC) * Gemm.roundUp(Math.min(n, bs.NC), bs.NR));
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+            int np = (nc + bs.NR - 1) / bs.NR;
+
+            for (int step = 0; step < mb; ++step) {
+                int l = lower ? mb - 1 - step : step;
+                int kc = (l != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                // the diagonal block plus the row blocks above (upper) or
+                // below (lower) it that receive an off-diagonal update
+                int rows = lower ? mb - l : l + 1;
+
+                // split the NR panels of the packed B block into 'slices'
+                // chunks if there are not enough row blocks to keep the
+                // workers busy
+                int slices = Math.max(1, Math.min(np, (4 * pool.getParallelism() + rows - 1) / rows));
+
+                Gepack.gepack_B(kc, nc, (B_start + l * bs.MC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, B_, bs);
+
+                Block block = new Block(bs, lower, mb, mc_, l, kc, nc, np, slices, alpha, unitDiag, A_start, A,
+                        incRowA, incColA, B_, (B_start + j * bs.NC * incColB), B, incRowB, incColB);
+
+                pool.invoke(new TrmmTask(block, 0, rows * slices));
+            }
+        }
+    }
+
+    //
+    // The parameters of a product whose NC column blocks get computed
+    // independently
+    //
+    private static final class Columns {
+        final BlockSizes bs;
+        final boolean lower;
+        final int m;
+        final int n;
+        final double alpha;
+        final boolean unitDiag;
+        final int A_start;
+        final double[] A;
+        final int incRowA;
+        final int incColA;
+        final int B_start;
+        final double[] B;
+        final int incRowB;
+        final int incColB;
+
+        Columns(BlockSizes bs, boolean lower, int m, int n, double alpha, boolean unitDiag, int A_start, double[] A,
+                int incRowA, int incColA, int B_start, double[] B, int incRowB, int incColB) {
+            this.bs = bs;
+            this.lower = lower;
+            this.m = m;
+            this.n = n;
+            this.alpha = alpha;
+            this.unitDiag = unitDiag;
+            this.A_start = A_start;
+            this.A = A;
+            this.incRowA = incRowA;
+            this.incColA = incColA;
+            this.B_start = B_start;
+            this.B = B;
+            this.incRowB = incRowB;
+            this.incColB = incColB;
+        }
+
+        //
+        // Compute the j-th column block sequentially (no joins happen in
+        // here, so the packing buffers of this thread's workspace can't be
+        // taken over by another task)
+        //
+        void compute(int j) {
+            int col0 = j * bs.NC;
+            int nc = Math.min(bs.NC, n - col0);
+            int b = B_start + col0 * incColB;
+            if (lower) {
+                Trlmm.trlmm(m, nc, alpha, unitDiag, A_start, A, incRowA, incColA, b, B, incRowB, incColB,
+                        GemmWorkspace.get());
+            } else {
+                Trumm.trumm(m, nc, alpha, unitDiag, A_start, A, incRowA, incColA, b, B, incRowB, incColB,
+                        GemmWorkspace.get());
+            }
+        }
+    }
+
+    private static final class ColumnsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        ColumnsTask(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                columns.compute(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ColumnsTask(columns, from, mid), new ColumnsTask(columns, mid, to));
+            }
+        }
+    }
+
+    //
+    // The parameters for computing step l of one NC column block: the
+    // (kc x nc) block of B packed in B_ is multiplied with the diagonal block
+    // A(l,l) (overwriting row block l of B) and with the off-diagonal blocks
+    // A(i,l) (accumulating into row block i of B)
+    //
+    private static final class Block {
+        final BlockSizes bs;
+        final boolean lower;
+        final int mb;
+        final int mc_;
+        final int l;
+        final int kc;
+        final int nc;
+        final int np;
+        final int slices;
+        final double alpha;
+        final boolean unitDiag;
+        final int A_start;
+        final double[] A;
+        final int incRowA;
+        final int incColA;
+        final double[] B_;
+        final int B_start;
+        final double[] B;
+        final int incRowB;
+        final int incColB;
+
+        Block(BlockSizes bs, boolean lower, int mb, int mc_, int l, int kc, int nc, int np, int slices,
+                double alpha, boolean unitDiag, int A_start, double[] A, int incRowA, int incColA, double[] B_,
+                int B_start, double[] B, int incRowB, int incColB) {
+            this.bs = bs;
+            this.lower = lower;
+            this.mb = mb;
+            this.mc_ = mc_;
+            this.l = l;
+            this.kc = kc;
+            this.nc = nc;
+            this.np = np;
+            this.slices = slices;
+            this.alpha = alpha;
+            this.unitDiag = unitDiag;
+            this.A_start = A_start;
+            this.A = A;
+            this.incRowA = incRowA;
+            this.incColA = incColA;
+            this.B_ = B_;
+            this.B_start = B_start;
+            this.B = B;
+            this.incRowB = incRowB;
+            this.incColB = incColB;
+        }
+
+        //
+        // Compute the task-th (row block, column slice) pair. The first row
+        // block of every step is the diagonal one.
+        //
+        void compute(int task) {
+            int r = task / slices;
+            int s = task % slices;
+            int i = lower ? l + r : l - r;
+
+            int p0 = (int) ((long) s * np / slices);
+            int p1 = (int) ((long) (s + 1) * np / slices);
+            int col0 = p0 * bs.NR;
+            int cols = Math.min(nc, p1 * bs.NR) - col0;
+            int B__start = p0 * kc * bs.NR;
+
+            GemmWorkspace ws = GemmWorkspace.get();
+            double[] A_ = ws.bufferA(bs.MC * bs.MC + bs.MR);
+            double[] C_ = ws.bufferC(bs.MR * bs.NR);
+
+            if (i == l) {
+                int a = A_start + l * bs.MC * (incRowA + incColA);
+                int b = B_start + l * bs.MC * incRowB + col0 * incColB;
+                if (lower) {
+                    Trlpack.trlpack(kc, unitDiag, a, A, incRowA, incColA, A_, bs);
+                    Mtrlmm.mtrlmm(kc, cols, alpha, A_, B__start, B_, b, B, incRowB, incColB, C_, bs);
+                } else {
+                    Trupack.trupack(kc, unitDiag, a, A, incRowA, incColA, A_, bs);
+                    Mtrumm.mtrumm(kc, cols, alpha, A_, B__start, B_, b, B, incRowB, incColB, C_, bs);
+                }
+            } else {
+                int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                Gepack.gepack_A(mc, kc, (A_start + i * bs.MC * incRowA + l * bs.MC * incColA), // A start
+                        A, incRowA, incColA, A_, bs);
+
+                Mgemm.mgemm(mc, cols, kc, alpha, A_, B__start, B_, 1.0, // beta
+                        (B_start + i * bs.MC * incRowB + col0 * incColB), // B start
+                        B, incRowB, incColB, C_, bs);
+            }
+        }
+    }
+
+    private static final class TrmmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Block block;
+        private final int from;
+        private final int to;
+
+        TrmmTask(Block block, int from, int to) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                block.compute(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TrmmTask(block, from, mid), new TrmmTask(block, mid, to));
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final ParallelTrmm INSTANCE = new ParallelTrmm(Runtime.getRuntime().availableProcessors());
+    }
+}
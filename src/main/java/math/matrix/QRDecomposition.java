@@ -0,0 +1,240 @@
+package math.matrix;
+
+/**
+ * Householder QR decomposition {@code A = Q * R} of an {@code (m x n)} matrix
+ * {@code A} with {@code m >= n} where {@code Q} has orthonormal columns and
+ * {@code R} is upper triangular.
+ * <p>
+ * The factorization is blocked: each {@code NB} columns wide panel is
+ * factored unblocked, its reflectors are accumulated into the compact WY form
+ * {@code H = I - V * T * V'} and the trailing matrix is updated with
+ * {@code H'} through {@link Trmm} and the packed {@link Gemm}. A decomposition
+ * can be used for any number of subsequent least squares solves.
+ */
+public final class QRDecomposition {
+
+    // block size of the factorization
+    static final int NB = 64;
+
+    private final int m;
+    private final int n;
+    // R in the upper triangle and the Householder vectors v (with an implicit
+    // unit leading entry) below the diagonal, column-major
+    private final double[] qr;
+    // the (b x b) upper triangular T factors of the panels (column-major)
+    private final double[][] t;
+
+    /**
+     * Computes the QR decomposition of {@code A}.
+     *
+     * @param A
+     *            the matrix to decompose, must have at least as many rows as
+     *            columns
+     * @throws IllegalArgumentException
+     *             if {@code A} has less rows than columns
+     */
+    public QRDecomposition(DMatrix A) {
+        m = A.getRowDim();
+        n = A.getColDim();
+        if (m < n) {
+            throw new IllegalArgumentException("matrix must not have less rows than columns : (" + m + " x " + n
+                    + ")");
+        }
+        qr = A.getArrayColumnPackedCopy();
+        t = new double[(n + NB - 1) / NB][];
+
+        double[] tau = new double[NB];
+        for (int k = 0; k < n; k += NB) {
+            int b = Math.min(NB, n - k);
+            factorizePanel(m - k, b, qr, k + k * m, m, tau);
+            double[] T = formT(m - k, b, qr, k + k * m, m, tau);
+            t[k / NB] = T;
+            if (k + b < n) {
+                // A(k:m, k+b:n) <- H' * A(k:m, k+b:n)
+                applyBlock(true, m - k, n - k - b, b, qr, k + k * m, m, T, qr, k + (k + b) * m, m);
+            }
+        }
+    }
+
+    //
+    // Unblocked Householder factorization of the (rows x b) panel starting at
+    // a11. The reflector H_j = I - tau[j] * v_j * v_j' overwrites column j
+    // below the diagonal.
+    //
+    private static void factorizePanel(int rows, int b, double[] a, int a11, int lda, double[] tau) {
+        for (int j = 0; j < b; ++j) {
+            int colJ = a11 + j * lda;
+            double alpha = a[colJ + j];
+            double xnorm = 0.0;
+            for (int i = j + 1; i < rows; ++i) {
+                xnorm += a[colJ + i] * a[colJ + i];
+            }
+            if (xnorm == 0.0) {
+                tau[j] = 0.0;
+                continue;
+            }
+            double beta = Math.sqrt(alpha * alpha + xnorm);
+            if (alpha > 0.0) {
+                beta = -beta;
+            }
+            tau[j] = (beta - alpha) / beta;
+            double scale = 1.0 / (alpha - beta);
+            for (int i = j + 1; i < rows; ++i) {
+                a[colJ + i] *= scale;
+            }
+            a[colJ + j] = beta;
+
+            // apply H_j to the rest of the panel
+            for (int c = j + 1; c < b; ++c) {
+                int colC = a11 + c * lda;
+                double w = a[colC + j];
+                for (int i = j + 1; i < rows; ++i) {
+                    w += a[colJ + i] * a[colC + i];
+                }
+                w *= tau[j];
+                a[colC + j] -= w;
+                for (int i = j + 1; i < rows; ++i) {
+                    a[colC + i] -= w * a[colJ + i];
+                }
+            }
+        }
+    }
+
+    //
+    // Form the (b x b) upper triangular T with H_0 * H_1 * ... * H_b-1 =
+    // I - V * T * V' for the reflectors of the panel starting at a11
+    //
+    private static double[] formT(int rows, int b, double[] a, int a11, int lda, double[] tau) {
+        double[] T = new double[b * b];
+        double[] w = new double[b];
+        for (int i = 0; i < b; ++i) {
+            int colI = a11 + i * lda;
+            // w = -tau[i] * V(:, 0:i)' * v_i
+            for (int r = 0; r < i; ++r) {
+                int colR = a11 + r * lda;
+                double s = a[colR + i];
+                for (int p = i + 1; p < rows; ++p) {
+                    s += a[colR + p] * a[colI + p];
+                }
+                w[r] = -tau[i] * s;
+            }
+            // T(0:i, i) = T(0:i, 0:i) * w
+            for (int r = 0; r < i; ++r) {
+                double s = 0.0;
+                for (int p = r; p < i; ++p) {
+                    s += T[r + p * b] * w[p];
+                }
+                T[r + i * b] = s;
+            }
+            T[i + i * b] = tau[i];
+        }
+        return T;
+    }
+
+    //
+    // C <- H * C = (I - V * T * V') * C (or C <- H' * C if transposed) for the
+    // (rows x b) unit lower trapezoidal V starting at v11 and the (rows x cols)
+    // matrix C starting at c1
+    //
+    private static void applyBlock(boolean transposed, int rows, int cols, int b, double[] v, int v11, int ldv,
+            double[] T, double[] c, int c1, int ldc) {
+        // W = V' * C = V1' * C1 + V2' * C2 (b x cols)
+        double[] W = new double[b * cols];
+        for (int j = 0; j < cols; ++j) {
+            System.arraycopy(c, c1 + j * ldc, W, j * b, b);
+        }
+        Trmm.trmm(true, true, true, true, b, cols, 1.0, v, v11, ldv, W, 0, b);
+        Gemm.gemm(b, cols, rows - b, 1.0, v11 + b, v, ldv, 1, c1 + b, c, 1, ldc, 1.0, 0, W, 1, b);
+        // W <- T * W (or T' * W)
+        Trmm.trmm(true, false, transposed, false, b, cols, 1.0, T, 0, b, W, 0, b);
+        // C2 <- C2 - V2 * W
+        Gemm.gemm(rows - b, cols, b, -1.0, v11 + b, v, 1, ldv, 0, W, 1, b, 1.0, c1 + b, c, 1, ldc);
+        // C1 <- C1 - V1 * W
+        Trmm.trmm(true, true, false, true, b, cols, 1.0, v, v11, ldv, W, 0, b);
+        Geaxpy.geaxpy(b, cols, -1.0, 0, W, 1, b, c1, c, 1, ldc);
+    }
+
+    /**
+     * Returns {@code true} if {@code R}, and hence {@code A}, has full rank.
+     *
+     * @return whether the diagonal of {@code R} has no zero entries
+     */
+    public boolean isFullRank() {
+        for (int j = 0; j < n; ++j) {
+            if (qr[j + j * m] == 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the upper triangular factor {@code R}.
+     *
+     * @return {@code R} as a {@code (n x n)} matrix in
+     *         {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix getR() {
+        double[] r = new double[n * n];
+        for (int j = 0; j < n; ++j) {
+            for (int i = 0; i <= j; ++i) {
+                r[i + j * n] = qr[i + j * m];
+            }
+        }
+        return new DMatrix(n, n, r, Layout.COL_MAJOR, DoCopy.NO);
+    }
+
+    /**
+     * Returns the factor {@code Q} with orthonormal columns.
+     *
+     * @return {@code Q} as a {@code (m x n)} matrix in
+     *         {@linkplain Layout#COL_MAJOR} order
+     */
+    public DMatrix getQ() {
+        // Q = H_0 * H_1 * ... * (I(:, 0:n)), applied from the last block on
+        double[] q = new double[m * n];
+        for (int j = 0; j < n; ++j) {
+            q[j + j * m] = 1.0;
+        }
+        for (int k = ((n - 1) / NB) * NB; k >= 0; k -= NB) {
+            int b = Math.min(NB, n - k);
+            applyBlock(false, m - k, n - k, b, qr, k + k * m, m, t[k / NB], q, k + k * m, m);
+        }
+        return new DMatrix(m, n, q, Layout.COL_MAJOR, DoCopy.NO);
+    }
+
+    /**
+     * Computes the least squares solution {@code X} that minimizes
+     * {@code ||A * X - B||} (for a square {@code A} this solves
+     * {@code A * X = B}).
+     *
+     * @param B
+     *            the right hand sides, must have as many rows as {@code A}
+     * @return the solution {@code X} as a {@code (n x B.cols)} matrix in
+     *         {@linkplain Layout#COL_MAJOR} order
+     * @throws IllegalArgumentException
+     *             if {@code A} is rank deficient
+     */
+    public DMatrix solve(DMatrix B) {
+        if (B.getRowDim() != m) {
+            throw new IllegalArgumentException("B.rows != A.rows : " + B.getRowDim() + " != " + m);
+        }
+        if (!isFullRank()) {
+            throw new IllegalArgumentException("matrix is rank deficient");
+        }
+        int nrhs = B.getColDim();
+        double[] y = B.getArrayColumnPackedCopy();
+        // Y = Q' * B
+        for (int k = 0; k < n; k += NB) {
+            int b = Math.min(NB, n - k);
+            applyBlock(true, m - k, nrhs, b, qr, k + k * m, m, t[k / NB], y, k, m);
+        }
+        // R * X = Y(0:n, :)
+        Trsm.trsm(true, false, false, false, n, nrhs, 1.0, qr, 0, m, y, 0, m);
+        double[] x = new double[n * nrhs];
+        for (int j = 0; j < nrhs; ++j) {
+            System.arraycopy(y, j * m, x, j * n, n);
+        }
+        return new DMatrix(n, nrhs, x, Layout.COL_MAJOR, DoCopy.NO);
+    }
+}
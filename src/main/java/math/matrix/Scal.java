@@ -7,12 +7,18 @@ public final class Scal {
 
     public static void scal(int n, double alpha, double[] x, int xOff, int incX) {
         if (alpha != 1.0 && alpha != 0.0) {
+            SimdKernels simd = Simd.KERNELS;
+            if (simd != null && incX == 1 && n >= Simd.MIN_LENGTH) {
+                simd.scal(n, alpha, x, xOff);
+                return;
+            }
             for (int i = 0; i < n; ++i) {
                 x[xOff + i * incX] *= alpha;
             }
         } else if (alpha == 0.0) {
+            // assign (instead of multiply) so that NaN and Inf don't survive
             for (int i = 0; i < n; ++i) {
-                x[xOff + i * incX] *= 0.0;
+                x[xOff + i * incX] = 0.0;
             }
         }
     }
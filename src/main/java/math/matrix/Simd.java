@@ -0,0 +1,41 @@
+package math.matrix;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+//
+// Holds the SimdKernels implementation (if any) that was found on the
+// class path. Any failure to load one (e.g. an implementation compiled for
+// a newer JVM, or a missing incubator module) silently leaves us with the
+// scalar kernels.
+//
+final class Simd {
+
+    // vectors shorter than this aren't worth the call
+    static final int MIN_LENGTH = 16;
+
+    static final SimdKernels KERNELS = load();
+
+    private static SimdKernels load() {
+        if ("false".equalsIgnoreCase(System.getProperty("math.matrix.simd"))) {
+            return null;
+        }
+        try {
+            Iterator<SimdKernels> it = ServiceLoader.load(SimdKernels.class, Simd.class.getClassLoader()).iterator();
+            while (it.hasNext()) {
+                try {
+                    return it.next();
+                } catch (Throwable t) {
+                    // try the next one
+                }
+            }
+        } catch (Throwable t) {
+            // fall through
+        }
+        return null;
+    }
+
+    private Simd() {
+        throw new AssertionError();
+    }
+}
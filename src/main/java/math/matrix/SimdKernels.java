@@ -0,0 +1,43 @@
+package math.matrix;
+
+/**
+ * Service provider interface for SIMD implementations of the innermost
+ * kernels ({@link Ugemm}, {@link Axpy}, {@link Scal} and thereby also
+ * {@link Geaxpy} and {@link Gescal}).
+ * <p>
+ * Implementations are looked up once with {@link java.util.ServiceLoader}
+ * (see {@code META-INF/services/math.matrix.SimdKernels}). If no
+ * implementation is found, or the one found can't be loaded on the running
+ * JVM, or the system property {@code math.matrix.simd} is set to
+ * {@code false}, the scalar kernels are used.
+ */
+public interface SimdKernels {
+
+    /**
+     * Returns a short description of this implementation.
+     *
+     * @return the name of this implementation
+     */
+    String name();
+
+    /**
+     * Computes {@code y += alpha*x} for unit increments.
+     */
+    void axpy(int n, double alpha, double[] x, int xOff, double[] y, int yOff);
+
+    /**
+     * Computes {@code x *= alpha} for unit increment ({@code alpha != 1.0}).
+     */
+    void scal(int n, double alpha, double[] x, int xOff);
+
+    /**
+     * Computes {@code C <- beta*C + alpha*A*B} for a packed {@code (mr x kc)}
+     * panel from {@code A} and a packed {@code (kc x nr)} panel from
+     * {@code B}. Returns {@code false} (without touching {@code C}) if this
+     * implementation has no micro kernel for the shape {@code (mr x nr)}.
+     * As with the scalar kernels, {@code C} must not be read if
+     * {@code beta == 0.0}.
+     */
+    boolean ugemm(int mr, int nr, int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
+            int C_start, double[] C, int incRowC, int incColC);
+}
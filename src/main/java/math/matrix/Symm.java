@@ -0,0 +1,101 @@
+package math.matrix;
+
+//
+// Product with a symmetric matrix A of which only the lower (or upper)
+// triangle is referenced. The blocks of A are expanded to full blocks while
+// they get packed (Sypack), the rest is the same as in Gemm.
+//
+public final class Symm {
+
+    //
+    // Compute C <- alpha*A*B + beta*C (leftSide) or C <- alpha*B*A + beta*C
+    // (!leftSide) for the (m x n) column-major B and C and the symmetric
+    // column-major A ((m x m) resp. (n x n))
+    //
+    public static void symm(boolean leftSide, boolean lowerTriang, int m, int n, double alpha, double[] A,
+            int _a_offset, int lda, double[] B, int _b_offset, int ldb, double beta, double[] C, int _c_offset,
+            int ldc) {
+
+        if (leftSide) {
+            symm(lowerTriang, m, n, alpha, _a_offset, A, 1, lda, _b_offset, B, 1, ldb, beta, _c_offset, C, 1,
+                    ldc);
+        } else {
+            // C' <- alpha*A*B' + beta*C'
+            symm(lowerTriang, n, m, alpha, _a_offset, A, 1, lda, _b_offset, B, ldb, 1, beta, _c_offset, C, ldc,
+                    1);
+        }
+    }
+
+    public static void symm(boolean lowerTriang, int m, int n, double alpha, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C,
+            int incRowC, int incColC) {
+
+        symm(lowerTriang, m, n, alpha, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB, beta, C_start,
+                C, incRowC, incColC, GemmWorkspace.get());
+    }
+
+    //
+    // Compute C <- alpha*A*B + beta*C for the symmetric (m x m) matrix A and
+    // the (m x n) matrices B and C
+    //
+    public static void symm(boolean lowerTriang, int m, int n, double alpha, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB, double beta, int C_start, double[] C,
+            int incRowC, int incColC, GemmWorkspace ws) {
+
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (alpha == 0.0) {
+            Gescal.gescal(m, n, beta, C_start, C, incRowC, incColC);
+            return;
+        }
+        if (!lowerTriang) {
+            // the upper triangle of A is the lower triangle of A'
+            int tmp = incRowA;
+            incRowA = incColA;
+            incColA = tmp;
+        }
+
+        final BlockSizes bs = BlockSizes.get();
+
+        final int mb = (m + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+        final int kb = (m + bs.KC - 1) / bs.KC;
+
+        final int mc_ = m % bs.MC;
+        final int nc_ = n % bs.NC;
+        final int kc_ = m % bs.KC;
+
+        final double[] A_ = ws
+                .bufferA(Gemm.roundUp(Math.min(m, bs.MC), bs.MR) * Math.min(m, bs.KC));
+        final double[] B_ = ws
+                .bufferB(Math.min(m, bs.KC) * Gemm.roundUp(Math.min(n, bs.NC), bs.NR));
+        final double[] C_ = ws.bufferC(bs.MR * bs.NR);
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+
+            for (int l = 0; l < kb; ++l) {
+                int kc = (l != kb - 1 || kc_ == 0) ? bs.KC : kc_;
+                double beta_ = (l == 0) ? beta : 1.0;
+
+                Gepack.gepack_B(kc, nc, (B_start + l * bs.KC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, B_, bs);
+
+                for (int i = 0; i < mb; ++i) {
+                    int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                    Sypack.sypack_A(mc, kc, i * bs.MC, l * bs.KC, A_start, A, incRowA, incColA, A_, bs);
+
+                    Mgemm.mgemm(mc, nc, kc, alpha, A_, B_, beta_,
+                            (C_start + i * bs.MC * incRowC + j * bs.NC * incColC), // C start
+                            C, incRowC, incColC, C_, bs);
+                }
+            }
+        }
+    }
+
+    private Symm() {
+        throw new AssertionError();
+    }
+}
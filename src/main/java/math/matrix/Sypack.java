@@ -0,0 +1,49 @@
+package math.matrix;
+
+//
+// Pack an (mc x kc) block of a symmetric matrix A of which only the lower
+// triangle is stored (the block starts at row i0 and column l0 of A). The
+// layout of the buffer is the same as for Gepack.gepack_A.
+//
+public final class Sypack {
+
+    public static void sypack_A(int mc, int kc, int i0, int l0, int A_start, double[] A, int incRowA,
+            int incColA, double[] buffer, BlockSizes bs) {
+
+        if (i0 >= l0 + kc - 1) {
+            // completely in the lower triangle
+            Gepack.gepack_A(mc, kc, (A_start + i0 * incRowA + l0 * incColA), A, incRowA, incColA, buffer, bs);
+            return;
+        }
+        if (i0 + mc - 1 <= l0) {
+            // completely in the upper triangle, read the mirrored lower one
+            Gepack.gepack_A(mc, kc, (A_start + l0 * incRowA + i0 * incColA), A, incColA, incRowA, buffer, bs);
+            return;
+        }
+
+        final int mp = (mc + bs.MR - 1) / bs.MR;
+
+        int buffer_start = 0;
+
+        for (int p = 0; p < mp; ++p) {
+            for (int j = 0; j < kc; ++j) {
+                int col = l0 + j;
+                for (int i = 0; i < bs.MR; ++i) {
+                    int r = p * bs.MR + i;
+                    if (r < mc) {
+                        int row = i0 + r;
+                        buffer[buffer_start + i] = (row >= col) ? A[A_start + row * incRowA + col * incColA]
+                                : A[A_start + col * incRowA + row * incColA];
+                    } else {
+                        buffer[buffer_start + i] = 0.0;
+                    }
+                }
+                buffer_start += bs.MR;
+            }
+        }
+    }
+
+    private Sypack() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,113 @@
+package math.matrix;
+
+//
+// Symmetric rank-k update: only the lower (or upper) triangle of C gets
+// updated, the other one is neither read nor written.
+//
+public final class Syrk {
+
+    //
+    // Compute C <- alpha*A*A' + beta*C (!trans) or C <- alpha*A'*A + beta*C
+    // (trans) for the (n x n) column-major C and the (n x k) resp. (k x n)
+    // column-major A
+    //
+    public static void syrk(boolean lowerTriang, boolean trans, int n, int k, double alpha, double[] A,
+            int _a_offset, int lda, double beta, double[] C, int _c_offset, int ldc) {
+
+        if (!trans) {
+            syrk(lowerTriang, n, k, alpha, _a_offset, A, 1, lda, beta, _c_offset, C, 1, ldc);
+        } else {
+            syrk(lowerTriang, n, k, alpha, _a_offset, A, lda, 1, beta, _c_offset, C, 1, ldc);
+        }
+    }
+
+    public static void syrk(boolean lowerTriang, int n, int k, double alpha, int A_start, double[] A, int incRowA,
+            int incColA, double beta, int C_start, double[] C, int incRowC, int incColC) {
+
+        syrk(lowerTriang, n, k, alpha, A_start, A, incRowA, incColA, beta, C_start, C, incRowC, incColC,
+                GemmWorkspace.get());
+    }
+
+    //
+    // Compute C <- alpha*A*A' + beta*C for the (n x k) matrix A
+    //
+    public static void syrk(boolean lowerTriang, int n, int k, double alpha, int A_start, double[] A, int incRowA,
+            int incColA, double beta, int C_start, double[] C, int incRowC, int incColC, GemmWorkspace ws) {
+
+        if (n <= 0) {
+            return;
+        }
+        if (!lowerTriang) {
+            // the upper triangle of C is the lower triangle of C'
+            int tmp = incRowC;
+            incRowC = incColC;
+            incColC = tmp;
+        }
+        if (alpha == 0.0 || k <= 0) {
+            trlscal(n, beta, C_start, C, incRowC, incColC);
+            return;
+        }
+
+        final BlockSizes bs = BlockSizes.get();
+
+        final int mb = (n + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+        final int kb = (k + bs.KC - 1) / bs.KC;
+
+        final int mc_ = n % bs.MC;
+        final int nc_ = n % bs.NC;
+        final int kc_ = k % bs.KC;
+
+        final double[] A_ = ws
+                .bufferA(Gemm.roundUp(Math.min(n, bs.MC), bs.MR) * Math.min(k, bs.KC));
+        final double[] B_ = ws
+                .bufferB(Math.min(k, bs.KC) * Gemm.roundUp(Math.min(n, bs.NC), bs.NR));
+        final double[] C_ = ws.bufferC(bs.MR * bs.NR);
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+
+            for (int l = 0; l < kb; ++l) {
+                int kc = (l != kb - 1 || kc_ == 0) ? bs.KC : kc_;
+                double beta_ = (l == 0) ? beta : 1.0;
+
+                // B = A'
+                Gepack.gepack_B(kc, nc, (A_start + l * bs.KC * incColA + j * bs.NC * incRowA), // B start
+                        A, incColA, incRowA, B_, bs);
+
+                // the row blocks above the column block don't intersect the
+                // lower triangle
+                for (int i = (j * bs.NC) / bs.MC; i < mb; ++i) {
+                    int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                    Gepack.gepack_A(mc, kc, (A_start + i * bs.MC * incRowA + l * bs.KC * incColA), // A start
+                            A, incRowA, incColA, A_, bs);
+
+                    Msyrk.msyrk(mc, nc, kc, (i * bs.MC - j * bs.NC), alpha, A_, B_, beta_,
+                            (C_start + i * bs.MC * incRowC + j * bs.NC * incColC), // C start
+                            C, incRowC, incColC, C_, bs);
+                }
+            }
+        }
+    }
+
+    //
+    // Compute C *= beta on the lower triangle of the (n x n) matrix C
+    //
+    private static void trlscal(int n, double beta, int C_start, double[] C, int incRowC, int incColC) {
+        if (beta == 1.0) {
+            return;
+        }
+        for (int j = 0; j < n; ++j) {
+            int base = C_start + j * incColC;
+            for (int i = j; i < n; ++i) {
+                int idx = base + i * incRowC;
+                C[idx] = (beta == 0.0) ? 0.0 : beta * C[idx];
+            }
+        }
+    }
+
+    private Syrk() {
+        throw new AssertionError();
+    }
+}
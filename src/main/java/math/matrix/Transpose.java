@@ -0,0 +1,41 @@
+package math.matrix;
+
+//
+// Compute B <- A^T (out of place) for a row major (m x n) matrix A with
+// row stride ldA and a row major (n x m) matrix B with row stride ldB
+// (equivalently: a column major (n x m) A and column major (m x n) B).
+// The copy is done in square tiles so that both the reads and the writes
+// stay within a few cache lines per row of a tile.
+//
+public final class Transpose {
+
+    // edge length of the tiles
+    static final int BLOCK = 32;
+
+    public static void transpose(int m, int n, int A_start, double[] A, int ldA, int B_start, double[] B, int ldB) {
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        if (ldA < n || ldB < m) {
+            throw new IllegalArgumentException("illegal leading dimensions: ldA=" + ldA + ", ldB=" + ldB);
+        }
+
+        for (int i0 = 0; i0 < m; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, m);
+            for (int j0 = 0; j0 < n; j0 += BLOCK) {
+                int j1 = Math.min(j0 + BLOCK, n);
+                for (int i = i0; i < i1; ++i) {
+                    int a = A_start + i * ldA;
+                    int b = B_start + i;
+                    for (int j = j0; j < j1; ++j) {
+                        B[b + j * ldB] = A[a + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private Transpose() {
+        throw new AssertionError();
+    }
+}
@@ -2,28 +2,36 @@ package math.matrix;
 
 public final class Trlpack {
 
+    //
+    // Pack with the register block size of the global BlockSizes.get()
+    //
     public static void trlpack(int mc, boolean unit, int L_start, double[] L, int incRowL, int incColL,
             double[] buffer) {
-        final int mp = mc / BlockSizes.MR;
-        final int mr_ = mc % BlockSizes.MR;
+        trlpack(mc, unit, L_start, L, incRowL, incColL, buffer, BlockSizes.get());
+    }
+
+    public static void trlpack(int mc, boolean unit, int L_start, double[] L, int incRowL, int incColL,
+            double[] buffer, BlockSizes bs) {
+        final int mp = mc / bs.MR;
+        final int mr_ = mc % bs.MR;
 
         int buffer_start = 0;
 
         for (int i = 0; i < mp; ++i) {
-            trlpack_MRxk((i + 1) * BlockSizes.MR, unit, L_start, L, incRowL, incColL, buffer, buffer_start);
-            buffer_start += (i + 1) * BlockSizes.MR * BlockSizes.MR;
-            L_start += BlockSizes.MR * incRowL;
+            trlpack_MRxk((i + 1) * bs.MR, unit, L_start, L, incRowL, incColL, buffer, buffer_start, bs);
+            buffer_start += (i + 1) * bs.MR * bs.MR;
+            L_start += bs.MR * incRowL;
         }
 
         if (mr_ > 0) {
-            for (int j = 0; j < mp * BlockSizes.MR; ++j) {
+            for (int j = 0; j < mp * bs.MR; ++j) {
                 for (int i = 0; i < mr_; ++i) {
                     buffer[buffer_start + i] = L[L_start + i * incRowL];
                 }
-                for (int i = mr_; i < BlockSizes.MR; ++i) {
+                for (int i = mr_; i < bs.MR; ++i) {
                     buffer[buffer_start + i] = 0.0;
                 }
-                buffer_start += BlockSizes.MR;
+                buffer_start += bs.MR;
                 L_start += incColL;
             }
             for (int j = 0; j < mr_; ++j) {
@@ -34,33 +42,33 @@ public final class Trlpack {
                 for (int i = j + 1; i < mr_; ++i) {
                     buffer[buffer_start + i] = L[L_start + i * incRowL];
                 }
-                for (int i = mr_; i < BlockSizes.MR; ++i) {
+                for (int i = mr_; i < bs.MR; ++i) {
                     buffer[buffer_start + i] = 0.0;
                 }
-                buffer_start += BlockSizes.MR;
+                buffer_start += bs.MR;
                 L_start += incColL;
             }
         }
     }
 
     private static void trlpack_MRxk(int k, boolean unit, int L_start, double[] L, int incRowL, int incColL,
-            double[] buffer, int buffer_start) {
-        for (int j = 0; j < k - BlockSizes.MR; ++j) {
-            for (int i = 0; i < BlockSizes.MR; ++i) {
+            double[] buffer, int buffer_start, BlockSizes bs) {
+        for (int j = 0; j < k - bs.MR; ++j) {
+            for (int i = 0; i < bs.MR; ++i) {
                 buffer[buffer_start + i] = L[L_start + i * incRowL];
             }
-            buffer_start += BlockSizes.MR;
+            buffer_start += bs.MR;
             L_start += incColL;
         }
-        for (int j = 0; j < BlockSizes.MR; ++j) {
+        for (int j = 0; j < bs.MR; ++j) {
             for (int i = 0; i < j; ++i) {
                 buffer[buffer_start + i] = 0.0;
             }
             buffer[buffer_start + j] = (unit) ? 1.0 : L[L_start + j * incRowL];
-            for (int i = j + 1; i < BlockSizes.MR; ++i) {
+            for (int i = j + 1; i < bs.MR; ++i) {
                 buffer[buffer_start + i] = L[L_start + i * incRowL];
             }
-            buffer_start += BlockSizes.MR;
+            buffer_start += bs.MR;
             L_start += incColL;
         }
     }
@@ -0,0 +1,73 @@
+package math.matrix;
+
+//
+// Solve A*X = alpha*B for an (m x m) lower triangular A, X overwrites B
+//
+public final class Trlsm {
+
+    public static void trlsm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB) {
+
+        trlsm(m, n, alpha, unitDiag, A_start, A, incRowA, incColA, B_start, B, incRowB, incColB,
+                GemmWorkspace.get());
+    }
+
+    public static void trlsm(int m, int n, double alpha, boolean unitDiag, int A_start, double[] A, int incRowA,
+            int incColA, int B_start, double[] B, int incRowB, int incColB, GemmWorkspace ws) {
+
+        if (m <= 0 || n <= 0) {
+            return;
+        }
+        Gescal.gescal(m, n, alpha, B_start, B, incRowB, incColB);
+        if (alpha == 0.0) {
+            return;
+        }
+
+        final BlockSizes bs = BlockSizes.get();
+
+        final int mb = (m + bs.MC - 1) / bs.MC;
+        final int nb = (n + bs.NC - 1) / bs.NC;
+
+        final int mc_ = m % bs.MC;
+        final int nc_ = n % bs.NC;
+
+        final double[] A_ = ws.bufferA(bs.MC * bs.MC + bs.MR);
+        final double[] B_ = ws.bufferB(bs.MC * bs.NC + bs.NR);
+        final double[] C_ = ws.bufferC(bs.MR * bs.NR);
+
+        for (int j = 0; j < nb; ++j) {
+            int nc = (j != nb - 1 || nc_ == 0) ? bs.NC : nc_;
+
+            for (int l = 0; l < mb; ++l) {
+                int kc = (l != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                Gepack.gepack_B(kc, nc, (B_start + l * bs.MC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, B_, bs);
+
+                Trlpack.trlpack(kc, unitDiag, (A_start + l * bs.MC * (incRowA + incColA)), // A start
+                        A, incRowA, incColA, A_, bs);
+
+                // solve with the diagonal block, the solution stays in B_
+                Mtrlsm.mtrlsm(kc, nc, A_, B_,
+                        (B_start + l * bs.MC * incRowB + j * bs.NC * incColB), // B start
+                        B, incRowB, incColB, C_, bs);
+
+                // and gets subtracted from the row blocks not yet solved
+                for (int i = l + 1; i < mb; ++i) {
+                    int mc = (i != mb - 1 || mc_ == 0) ? bs.MC : mc_;
+
+                    Gepack.gepack_A(mc, kc, (A_start + i * bs.MC * incRowA + l * bs.MC * incColA), // A start
+                            A, incRowA, incColA, A_, bs);
+
+                    Mgemm.mgemm(mc, nc, kc, -1.0, A_, B_, 1.0, // beta
+                            (B_start + i * bs.MC * incRowB + j * bs.NC * incColB), // B start
+                            B, incRowB, incColB, C_, bs);
+                }
+            }
+        }
+    }
+
+    private Trlsm() {
+        throw new AssertionError();
+    }
+}
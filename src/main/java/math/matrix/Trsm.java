@@ -0,0 +1,46 @@
+package math.matrix;
+
+//
+// Solve op(A)*X = alpha*B (leftSide) or X*op(A) = alpha*B (!leftSide) for a
+// triangular A, X overwrites B. Same switches as Trmm.trmm.
+//
+public final class Trsm {
+
+    public static void trsm(boolean leftSide, boolean lowerTriang, boolean transA, boolean unitDiag, int m, int n,
+            double alpha, double[] A, int _a_offset, int lda, double[] B, int _b_offset, int ldb) {
+
+        if (leftSide) {
+            if (lowerTriang) {
+                if (!transA) {
+                    Trlsm.trlsm(m, n, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, 1, ldb);
+                } else {
+                    Trusm.trusm(m, n, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, 1, ldb);
+                }
+            } else {
+                if (!transA) {
+                    Trusm.trusm(m, n, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, 1, ldb);
+                } else {
+                    Trlsm.trlsm(m, n, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, 1, ldb);
+                }
+            }
+        } else {
+            if (lowerTriang) {
+                if (!transA) {
+                    Trusm.trusm(n, m, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, ldb, 1);
+                } else {
+                    Trlsm.trlsm(n, m, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, ldb, 1);
+                }
+            } else {
+                if (!transA) {
+                    Trlsm.trlsm(n, m, alpha, unitDiag, _a_offset, A, lda, 1, _b_offset, B, ldb, 1);
+                } else {
+                    Trusm.trusm(n, m, alpha, unitDiag, _a_offset, A, 1, lda, _b_offset, B, ldb, 1);
+                }
+            }
+        }
+    }
+
+    private Trsm() {
+        throw new AssertionError();
+    }
+}
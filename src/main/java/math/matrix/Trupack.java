@@ -2,17 +2,25 @@ package math.matrix;
 
 public final class Trupack {
 
+    //
+    // Pack with the register block size of the global BlockSizes.get()
+    //
     public static void trupack(int mc, boolean unit, int U_start, double[] U, int incRowU, int incColU,
             double[] buffer) {
-        final int mp = mc / BlockSizes.MR;
-        final int mr_ = mc % BlockSizes.MR;
+        trupack(mc, unit, U_start, U, incRowU, incColU, buffer, BlockSizes.get());
+    }
+
+    public static void trupack(int mc, boolean unit, int U_start, double[] U, int incRowU, int incColU,
+            double[] buffer, BlockSizes bs) {
+        final int mp = mc / bs.MR;
+        final int mr_ = mc % bs.MR;
 
         int buffer_start = 0;
 
         for (int i = 0; i < mp; ++i) {
-            trupack_MRxk(mc - i * BlockSizes.MR, unit, U_start, U, incRowU, incColU, buffer, buffer_start);
-            buffer_start += (mc - i * BlockSizes.MR) * BlockSizes.MR;
-            U_start += BlockSizes.MR * (incRowU + incColU);
+            trupack_MRxk(mc - i * bs.MR, unit, U_start, U, incRowU, incColU, buffer, buffer_start, bs);
+            buffer_start += (mc - i * bs.MR) * bs.MR;
+            U_start += bs.MR * (incRowU + incColU);
         }
         if (mr_ > 0) {
             for (int j = 0; j < mr_; ++j) {
@@ -20,34 +28,34 @@ public final class Trupack {
                     buffer[buffer_start + i] = U[U_start + i * incRowU];
                 }
                 buffer[buffer_start + j] = (unit) ? 1.0 : U[U_start + j * incRowU];
-                for (int i = j + 1; i < BlockSizes.MR; ++i) {
+                for (int i = j + 1; i < bs.MR; ++i) {
                     buffer[buffer_start + i] = 0.0;
                 }
-                buffer_start += BlockSizes.MR;
+                buffer_start += bs.MR;
                 U_start += incColU;
             }
         }
     }
 
     private static void trupack_MRxk(int k, boolean unit, int U_start, double[] U, int incRowU, int incColU,
-            double[] buffer, int buffer_start) {
+            double[] buffer, int buffer_start, BlockSizes bs) {
 
-        for (int j = 0; j < BlockSizes.MR; ++j) {
+        for (int j = 0; j < bs.MR; ++j) {
             for (int i = 0; i < j; ++i) {
                 buffer[buffer_start + i] = U[U_start + i * incRowU];
             }
             buffer[buffer_start + j] = (unit) ? 1.0 : U[U_start + j * incRowU];
-            for (int i = j + 1; i < BlockSizes.MR; ++i) {
+            for (int i = j + 1; i < bs.MR; ++i) {
                 buffer[buffer_start + i] = 0.0;
             }
-            buffer_start += BlockSizes.MR;
+            buffer_start += bs.MR;
             U_start += incColU;
         }
-        for (int j = 0; j < k - BlockSizes.MR; ++j) {
-            for (int i = 0; i < BlockSizes.MR; ++i) {
+        for (int j = 0; j < k - bs.MR; ++j) {
+            for (int i = 0; i < bs.MR; ++i) {
                 buffer[buffer_start + i] = U[U_start + i * incRowU];
             }
-            buffer_start += BlockSizes.MR;
+            buffer_start += bs.MR;
             U_start += incColU;
         }
     }
@@ -1,125 +1,407 @@
 package math.matrix;
 
-import java.util.Arrays;
-
+//
+// Micro kernels for multiplying an (MR x kc) panel from A by a (kc x NR)
+// panel from B. The kernel that gets used is selected by the register block
+// size (MR x NR) of the BlockSizes the panels were packed with. All kernels
+// keep their accumulators in local variables (instead of an array) so that
+// the JIT can hold them in registers.
+//
 public final class Ugemm {
 
     //
-    // Buffered variant. Used for zero padded panels.
+    // Variants for panels packed with the global BlockSizes.get(). AB is no
+    // longer used (the kernels accumulate in local variables).
     //
     public static void ugemm(int mr, int nr, int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
             double beta, int C_start, double[] C, int incRowC, int incColC, double[] AB, double[] workC) {
 
-        ugemm(kc, alpha, A_start, A, B_start, B, 0.0, 0, workC, 1, BlockSizes.MR, AB);
+        BlockSizes bs = BlockSizes.get();
+        ugemm(mr, nr, kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC, incColC, bs.workC(workC), bs);
+    }
+
+    public static void ugemm(int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
+            int C_start, double[] C, int incRowC, int incColC, double[] AB) {
+
+        ugemm(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC, incColC, BlockSizes.get());
+    }
+
+    //
+    // Buffered variant. Used for zero padded panels.
+    //
+    public static void ugemm(int mr, int nr, int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC, int incColC, double[] workC, BlockSizes bs) {
+
+        ugemm(kc, alpha, A_start, A, B_start, B, 0.0, 0, workC, 1, bs.MR, bs);
         Gescal.gescal(mr, nr, beta, C_start, C, incRowC, incColC);
-        Geaxpy.geaxpy(mr, nr, 1.0, 0, workC, 1, BlockSizes.MR, C_start, C, incRowC, incColC);
+        Geaxpy.geaxpy(mr, nr, 1.0, 0, workC, 1, bs.MR, C_start, C, incRowC, incColC);
     }
 
     //
     // Micro kernel for multiplying panels from A and B. Unbuffered variant.
+    // Computes C <- beta*C + alpha*A*B (note: the case alpha==0.0 must
+    // already have been treated in one of the the above layers!)
     //
     public static void ugemm(int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
-            int C_start, double[] C, int incRowC, int incColC, double[] AB) {
+            int C_start, double[] C, int incRowC, int incColC, BlockSizes bs) {
 
-        // clear buffer
-        Arrays.fill(AB, 0.0);
+        SimdKernels simd = Simd.KERNELS;
+        if (simd != null && simd.ugemm(bs.MR, bs.NR, kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC,
+                incColC)) {
+            return;
+        }
+        if (bs.MR == 4 && bs.NR == 4) {
+            ugemm4x4(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC, incColC);
+        } else if (bs.MR == 8 && bs.NR == 4) {
+            ugemm8x4(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC, incColC);
+        } else if (bs.MR == 4 && bs.NR == 8) {
+            ugemm4x8(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC, incColC);
+        } else {
+            throw new IllegalArgumentException("no micro kernel for MR x NR = " + bs.MR + " x " + bs.NR);
+        }
+    }
+
+    //
+    // Returns true if there is a micro kernel for the register block size
+    // (mr x nr)
+    //
+    static boolean isSupported(int mr, int nr) {
+        return (mr == 4 && nr == 4) || (mr == 8 && nr == 4) || (mr == 4 && nr == 8);
+    }
+
+    //
+    // 4x4 micro kernel with the accumulators held in local variables
+    //
+    private static void ugemm4x4(int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC, int incColC) {
+
+        double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0;
+        double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0;
+        double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0;
+        double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0;
 
         //
         // Compute AB = A*B
         //
         for (int l = 0; l < kc; ++l) {
 
-            double b0j = B[B_start++];
-            double b1j = B[B_start++];
-            double b2j = B[B_start++];
-            double b3j = B[B_start++];
-
-            double a0i = A[A_start++];
-            double a1i = A[A_start++];
-            double a2i = A[A_start++];
-            double a3i = A[A_start++];
-
-            int idx = 0;
-            AB[idx++] += a0i * b0j;
-            AB[idx++] += a1i * b0j;
-            AB[idx++] += a2i * b0j;
-            AB[idx++] += a3i * b0j;
-
-            AB[idx++] += a0i * b1j;
-            AB[idx++] += a1i * b1j;
-            AB[idx++] += a2i * b1j;
-            AB[idx++] += a3i * b1j;
-
-            AB[idx++] += a0i * b2j;
-            AB[idx++] += a1i * b2j;
-            AB[idx++] += a2i * b2j;
-            AB[idx++] += a3i * b2j;
-
-            AB[idx++] += a0i * b3j;
-            AB[idx++] += a1i * b3j;
-            AB[idx++] += a2i * b3j;
-            AB[idx++] += a3i * b3j;
+            double b0 = B[B_start];
+            double b1 = B[B_start + 1];
+            double b2 = B[B_start + 2];
+            double b3 = B[B_start + 3];
+
+            double a0 = A[A_start];
+            double a1 = A[A_start + 1];
+            double a2 = A[A_start + 2];
+            double a3 = A[A_start + 3];
+
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+
+            A_start += 4;
+            B_start += 4;
         }
 
         //
-        // Update C <- beta*C
+        // Update C <- beta*C + alpha*AB
+        //
+        int base_C = C_start;
+        C[base_C] = update(C[base_C], beta, alpha * c00);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c10);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c20);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c30);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c01);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c11);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c21);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c31);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c02);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c12);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c22);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c32);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c03);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c13);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c23);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c33);
+    }
+
+    //
+    // 8x4 micro kernel with the accumulators held in local variables
+    //
+    private static void ugemm8x4(int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC, int incColC) {
+
+        double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0;
+        double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0;
+        double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0;
+        double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0;
+        double c40 = 0.0, c41 = 0.0, c42 = 0.0, c43 = 0.0;
+        double c50 = 0.0, c51 = 0.0, c52 = 0.0, c53 = 0.0;
+        double c60 = 0.0, c61 = 0.0, c62 = 0.0, c63 = 0.0;
+        double c70 = 0.0, c71 = 0.0, c72 = 0.0, c73 = 0.0;
+
+        //
+        // Compute AB = A*B
         //
-        if (beta != 1.0) {
-            betaMulC(beta, C_start, C, incRowC, incColC);
+        for (int l = 0; l < kc; ++l) {
+
+            double b0 = B[B_start];
+            double b1 = B[B_start + 1];
+            double b2 = B[B_start + 2];
+            double b3 = B[B_start + 3];
+
+            double a0 = A[A_start];
+            double a1 = A[A_start + 1];
+            double a2 = A[A_start + 2];
+            double a3 = A[A_start + 3];
+            double a4 = A[A_start + 4];
+            double a5 = A[A_start + 5];
+            double a6 = A[A_start + 6];
+            double a7 = A[A_start + 7];
+
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+            c40 += a4 * b0;
+            c50 += a5 * b0;
+            c60 += a6 * b0;
+            c70 += a7 * b0;
+
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+            c41 += a4 * b1;
+            c51 += a5 * b1;
+            c61 += a6 * b1;
+            c71 += a7 * b1;
+
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+            c42 += a4 * b2;
+            c52 += a5 * b2;
+            c62 += a6 * b2;
+            c72 += a7 * b2;
+
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+            c43 += a4 * b3;
+            c53 += a5 * b3;
+            c63 += a6 * b3;
+            c73 += a7 * b3;
+
+            A_start += 8;
+            B_start += 4;
         }
 
         //
-        // Update C <- C + alpha*AB (note: the case alpha==0.0 must
-        // already have been treated in one of the the above layers!)
+        // Update C <- beta*C + alpha*AB
         //
-        plusAlphaAB(alpha, C_start, C, incRowC, incColC, AB);
+        int base_C = C_start;
+        C[base_C] = update(C[base_C], beta, alpha * c00);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c10);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c20);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c30);
+        C[base_C + 4 * incRowC] = update(C[base_C + 4 * incRowC], beta, alpha * c40);
+        C[base_C + 5 * incRowC] = update(C[base_C + 5 * incRowC], beta, alpha * c50);
+        C[base_C + 6 * incRowC] = update(C[base_C + 6 * incRowC], beta, alpha * c60);
+        C[base_C + 7 * incRowC] = update(C[base_C + 7 * incRowC], beta, alpha * c70);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c01);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c11);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c21);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c31);
+        C[base_C + 4 * incRowC] = update(C[base_C + 4 * incRowC], beta, alpha * c41);
+        C[base_C + 5 * incRowC] = update(C[base_C + 5 * incRowC], beta, alpha * c51);
+        C[base_C + 6 * incRowC] = update(C[base_C + 6 * incRowC], beta, alpha * c61);
+        C[base_C + 7 * incRowC] = update(C[base_C + 7 * incRowC], beta, alpha * c71);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c02);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c12);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c22);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c32);
+        C[base_C + 4 * incRowC] = update(C[base_C + 4 * incRowC], beta, alpha * c42);
+        C[base_C + 5 * incRowC] = update(C[base_C + 5 * incRowC], beta, alpha * c52);
+        C[base_C + 6 * incRowC] = update(C[base_C + 6 * incRowC], beta, alpha * c62);
+        C[base_C + 7 * incRowC] = update(C[base_C + 7 * incRowC], beta, alpha * c72);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c03);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c13);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c23);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c33);
+        C[base_C + 4 * incRowC] = update(C[base_C + 4 * incRowC], beta, alpha * c43);
+        C[base_C + 5 * incRowC] = update(C[base_C + 5 * incRowC], beta, alpha * c53);
+        C[base_C + 6 * incRowC] = update(C[base_C + 6 * incRowC], beta, alpha * c63);
+        C[base_C + 7 * incRowC] = update(C[base_C + 7 * incRowC], beta, alpha * c73);
     }
 
     //
-    // Update C <- beta*C
+    // 4x8 micro kernel with the accumulators held in local variables
     //
-    private static void betaMulC(double beta, int C_start, double[] C, int incRowC, int incColC) {
+    private static void ugemm4x8(int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC, int incColC) {
 
-        if (beta == 0.0) {
-            for (int j = 0; j < BlockSizes.NR; ++j) {
-                int base_C = C_start + j * incColC;
-                for (int i = 0; i < BlockSizes.MR; ++i) {
-                    C[base_C + i * incRowC] = 0.0;
-                }
-            }
-        } else {
-            for (int j = 0; j < BlockSizes.NR; ++j) {
-                int base_C = C_start + j * incColC;
-                for (int i = 0; i < BlockSizes.MR; ++i) {
-                    C[base_C + i * incRowC] *= beta;
-                }
-            }
+        double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0, c04 = 0.0, c05 = 0.0, c06 = 0.0, c07 = 0.0;
+        double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0, c14 = 0.0, c15 = 0.0, c16 = 0.0, c17 = 0.0;
+        double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0, c24 = 0.0, c25 = 0.0, c26 = 0.0, c27 = 0.0;
+        double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0, c34 = 0.0, c35 = 0.0, c36 = 0.0, c37 = 0.0;
+
+        //
+        // Compute AB = A*B
+        //
+        for (int l = 0; l < kc; ++l) {
+
+            double b0 = B[B_start];
+            double b1 = B[B_start + 1];
+            double b2 = B[B_start + 2];
+            double b3 = B[B_start + 3];
+            double b4 = B[B_start + 4];
+            double b5 = B[B_start + 5];
+            double b6 = B[B_start + 6];
+            double b7 = B[B_start + 7];
+
+            double a0 = A[A_start];
+            double a1 = A[A_start + 1];
+            double a2 = A[A_start + 2];
+            double a3 = A[A_start + 3];
+
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+
+            c04 += a0 * b4;
+            c14 += a1 * b4;
+            c24 += a2 * b4;
+            c34 += a3 * b4;
+
+            c05 += a0 * b5;
+            c15 += a1 * b5;
+            c25 += a2 * b5;
+            c35 += a3 * b5;
+
+            c06 += a0 * b6;
+            c16 += a1 * b6;
+            c26 += a2 * b6;
+            c36 += a3 * b6;
+
+            c07 += a0 * b7;
+            c17 += a1 * b7;
+            c27 += a2 * b7;
+            c37 += a3 * b7;
+
+            A_start += 4;
+            B_start += 8;
         }
+
+        //
+        // Update C <- beta*C + alpha*AB
+        //
+        int base_C = C_start;
+        C[base_C] = update(C[base_C], beta, alpha * c00);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c10);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c20);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c30);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c01);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c11);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c21);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c31);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c02);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c12);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c22);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c32);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c03);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c13);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c23);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c33);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c04);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c14);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c24);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c34);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c05);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c15);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c25);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c35);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c06);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c16);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c26);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c36);
+
+        base_C += incColC;
+        C[base_C] = update(C[base_C], beta, alpha * c07);
+        C[base_C + incRowC] = update(C[base_C + incRowC], beta, alpha * c17);
+        C[base_C + 2 * incRowC] = update(C[base_C + 2 * incRowC], beta, alpha * c27);
+        C[base_C + 3 * incRowC] = update(C[base_C + 3 * incRowC], beta, alpha * c37);
     }
 
     //
-    // Update C <- C + alpha*AB (note: the case alpha==0.0 must
-    // already have been treated in one of the the above layers!)
+    // C <- beta*C + alphaAB (C isn't read when beta==0.0)
     //
-    private static void plusAlphaAB(double alpha, int C_start, double[] C, int incRowC, int incColC, double[] AB) {
-
-        if (alpha == 1.0) {
-            for (int j = 0; j < BlockSizes.NR; ++j) {
-                int jIdx = j * BlockSizes.MR;
-                int base_C = C_start + j * incColC;
-                for (int i = 0; i < BlockSizes.MR; ++i) {
-                    C[base_C + i * incRowC] += AB[i + jIdx];
-                }
-            }
-        } else {
-            for (int j = 0; j < BlockSizes.NR; ++j) {
-                int jIdx = j * BlockSizes.MR;
-                int base_C = C_start + j * incColC;
-                for (int i = 0; i < BlockSizes.MR; ++i) {
-                    C[base_C + i * incRowC] += alpha * AB[i + jIdx];
-                }
-            }
+    private static double update(double c, double beta, double alphaAB) {
+        if (beta == 0.0) {
+            return alphaAB;
+        }
+        if (beta == 1.0) {
+            return c + alphaAB;
         }
+        return beta * c + alphaAB;
     }
 
     private Ugemm() {
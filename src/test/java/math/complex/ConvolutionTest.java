@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test {@link Convolution} against the defining sums (both the direct and
+ * the FFT paths get exercised by the sizes)
+ */
+public class ConvolutionTest {
+
+    private static final int[][] SIZES = { { 1, 1 }, { 5, 3 }, { 3, 5 }, { 40, 7 }, { 200, 150 }, { 1000, 333 },
+            { 777, 1 }, { 2048, 2048 } };
+
+    @Test
+    public void testConvolveReal() {
+        for (int[] s : SIZES) {
+            double[] x = TestUtils.randomData(s[0]);
+            double[] h = TestUtils.randomData(s[1]);
+            double[] z = Convolution.convolve(x, h);
+            assertEquals(s[0] + s[1] - 1, z.length);
+            for (int k = 0; k < z.length; ++k) {
+                double sum = 0.0;
+                for (int i = Math.max(0, k - h.length + 1); i <= Math.min(k, x.length - 1); ++i) {
+                    sum += x[i] * h[k - i];
+                }
+                assertEquals(sum, z[k], 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testConvolveComplex() {
+        for (int[] s : SIZES) {
+            ComplexArray x = random(s[0]);
+            ComplexArray h = random(s[1]);
+            ComplexArray z = Convolution.convolve(x, h);
+            assertEquals(s[0] + s[1] - 1, z.length());
+            for (int k = 0; k < z.length(); ++k) {
+                double sumR = 0.0;
+                double sumI = 0.0;
+                for (int i = Math.max(0, k - s[1] + 1); i <= Math.min(k, s[0] - 1); ++i) {
+                    sumR += x.re()[i] * h.re()[k - i] - x.im()[i] * h.im()[k - i];
+                    sumI += x.re()[i] * h.im()[k - i] + x.im()[i] * h.re()[k - i];
+                }
+                assertEquals(sumR, z.re()[k], 1.0e-11);
+                assertEquals(sumI, z.im()[k], 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testCorrelate() {
+        for (int[] s : SIZES) {
+            ComplexArray x = random(s[0]);
+            ComplexArray y = random(s[1]);
+            ComplexArray r = Convolution.correlate(x, y);
+            double[] rr = Convolution.correlate(x.re(), y.re());
+            int m = s[1];
+            for (int k = 0; k < r.length(); ++k) {
+                double sumR = 0.0;
+                double sumI = 0.0;
+                double sum = 0.0;
+                for (int i = 0; i < m; ++i) {
+                    int j = i + k - (m - 1);
+                    if (j >= 0 && j < s[0]) {
+                        // x[j] * conj(y[i])
+                        sumR += x.re()[j] * y.re()[i] + x.im()[j] * y.im()[i];
+                        sumI += x.im()[j] * y.re()[i] - x.re()[j] * y.im()[i];
+                        sum += x.re()[j] * y.re()[i];
+                    }
+                }
+                assertEquals(sumR, r.re()[k], 1.0e-11);
+                assertEquals(sumI, r.im()[k], 1.0e-11);
+                assertEquals(sum, rr[k], 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testCircular() {
+        for (int n : new int[] { 1, 2, 7, 16, 64, 99, 256, 1000 }) {
+            ComplexArray x = random(n);
+            ComplexArray h = random(n);
+            ComplexArray conv = Convolution.circularConvolve(x, h);
+            ComplexArray corr = Convolution.circularCorrelate(x, h);
+            double[] convR = Convolution.circularConvolve(x.re(), h.re());
+            double[] corrR = Convolution.circularCorrelate(x.re(), h.re());
+            for (int k = 0; k < n; ++k) {
+                double cvR = 0.0;
+                double cvI = 0.0;
+                double crR = 0.0;
+                double crI = 0.0;
+                double cv = 0.0;
+                double cr = 0.0;
+                for (int i = 0; i < n; ++i) {
+                    int j = ((k - i) % n + n) % n;
+                    cvR += x.re()[i] * h.re()[j] - x.im()[i] * h.im()[j];
+                    cvI += x.re()[i] * h.im()[j] + x.im()[i] * h.re()[j];
+                    cv += x.re()[i] * h.re()[j];
+                    j = (i + k) % n;
+                    crR += x.re()[j] * h.re()[i] + x.im()[j] * h.im()[i];
+                    crI += x.im()[j] * h.re()[i] - x.re()[j] * h.im()[i];
+                    cr += x.re()[j] * h.re()[i];
+                }
+                assertEquals("n = " + n, cvR, conv.re()[k], 1.0e-11);
+                assertEquals("n = " + n, cvI, conv.im()[k], 1.0e-11);
+                assertEquals("n = " + n, crR, corr.re()[k], 1.0e-11);
+                assertEquals("n = " + n, crI, corr.im()[k], 1.0e-11);
+                assertEquals("n = " + n, cv, convR[k], 1.0e-11);
+                assertEquals("n = " + n, cr, corrR[k], 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, Convolution.convolve(new double[0], new double[3]).length);
+        assertEquals(0, Convolution.correlate(new ComplexArray(2), new ComplexArray(0)).length());
+        assertEquals(0, Convolution.circularConvolve(new double[0], new double[0]).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircularUnequalLengths() {
+        Convolution.circularConvolve(new double[4], new double[3]);
+    }
+
+    @Test
+    public void testFastLength() {
+        assertEquals(1, Convolution.fastLength(1));
+        assertEquals(8, Convolution.fastLength(7));
+        assertEquals(100, Convolution.fastLength(98));
+        assertEquals(1024, Convolution.fastLength(1024));
+        assertEquals(1125, Convolution.fastLength(1100));
+        for (int n = 1; n < 2000; ++n) {
+            int L = Convolution.fastLength(n);
+            assertTrue(L >= n);
+            int r = L;
+            for (int p : new int[] { 2, 3, 5 }) {
+                while (r % p == 0) {
+                    r /= p;
+                }
+            }
+            assertEquals(1, r);
+        }
+    }
+
+    private static ComplexArray random(int n) {
+        return new ComplexArray(TestUtils.randomData(n), TestUtils.randomData(n), false);
+    }
+}
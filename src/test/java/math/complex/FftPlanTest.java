@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link FftPlan}
+ */
+public class FftPlanTest {
+
+    @Test
+    public void testPlansAreCached() {
+        assertSame(FftPlan.of(1024), FftPlan.of(1024));
+        FftPlan plan = FftPlan.of(64);
+        FftPlan.of(128);
+        assertSame(plan, FftPlan.of(64));
+    }
+
+    @Test
+    public void testTwiddles() {
+        int n = 4096;
+        FftPlan plan = FftPlan.of(n);
+        assertEquals(3 * n / 4, plan.wr.length);
+        for (int k = 0; k < 3 * n / 4; ++k) {
+            double angle = 2.0 * Math.PI * k / n;
+            assertEquals(Math.cos(angle), plan.wr[k], 0.0);
+            assertEquals(-Math.sin(angle), plan.wi[k], 0.0);
+        }
+    }
+
+    @Test
+    public void testBitReversalSwaps() {
+        int n = 256;
+        int[] swaps = FftPlan.of(n).swaps;
+        int[] perm = new int[n];
+        for (int i = 0; i < n; ++i) {
+            perm[i] = i;
+        }
+        for (int p = 0; p < swaps.length; p += 2) {
+            assertTrue(swaps[p] < swaps[p + 1]);
+            int tmp = perm[swaps[p]];
+            perm[swaps[p]] = perm[swaps[p + 1]];
+            perm[swaps[p + 1]] = tmp;
+        }
+        for (int i = 0; i < n; ++i) {
+            assertEquals(Integer.reverse(i) >>> 24, perm[i]);
+        }
+    }
+
+    @Test
+    public void testLargeTransformAccuracy() {
+        int n = 1 << 14;
+        double[] data = TestUtils.randomData(n);
+        ComplexArray expected = ComplexArray.naiveForwarDFT(data);
+        ComplexArray actual = Fourier.forwardDFT(data);
+        assertTrue(TestUtils.log10RmsError(expected, actual) < -12.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotPowerOfTwo() {
+        FftPlan.of(12);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+
+import org.junit.Test;
+
+/**
+ * Test for the in-place {@link Fourier} transforms
+ */
+public class FourierInPlaceTest {
+
+    private static final int OFF = 5;
+    private static final int ROUNDS = 200;
+    private static final int[] SIZES = { 1, 2, 4, 8, 64, 1024, 3, 6, 17, 100, 1000 };
+
+    @Test
+    public void testForwardMatchesNaiveDFT() {
+        for (int n : SIZES) {
+            double[] re = TestUtils.randomData(n + 2 * OFF);
+            double[] im = TestUtils.randomData(n + 2 * OFF);
+            ComplexArray expected = new ComplexArray(slice(re, OFF, n), slice(im, OFF, n)).naiveForwardDFT();
+            double[] re0 = re.clone();
+            double[] im0 = im.clone();
+
+            Fourier.forwardInPlace(re, im, OFF, n);
+
+            ComplexArray actual = new ComplexArray(slice(re, OFF, n), slice(im, OFF, n));
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, actual) < -10.0);
+            assertUntouchedOutsideRange(re0, re, n);
+            assertUntouchedOutsideRange(im0, im, n);
+        }
+    }
+
+    @Test
+    public void testInverseMatchesNaiveDFT() {
+        for (int n : SIZES) {
+            double[] re = TestUtils.randomData(n + 2 * OFF);
+            double[] im = TestUtils.randomData(n + 2 * OFF);
+            ComplexArray expected = new ComplexArray(slice(re, OFF, n), slice(im, OFF, n)).naiveInverseDFT();
+
+            Fourier.inverseInPlace(re, im, OFF, n);
+
+            ComplexArray actual = new ComplexArray(slice(re, OFF, n), slice(im, OFF, n));
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, actual) < -10.0);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int n : SIZES) {
+            double[] re = TestUtils.randomData(n);
+            double[] im = TestUtils.randomData(n);
+            double[] re0 = re.clone();
+            double[] im0 = im.clone();
+            Fourier.forwardInPlace(re, im, 0, n);
+            Fourier.inverseInPlace(re, im, 0, n);
+            assertArrayEquals(re0, re, 1.0e-12);
+            assertArrayEquals(im0, im, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testThreshold() {
+        for (int n : new int[] { 16, 256, 12, 300, 101 }) {
+            // a pure cosine has (numerically) zero bins
+            double[] data = new double[n];
+            for (int i = 0; i < n; ++i) {
+                data[i] = Math.cos(2.0 * Math.PI * 3.0 * i / n);
+            }
+            double[] re = data.clone();
+            double[] im = new double[n];
+            Fourier.forwardInPlace(re, im, 0, n, true);
+            double[] expectedR = data.clone();
+            double[] expectedI = new double[n];
+            Fourier.forwardInPlace(expectedR, expectedI, 0, n, false);
+            for (int i = 0; i < n; ++i) {
+                expectedR[i] = (Math.abs(expectedR[i]) <= ComplexArray.TOL) ? 0.0 : expectedR[i];
+                expectedI[i] = (Math.abs(expectedI[i]) <= ComplexArray.TOL) ? 0.0 : expectedI[i];
+            }
+            assertArrayEquals(expectedR, re, 0.0);
+            assertArrayEquals(expectedI, im, 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalRange() {
+        Fourier.forwardInPlace(new double[8], new double[8], 1, 8);
+    }
+
+    @Test
+    public void testPowerOfTwoDoesNotAllocate() {
+        final int n = 4096;
+        final double[] re = TestUtils.randomData(n);
+        final double[] im = TestUtils.randomData(n);
+
+        long bytes = TestUtils.allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                Fourier.forwardInPlace(re, im, 0, n);
+                Fourier.inverseInPlace(re, im, 0, n, true);
+            }
+        }, ROUNDS);
+        // anything allocated per call needs at least a 16 byte object header
+        assertTrue(bytes + " bytes allocated by " + ROUNDS + " transforms", bytes < 16L * ROUNDS);
+    }
+
+    private static void assertUntouchedOutsideRange(double[] expected, double[] actual, int n) {
+        for (int i = 0; i < OFF; ++i) {
+            assertEquals(expected[i], actual[i], 0.0);
+            assertEquals(expected[OFF + n + i], actual[OFF + n + i], 0.0);
+        }
+    }
+
+    private static double[] slice(double[] a, int off, int n) {
+        double[] b = new double[n];
+        System.arraycopy(a, off, b, 0, n);
+        return b;
+    }
+}
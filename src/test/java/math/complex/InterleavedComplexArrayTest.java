@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link InterleavedComplexArray}
+ */
+public class InterleavedComplexArrayTest {
+
+    @Test
+    public void testShiftsMatchComplexArray() {
+        for (int n = 0; n <= 9; ++n) {
+            ComplexArray expected = new ComplexArray(TestUtils.randomData(n), TestUtils.randomData(n));
+            // a view inside a larger buffer with guard values around it
+            double[] buffer = new double[2 * n + 6];
+            InterleavedComplexArray a = new InterleavedComplexArray(buffer, 3, n);
+            a.copyFrom(expected.re(), expected.im(), 0);
+            buffer[0] = buffer[1] = buffer[2] = 42.0;
+            buffer[2 * n + 3] = buffer[2 * n + 4] = buffer[2 * n + 5] = 42.0;
+
+            a.fftshift();
+            assertSameValues(expected.fftshift(), a);
+            a.ifftshift();
+            assertSameValues(expected, a);
+            a.ifftshift();
+            assertSameValues(expected.ifftshift(), a);
+
+            for (int i : new int[] { 0, 1, 2, 2 * n + 3, 2 * n + 4, 2 * n + 5 }) {
+                assertEquals(42.0, buffer[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testElementwiseProduct() {
+        int n = 17;
+        ComplexArray x = new ComplexArray(TestUtils.randomData(n), TestUtils.randomData(n));
+        ComplexArray y = new ComplexArray(TestUtils.randomData(n), TestUtils.randomData(n));
+        InterleavedComplexArray a = new InterleavedComplexArray(x);
+        assertSame(a, a.elementwiseProduct(new InterleavedComplexArray(y)));
+        ComplexArray expected = ComplexArray.elementwiseProduct(x, y);
+        assertTrue(TestUtils.log10RmsError(expected, a.toComplexArray()) < -14.0);
+    }
+
+    @Test
+    public void testConjAndScale() {
+        InterleavedComplexArray a = new InterleavedComplexArray(new double[] { 1.0, 2.0, -3.0, 4.0 });
+        a.conj().scale(0.5);
+        assertArrayEquals(new double[] { 0.5, -1.0, -1.5, -2.0 }, a.array(), 0.0);
+    }
+
+    @Test
+    public void testViewsShareStorage() {
+        InterleavedComplexArray a = new InterleavedComplexArray(6);
+        for (int i = 1; i <= 6; ++i) {
+            a.set(i, i, -i);
+        }
+        InterleavedComplexArray v = a.view(3, 3);
+        assertEquals(3, v.length());
+        assertEquals(4, v.offset());
+        assertEquals(3.0, v.re(1), 0.0);
+        assertEquals(-5.0, v.im(3), 0.0);
+        v.scale(2.0);
+        v.view(2, 1).set(1, 0.0, 0.0);
+        assertArrayEquals(new double[] { 1.0, -1.0, 2.0, -2.0, 6.0, -6.0, 0.0, 0.0, 10.0, -10.0, 6.0, -6.0 },
+                a.array(), 0.0);
+        assertEquals(6.0, a.get(3).re(), 0.0);
+    }
+
+    @Test
+    public void testFourierRoundTrip() {
+        int n = 64;
+        InterleavedComplexArray a = new InterleavedComplexArray(TestUtils.randomData(2 * n));
+        double[] re = new double[n];
+        double[] im = new double[n];
+        a.copyTo(re, im, 0);
+        Fourier.forwardInPlace(re, im, 0, n);
+        ComplexArray expected = a.toComplexArray().naiveForwardDFT();
+        a.copyFrom(re, im, 0);
+        assertTrue(TestUtils.log10RmsError(expected, a.toComplexArray()) < -12.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalView() {
+        new InterleavedComplexArray(4).view(2, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalIndex() {
+        new InterleavedComplexArray(4).re(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddLength() {
+        new InterleavedComplexArray(new double[5]);
+    }
+
+    private static void assertSameValues(ComplexArray expected, InterleavedComplexArray actual) {
+        ComplexArray a = actual.toComplexArray();
+        assertArrayEquals(expected.re(), a.re(), 0.0);
+        assertArrayEquals(expected.im(), a.im(), 0.0);
+    }
+}
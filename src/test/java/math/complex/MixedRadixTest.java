@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test the mixed radix FFT against the naive DFT
+ */
+public class MixedRadixTest {
+
+    private static final int[] SIZES = { 3, 5, 6, 7, 9, 12, 14, 15, 20, 21, 25, 28, 35, 45, 49, 60, 63, 100, 120, 343,
+            480, 1000, 1400, 2205, 3600 };
+
+    @Test
+    public void testSupportedSizes() {
+        for (int n : SIZES) {
+            assertTrue(MixedRadix.isSupported(n));
+        }
+        assertTrue(MixedRadix.isSupported(1024));
+        assertFalse(MixedRadix.isSupported(11));
+        assertFalse(MixedRadix.isSupported(2 * 3 * 13));
+        assertFalse(MixedRadix.isSupported(0));
+    }
+
+    @Test
+    public void testForward() {
+        for (int n : SIZES) {
+            double[] real = TestUtils.randomData(n);
+            double[] imag = TestUtils.randomData(n);
+            ComplexArray expected = new ComplexArray(real, imag).naiveForwardDFT();
+            ComplexArray actual = new ComplexArray(real, imag);
+            MixedRadix.forward(actual.re(), actual.im(), 0, n);
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, actual) < -12.0);
+        }
+    }
+
+    @Test
+    public void testForwardDFTOfRealData() {
+        for (int n : SIZES) {
+            double[] data = TestUtils.randomData(n);
+            ComplexArray expected = ComplexArray.naiveForwarDFT(data);
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, Fourier.forwardDFT(data)) < -10.0);
+        }
+    }
+
+    @Test
+    public void testInverseDFT() {
+        for (int n : SIZES) {
+            ComplexArray freqs = new ComplexArray(TestUtils.randomData(n), TestUtils.randomData(n));
+            ComplexArray expected = ComplexArray.naiveInverseDFT(freqs);
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, Fourier.inverseDFT(freqs)) < -10.0);
+        }
+    }
+
+    @Test
+    public void testInPlaceWithOffset() {
+        int off = 3;
+        for (int n : SIZES) {
+            double[] re = TestUtils.randomData(n + off);
+            double[] im = TestUtils.randomData(n + off);
+            double[] re0 = re.clone();
+            double[] im0 = im.clone();
+            Fourier.forwardInPlace(re, im, off, n);
+            Fourier.inverseInPlace(re, im, off, n);
+            assertArrayEquals(re0, re, 1.0e-12);
+            assertArrayEquals(im0, im, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testLongerThanScratchCache() {
+        // scratch buffers of this length aren't kept per thread
+        int n = 5 << 18;
+        double[] re = new double[n];
+        double[] im = new double[n];
+        int f = 12345;
+        for (int j = 0; j < n; ++j) {
+            double angle = 2.0 * Math.PI * ((long) f * j % n) / n;
+            re[j] = Math.cos(angle);
+            im[j] = Math.sin(angle);
+        }
+        MixedRadix.forward(re, im, 0, n);
+        for (int k = 0; k < n; ++k) {
+            assertEquals("k = " + k, (k == f) ? n : 0.0, re[k], 1.0e-6);
+            assertEquals("k = " + k, 0.0, im[k], 1.0e-6);
+        }
+    }
+}
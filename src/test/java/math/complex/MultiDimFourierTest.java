@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import math.matrix.DMatrix;
+import math.matrix.DoCopy;
+import math.matrix.Layout;
+
+/**
+ * Test the 2-D and 3-D transforms of {@link ParallelFourier} (and
+ * {@link Fourier}) against naive multidimensional DFTs
+ */
+public class MultiDimFourierTest {
+
+    // a small threshold so that the parallel paths get exercised
+    private final ParallelFourier fft = new ParallelFourier(4, 16);
+
+    @Test
+    public void test2D() {
+        int[][] shapes = { { 1, 1 }, { 1, 7 }, { 6, 1 }, { 6, 10 }, { 16, 12 }, { 33, 35 } };
+        for (int[] shape : shapes) {
+            int rows = shape[0];
+            int cols = shape[1];
+            double[] re = TestUtils.randomData(rows * cols);
+            double[] im = TestUtils.randomData(rows * cols);
+            // row major: (r, c) at r * cols + c
+            double[][] expected = naive3D(re, im, 1, rows, cols, -1.0);
+
+            double[] rowR = re.clone();
+            double[] rowI = im.clone();
+            fft.forward2D(rowR, rowI, rows, cols, Layout.ROW_MAJOR);
+            assertArrayEquals(expected[0], rowR, 1.0e-10);
+            assertArrayEquals(expected[1], rowI, 1.0e-10);
+
+            // the same matrix column major
+            double[] colR = new double[rows * cols];
+            double[] colI = new double[rows * cols];
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    colR[c * rows + r] = re[r * cols + c];
+                    colI[c * rows + r] = im[r * cols + c];
+                }
+            }
+            fft.forward2D(colR, colI, rows, cols, Layout.COL_MAJOR);
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    assertEquals(expected[0][r * cols + c], colR[c * rows + r], 1.0e-10);
+                    assertEquals(expected[1][r * cols + c], colI[c * rows + r], 1.0e-10);
+                }
+            }
+
+            fft.inverse2D(rowR, rowI, rows, cols, Layout.ROW_MAJOR);
+            assertArrayEquals(re, rowR, 1.0e-12);
+            assertArrayEquals(im, rowI, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testDMatrix() {
+        int rows = 12;
+        int cols = 20;
+        double[] data = TestUtils.randomData(rows * cols);
+        DMatrix re = new DMatrix(rows, cols, data, Layout.COL_MAJOR, DoCopy.YES);
+        DMatrix im = new DMatrix(rows, cols);
+        DMatrix expectedR = re.deepCopy();
+        DMatrix expectedI = im.deepCopy();
+        fft.forward2D(expectedR.getArrayUnsafe().array, expectedI.getArrayUnsafe().array, rows, cols,
+                Layout.COL_MAJOR);
+
+        Fourier.forward2D(re, im);
+
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                assertEquals(expectedR.get(r, c), re.get(r, c), 1.0e-12);
+                assertEquals(expectedI.get(r, c), im.get(r, c), 1.0e-12);
+            }
+        }
+        // a real input has a Hermitian spectrum
+        assertEquals(re.get(1, 2), re.get(rows - 1, cols - 2), 1.0e-10);
+        assertEquals(im.get(1, 2), -im.get(rows - 1, cols - 2), 1.0e-10);
+
+        Fourier.inverse2D(re, im);
+        assertArrayEquals(data, re.getArrayUnsafe().array, 1.0e-12);
+        assertArrayEquals(new double[rows * cols], im.getArrayUnsafe().array, 1.0e-12);
+    }
+
+    @Test
+    public void test3D() {
+        int[][] shapes = { { 1, 1, 1 }, { 3, 4, 5 }, { 8, 2, 6 }, { 2, 9, 1 }, { 5, 6, 7 } };
+        for (int[] shape : shapes) {
+            int n = shape[0] * shape[1] * shape[2];
+            double[] re = TestUtils.randomData(n);
+            double[] im = TestUtils.randomData(n);
+            double[][] expected = naive3D(re, im, shape[0], shape[1], shape[2], -1.0);
+            double[] r = re.clone();
+            double[] i = im.clone();
+            fft.forward3D(r, i, shape[0], shape[1], shape[2]);
+            assertArrayEquals(expected[0], r, 1.0e-10);
+            assertArrayEquals(expected[1], i, 1.0e-10);
+
+            // the sequential path (a large threshold)
+            double[] s = re.clone();
+            double[] t = im.clone();
+            new ParallelFourier(1).forward3D(s, t, shape[0], shape[1], shape[2]);
+            assertArrayEquals(r, s, 1.0e-12);
+            assertArrayEquals(i, t, 1.0e-12);
+
+            Fourier.inverse3D(r, i, shape[0], shape[1], shape[2]);
+            assertArrayEquals(re, r, 1.0e-12);
+            assertArrayEquals(im, i, 1.0e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalShape() {
+        fft.forward2D(new double[10], new double[10], 3, 4, Layout.ROW_MAJOR);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnequalLayouts() {
+        fft.forward2D(new DMatrix(2, 2), new DMatrix(2, 2).getRowPackedCopy());
+    }
+
+    // the DFT of the row major (n1 x n2 x n3) array x straight from the
+    // definition
+    private static double[][] naive3D(double[] re, double[] im, int n1, int n2, int n3, double sign) {
+        int n = n1 * n2 * n3;
+        double[] outR = new double[n];
+        double[] outI = new double[n];
+        for (int k1 = 0; k1 < n1; ++k1) {
+            for (int k2 = 0; k2 < n2; ++k2) {
+                for (int k3 = 0; k3 < n3; ++k3) {
+                    double sumR = 0.0;
+                    double sumI = 0.0;
+                    for (int j1 = 0; j1 < n1; ++j1) {
+                        for (int j2 = 0; j2 < n2; ++j2) {
+                            for (int j3 = 0; j3 < n3; ++j3) {
+                                double phase = sign * 2.0 * Math.PI * ((double) ((k1 * j1) % n1) / n1
+                                        + (double) ((k2 * j2) % n2) / n2 + (double) ((k3 * j3) % n3) / n3);
+                                double c = Math.cos(phase);
+                                double s = Math.sin(phase);
+                                int idx = (j1 * n2 + j2) * n3 + j3;
+                                sumR += re[idx] * c - im[idx] * s;
+                                sumI += re[idx] * s + im[idx] * c;
+                            }
+                        }
+                    }
+                    outR[(k1 * n2 + k2) * n3 + k3] = sumR;
+                    outI[(k1 * n2 + k2) * n3 + k3] = sumI;
+                }
+            }
+        }
+        return new double[][] { outR, outI };
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test the streaming {@link OverlapAdd} and {@link OverlapSave} filters
+ * against the linear convolution of the whole stream
+ */
+public class OverlapStreamTest {
+
+    private static final int BLOCKS = 10;
+    private static final int[][] SHAPES = { { 1, 1 }, { 1, 16 }, { 5, 64 }, { 64, 64 }, { 100, 7 }, { 257, 100 } };
+
+    @Test
+    public void testOverlapAdd() {
+        for (int[] shape : SHAPES) {
+            double[] h = TestUtils.randomData(shape[0]);
+            OverlapAdd filter = new OverlapAdd(h, shape[1]);
+            check(h, shape[1], filter);
+            filter.reset();
+            check(h, shape[1], filter);
+        }
+    }
+
+    @Test
+    public void testOverlapSave() {
+        for (int[] shape : SHAPES) {
+            double[] h = TestUtils.randomData(shape[0]);
+            OverlapSave filter = new OverlapSave(h, shape[1]);
+            check(h, shape[1], filter);
+            filter.reset();
+            check(h, shape[1], filter);
+        }
+    }
+
+    @Test
+    public void testFftLength() {
+        assertEquals(2, new OverlapAdd(new double[] { 1.0 }, 1).getFftLength());
+        assertEquals(128, new OverlapSave(new double[65], 64).getFftLength());
+        assertEquals(32, new OverlapSave(new double[33], 32).getBlockSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyFilter() {
+        new OverlapAdd(new double[0], 16);
+    }
+
+    // filter BLOCKS blocks in place (the output overwrites the input) and
+    // compare with the convolution of the whole stream
+    private static void check(double[] h, int B, OverlapAdd ola) {
+        double[] x = TestUtils.randomData(BLOCKS * B);
+        double[] y = x.clone();
+        for (int b = 0; b < BLOCKS; ++b) {
+            ola.process(y, b * B, y, b * B);
+        }
+        assertConvolution(h, x, y);
+    }
+
+    // same for overlap-save
+    private static void check(double[] h, int B, OverlapSave ols) {
+        double[] x = TestUtils.randomData(BLOCKS * B);
+        double[] y = x.clone();
+        for (int b = 0; b < BLOCKS; ++b) {
+            ols.process(y, b * B, y, b * B);
+        }
+        assertConvolution(h, x, y);
+    }
+
+    private static void assertConvolution(double[] h, double[] x, double[] y) {
+        double[] expected = Convolution.convolve(x, h);
+        for (int t = 0; t < y.length; ++t) {
+            assertEquals("h.length = " + h.length + ", B = " + (y.length / BLOCKS), expected[t], y[t], 1.0e-11);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test {@link ParallelFourier} against the sequential {@link Fourier}
+ * transforms
+ */
+public class ParallelFourierTest {
+
+    private static final int OFF = 3;
+
+    // a small threshold so that the parallel paths get exercised
+    private final ParallelFourier fft = new ParallelFourier(4, 64);
+
+    @Test
+    public void testForwardMatchesSequential() {
+        for (int n = 64; n <= (1 << 15); n <<= 1) {
+            double[] re = TestUtils.randomData(n + 2 * OFF);
+            double[] im = TestUtils.randomData(n + 2 * OFF);
+            double[] expectedR = re.clone();
+            double[] expectedI = im.clone();
+            Fourier.forwardInPlace(expectedR, expectedI, OFF, n);
+
+            fft.forwardInPlace(re, im, OFF, n);
+
+            assertArrayEquals("n = " + n, expectedR, re, 1.0e-9);
+            assertArrayEquals("n = " + n, expectedI, im, 1.0e-9);
+        }
+    }
+
+    @Test
+    public void testSixStepMatchesSequential() {
+        int n = Fourier.SIX_STEP_THRESHOLD;
+        double[] re = TestUtils.randomData(n + OFF);
+        double[] im = TestUtils.randomData(n + OFF);
+        double[] expectedR = re.clone();
+        double[] expectedI = im.clone();
+        Fourier.forwardInPlace(expectedR, expectedI, OFF, n);
+
+        fft.forwardInPlace(re, im, OFF, n);
+
+        assertArrayEquals(expectedR, re, 0.0);
+        assertArrayEquals(expectedI, im, 0.0);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int n : new int[] { 100, 1 << 12, 1 << 13 }) {
+            double[] re = TestUtils.randomData(n);
+            double[] im = TestUtils.randomData(n);
+            double[] re0 = re.clone();
+            double[] im0 = im.clone();
+            fft.forwardInPlace(re, im, 0, n);
+            fft.inverseInPlace(re, im, 0, n);
+            assertArrayEquals(re0, re, 1.0e-12);
+            assertArrayEquals(im0, im, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        for (int n : new int[] { 1, 16, 100, 101 }) {
+            double[][] re = new double[37][];
+            double[][] im = new double[37][];
+            double[][] expectedR = new double[37][];
+            double[][] expectedI = new double[37][];
+            for (int k = 0; k < re.length; ++k) {
+                re[k] = TestUtils.randomData(n);
+                im[k] = TestUtils.randomData(n);
+                expectedR[k] = re[k].clone();
+                expectedI[k] = im[k].clone();
+                Fourier.forwardInPlace(expectedR[k], expectedI[k], 0, n);
+            }
+
+            fft.forwardBatch(re, im);
+
+            for (int k = 0; k < re.length; ++k) {
+                assertArrayEquals(expectedR[k], re[k], 0.0);
+                assertArrayEquals(expectedI[k], im[k], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testStridedBatch() {
+        int n = 60;
+        int stride = 64;
+        int count = 50;
+        double[] re = TestUtils.randomData(OFF + count * stride);
+        double[] im = TestUtils.randomData(OFF + count * stride);
+        double[] expectedR = re.clone();
+        double[] expectedI = im.clone();
+        for (int k = 0; k < count; ++k) {
+            Fourier.inverseInPlace(expectedR, expectedI, OFF + k * stride, n);
+        }
+
+        fft.inverseBatch(re, im, OFF, n, count, stride);
+
+        assertArrayEquals(expectedR, re, 0.0);
+        assertArrayEquals(expectedI, im, 0.0);
+    }
+
+    @Test
+    public void testFourierBatch() {
+        double[][] re = { TestUtils.randomData(32), TestUtils.randomData(32) };
+        double[][] im = { TestUtils.randomData(32), TestUtils.randomData(32) };
+        double[] re1 = re[1].clone();
+        double[] im1 = im[1].clone();
+        Fourier.forwardBatch(re, im);
+        Fourier.inverseBatch(re, im);
+        assertArrayEquals(re1, re[1], 1.0e-12);
+        assertArrayEquals(im1, im[1], 1.0e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnequalFrames() {
+        fft.forwardBatch(new double[][] { new double[8], new double[8] },
+                new double[][] { new double[8], new double[4] });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalStride() {
+        fft.forwardBatch(new double[64], new double[64], 0, 16, 4, 8);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+
+import org.junit.Test;
+
+/**
+ * Test for {@link PlanCache}
+ */
+public class PlanCacheTest {
+
+    private static class CountingCache extends PlanCache<int[]> {
+        int created;
+
+        CountingCache(int maxSize) {
+            super(maxSize);
+        }
+
+        CountingCache(int maxSize, long maxWeight) {
+            super(maxSize, maxWeight);
+        }
+
+        @Override
+        int[] create(int n) {
+            ++created;
+            return new int[] { n };
+        }
+    }
+
+    @Test
+    public void testPlansAreCreatedOnce() {
+        CountingCache cache = new CountingCache(4);
+        int[] p1000 = cache.get(1000);
+        int[] p2000 = cache.get(2000);
+        assertSame(p1000, cache.get(1000));
+        assertSame(p2000, cache.get(2000));
+        assertSame(p1000, cache.get(1000));
+        assertEquals(2, cache.created);
+    }
+
+    @Test
+    public void testOldestGetsEvicted() {
+        CountingCache cache = new CountingCache(3);
+        int[] first = cache.get(1);
+        cache.get(2);
+        cache.get(3);
+        cache.get(4);
+        assertEquals(4, cache.created);
+        // 2, 3 and 4 are still cached
+        cache.get(2);
+        cache.get(3);
+        cache.get(4);
+        assertEquals(4, cache.created);
+        assertNotSame(first, cache.get(1));
+        assertEquals(5, cache.created);
+    }
+
+    @Test
+    public void testWeightBound() {
+        // the weight of a plan is its length
+        CountingCache cache = new CountingCache(16, 10) {
+            @Override
+            long weight(int[] plan) {
+                return plan[0];
+            }
+        };
+        int[] p4 = cache.get(4);
+        int[] p5 = cache.get(5);
+        assertSame(p4, cache.get(4));
+        assertSame(p5, cache.get(5));
+        assertEquals(2, cache.created);
+        // 4 + 5 + 3 > 10, so 4 (the oldest) gets evicted
+        int[] p3 = cache.get(3);
+        assertSame(p5, cache.get(5));
+        assertSame(p3, cache.get(3));
+        assertEquals(3, cache.created);
+        cache.get(4);
+        assertEquals(4, cache.created);
+        // heavier than the bound: never cached, nothing else gets evicted
+        assertNotSame(cache.get(11), cache.get(11));
+        assertEquals(6, cache.created);
+        cache.get(3);
+        cache.get(4);
+        assertEquals(6, cache.created);
+    }
+
+    @Test
+    public void testAlternatingLengthsDoNotAllocate() {
+        final CountingCache cache = new CountingCache(8);
+        final int[] sum = new int[1];
+        int rounds = 100000;
+        long bytes = TestUtils.allocatedBytes(new Runnable() {
+            int i;
+
+            @Override
+            public void run() {
+                sum[0] += cache.get(1000 + (i++ & 3))[0];
+            }
+        }, rounds);
+        assertTrue(sum[0] > 0);
+        // anything allocated per lookup would need at least an object header
+        assertTrue(bytes + " bytes allocated by " + rounds + " lookups", bytes < 16L * 1000);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for the real-input {@link Fourier#forwardRealDFT(double[])} and
+ * {@link Fourier#inverseRealDFT(ComplexArray, int)}
+ */
+public class RealFftTest {
+
+    // power of two, 7-smooth, Bluestein (2 * 1009) and odd lengths
+    private static final int[] SIZES = { 1, 2, 3, 4, 6, 8, 10, 16, 30, 64, 100, 480, 1024, 2018, 4096, 7, 101, 999 };
+
+    @Test
+    public void testForwardMatchesNaiveDFT() {
+        for (int n : SIZES) {
+            double[] data = TestUtils.randomData(n);
+            ComplexArray full = ComplexArray.naiveForwarDFT(data);
+            ComplexArray expected = new ComplexArray(slice(full.re(), n / 2 + 1), slice(full.im(), n / 2 + 1));
+            ComplexArray actual = Fourier.forwardRealDFT(data);
+            assertEquals(n / 2 + 1, actual.length());
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, actual) < -10.0);
+        }
+    }
+
+    @Test
+    public void testForwardDFTMatchesNaiveDFT() {
+        for (int n : SIZES) {
+            double[] data = TestUtils.randomData(n);
+            ComplexArray expected = ComplexArray.naiveForwarDFT(data);
+            assertTrue("n = " + n, TestUtils.log10RmsError(expected, Fourier.forwardDFT(data)) < -10.0);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int n : SIZES) {
+            double[] data = TestUtils.randomData(n);
+            double[] actual = Fourier.inverseRealDFT(Fourier.forwardRealDFT(data), n);
+            assertArrayEquals("n = " + n, data, actual, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testInverseMatchesInverseDFT() {
+        int n = 48;
+        double[] data = TestUtils.randomData(n);
+        ComplexArray freqs = Fourier.forwardDFT(data);
+        ComplexArray half = new ComplexArray(slice(freqs.re(), n / 2 + 1), slice(freqs.im(), n / 2 + 1));
+        assertArrayEquals(Fourier.inverseDFT(freqs).re(), Fourier.inverseRealDFT(half, n), 1.0e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInverseWrongNumberOfBins() {
+        Fourier.inverseRealDFT(new ComplexArray(new double[5]), 10);
+    }
+
+    private static double[] slice(double[] a, int n) {
+        double[] b = new double[n];
+        System.arraycopy(a, 0, b, 0, n);
+        return b;
+    }
+}
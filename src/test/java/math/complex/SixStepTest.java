@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test the six-step path of the power of two FFT against the (independent)
+ * mixed radix FFT
+ */
+public class SixStepTest {
+
+    @Test
+    public void testForward() {
+        int n = Fourier.SIX_STEP_THRESHOLD;
+        double[] re = TestUtils.randomData(n + 3);
+        double[] im = TestUtils.randomData(n + 3);
+        ComplexArray expected = new ComplexArray(slice(re, 3, n), slice(im, 3, n));
+        MixedRadix.forward(expected.re(), expected.im(), 0, n);
+
+        Fourier.forwardInPlace(re, im, 3, n);
+
+        ComplexArray actual = new ComplexArray(slice(re, 3, n), slice(im, 3, n));
+        assertTrue(TestUtils.log10RmsError(expected, actual) < -11.0);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        int n = 2 * Fourier.SIX_STEP_THRESHOLD;
+        double[] re = TestUtils.randomData(n);
+        double[] im = TestUtils.randomData(n);
+        double[] re0 = re.clone();
+        double[] im0 = im.clone();
+        Fourier.forwardInPlace(re, im, 0, n);
+        Fourier.inverseInPlace(re, im, 0, n);
+        assertArrayEquals(re0, re, 1.0e-12);
+        assertArrayEquals(im0, im, 1.0e-12);
+    }
+
+    private static double[] slice(double[] a, int off, int n) {
+        double[] b = new double[n];
+        System.arraycopy(a, off, b, 0, n);
+        return b;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test {@link SlidingDft} against full DFTs of the window
+ */
+public class SlidingDftTest {
+
+    @Test
+    public void testTracksBins() {
+        for (int N : new int[] { 1, 8, 60, 256 }) {
+            int[] bins = (N == 1) ? new int[] { 0 } : new int[] { 0, 1, N / 3, N / 2, N - 1 };
+            // never re-anchor, the recursion alone must be accurate
+            SlidingDft sdft = new SlidingDft(N, bins, 0L);
+            double[] x = TestUtils.randomData(3 * N + 5);
+            for (int t = 0; t < x.length; ++t) {
+                sdft.update(x[t]);
+                if (t % 7 == 0 || t == x.length - 1) {
+                    check(sdft, window(x, t, N), 1.0e-10);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReanchoring() {
+        int N = 64;
+        int[] bins = { 3, 5, 17 };
+        SlidingDft sdft = new SlidingDft(N, bins, 100L);
+        SlidingDft plain = new SlidingDft(N, bins, 0L);
+        double[] x = TestUtils.randomData(100000);
+        sdft.update(x, 0, x.length);
+        plain.update(x, 0, x.length);
+        double[] w = window(x, x.length - 1, N);
+        // re-anchored 1000 times, the last time exactly now
+        ComplexArray dft = ComplexArray.naiveForwarDFT(w);
+        for (int j = 0; j < bins.length; ++j) {
+            double reExact = dft.re()[bins[j]];
+            double imExact = dft.im()[bins[j]];
+            double drift = Math.hypot(plain.re(j) - reExact, plain.im(j) - imExact);
+            double anchored = Math.hypot(sdft.re(j) - reExact, sdft.im(j) - imExact);
+            assertTrue(anchored <= 1.0e-12);
+            assertTrue(anchored <= drift);
+        }
+    }
+
+    @Test
+    public void testGoertzel() {
+        for (int N : new int[] { 1, 2, 7, 64, 100 }) {
+            double[] x = TestUtils.randomData(N);
+            ComplexArray dft = ComplexArray.naiveForwarDFT(x);
+            for (int k = 0; k < N; ++k) {
+                IComplex X = SlidingDft.goertzel(x, k);
+                assertEquals(dft.re()[k], X.re(), 1.0e-11);
+                assertEquals(dft.im()[k], X.im(), 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        SlidingDft sdft = new SlidingDft(16, new int[] { 2 });
+        sdft.update(TestUtils.randomData(40), 0, 40);
+        sdft.reset();
+        double[] x = TestUtils.randomData(5);
+        sdft.update(x, 0, 5);
+        check(sdft, window(x, 4, 16), 1.0e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalBin() {
+        new SlidingDft(16, new int[] { 16 });
+    }
+
+    // the window of length N ending at sample t (zero-padded at the front)
+    private static double[] window(double[] x, int t, int N) {
+        double[] w = new double[N];
+        for (int n = 0; n < N; ++n) {
+            int i = t - N + 1 + n;
+            w[n] = (i >= 0) ? x[i] : 0.0;
+        }
+        return w;
+    }
+
+    private static void check(SlidingDft sdft, double[] window, double tol) {
+        ComplexArray dft = ComplexArray.naiveForwarDFT(window);
+        int[] bins = sdft.getBins();
+        for (int j = 0; j < bins.length; ++j) {
+            // naiveForwarDFT thresholds tiny values to zero
+            assertEquals(dft.re()[bins[j]], sdft.re(j), tol);
+            assertEquals(dft.im()[bins[j]], sdft.im(j), tol);
+            assertEquals(Math.hypot(dft.re()[bins[j]], dft.im()[bins[j]]), sdft.magnitude(j), tol);
+        }
+    }
+}
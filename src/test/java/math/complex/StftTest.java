@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 SPZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package math.complex;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test {@link Stft} against forward DFTs of the windowed slices of the
+ * signal
+ */
+public class StftTest {
+
+    private static final Random rng = new Random();
+
+    @Test
+    public void testFramesMatchDFT() {
+        int[][] shapes = { { 64, 16 }, { 64, 64 }, { 63, 20 }, { 32, 50 }, { 1, 1 }, { 100, 25 } };
+        for (int[] shape : shapes) {
+            for (Window window : Window.values()) {
+                check(shape[0], shape[1], window);
+            }
+        }
+    }
+
+    @Test
+    public void testRingBufferOverwritesOldest() {
+        Stft stft = new Stft(16, 8, Window.HANN, Stft.Output.MAGNITUDE, 3);
+        double[] x = TestUtils.randomData(16 + 4 * 8);
+        assertEquals(5, stft.push(x));
+        assertEquals(3, stft.available());
+        assertEquals(5L, stft.getFramesEmitted());
+        // the oldest frame left is the third one (starting at sample 16)
+        double[] mag = new double[stft.getBins()];
+        assertTrue(stft.read(mag));
+        double[] expected = magnitudes(x, 16, 16, Window.HANN);
+        assertArrayEquals(expected, mag, 1.0e-12);
+        assertTrue(stft.read(mag));
+        assertTrue(stft.read(mag));
+        assertFalse(stft.read(mag));
+        stft.reset();
+        assertEquals(0, stft.push(x, 0, 15));
+        assertEquals(0L, stft.getFramesEmitted());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testComplexReadOfMagnitudes() {
+        new Stft(8, 4, Window.HAMMING, Stft.Output.MAGNITUDE, 2).read(new double[5], new double[5]);
+    }
+
+    @Test
+    public void testWindows() {
+        double[] hann = Window.HANN.coefficients(8);
+        assertEquals(0.0, hann[0], 0.0);
+        assertEquals(1.0, hann[4], 1.0e-15);
+        assertEquals(0.5, hann[2], 1.0e-15);
+        double[] blackman = Window.BLACKMAN.coefficients(4);
+        assertEquals(0.0, blackman[0], 1.0e-15);
+        assertEquals(1.0, blackman[2], 1.0e-15);
+        assertEquals(0.08, Window.HAMMING.coefficients(2)[0], 1.0e-15);
+    }
+
+    @Test
+    public void testPushDoesNotAllocate() {
+        final int n = 1024;
+        final Stft stft = new Stft(n, n / 4, Window.BLACKMAN, Stft.Output.COMPLEX, 16);
+        final double[] x = TestUtils.randomData(8 * n);
+        final double[] re = new double[stft.getBins()];
+        final double[] im = new double[stft.getBins()];
+
+        long bytes = TestUtils.allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                stft.push(x);
+                while (stft.read(re, im)) {
+                    // drain
+                }
+            }
+        }, 20);
+        assertTrue(bytes + " bytes allocated", bytes < 16L * 20);
+    }
+
+    // push the signal in random chunks and compare every frame
+    private static void check(int N, int hop, Window window) {
+        Stft stft = new Stft(N, hop, window, Stft.Output.COMPLEX, 1000);
+        double[] x = TestUtils.randomData(N + 17 * hop + hop - 1);
+        int pushed = 0;
+        int frames = 0;
+        while (pushed < x.length) {
+            int len = Math.min(x.length - pushed, rng.nextInt(3 * N));
+            frames += stft.push(x, pushed, len);
+            pushed += len;
+        }
+        assertEquals(18, frames);
+        assertEquals(18, stft.available());
+        double[] re = new double[stft.getBins()];
+        double[] im = new double[stft.getBins()];
+        double[] w = window.coefficients(N);
+        for (int f = 0; f < frames; ++f) {
+            assertTrue(stft.read(re, im));
+            double[] slice = new double[N];
+            for (int i = 0; i < N; ++i) {
+                slice[i] = w[i] * x[f * hop + i];
+            }
+            ComplexArray expected = ComplexArray.naiveForwarDFT(slice);
+            for (int k = 0; k < stft.getBins(); ++k) {
+                assertEquals(expected.re()[k], re[k], 1.0e-11);
+                assertEquals(expected.im()[k], im[k], 1.0e-11);
+            }
+        }
+        assertEquals(0, stft.available());
+    }
+
+    private static double[] magnitudes(double[] x, int start, int N, Window window) {
+        double[] w = window.coefficients(N);
+        double[] slice = new double[N];
+        for (int i = 0; i < N; ++i) {
+            slice[i] = w[i] * x[start + i];
+        }
+        ComplexArray dft = ComplexArray.naiveForwarDFT(slice);
+        double[] mag = new double[N / 2 + 1];
+        for (int k = 0; k < mag.length; ++k) {
+            mag[k] = Math.hypot(dft.re()[k], dft.im()[k]);
+        }
+        return mag;
+    }
+}
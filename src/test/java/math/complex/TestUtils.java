@@ -13,9 +13,11 @@
  */
 package math.complex;
 
+import java.lang.management.ManagementFactory;
 import java.util.Random;
 
 import org.junit.Assert;
+import org.junit.Assume;
 
 public final class TestUtils {
 
@@ -141,6 +143,33 @@ public final class TestUtils {
         return rand;
     }
 
+    /**
+     * Returns the number of bytes allocated by the current thread during
+     * {@code rounds} runs of {@code call}, after as many warm-up runs (that
+     * grow workspace buffers to their working size). Skips the calling test
+     * if the JVM can't count the allocated bytes per thread.
+     */
+    public static long allocatedBytes(Runnable call, int rounds) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long tid = Thread.currentThread().getId();
+
+        for (int i = 0; i < rounds; ++i) {
+            call.run();
+        }
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < rounds; ++i) {
+            call.run();
+        }
+        long after = threadBean.getThreadAllocatedBytes(tid);
+        // calibrate for the allocations done by getThreadAllocatedBytes itself
+        long overhead = threadBean.getThreadAllocatedBytes(tid) - after;
+        return Math.max(0L, after - before - overhead);
+    }
+
     // range is [3, 8193]
     public static int randLengthOdd() {
         int len = -1;
@@ -0,0 +1,121 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link BatchedGemm} against {@link Gemm}
+ */
+public class BatchedGemmTest {
+
+    // the unrolled kernels, 4x4 blocks with and without edges, the Gemm fallback
+    private static final int[][] SHAPES = { { 1, 1, 1 }, { 2, 2, 2 }, { 3, 3, 3 }, { 4, 4, 4 }, { 2, 3, 4 },
+            { 8, 8, 8 }, { 16, 16, 16 }, { 7, 9, 5 }, { 32, 32, 32 }, { 13, 1, 6 }, { 33, 20, 40 } };
+
+    private static final int COUNT = 37;
+
+    @Test
+    public void testArraysOfMatrices() {
+        BatchedGemm batched = new BatchedGemm(1);
+        for (int[] mnk : SHAPES) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            for (double[] ab : new double[][] { { 1.0, 0.0 }, { -0.5, 1.0 }, { 2.0, 0.25 }, { 0.0, 3.0 } }) {
+                double[][] A = new double[COUNT][];
+                double[][] B = new double[COUNT][];
+                double[][] C = new double[COUNT][];
+                double[][] expected = new double[COUNT][];
+                for (int i = 0; i < COUNT; ++i) {
+                    A[i] = TestUtils.randomData(m * k);
+                    B[i] = TestUtils.randomData(k * n);
+                    C[i] = TestUtils.randomData(m * n);
+                    expected[i] = C[i].clone();
+                    Gemm.gemm(m, n, k, ab[0], 0, A[i], 1, m, 0, B[i], 1, k, ab[1], 0, expected[i], 1, m);
+                }
+                batched.gemm(m, n, k, ab[0], A, B, ab[1], C);
+                for (int i = 0; i < COUNT; ++i) {
+                    assertArrayEquals(Arrays.toString(mnk), expected[i], C[i], 1.0e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStrided() {
+        BatchedGemm batched = new BatchedGemm(1);
+        for (int[] mnk : SHAPES) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            // A with a gap between the matrices, one B shared by all products
+            int strideA = m * k + 3;
+            int strideC = m * n + 1;
+            double[] A = TestUtils.randomData(2 + COUNT * strideA);
+            double[] B = TestUtils.randomData(1 + k * n);
+            double[] C = TestUtils.randomData(5 + COUNT * strideC);
+            double[] expected = C.clone();
+            for (int i = 0; i < COUNT; ++i) {
+                Gemm.gemm(m, n, k, 1.5, 2 + i * strideA, A, 1, m, 1, B, 1, k, -1.0, 5 + i * strideC, expected, 1,
+                        m);
+            }
+            batched.gemm(m, n, k, 1.5, 2, A, strideA, 1, B, 0, -1.0, 5, C, strideC, COUNT);
+            assertArrayEquals(Arrays.toString(mnk), expected, C, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        BatchedGemm par = new BatchedGemm(3, 0L);
+        BatchedGemm seq = new BatchedGemm(1);
+        for (int[] mnk : SHAPES) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            int count = 1000;
+            double[] A = TestUtils.randomData(count * m * k);
+            double[] B = TestUtils.randomData(count * k * n);
+            double[] C = TestUtils.randomData(count * m * n);
+            double[] expected = C.clone();
+            seq.gemm(m, n, k, 0.5, 0, A, m * k, 0, B, k * n, 1.0, 0, expected, m * n, count);
+            par.gemm(m, n, k, 0.5, 0, A, m * k, 0, B, k * n, 1.0, 0, C, m * n, count);
+            assertArrayEquals(expected, C, 0.0);
+        }
+    }
+
+    @Test
+    public void testBetaZeroDoesNotReadC() {
+        for (int[] mnk : SHAPES) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            double[] C = new double[m * n];
+            Arrays.fill(C, Double.NaN);
+            double[] expected = new double[m * n];
+            double[] A = TestUtils.randomData(m * k);
+            double[] B = TestUtils.randomData(k * n);
+            Gemm.gemm(m, n, k, 1.0, 0, A, 1, m, 0, B, 1, k, 0.0, 0, expected, 1, m);
+            BatchedGemm.getDefault().gemm(m, n, k, 1.0, 0, A, 0, 0, B, 0, 0.0, 0, C, 0, 1);
+            assertArrayEquals(expected, C, 1.0e-12);
+
+            Arrays.fill(C, Double.NaN);
+            BatchedGemm.getDefault().gemm(m, n, k, 0.0, 0, A, 0, 0, B, 0, 0.0, 0, C, 0, 1);
+            assertArrayEquals(new double[m * n], C, 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverlappingC() {
+        BatchedGemm.getDefault().gemm(2, 2, 2, 1.0, 0, new double[4], 0, 0, new double[4], 0, 0.0, 0,
+                new double[16], 3, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArrayTooShort() {
+        BatchedGemm.getDefault().gemm(4, 4, 4, 1.0, 0, new double[16], 16, 0, new double[16], 0, 0.0, 0,
+                new double[32], 16, 2);
+    }
+}
@@ -0,0 +1,152 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for runtime {@link BlockSizes}
+ */
+public class BlockSizesTest {
+
+    // the supported micro kernel shapes (MR x NR)
+    private static final int[][] SHAPES = { { 4, 4 }, { 8, 4 }, { 4, 8 } };
+
+    private final BlockSizes saved = BlockSizes.get();
+
+    @After
+    public void restore() {
+        BlockSizes.set(saved);
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        File file = File.createTempFile("blocksizes", ".properties");
+        try {
+            BlockSizes bs = new BlockSizes(128, 256, 2048);
+            bs.store(file);
+            assertEquals(bs, BlockSizes.load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadMissingFileFallsBackToDefaults() {
+        assertEquals(BlockSizes.defaults(), BlockSizes.load(new File("does/not/exist.properties")));
+    }
+
+    @Test
+    public void testLoadMissingKeysUseDefaults() throws IOException {
+        File file = writeProperties("KC=128\n");
+        try {
+            assertEquals(new BlockSizes(BlockSizes.DEFAULT_MC, 128, BlockSizes.DEFAULT_NC), BlockSizes.load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadMalformedFileThrows() throws IOException {
+        for (String content : new String[] { "KC=abc\n", "MC=7\n", "MR=6\nNR=8\n" }) {
+            File file = writeProperties(content);
+            try {
+                BlockSizes.load(file);
+                fail(content);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(file.toString()));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMCNotMultipleOfMR() {
+        new BlockSizes(BlockSizes.DEFAULT_MR + 1, 64, 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedKernelShape() {
+        new BlockSizes(6, 8, 96, 64, 64);
+    }
+
+    @Test
+    public void testGemmWithSmallBlocks() {
+        int m = 37;
+        int n = 29;
+        int k = 23;
+        double[] A = TestUtils.randomData(m * k);
+        double[] B = TestUtils.randomData(k * n);
+        double[] C = TestUtils.randomData(m * n);
+        double[] expected = C.clone();
+        Gemm.gemm(m, n, k, 0.5, 0, A, 1, m, 0, B, n, 1, 2.0, 0, expected, 1, m);
+        for (int[] shape : SHAPES) {
+            double[] actual = C.clone();
+            Gemm.gemm(m, n, k, 0.5, 0, A, 1, m, 0, B, n, 1, 2.0, 0, actual, 1, m,
+                    new BlockSizes(shape[0], shape[1], 8, 5, 16), new GemmWorkspace());
+            assertArrayEquals(expected, actual, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testTrmmWithSmallBlocks() {
+        int m = 26;
+        int n = 19;
+        double[] A = TestUtils.randomData(m * m);
+        double[] B = TestUtils.randomData(m * n);
+        for (boolean lower : new boolean[] { false, true }) {
+            for (boolean trans : new boolean[] { false, true }) {
+                double[] expected = B.clone();
+                BlockSizes.set(BlockSizes.defaults());
+                Trmm.trmm(true, lower, trans, false, m, n, 1.5, A, 0, m, expected, 0, m);
+                for (int[] shape : SHAPES) {
+                    double[] actual = B.clone();
+                    BlockSizes.set(new BlockSizes(shape[0], shape[1], 8, 8, 16));
+                    Trmm.trmm(true, lower, trans, false, m, n, 1.5, A, 0, m, actual, 0, m);
+                    assertArrayEquals(expected, actual, 1.0e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBaselineSignatures() {
+        // the overloads without a BlockSizes argument pack and multiply with
+        // BlockSizes.get(), workC may still be sized for the 4x4 kernel
+        int mc = 13;
+        int nc = 9;
+        int kc = 7;
+        double[] A = TestUtils.randomData(mc * kc);
+        double[] B = TestUtils.randomData(kc * nc);
+        double[] C = TestUtils.randomData(mc * nc);
+        double[] expected = C.clone();
+        Gemm.gemm(mc, nc, kc, 1.5, 0, A, 1, mc, 0, B, 1, kc, 0.5, 0, expected, 1, mc);
+        for (int[] shape : SHAPES) {
+            BlockSizes.set(new BlockSizes(shape[0], shape[1], 16, 8, 24));
+            double[] A_ = new double[16 * kc];
+            double[] B_ = new double[kc * 24];
+            Gepack.gepack_A(mc, kc, 0, A, 1, mc, A_);
+            Gepack.gepack_B(kc, nc, 0, B, 1, kc, B_);
+            double[] actual = C.clone();
+            Mgemm.mgemm(mc, nc, kc, 1.5, A_, B_, 0.5, 0, actual, 1, mc, new double[16], new double[16]);
+            assertArrayEquals(expected, actual, 1.0e-12);
+        }
+    }
+
+    private static File writeProperties(String content) throws IOException {
+        File file = File.createTempFile("blocksizes", ".properties");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
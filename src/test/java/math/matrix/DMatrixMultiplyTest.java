@@ -0,0 +1,110 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link DMatrix#times(DMatrix)} and
+ * {@link DMatrix#gemm(double, DMatrix, DMatrix, double, DMatrix)}
+ */
+public class DMatrixMultiplyTest {
+
+    private static final double TOL = 1.0e-10;
+
+    private static final int[][] SIZES = { { 1, 1, 1 }, { 3, 5, 7 }, { 4, 4, 4 }, { 17, 9, 23 }, { 64, 1, 33 },
+            { 397, 389, 401 } };
+
+    @Test
+    public void testTimesAllLayouts() {
+        for (int[] mnk : SIZES) {
+            for (Layout layoutA : Layout.values()) {
+                for (Layout layoutB : Layout.values()) {
+                    DMatrix A = TestUtils.randomMatrix(mnk[0], mnk[2], layoutA);
+                    DMatrix B = TestUtils.randomMatrix(mnk[2], mnk[1], layoutB);
+                    DMatrix C = A.times(B);
+                    assertEquals(mnk[0], C.getRowDim());
+                    assertEquals(mnk[1], C.getColDim());
+                    assertEqualsNaive(naiveGemm(1.0, A, B, 0.0, new DMatrix(mnk[0], mnk[1])), C);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGemmAlphaBetaAllLayouts() {
+        for (int[] mnk : SIZES) {
+            for (Layout layoutA : Layout.values()) {
+                for (Layout layoutB : Layout.values()) {
+                    for (Layout layoutC : Layout.values()) {
+                        DMatrix A = TestUtils.randomMatrix(mnk[0], mnk[2], layoutA);
+                        DMatrix B = TestUtils.randomMatrix(mnk[2], mnk[1], layoutB);
+                        DMatrix C = TestUtils.randomMatrix(mnk[0], mnk[1], layoutC);
+                        DMatrix expected = naiveGemm(-0.75, A, B, 1.5, C.deepCopy());
+                        DMatrix.gemm(-0.75, A, B, 1.5, C);
+                        assertEqualsNaive(expected, C);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGemmAlphaZero() {
+        DMatrix A = TestUtils.randomMatrix(7, 5, Layout.COL_MAJOR);
+        DMatrix B = TestUtils.randomMatrix(5, 6, Layout.ROW_MAJOR);
+        DMatrix C = TestUtils.randomMatrix(7, 6, Layout.COL_MAJOR);
+        DMatrix expected = naiveGemm(0.0, A, B, 2.0, C.deepCopy());
+        DMatrix.gemm(0.0, A, B, 2.0, C);
+        assertEqualsNaive(expected, C);
+    }
+
+    @Test
+    public void testGemmBetaZeroIgnoresC() {
+        // not a multiple of MR / NR, so the edge tiles get exercised
+        for (Layout layoutC : Layout.values()) {
+            DMatrix A = TestUtils.randomMatrix(7, 5, Layout.COL_MAJOR);
+            DMatrix B = TestUtils.randomMatrix(5, 9, Layout.ROW_MAJOR);
+            DMatrix C = TestUtils.randomMatrix(7, 9, layoutC);
+            for (int i = 0; i < C.getRowDim(); ++i) {
+                for (int j = 0; j < C.getColDim(); ++j) {
+                    C.set(i, j, Double.NaN);
+                }
+            }
+            DMatrix.gemm(1.0, A, B, 0.0, C);
+            assertEqualsNaive(naiveGemm(1.0, A, B, 0.0, new DMatrix(7, 9)), C);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleDimensions() {
+        TestUtils.randomMatrix(3, 4, Layout.COL_MAJOR).times(TestUtils.randomMatrix(3, 4, Layout.COL_MAJOR));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAliasedResult() {
+        DMatrix A = TestUtils.randomMatrix(4, 4, Layout.COL_MAJOR);
+        DMatrix.gemm(1.0, A, TestUtils.randomMatrix(4, 4, Layout.COL_MAJOR), 0.0, A.shallowCopy());
+    }
+
+    private static DMatrix naiveGemm(double alpha, DMatrix A, DMatrix B, double beta, DMatrix C) {
+        for (int i = 0; i < C.getRowDim(); ++i) {
+            for (int j = 0; j < C.getColDim(); ++j) {
+                double sum = 0.0;
+                for (int l = 0; l < A.getColDim(); ++l) {
+                    sum += A.get(i, l) * B.get(l, j);
+                }
+                C.set(i, j, alpha * sum + beta * C.get(i, j));
+            }
+        }
+        return C;
+    }
+
+    private static void assertEqualsNaive(DMatrix expected, DMatrix actual) {
+        for (int i = 0; i < expected.getRowDim(); ++i) {
+            for (int j = 0; j < expected.getColDim(); ++j) {
+                assertEquals("(" + i + ", " + j + ")", expected.get(i, j), actual.get(i, j), TOL);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link CholeskyDecomposition}, {@link LUDecomposition} and
+ * {@link QRDecomposition}
+ */
+public class FactorizationTest {
+
+    // below, at and across multiples of the block sizes
+    private static final int[] SIZES = { 1, 2, 7, 32, 64, 65, 150, 301 };
+
+    private static final double TOL = 1.0e-10;
+
+    @Test
+    public void testCholesky() {
+        for (int n : SIZES) {
+            DMatrix A = spd(n);
+            CholeskyDecomposition chol = new CholeskyDecomposition(A);
+            DMatrix L = chol.getL();
+            for (int j = 1; j < n; ++j) {
+                assertEquals(0.0, L.get(0, j), 0.0);
+            }
+            assertClose("n = " + n, A, L.times(L.transposeCopy()), TOL);
+
+            // many right hand sides
+            DMatrix X = random(n, 13);
+            assertClose("n = " + n, X, chol.solve(A.times(X)), TOL);
+        }
+    }
+
+    @Test
+    public void testCholeskyReadsLowerTriangleOnly() {
+        int n = 80;
+        DMatrix A = spd(n);
+        DMatrix B = A.deepCopy();
+        for (int j = 1; j < n; ++j) {
+            for (int i = 0; i < j; ++i) {
+                B.set(i, j, Double.NaN);
+            }
+        }
+        assertClose("", new CholeskyDecomposition(A).getL(), new CholeskyDecomposition(B).getL(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCholeskyNotPositiveDefinite() {
+        DMatrix A = spd(100);
+        A.set(90, 90, -1.0);
+        new CholeskyDecomposition(A);
+    }
+
+    @Test
+    public void testLU() {
+        for (int n : SIZES) {
+            DMatrix A = random(n, n);
+            LUDecomposition lu = new LUDecomposition(A);
+            assertClose("n = " + n, permuteRows(A, lu.getPivot()), lu.getL().times(lu.getU()), TOL);
+            // partial pivoting bounds the multipliers by 1
+            DMatrix L = lu.getL();
+            for (int j = 0; j < n; ++j) {
+                for (int i = j + 1; i < n; ++i) {
+                    assertTrue(Math.abs(L.get(i, j)) <= 1.0);
+                }
+            }
+            DMatrix X = random(n, 13);
+            assertClose("n = " + n, X, lu.solve(A.times(X)), 1.0e-8);
+        }
+    }
+
+    @Test
+    public void testLURectangular() {
+        for (int[] mn : new int[][] { { 150, 70 }, { 70, 150 } }) {
+            DMatrix A = random(mn[0], mn[1]);
+            LUDecomposition lu = new LUDecomposition(A);
+            assertClose("", permuteRows(A, lu.getPivot()), lu.getL().times(lu.getU()), TOL);
+        }
+    }
+
+    @Test
+    public void testLUDeterminant() {
+        double[][] a = { { 0.0, 2.0, 1.0 }, { 1.0, 1.0, 0.0 }, { 3.0, 0.0, 1.0 } };
+        assertEquals(-5.0, new LUDecomposition(new DMatrix(a)).det(), 1.0e-14);
+        assertEquals(4.0 * 9.0, new CholeskyDecomposition(new DMatrix(new double[][] { { 4.0, 2.0 },
+                { 2.0, 10.0 } })).det(), 1.0e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLUSingular() {
+        DMatrix A = random(70, 70);
+        for (int i = 0; i < 70; ++i) {
+            A.set(i, 69, 0.0);
+        }
+        LUDecomposition lu = new LUDecomposition(A);
+        lu.solve(random(70, 1));
+    }
+
+    @Test
+    public void testQR() {
+        for (int n : SIZES) {
+            for (int m : new int[] { n, n + 3, 2 * n + 1 }) {
+                DMatrix A = random(m, n);
+                QRDecomposition qr = new QRDecomposition(A);
+                DMatrix Q = qr.getQ();
+                DMatrix R = qr.getR();
+                for (int j = 0; j < n; ++j) {
+                    for (int i = j + 1; i < n; ++i) {
+                        assertEquals(0.0, R.get(i, j), 0.0);
+                    }
+                }
+                assertClose("m = " + m + ", n = " + n, A, Q.times(R), TOL);
+                assertClose("m = " + m + ", n = " + n, identity(n), Q.transposeCopy().times(Q), TOL);
+
+                // least squares: the residual is orthogonal to the columns of A
+                DMatrix B = random(m, 5);
+                DMatrix X = qr.solve(B);
+                DMatrix res = A.times(X);
+                for (int i = 0; i < m; ++i) {
+                    for (int j = 0; j < 5; ++j) {
+                        res.set(i, j, B.get(i, j) - res.get(i, j));
+                    }
+                }
+                assertClose("m = " + m + ", n = " + n, new DMatrix(n, 5), A.transposeCopy().times(res), 1.0e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testRowMajorInput() {
+        int n = 100;
+        DMatrix A = spd(n);
+        DMatrix Ar = A.getRowPackedCopy();
+        DMatrix B = random(n, 3).getRowPackedCopy();
+        assertClose("", new CholeskyDecomposition(A).solve(B), new CholeskyDecomposition(Ar).solve(B), 0.0);
+        assertClose("", new LUDecomposition(A).solve(B), new LUDecomposition(Ar).solve(B), 0.0);
+        assertClose("", new QRDecomposition(A).solve(B), new QRDecomposition(Ar).solve(B), 0.0);
+    }
+
+    private static DMatrix spd(int n) {
+        // A = G * G' + n * I
+        DMatrix G = random(n, n);
+        DMatrix A = G.times(G.transposeCopy());
+        for (int i = 0; i < n; ++i) {
+            A.set(i, i, A.get(i, i) + n);
+        }
+        return A;
+    }
+
+    private static DMatrix identity(int n) {
+        DMatrix I = new DMatrix(n, n);
+        for (int i = 0; i < n; ++i) {
+            I.set(i, i, 1.0);
+        }
+        return I;
+    }
+
+    private static DMatrix permuteRows(DMatrix A, int[] piv) {
+        DMatrix P = new DMatrix(A.getRowDim(), A.getColDim());
+        for (int i = 0; i < piv.length; ++i) {
+            for (int j = 0; j < A.getColDim(); ++j) {
+                P.set(i, j, A.get(piv[i], j));
+            }
+        }
+        return P;
+    }
+
+    private static DMatrix random(int m, int n) {
+        return TestUtils.randomMatrix(m, n, Layout.COL_MAJOR);
+    }
+
+    private static void assertClose(String msg, DMatrix expected, DMatrix actual, double tol) {
+        assertEquals(msg, expected.getRowDim(), actual.getRowDim());
+        assertEquals(msg, expected.getColDim(), actual.getColDim());
+        for (int i = 0; i < expected.getRowDim(); ++i) {
+            for (int j = 0; j < expected.getColDim(); ++j) {
+                assertEquals(msg + " (" + i + ", " + j + ")", expected.get(i, j), actual.get(i, j), tol);
+            }
+        }
+    }
+}
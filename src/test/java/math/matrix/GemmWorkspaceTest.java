@@ -0,0 +1,77 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link Gemm} and {@link Trmm} don't allocate once their
+ * {@link GemmWorkspace} has reached its working size.
+ */
+public class GemmWorkspaceTest {
+
+    private static final int ROUNDS = 200;
+    private static final long MIN_OBJECT_SIZE = 16L;
+
+    @Test
+    public void testGemmDoesNotAllocate() {
+        final int m = 97;
+        final int n = 61;
+        final int k = 83;
+        final double[] A = TestUtils.randomData(m * k);
+        final double[] B = TestUtils.randomData(k * n);
+        final double[] C = new double[m * n];
+        final GemmWorkspace ws = new GemmWorkspace();
+
+        long bytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                Gemm.gemm(m, n, k, 1.0, 0, A, 1, m, 0, B, n, 1, 0.0, 0, C, 1, m, ws);
+            }
+        });
+        assertNoAllocationPerCall("gemm", bytes);
+    }
+
+    @Test
+    public void testGemmWithThreadLocalWorkspaceDoesNotAllocate() {
+        final int m = 50;
+        final double[] A = TestUtils.randomData(m * m);
+        final double[] B = TestUtils.randomData(m * m);
+        final double[] C = new double[m * m];
+
+        long bytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                Gemm.gemm(m, m, m, 1.0, 0, A, m, 1, 0, B, 1, m, 0.5, 0, C, 1, m);
+            }
+        });
+        assertNoAllocationPerCall("gemm", bytes);
+    }
+
+    @Test
+    public void testTrmmDoesNotAllocate() {
+        final int m = 45;
+        final int n = 38;
+        final double[] A = TestUtils.randomData(m * m);
+        final double[] B = TestUtils.randomData(m * n);
+
+        long bytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                Trmm.trmm(true, false, false, false, m, n, 1.0, A, 0, m, B, 0, m);
+                Trmm.trmm(true, true, true, true, m, n, 1.0, A, 0, m, B, 0, m);
+            }
+        });
+        assertNoAllocationPerCall("trmm", bytes);
+    }
+
+    // anything that gets allocated on each call needs at least an object
+    // header, so warm-up noise (class loading, JIT) can be told apart
+    private static void assertNoAllocationPerCall(String what, long bytes) {
+        assertTrue(bytes + " bytes allocated by " + ROUNDS + " " + what + " calls", bytes < MIN_OBJECT_SIZE * ROUNDS);
+    }
+
+    private static long allocatedBytes(Runnable call) {
+        return math.complex.TestUtils.allocatedBytes(call, ROUNDS);
+    }
+}
@@ -0,0 +1,89 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link ParallelGemm} against the sequential {@link Gemm}
+ */
+public class ParallelGemmTest {
+
+    private static final int[][] SIZES = { { 1, 1, 1 }, { 5, 3, 7 }, { 33, 67, 19 }, { 401, 9, 397 },
+            { 789, 403, 411 } };
+
+    private final BlockSizes saved = BlockSizes.get();
+
+    @After
+    public void restore() {
+        BlockSizes.set(saved);
+    }
+
+    @Test
+    public void testAgainstSequential() {
+        ParallelGemm par = new ParallelGemm(3, 0L);
+        for (int[] mnk : SIZES) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            double[] A = TestUtils.randomData(m * k);
+            double[] B = TestUtils.randomData(k * n);
+            double[] C = TestUtils.randomData(m * n);
+            double[] expected = C.clone();
+            double[] actual = C.clone();
+
+            // A col-major, B row-major, C col-major
+            Gemm.gemm(m, n, k, 1.25, 0, A, 1, m, 0, B, n, 1, -0.5, 0, expected, 1, m);
+            par.gemm(m, n, k, 1.25, 0, A, 1, m, 0, B, n, 1, -0.5, 0, actual, 1, m);
+            assertArrayEquals(expected, actual, 1.0e-12);
+
+            // A row-major, B col-major, C row-major
+            expected = C.clone();
+            actual = C.clone();
+            Gemm.gemm(m, n, k, 1.0, 0, A, k, 1, 0, B, 1, k, 0.0, 0, expected, n, 1);
+            par.gemm(m, n, k, 1.0, 0, A, k, 1, 0, B, 1, k, 0.0, 0, actual, n, 1);
+            assertArrayEquals(expected, actual, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testManyColumnBlocks() {
+        // 7 NC blocks for 3 workers: the column blocks become the tasks
+        BlockSizes.set(new BlockSizes(4, 4, 16, 8, 24));
+        ParallelGemm par = new ParallelGemm(3, 0L);
+        for (int[] mnk : new int[][] { { 37, 161, 29 }, { 5, 168, 3 } }) {
+            int m = mnk[0];
+            int n = mnk[1];
+            int k = mnk[2];
+            double[] A = TestUtils.randomData(m * k);
+            double[] B = TestUtils.randomData(k * n);
+            double[] C = TestUtils.randomData(m * n);
+            double[] expected = C.clone();
+            Gemm.gemm(m, n, k, 0.5, 0, A, 1, m, 0, B, n, 1, 2.0, 0, expected, 1, m);
+            par.gemm(m, n, k, 0.5, 0, A, 1, m, 0, B, n, 1, 2.0, 0, C, 1, m);
+            assertArrayEquals(expected, C, 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testBelowThresholdIsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ParallelGemm par = new ParallelGemm(pool, 64L * 64L * 64L);
+        double[] A = TestUtils.randomData(64 * 64);
+        double[] B = TestUtils.randomData(64 * 64);
+        double[] expected = new double[63 * 64];
+        double[] actual = new double[63 * 64];
+        Gemm.gemm(63, 64, 64, 1.0, 0, A, 1, 63, 0, B, 1, 64, 0.0, 0, expected, 1, 63);
+        par.gemm(63, 64, 64, 1.0, 0, A, 1, 63, 0, B, 1, 64, 0.0, 0, actual, 1, 63);
+        assertArrayEquals(expected, actual, 0.0);
+        // the pool starts its workers on the first submission only
+        assertEquals(0, pool.getPoolSize());
+
+        par.gemm(64, 64, 64, 1.0, 0, A, 1, 64, 0, B, 1, 64, 0.0, 0, new double[64 * 64], 1, 64);
+        assertTrue(pool.getPoolSize() > 0);
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link ParallelTrmm} against the sequential {@link Trmm}
+ */
+public class ParallelTrmmTest {
+
+    private static final int[][] SIZES = { { 1, 1 }, { 5, 3 }, { 33, 67 }, { 401, 9 }, { 131, 797 } };
+
+    private final BlockSizes saved = BlockSizes.get();
+
+    @After
+    public void restore() {
+        BlockSizes.set(saved);
+    }
+
+    @Test
+    public void testAgainstSequential() {
+        ParallelTrmm par = new ParallelTrmm(3, 0L);
+        for (int[] mn : SIZES) {
+            assertAllSwitches(par, mn[0], mn[1]);
+        }
+    }
+
+    @Test
+    public void testManyBlocksAgainstSequential() {
+        // small block sizes give many diagonal / off-diagonal blocks and
+        // several NC column blocks
+        BlockSizes.set(new BlockSizes(4, 4, 16, 16, 32));
+        ParallelTrmm par = new ParallelTrmm(4, 0L);
+        for (int[] mn : new int[][] { { 70, 45 }, { 45, 70 }, { 64, 64 } }) {
+            assertAllSwitches(par, mn[0], mn[1]);
+        }
+    }
+
+    @Test
+    public void testManyColumnBlocksAgainstSequential() {
+        // at least as many NC column blocks as workers: the column blocks
+        // are the tasks
+        BlockSizes.set(new BlockSizes(4, 4, 16, 8, 24));
+        ParallelTrmm par = new ParallelTrmm(3, 0L);
+        for (int[] mn : new int[][] { { 37, 161 }, { 161, 37 }, { 72, 72 } }) {
+            assertAllSwitches(par, mn[0], mn[1]);
+        }
+    }
+
+    @Test
+    public void testAlphaZero() {
+        ParallelTrmm par = new ParallelTrmm(2, 0L);
+        double[] A = TestUtils.randomData(25);
+        double[] B = TestUtils.randomData(35);
+        par.trmm(true, false, false, false, 5, 7, 0.0, A, 0, 5, B, 0, 5);
+        assertArrayEquals(new double[35], B, 0.0);
+    }
+
+    @Test
+    public void testBelowThresholdIsSequential() {
+        ParallelTrmm par = new ParallelTrmm(2, Long.MAX_VALUE);
+        double[] A = TestUtils.randomData(16);
+        double[] B = TestUtils.randomData(12);
+        double[] expected = B.clone();
+        double[] actual = B.clone();
+        Trmm.trmm(true, true, false, false, 4, 3, 1.0, A, 0, 4, expected, 0, 4);
+        par.trmm(true, true, false, false, 4, 3, 1.0, A, 0, 4, actual, 0, 4);
+        assertArrayEquals(expected, actual, 0.0);
+    }
+
+    private static void assertAllSwitches(ParallelTrmm par, int m, int n) {
+        for (boolean leftSide : new boolean[] { true, false }) {
+            int k = leftSide ? m : n;
+            // column-major A with lda > k, placed at an offset
+            double[] A = TestUtils.randomData(3 + (k + 2) * k);
+            double[] B = TestUtils.randomData(1 + (m + 1) * n);
+            for (boolean lower : new boolean[] { false, true }) {
+                for (boolean trans : new boolean[] { false, true }) {
+                    for (boolean unit : new boolean[] { false, true }) {
+                        double[] expected = B.clone();
+                        double[] actual = B.clone();
+                        Trmm.trmm(leftSide, lower, trans, unit, m, n, -0.75, A, 3, k + 2, expected, 1, m + 1);
+                        par.trmm(leftSide, lower, trans, unit, m, n, -0.75, A, 3, k + 2, actual, 1, m + 1);
+                        assertArrayEquals("m = " + m + ", n = " + n, expected, actual, 1.0e-12);
+                    }
+                }
+            }
+        }
+    }
+}
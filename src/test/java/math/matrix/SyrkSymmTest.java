@@ -0,0 +1,175 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link Syrk} and {@link Symm} against {@link Gemm}
+ */
+public class SyrkSymmTest {
+
+    private static final int[][] SIZES = { { 1, 1 }, { 5, 3 }, { 33, 67 }, { 401, 9 }, { 397, 411 } };
+
+    private final BlockSizes saved = BlockSizes.get();
+
+    @After
+    public void restore() {
+        BlockSizes.set(saved);
+    }
+
+    @Test
+    public void testSyrk() {
+        for (int[] nk : SIZES) {
+            assertSyrk(nk[0], nk[1]);
+        }
+    }
+
+    @Test
+    public void testSyrkManyBlocks() {
+        for (int[] shape : new int[][] { { 4, 4 }, { 8, 4 }, { 4, 8 } }) {
+            BlockSizes.set(new BlockSizes(shape[0], shape[1], 16, 8, 24));
+            assertSyrk(71, 29);
+            assertSyrk(29, 71);
+        }
+    }
+
+    @Test
+    public void testSyrkAlphaZero() {
+        int n = 6;
+        double[] C = TestUtils.randomData(n * n);
+        double[] expected = C.clone();
+        for (int j = 0; j < n; ++j) {
+            for (int i = j; i < n; ++i) {
+                expected[i + j * n] *= 0.5;
+            }
+        }
+        Syrk.syrk(true, false, n, 3, 0.0, new double[3 * n], 0, n, 0.5, C, 0, n);
+        assertArrayEquals(expected, C, 0.0);
+    }
+
+    @Test
+    public void testBetaZeroIgnoresC() {
+        // C holds NaNs, sizes that aren't multiples of MR / NR
+        for (int n : new int[] { 5, 33 }) {
+            int k = 7;
+            double[] A = TestUtils.randomData(n * k);
+            double[] full = new double[n * n];
+            Gemm.gemm(n, n, k, 1.0, 0, A, 1, n, 0, A, n, 1, 0.0, 0, full, 1, n);
+            for (boolean lower : new boolean[] { true, false }) {
+                double[] C = new double[n * n];
+                Arrays.fill(C, Double.NaN);
+                Syrk.syrk(lower, false, n, k, 1.0, A, 0, n, 0.0, C, 0, n);
+                for (int j = 0; j < n; ++j) {
+                    for (int i = 0; i < n; ++i) {
+                        // the other triangle is left alone
+                        double e = (lower ? i >= j : i <= j) ? full[i + j * n] : Double.NaN;
+                        assertEquals("(" + i + ", " + j + ")", e, C[i + j * n], 1.0e-12);
+                    }
+                }
+
+                double[] B = TestUtils.randomData(n * k);
+                double[] expected = new double[n * k];
+                Gemm.gemm(n, k, n, 1.0, 0, full, 1, n, 0, B, 1, n, 0.0, 0, expected, 1, n);
+                double[] actual = new double[n * k];
+                Arrays.fill(actual, Double.NaN);
+                Symm.symm(true, lower, n, k, 1.0, full, 0, n, B, 0, n, 0.0, actual, 0, n);
+                assertArrayEquals("n = " + n, expected, actual, 1.0e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testSymm() {
+        for (int[] mn : SIZES) {
+            assertSymm(mn[0], mn[1]);
+        }
+    }
+
+    @Test
+    public void testSymmManyBlocks() {
+        for (int[] shape : new int[][] { { 4, 4 }, { 8, 4 }, { 4, 8 } }) {
+            BlockSizes.set(new BlockSizes(shape[0], shape[1], 16, 8, 24));
+            assertSymm(71, 29);
+            assertSymm(29, 71);
+        }
+    }
+
+    private static void assertSyrk(int n, int k) {
+        for (boolean trans : new boolean[] { false, true }) {
+            // A is (n x k) or (k x n), column-major with a leading dimension
+            // larger than needed
+            int rowsA = trans ? k : n;
+            int colsA = trans ? n : k;
+            int lda = rowsA + 2;
+            double[] A = TestUtils.randomData(1 + lda * colsA);
+            double[] C = TestUtils.randomData(2 + (n + 1) * n);
+
+            double[] full = C.clone();
+            if (!trans) {
+                Gemm.gemm(n, n, k, 1.5, 1, A, 1, lda, 1, A, lda, 1, -0.5, 2, full, 1, n + 1);
+            } else {
+                Gemm.gemm(n, n, k, 1.5, 1, A, lda, 1, 1, A, 1, lda, -0.5, 2, full, 1, n + 1);
+            }
+
+            for (boolean lower : new boolean[] { true, false }) {
+                double[] actual = C.clone();
+                Syrk.syrk(lower, trans, n, k, 1.5, A, 1, lda, -0.5, actual, 2, n + 1);
+                assertTriangle(lower, n, full, C, actual, 2, n + 1);
+            }
+        }
+    }
+
+    private static void assertSymm(int m, int n) {
+        for (boolean leftSide : new boolean[] { true, false }) {
+            int k = leftSide ? m : n;
+            int lda = k + 3;
+            // only one triangle of A gets used, the other one holds NaNs
+            double[] S = TestUtils.randomData(k * k);
+            double[] B = TestUtils.randomData(1 + (m + 2) * n);
+            double[] C = TestUtils.randomData(m * n);
+            for (boolean lower : new boolean[] { true, false }) {
+                double[] A = new double[lda * k];
+                double[] full = new double[k * k];
+                for (int j = 0; j < k; ++j) {
+                    for (int i = 0; i < k; ++i) {
+                        double s = S[Math.max(i, j) + Math.min(i, j) * k];
+                        full[i + j * k] = s;
+                        A[i + j * lda] = (lower ? i >= j : i <= j) ? s : Double.NaN;
+                    }
+                }
+                double[] expected = C.clone();
+                double[] actual = C.clone();
+                if (leftSide) {
+                    Gemm.gemm(m, n, m, 0.75, 0, full, 1, k, 1, B, 1, m + 2, 2.0, 0, expected, 1, m);
+                } else {
+                    Gemm.gemm(m, n, n, 0.75, 1, B, 1, m + 2, 0, full, 1, k, 2.0, 0, expected, 1, m);
+                }
+                Symm.symm(leftSide, lower, m, n, 0.75, A, 0, lda, B, 1, m + 2, 2.0, actual, 0, m);
+                assertArrayEquals("m = " + m + ", n = " + n, expected, actual, 1.0e-12);
+            }
+        }
+    }
+
+    //
+    // the selected triangle of actual must equal the one of full, everything
+    // else must equal the original C
+    //
+    private static void assertTriangle(boolean lower, int n, double[] full, double[] C, double[] actual, int off,
+            int ldc) {
+        for (int idx = 0; idx < off; ++idx) {
+            assertEquals(C[idx], actual[idx], 0.0);
+        }
+        for (int j = 0; j < n; ++j) {
+            for (int i = 0; i < ldc; ++i) {
+                int idx = off + i + j * ldc;
+                boolean inside = i < n && (lower ? i >= j : i <= j);
+                assertEquals("(" + i + ", " + j + ")", inside ? full[idx] : C[idx], actual[idx],
+                        inside ? 1.0e-12 : 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package math.matrix;
+
+import java.util.Random;
+
+/**
+ * Random test data shared by the matrix tests
+ */
+public final class TestUtils {
+
+    private static final Random rng = new Random();
+
+    // each individual double lies in [-1, 1)
+    public static double[] randomData(int length) {
+        double[] a = new double[length];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = (rng.nextDouble() * 2.0) - 1.0;
+        }
+        return a;
+    }
+
+    // a (rows x cols) matrix with entries in [-1, 1)
+    public static DMatrix randomMatrix(int rows, int cols, Layout layout) {
+        return new DMatrix(rows, cols, randomData(rows * cols), layout, DoCopy.NO);
+    }
+
+    private TestUtils() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,50 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Test for the blocked {@link Transpose}
+ */
+public class TransposeTest {
+
+    @Test
+    public void testTranspose() {
+        int[] sizes = { 1, 7, 31, 32, 33, 70, 129 };
+        for (int m : sizes) {
+            for (int n : sizes) {
+                int ldA = n + 2;
+                int ldB = m + 1;
+                double[] A = TestUtils.randomData(5 + m * ldA);
+                double[] B = new double[3 + n * ldB];
+                Transpose.transpose(m, n, 5, A, ldA, 3, B, ldB);
+                for (int i = 0; i < m; ++i) {
+                    for (int j = 0; j < n; ++j) {
+                        assertEquals(A[5 + i * ldA + j], B[3 + j * ldB + i], 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDMatrixLayoutCopies() {
+        DMatrix A = TestUtils.randomMatrix(37, 45, Layout.COL_MAJOR);
+        DMatrix R = A.getRowPackedCopy();
+        DMatrix C = R.getColumnPackedCopy();
+        DMatrix T = A.transposeCopy();
+        for (int i = 0; i < 37; ++i) {
+            for (int j = 0; j < 45; ++j) {
+                assertEquals(A.get(i, j), R.get(i, j), 0.0);
+                assertEquals(A.get(i, j), C.get(i, j), 0.0);
+                assertEquals(A.get(i, j), T.get(j, i), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalLeadingDimension() {
+        Transpose.transpose(4, 5, 0, new double[20], 4, 0, new double[20], 4);
+    }
+}
@@ -0,0 +1,109 @@
+package math.matrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link Trsm} (solving with a triangular matrix must be undone by
+ * {@link Trmm})
+ */
+public class TrsmTest {
+
+    private static final int[][] SIZES = { { 1, 1 }, { 5, 3 }, { 33, 67 }, { 401, 9 }, { 131, 797 } };
+
+    private final BlockSizes saved = BlockSizes.get();
+
+    @After
+    public void restore() {
+        BlockSizes.set(saved);
+    }
+
+    @Test
+    public void testTrmmUndoesTrsm() {
+        for (int[] mn : SIZES) {
+            assertAllSwitches(mn[0], mn[1]);
+        }
+    }
+
+    @Test
+    public void testManyBlocks() {
+        // the supported micro kernel shapes with small MC and NC
+        for (int[] shape : new int[][] { { 4, 4 }, { 8, 4 }, { 4, 8 } }) {
+            BlockSizes.set(new BlockSizes(shape[0], shape[1], 16, 16, 32));
+            assertAllSwitches(70, 45);
+            assertAllSwitches(45, 70);
+        }
+    }
+
+    @Test
+    public void testAgainstSubstitution() {
+        // lower triangular L, solve L*X = 2*B column by column
+        int m = 7;
+        int n = 3;
+        double[] L = triangularData(m, false);
+        double[] B = TestUtils.randomData(m * n);
+        double[] expected = new double[m * n];
+        for (int j = 0; j < n; ++j) {
+            for (int i = 0; i < m; ++i) {
+                double x = 2.0 * B[i + j * m];
+                for (int k = 0; k < i; ++k) {
+                    x -= L[i + k * m] * expected[k + j * m];
+                }
+                expected[i + j * m] = x / L[i + i * m];
+            }
+        }
+        Trsm.trsm(true, true, false, false, m, n, 2.0, L, 0, m, B, 0, m);
+        assertArrayEquals(expected, B, 1.0e-12);
+    }
+
+    @Test
+    public void testAlphaZero() {
+        double[] A = triangularData(5, false);
+        double[] B = TestUtils.randomData(35);
+        Trsm.trsm(false, false, true, false, 7, 5, 0.0, A, 0, 5, B, 0, 7);
+        assertArrayEquals(new double[35], B, 0.0);
+    }
+
+    private static void assertAllSwitches(int m, int n) {
+        for (boolean leftSide : new boolean[] { true, false }) {
+            int k = leftSide ? m : n;
+            for (boolean unit : new boolean[] { false, true }) {
+                // column-major A with lda = k + 2 at offset 3, B with ldb = m + 1
+                // at offset 1
+                double[] T = triangularData(k, unit);
+                double[] A = new double[3 + (k + 2) * k];
+                for (int j = 0; j < k; ++j) {
+                    System.arraycopy(T, j * k, A, 3 + j * (k + 2), k);
+                }
+                double[] B = TestUtils.randomData(1 + (m + 1) * n);
+                for (boolean lower : new boolean[] { false, true }) {
+                    for (boolean trans : new boolean[] { false, true }) {
+                        double[] X = B.clone();
+                        Trsm.trsm(leftSide, lower, trans, unit, m, n, -0.75, A, 3, k + 2, X, 1, m + 1);
+                        Trmm.trmm(leftSide, lower, trans, unit, m, n, -4.0 / 3.0, A, 3, k + 2, X, 1, m + 1);
+                        assertArrayEquals("m = " + m + ", n = " + n, B, X, 1.0e-10);
+                    }
+                }
+            }
+        }
+    }
+
+    //
+    // A well conditioned (k x k) matrix: small off-diagonal entries (both
+    // triangles get filled, only one of them is used) and, unless the unit
+    // diagonal is implied, a diagonal bounded away from zero
+    //
+    private static double[] triangularData(int k, boolean unit) {
+        double[] a = TestUtils.randomData(k * k);
+        for (int i = 0; i < a.length; ++i) {
+            a[i] /= k;
+        }
+        double[] d = TestUtils.randomData(k);
+        for (int i = 0; i < k; ++i) {
+            a[i + i * k] = unit ? Double.NaN : Math.copySign(1.0 + Math.abs(d[i]), d[i]);
+        }
+        return a;
+    }
+}
@@ -0,0 +1,333 @@
+package math.matrix.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import math.matrix.SimdKernels;
+
+/**
+ * {@link SimdKernels} implemented with the JDK Vector API
+ * ({@code jdk.incubator.vector}). The micro kernels keep one 256 bit vector
+ * of 4 doubles per column (or row) of the {@code MR x NR} register block and
+ * update it with fused multiply-adds. On hosts whose preferred vector width
+ * is less than 4 doubles (and for a {@code C} that is strided along the
+ * accumulators) the micro kernels decline and the scalar ones get used.
+ */
+public final class VectorApiKernels implements SimdKernels {
+
+    private static final VectorSpecies<Double> S4 = DoubleVector.SPECIES_256;
+    private static final VectorSpecies<Double> SP = DoubleVector.SPECIES_PREFERRED;
+
+    private static final boolean WIDE_ENOUGH = SP.length() >= S4.length();
+
+    public VectorApiKernels() {
+        // service provider constructor
+    }
+
+    @Override
+    public String name() {
+        return "Vector API (" + SP.vectorBitSize() + " bit)";
+    }
+
+    @Override
+    public void axpy(int n, double alpha, double[] x, int xOff, double[] y, int yOff) {
+        int upper = SP.loopBound(n);
+        int i = 0;
+        if (upper > 0) {
+            DoubleVector va = DoubleVector.broadcast(SP, alpha);
+            for (; i < upper; i += SP.length()) {
+                DoubleVector vx = DoubleVector.fromArray(SP, x, xOff + i);
+                DoubleVector vy = DoubleVector.fromArray(SP, y, yOff + i);
+                vx.lanewise(VectorOperators.FMA, va, vy).intoArray(y, yOff + i);
+            }
+        }
+        for (; i < n; ++i) {
+            y[i + yOff] += alpha * x[i + xOff];
+        }
+    }
+
+    @Override
+    public void scal(int n, double alpha, double[] x, int xOff) {
+        int upper = SP.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SP.length()) {
+            DoubleVector.fromArray(SP, x, xOff + i).mul(alpha).intoArray(x, xOff + i);
+        }
+        for (; i < n; ++i) {
+            x[xOff + i] *= alpha;
+        }
+    }
+
+    @Override
+    public boolean ugemm(int mr, int nr, int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC, int incColC) {
+        if (!WIDE_ENOUGH) {
+            return false;
+        }
+        // the accumulators get stored with a single vector store each, so C
+        // must be contiguous along them (columns for 4x4 and 8x4, columns or
+        // rows for 4x8). Anything else is left to the scalar kernels as
+        // picking the lanes apart would keep the vectors from being
+        // scalarized.
+        if (mr == 4 && nr == 4 && incRowC == 1) {
+            ugemm4x4(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incColC);
+            return true;
+        }
+        if (mr == 8 && nr == 4 && incRowC == 1) {
+            ugemm8x4(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incColC);
+            return true;
+        }
+        if (mr == 4 && nr == 8 && incRowC == 1) {
+            ugemm4x8(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incColC);
+            return true;
+        }
+        if (mr == 4 && nr == 8 && incColC == 1) {
+            ugemm4x8Rows(kc, alpha, A_start, A, B_start, B, beta, C_start, C, incRowC);
+            return true;
+        }
+        return false;
+    }
+
+    //
+    // Note: the vectors must never escape these methods (no helper methods
+    // taking a vector argument, no arrays of vectors), otherwise they can't
+    // be scalarized by C2 and every accumulator gets allocated on the heap.
+    //
+
+    //
+    // (4 x kc) * (kc x 4): one accumulator per column of C
+    //
+    private static void ugemm4x4(int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
+            int C_start, double[] C, int incColC) {
+
+        DoubleVector c0 = DoubleVector.zero(S4);
+        DoubleVector c1 = c0;
+        DoubleVector c2 = c0;
+        DoubleVector c3 = c0;
+
+        for (int l = 0; l < kc; ++l) {
+            DoubleVector a = DoubleVector.fromArray(S4, A, A_start + 4 * l);
+            int b = B_start + 4 * l;
+            c0 = a.lanewise(VectorOperators.FMA, B[b], c0);
+            c1 = a.lanewise(VectorOperators.FMA, B[b + 1], c1);
+            c2 = a.lanewise(VectorOperators.FMA, B[b + 2], c2);
+            c3 = a.lanewise(VectorOperators.FMA, B[b + 3], c3);
+        }
+
+        c0 = c0.mul(alpha);
+        c1 = c1.mul(alpha);
+        c2 = c2.mul(alpha);
+        c3 = c3.mul(alpha);
+        int j1 = C_start + incColC;
+        int j2 = j1 + incColC;
+        int j3 = j2 + incColC;
+        if (beta != 0.0) {
+            // C is not read if beta == 0.0
+            c0 = DoubleVector.fromArray(S4, C, C_start).lanewise(VectorOperators.FMA, beta, c0);
+            c1 = DoubleVector.fromArray(S4, C, j1).lanewise(VectorOperators.FMA, beta, c1);
+            c2 = DoubleVector.fromArray(S4, C, j2).lanewise(VectorOperators.FMA, beta, c2);
+            c3 = DoubleVector.fromArray(S4, C, j3).lanewise(VectorOperators.FMA, beta, c3);
+        }
+        c0.intoArray(C, C_start);
+        c1.intoArray(C, j1);
+        c2.intoArray(C, j2);
+        c3.intoArray(C, j3);
+    }
+
+    //
+    // (8 x kc) * (kc x 4): two accumulators (upper and lower half) per column
+    //
+    private static void ugemm8x4(int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
+            int C_start, double[] C, int incColC) {
+
+        DoubleVector u0 = DoubleVector.zero(S4);
+        DoubleVector u1 = u0;
+        DoubleVector u2 = u0;
+        DoubleVector u3 = u0;
+        DoubleVector l0 = u0;
+        DoubleVector l1 = u0;
+        DoubleVector l2 = u0;
+        DoubleVector l3 = u0;
+
+        for (int l = 0; l < kc; ++l) {
+            int a = A_start + 8 * l;
+            DoubleVector au = DoubleVector.fromArray(S4, A, a);
+            DoubleVector al = DoubleVector.fromArray(S4, A, a + 4);
+            int b = B_start + 4 * l;
+            double b0 = B[b];
+            double b1 = B[b + 1];
+            double b2 = B[b + 2];
+            double b3 = B[b + 3];
+            u0 = au.lanewise(VectorOperators.FMA, b0, u0);
+            l0 = al.lanewise(VectorOperators.FMA, b0, l0);
+            u1 = au.lanewise(VectorOperators.FMA, b1, u1);
+            l1 = al.lanewise(VectorOperators.FMA, b1, l1);
+            u2 = au.lanewise(VectorOperators.FMA, b2, u2);
+            l2 = al.lanewise(VectorOperators.FMA, b2, l2);
+            u3 = au.lanewise(VectorOperators.FMA, b3, u3);
+            l3 = al.lanewise(VectorOperators.FMA, b3, l3);
+        }
+
+        u0 = u0.mul(alpha);
+        l0 = l0.mul(alpha);
+        u1 = u1.mul(alpha);
+        l1 = l1.mul(alpha);
+        u2 = u2.mul(alpha);
+        l2 = l2.mul(alpha);
+        u3 = u3.mul(alpha);
+        l3 = l3.mul(alpha);
+        int j1 = C_start + incColC;
+        int j2 = j1 + incColC;
+        int j3 = j2 + incColC;
+        if (beta != 0.0) {
+            // C is not read if beta == 0.0
+            u0 = DoubleVector.fromArray(S4, C, C_start).lanewise(VectorOperators.FMA, beta, u0);
+            l0 = DoubleVector.fromArray(S4, C, C_start + 4).lanewise(VectorOperators.FMA, beta, l0);
+            u1 = DoubleVector.fromArray(S4, C, j1).lanewise(VectorOperators.FMA, beta, u1);
+            l1 = DoubleVector.fromArray(S4, C, j1 + 4).lanewise(VectorOperators.FMA, beta, l1);
+            u2 = DoubleVector.fromArray(S4, C, j2).lanewise(VectorOperators.FMA, beta, u2);
+            l2 = DoubleVector.fromArray(S4, C, j2 + 4).lanewise(VectorOperators.FMA, beta, l2);
+            u3 = DoubleVector.fromArray(S4, C, j3).lanewise(VectorOperators.FMA, beta, u3);
+            l3 = DoubleVector.fromArray(S4, C, j3 + 4).lanewise(VectorOperators.FMA, beta, l3);
+        }
+        u0.intoArray(C, C_start);
+        l0.intoArray(C, C_start + 4);
+        u1.intoArray(C, j1);
+        l1.intoArray(C, j1 + 4);
+        u2.intoArray(C, j2);
+        l2.intoArray(C, j2 + 4);
+        u3.intoArray(C, j3);
+        l3.intoArray(C, j3 + 4);
+    }
+
+    //
+    // (4 x kc) * (kc x 8): one accumulator per column of C
+    //
+    private static void ugemm4x8(int kc, double alpha, int A_start, double[] A, int B_start, double[] B, double beta,
+            int C_start, double[] C, int incColC) {
+
+        DoubleVector c0 = DoubleVector.zero(S4);
+        DoubleVector c1 = c0;
+        DoubleVector c2 = c0;
+        DoubleVector c3 = c0;
+        DoubleVector c4 = c0;
+        DoubleVector c5 = c0;
+        DoubleVector c6 = c0;
+        DoubleVector c7 = c0;
+
+        for (int l = 0; l < kc; ++l) {
+            DoubleVector a = DoubleVector.fromArray(S4, A, A_start + 4 * l);
+            int b = B_start + 8 * l;
+            c0 = a.lanewise(VectorOperators.FMA, B[b], c0);
+            c1 = a.lanewise(VectorOperators.FMA, B[b + 1], c1);
+            c2 = a.lanewise(VectorOperators.FMA, B[b + 2], c2);
+            c3 = a.lanewise(VectorOperators.FMA, B[b + 3], c3);
+            c4 = a.lanewise(VectorOperators.FMA, B[b + 4], c4);
+            c5 = a.lanewise(VectorOperators.FMA, B[b + 5], c5);
+            c6 = a.lanewise(VectorOperators.FMA, B[b + 6], c6);
+            c7 = a.lanewise(VectorOperators.FMA, B[b + 7], c7);
+        }
+
+        c0 = c0.mul(alpha);
+        c1 = c1.mul(alpha);
+        c2 = c2.mul(alpha);
+        c3 = c3.mul(alpha);
+        c4 = c4.mul(alpha);
+        c5 = c5.mul(alpha);
+        c6 = c6.mul(alpha);
+        c7 = c7.mul(alpha);
+        int j1 = C_start + incColC;
+        int j2 = j1 + incColC;
+        int j3 = j2 + incColC;
+        int j4 = j3 + incColC;
+        int j5 = j4 + incColC;
+        int j6 = j5 + incColC;
+        int j7 = j6 + incColC;
+        if (beta != 0.0) {
+            // C is not read if beta == 0.0
+            c0 = DoubleVector.fromArray(S4, C, C_start).lanewise(VectorOperators.FMA, beta, c0);
+            c1 = DoubleVector.fromArray(S4, C, j1).lanewise(VectorOperators.FMA, beta, c1);
+            c2 = DoubleVector.fromArray(S4, C, j2).lanewise(VectorOperators.FMA, beta, c2);
+            c3 = DoubleVector.fromArray(S4, C, j3).lanewise(VectorOperators.FMA, beta, c3);
+            c4 = DoubleVector.fromArray(S4, C, j4).lanewise(VectorOperators.FMA, beta, c4);
+            c5 = DoubleVector.fromArray(S4, C, j5).lanewise(VectorOperators.FMA, beta, c5);
+            c6 = DoubleVector.fromArray(S4, C, j6).lanewise(VectorOperators.FMA, beta, c6);
+            c7 = DoubleVector.fromArray(S4, C, j7).lanewise(VectorOperators.FMA, beta, c7);
+        }
+        c0.intoArray(C, C_start);
+        c1.intoArray(C, j1);
+        c2.intoArray(C, j2);
+        c3.intoArray(C, j3);
+        c4.intoArray(C, j4);
+        c5.intoArray(C, j5);
+        c6.intoArray(C, j6);
+        c7.intoArray(C, j7);
+    }
+
+    //
+    // (4 x kc) * (kc x 8): one accumulator per row of C (the B panel rows
+    // are 8 wide, i.e. two vectors)
+    //
+    private static void ugemm4x8Rows(int kc, double alpha, int A_start, double[] A, int B_start, double[] B,
+            double beta, int C_start, double[] C, int incRowC) {
+
+        DoubleVector r0 = DoubleVector.zero(S4);
+        DoubleVector r1 = r0;
+        DoubleVector r2 = r0;
+        DoubleVector r3 = r0;
+        DoubleVector s0 = r0;
+        DoubleVector s1 = r0;
+        DoubleVector s2 = r0;
+        DoubleVector s3 = r0;
+
+        for (int l = 0; l < kc; ++l) {
+            int b = B_start + 8 * l;
+            DoubleVector bl = DoubleVector.fromArray(S4, B, b);
+            DoubleVector br = DoubleVector.fromArray(S4, B, b + 4);
+            int a = A_start + 4 * l;
+            double a0 = A[a];
+            double a1 = A[a + 1];
+            double a2 = A[a + 2];
+            double a3 = A[a + 3];
+            r0 = bl.lanewise(VectorOperators.FMA, a0, r0);
+            s0 = br.lanewise(VectorOperators.FMA, a0, s0);
+            r1 = bl.lanewise(VectorOperators.FMA, a1, r1);
+            s1 = br.lanewise(VectorOperators.FMA, a1, s1);
+            r2 = bl.lanewise(VectorOperators.FMA, a2, r2);
+            s2 = br.lanewise(VectorOperators.FMA, a2, s2);
+            r3 = bl.lanewise(VectorOperators.FMA, a3, r3);
+            s3 = br.lanewise(VectorOperators.FMA, a3, s3);
+        }
+
+        r0 = r0.mul(alpha);
+        s0 = s0.mul(alpha);
+        r1 = r1.mul(alpha);
+        s1 = s1.mul(alpha);
+        r2 = r2.mul(alpha);
+        s2 = s2.mul(alpha);
+        r3 = r3.mul(alpha);
+        s3 = s3.mul(alpha);
+        int i1 = C_start + incRowC;
+        int i2 = i1 + incRowC;
+        int i3 = i2 + incRowC;
+        if (beta != 0.0) {
+            // C is not read if beta == 0.0
+            r0 = DoubleVector.fromArray(S4, C, C_start).lanewise(VectorOperators.FMA, beta, r0);
+            s0 = DoubleVector.fromArray(S4, C, C_start + 4).lanewise(VectorOperators.FMA, beta, s0);
+            r1 = DoubleVector.fromArray(S4, C, i1).lanewise(VectorOperators.FMA, beta, r1);
+            s1 = DoubleVector.fromArray(S4, C, i1 + 4).lanewise(VectorOperators.FMA, beta, s1);
+            r2 = DoubleVector.fromArray(S4, C, i2).lanewise(VectorOperators.FMA, beta, r2);
+            s2 = DoubleVector.fromArray(S4, C, i2 + 4).lanewise(VectorOperators.FMA, beta, s2);
+            r3 = DoubleVector.fromArray(S4, C, i3).lanewise(VectorOperators.FMA, beta, r3);
+            s3 = DoubleVector.fromArray(S4, C, i3 + 4).lanewise(VectorOperators.FMA, beta, s3);
+        }
+        r0.intoArray(C, C_start);
+        s0.intoArray(C, C_start + 4);
+        r1.intoArray(C, i1);
+        s1.intoArray(C, i1 + 4);
+        r2.intoArray(C, i2);
+        s2.intoArray(C, i2 + 4);
+        r3.intoArray(C, i3);
+        s3.intoArray(C, i3 + 4);
+    }
+}
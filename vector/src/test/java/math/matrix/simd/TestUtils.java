@@ -0,0 +1,54 @@
+package math.matrix.simd;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Assume;
+
+/**
+ * Random test data and allocation counting shared by the SIMD kernel tests
+ */
+public final class TestUtils {
+
+    private static final Random rng = new Random();
+
+    // each individual double lies in [-1, 1)
+    public static double[] randomData(int length) {
+        double[] a = new double[length];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = (rng.nextDouble() * 2.0) - 1.0;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread during
+     * {@code rounds} runs of {@code call}, after as many warm-up runs (that
+     * grow workspace buffers to their working size). Skips the calling test
+     * if the JVM can't count the allocated bytes per thread.
+     */
+    public static long allocatedBytes(Runnable call, int rounds) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long tid = Thread.currentThread().getId();
+
+        for (int i = 0; i < rounds; ++i) {
+            call.run();
+        }
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < rounds; ++i) {
+            call.run();
+        }
+        long after = threadBean.getThreadAllocatedBytes(tid);
+        // calibrate for the allocations done by getThreadAllocatedBytes itself
+        long overhead = threadBean.getThreadAllocatedBytes(tid) - after;
+        return Math.max(0L, after - before - overhead);
+    }
+
+    private TestUtils() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,76 @@
+package math.matrix.simd;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import math.matrix.BlockSizes;
+import math.matrix.Gemm;
+import math.matrix.GemmWorkspace;
+
+/**
+ * Checks that {@link Gemm} still doesn't allocate (once its
+ * {@link GemmWorkspace} has reached its working size) when the micro kernels
+ * of {@link VectorApiKernels} are in use, i.e. that the vectors get
+ * scalarized by the JIT.
+ */
+public class VectorApiAllocationTest {
+
+    private static final int ROUNDS = 200;
+    private static final long MIN_OBJECT_SIZE = 16L;
+
+    private static final int[][] SHAPES = { { 4, 4 }, { 8, 4 }, { 4, 8 } };
+
+    @Test
+    public void testGemmWithThreadLocalWorkspaceDoesNotAllocate() {
+        final int m = 50;
+        final double[] A = TestUtils.randomData(m * m);
+        final double[] B = TestUtils.randomData(m * m);
+        final double[] C = new double[m * m];
+
+        long bytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                Gemm.gemm(m, m, m, 1.0, 0, A, m, 1, 0, B, 1, m, 0.5, 0, C, 1, m);
+            }
+        });
+        assertNoAllocationPerCall("gemm", bytes);
+    }
+
+    @Test
+    public void testGemmDoesNotAllocateAllShapes() {
+        final int m = 97;
+        final int n = 61;
+        final int k = 83;
+        final double[] A = TestUtils.randomData(m * k);
+        final double[] B = TestUtils.randomData(k * n);
+        for (int[] shape : SHAPES) {
+            for (final boolean colMajor : new boolean[] { true, false }) {
+                final BlockSizes bs = new BlockSizes(shape[0], shape[1], 48, 32, 64);
+                final GemmWorkspace ws = new GemmWorkspace();
+                final double[] C = new double[m * n];
+                long bytes = allocatedBytes(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (colMajor) {
+                            Gemm.gemm(m, n, k, 1.0, 0, A, 1, m, 0, B, n, 1, 0.0, 0, C, 1, m, bs, ws);
+                        } else {
+                            Gemm.gemm(m, n, k, 1.0, 0, A, 1, m, 0, B, n, 1, 1.0, 0, C, n, 1, bs, ws);
+                        }
+                    }
+                });
+                assertNoAllocationPerCall("gemm " + shape[0] + "x" + shape[1], bytes);
+            }
+        }
+    }
+
+    // anything that gets allocated on each call needs at least an object
+    // header, so warm-up noise (class loading, JIT) can be told apart
+    private static void assertNoAllocationPerCall(String what, long bytes) {
+        assertTrue(bytes + " bytes allocated by " + ROUNDS + " " + what + " calls", bytes < MIN_OBJECT_SIZE * ROUNDS);
+    }
+
+    private static long allocatedBytes(Runnable call) {
+        return TestUtils.allocatedBytes(call, ROUNDS);
+    }
+}
@@ -0,0 +1,109 @@
+package math.matrix.simd;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import math.matrix.BlockSizes;
+import math.matrix.Gemm;
+import math.matrix.GemmWorkspace;
+
+/**
+ * Test {@link VectorApiKernels} against straightforward scalar loops
+ */
+public class VectorApiKernelsTest {
+
+    private static final int[][] SHAPES = { { 4, 4 }, { 8, 4 }, { 4, 8 } };
+
+    private final VectorApiKernels simd = new VectorApiKernels();
+
+    @Test
+    public void testAxpy() {
+        for (int n = 0; n < 40; ++n) {
+            double[] x = TestUtils.randomData(n + 3);
+            double[] y = TestUtils.randomData(n + 5);
+            double[] expected = y.clone();
+            for (int i = 0; i < n; ++i) {
+                expected[i + 2] += 0.75 * x[i + 1];
+            }
+            simd.axpy(n, 0.75, x, 1, y, 2);
+            assertArrayEquals(expected, y, 1.0e-14);
+        }
+    }
+
+    @Test
+    public void testScal() {
+        for (int n = 0; n < 40; ++n) {
+            double[] x = TestUtils.randomData(n + 3);
+            double[] expected = x.clone();
+            for (int i = 0; i < n; ++i) {
+                expected[i + 3] *= -1.25;
+            }
+            simd.scal(n, -1.25, x, 3);
+            assertArrayEquals(expected, x, 0.0);
+        }
+    }
+
+    @Test
+    public void testUgemm() {
+        int kc = 13;
+        for (int[] shape : SHAPES) {
+            int mr = shape[0];
+            int nr = shape[1];
+            double[] A = TestUtils.randomData(mr * kc + 2);
+            double[] B = TestUtils.randomData(kc * nr + 1);
+            for (double beta : new double[] { 0.0, 1.0, 0.5 }) {
+                // column major and row major C with a leading dimension > mr / nr
+                for (boolean colMajor : new boolean[] { true, false }) {
+                    int incRowC = colMajor ? 1 : nr + 3;
+                    int incColC = colMajor ? mr + 3 : 1;
+                    double[] C = TestUtils.randomData(1 + mr * nr + 3 * Math.max(mr, nr));
+                    double[] expected = C.clone();
+                    for (int i = 0; i < mr; ++i) {
+                        for (int j = 0; j < nr; ++j) {
+                            double ab = 0.0;
+                            for (int l = 0; l < kc; ++l) {
+                                ab += A[2 + l * mr + i] * B[1 + l * nr + j];
+                            }
+                            int idx = 1 + i * incRowC + j * incColC;
+                            expected[idx] = (beta == 0.0 ? 0.0 : beta * expected[idx]) + 1.5 * ab;
+                        }
+                    }
+                    // C must be contiguous along the accumulators (columns,
+                    // or rows for 4x8), else the kernel declines
+                    boolean contiguous = colMajor || nr == 8;
+                    double[] original = C.clone();
+                    assertEquals(contiguous, simd.ugemm(mr, nr, kc, 1.5, 2, A, 1, B, beta, 1, C, incRowC, incColC));
+                    assertArrayEquals(contiguous ? expected : original, C, 1.0e-12);
+                }
+            }
+        }
+        assertFalse(simd.ugemm(6, 8, kc, 1.0, 0, new double[48 * kc], 0, new double[48 * kc], 0.0, 0,
+                new double[48], 1, 6));
+    }
+
+    @Test
+    public void testGemmWithServiceLoadedKernels() {
+        int m = 41;
+        int n = 37;
+        int k = 29;
+        double[] A = TestUtils.randomData(m * k);
+        double[] B = TestUtils.randomData(k * n);
+        for (int[] shape : SHAPES) {
+            double[] C = TestUtils.randomData(m * n);
+            double[] expected = C.clone();
+            for (int j = 0; j < n; ++j) {
+                for (int i = 0; i < m; ++i) {
+                    double ab = 0.0;
+                    for (int l = 0; l < k; ++l) {
+                        ab += A[i + l * m] * B[l + j * k];
+                    }
+                    expected[i + j * m] = 0.5 * expected[i + j * m] + 2.0 * ab;
+                }
+            }
+            Gemm.gemm(m, n, k, 2.0, 0, A, 1, m, 0, B, 1, k, 0.5, 0, C, 1, m,
+                    new BlockSizes(shape[0], shape[1], 16, 8, 32), new GemmWorkspace());
+            assertArrayEquals(expected, C, 1.0e-12);
+        }
+    }
+}